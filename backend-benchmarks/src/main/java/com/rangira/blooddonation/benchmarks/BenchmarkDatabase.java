@@ -0,0 +1,81 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.rangira.blooddonation.model.BloodDonation;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Real connection pool and database for the benchmarks that touch JDBC. The URL
+ * defaults to H2 in the benchmark's @Param; pass -p jdbcUrl=jdbc:postgresql://...
+ * (plus jdbcUser/jdbcPassword) to measure against a real PostgreSQL, which is
+ * the only way to see network round trips and commit fsyncs in the numbers.
+ */
+final class BenchmarkDatabase {
+
+    static final String INSERT_DONATION = "INSERT INTO bench_donations "
+            + "(blood_type, amount, available, donation_date, expiry_date, location, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private BenchmarkDatabase() {
+    }
+
+    static HikariDataSource pool(String jdbcUrl, String user, String password, int maximumPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(maximumPoolSize);
+        config.setConnectionTimeout(30_000);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * (Re)create the bench_donations table with the columns of donations and
+     * insert seedRows rows. DDL that H2 and PostgreSQL both accept.
+     */
+    static void createDonations(HikariDataSource dataSource, int seedRows) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_donations");
+            statement.execute("CREATE TABLE bench_donations ("
+                    + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "blood_type VARCHAR(5) NOT NULL, "
+                    + "amount INT NOT NULL, "
+                    + "available BOOLEAN NOT NULL, "
+                    + "donation_date DATE, "
+                    + "expiry_date DATE, "
+                    + "location VARCHAR(255), "
+                    + "notes VARCHAR(1000))");
+            statement.execute("CREATE INDEX bench_donations_type_available ON bench_donations (blood_type, available)");
+        }
+        if (seedRows > 0) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_DONATION)) {
+                    for (BloodDonation donation : Fixtures.donations(seedRows)) {
+                        bind(insert, donation);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+                connection.commit();
+            }
+        }
+    }
+
+    static void bind(PreparedStatement insert, BloodDonation donation) throws SQLException {
+        insert.setString(1, donation.getBloodType());
+        insert.setInt(2, donation.getAmount());
+        insert.setBoolean(3, donation.getAvailable());
+        insert.setDate(4, Date.valueOf(donation.getDonationDate()));
+        insert.setDate(5, Date.valueOf(donation.getExpiryDate()));
+        insert.setString(6, donation.getLocation());
+        insert.setString(7, donation.getNotes());
+    }
+}
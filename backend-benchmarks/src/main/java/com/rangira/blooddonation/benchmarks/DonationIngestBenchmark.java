@@ -0,0 +1,114 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.util.MicroBatcher;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Donation ingestion with one transaction per donation ("direct", limited by
+ * the connection pool) vs the write-behind MicroBatcher at different batch
+ * sizes. Both insert into a real table through HikariCP and commit; the
+ * batcher flushes each batch as one JDBC batch in one transaction.
+ *
+ * The default is an H2 file database, whose commits are cheap local writes, so
+ * the gap between the modes here is a lower bound. The commit round trip that
+ * write-behind is meant to amortise only shows against PostgreSQL:
+ * java -jar target/benchmarks.jar DonationIngestBenchmark -p jdbcUrl=jdbc:postgresql://host/db -p jdbcUser=... -p jdbcPassword=...
+ *
+ * Throughput gives the ops/s curve and SampleTime the acknowledgement latency
+ * percentiles for each batch size:
+ * java -jar target/benchmarks.jar DonationIngestBenchmark -t 64
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class DonationIngestBenchmark {
+
+    // "direct" is one transaction per donation; a number is the write-behind batch size
+    @Param({"direct", "1", "8", "32", "128"})
+    private String batchSize;
+
+    @Param({"10"})
+    private int maxDelayMillis;
+
+    // Hikari default maximum-pool-size
+    @Param({"10"})
+    private int poolSize;
+
+    @Param({"jdbc:h2:file:./target/bench-ingest;DB_CLOSE_DELAY=-1"})
+    private String jdbcUrl;
+
+    @Param({"sa"})
+    private String jdbcUser;
+
+    @Param({"sa"})
+    private String jdbcPassword;
+
+    private HikariDataSource dataSource;
+    private MicroBatcher<BloodDonation, BloodDonation> batcher;
+    private List<BloodDonation> donations;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws SQLException {
+        dataSource = BenchmarkDatabase.pool(jdbcUrl, jdbcUser, jdbcPassword, poolSize);
+        BenchmarkDatabase.createDonations(dataSource, 0);
+        donations = Fixtures.donations(1024);
+        if (!"direct".equals(batchSize)) {
+            batcher = new MicroBatcher<>("benchmark-write-behind", 10_000, Integer.parseInt(batchSize), maxDelayMillis,
+                    rows -> {
+                        insert(rows);
+                        return rows;
+                    });
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (batcher != null) {
+            batcher.close();
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    public BloodDonation ingest() throws Exception {
+        BloodDonation donation = donations.get(Math.floorMod(next.getAndIncrement(), donations.size()));
+        if (batcher == null) {
+            insert(List.of(donation));
+            return donation;
+        }
+        return batcher.submit(donation, 1_000).get();
+    }
+
+    private void insert(List<BloodDonation> rows) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(BenchmarkDatabase.INSERT_DONATION)) {
+                for (BloodDonation row : rows) {
+                    BenchmarkDatabase.bind(insert, row);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Donation insert failed", e);
+        }
+    }
+}
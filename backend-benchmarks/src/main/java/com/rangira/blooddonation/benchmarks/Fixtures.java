@@ -0,0 +1,80 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Realistic-looking entities for the benchmarks, generated from a fixed seed.
+ */
+final class Fixtures {
+
+    static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    static final String[] URGENCIES = {"Low", "Medium", "High"};
+    static final String[] STATUSES = {"Pending", "Fulfilled", "Cancelled"};
+    static final String[] LOCATIONS = {"Kigali", "Huye", "Musanze", "Rubavu", "Nyagatare", "Rwamagana"};
+    static final String[] HOSPITALS = {"CHUK", "King Faisal Hospital", "CHUB", "Ruhengeri Hospital", "Rwanda Military Hospital"};
+
+    private Fixtures() {
+    }
+
+    static User user(long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z9Q6Tk6eS6cNZBqTnQo1Gq3e");
+        user.setRole(role);
+        user.setBloodType(BLOOD_TYPES[(int) (id % BLOOD_TYPES.length)]);
+        user.setAge(18 + (int) (id % 47));
+        user.setContact("+25078" + String.format("%07d", id));
+        return user;
+    }
+
+    static List<BloodDonation> donations(int count) {
+        Random random = new Random(42);
+        List<BloodDonation> donations = new ArrayList<>(count);
+        LocalDate today = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < count; i++) {
+            BloodDonation donation = new BloodDonation();
+            donation.setId((long) i + 1);
+            donation.setBloodType(BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)]);
+            donation.setAmount(1 + random.nextInt(2));
+            donation.setAvailable(random.nextBoolean());
+            donation.setDonationDate(today.minusDays(random.nextInt(40)));
+            donation.setExpiryDate(donation.getDonationDate().plusDays(42));
+            donation.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+            donation.setNotes("Routine donation, donor reported no issues");
+            donation.setDonor(user(random.nextInt(10_000), "DONOR"));
+            donations.add(donation);
+        }
+        return donations;
+    }
+
+    static List<BloodRequest> requests(int count) {
+        Random random = new Random(7);
+        List<BloodRequest> requests = new ArrayList<>(count);
+        LocalDate today = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < count; i++) {
+            BloodRequest request = new BloodRequest();
+            request.setId((long) i + 1);
+            request.setBloodType(BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)]);
+            request.setAmount(1 + random.nextInt(4));
+            request.setUrgency(URGENCIES[random.nextInt(URGENCIES.length)]);
+            request.setRequesterName("Dr. Requester " + random.nextInt(500));
+            request.setHospitalName(HOSPITALS[random.nextInt(HOSPITALS.length)]);
+            request.setReason("Scheduled surgery requiring transfusion support");
+            request.setRequestDate(today.minusDays(random.nextInt(30)));
+            request.setNeededByDate(today.plusDays(random.nextInt(14)));
+            request.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            request.setRequester(user(random.nextInt(10_000), "USER"));
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,48 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.model.BloodRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    // 10 = /recent, 100 = a typical filtered list, 1000 = unpaged admin list
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<BloodDonation> donations;
+    private List<BloodRequest> requests;
+
+    @Setup
+    public void setUp() {
+        // Same date handling as the Spring Boot auto-configured mapper
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        donations = Fixtures.donations(size);
+        requests = Fixtures.requests(size);
+    }
+
+    @Benchmark
+    public byte[] donations() throws Exception {
+        return objectMapper.writeValueAsBytes(donations);
+    }
+
+    @Benchmark
+    public byte[] requests() throws Exception {
+        return objectMapper.writeValueAsBytes(requests);
+    }
+}
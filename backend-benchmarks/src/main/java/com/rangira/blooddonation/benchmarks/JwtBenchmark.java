@@ -0,0 +1,39 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        user = Fixtures.user(1, "DONOR");
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    // extractAllClaims is private; extractClaim is the public path that runs it
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractClaim(token, claims -> claims);
+    }
+}
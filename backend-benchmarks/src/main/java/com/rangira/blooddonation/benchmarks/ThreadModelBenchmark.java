@@ -0,0 +1,143 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.rangira.blooddonation.util.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Platform request pool vs virtual thread per request with {@code clients}
+ * requests in flight. Each request runs a real query through HikariCP, with the
+ * virtual model behind ConnectionLimitingDataSource as in the virtual-threads
+ * profile, then waits {@code remoteMillis} for an outbound call such as SMTP
+ * (0 leaves only the JDBC part).
+ *
+ * With the default in-memory H2 the query costs CPU, not a round trip, so these
+ * numbers compare scheduling and pool contention only. Whether virtual threads
+ * pay off against the real database needs a run against PostgreSQL:
+ * java -jar target/benchmarks.jar ThreadModelBenchmark -p jdbcUrl=jdbc:postgresql://host/db -p jdbcUser=... -p jdbcPassword=...
+ *
+ * The virtual model needs a JDK 21 runtime. Compare memory with the gc profiler:
+ * java -jar target/benchmarks.jar ThreadModelBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class ThreadModelBenchmark {
+
+    private static final int CLIENTS = 5000;
+
+    private static final String QUERY = "SELECT COUNT(*) FROM bench_donations WHERE blood_type = ? AND available = TRUE";
+
+    @Param({"platform", "virtual"})
+    private String threadModel;
+
+    // Tomcat's default server.tomcat.threads.max
+    @Param({"200"})
+    private int platformThreads;
+
+    // Hikari default maximum-pool-size
+    @Param({"10"})
+    private int poolSize;
+
+    // virtual-threads.jdbc.max-concurrency
+    @Param({"20"})
+    private int jdbcPermits;
+
+    @Param({"0", "20"})
+    private int remoteMillis;
+
+    @Param({"jdbc:h2:mem:thread-model;DB_CLOSE_DELAY=-1"})
+    private String jdbcUrl;
+
+    @Param({"sa"})
+    private String jdbcUser;
+
+    @Param({"sa"})
+    private String jdbcPassword;
+
+    @Param({"10000"})
+    private int seedRows;
+
+    private ExecutorService executor;
+    private HikariDataSource pool;
+    private DataSource dataSource;
+
+    @Setup
+    public void setUp() throws Exception {
+        pool = BenchmarkDatabase.pool(jdbcUrl, jdbcUser, jdbcPassword, poolSize);
+        BenchmarkDatabase.createDonations(pool, seedRows);
+        if ("virtual".equals(threadModel)) {
+            dataSource = new ConnectionLimitingDataSource(pool, jdbcPermits, 30_000);
+            // Reflective so the module still compiles for Java 17
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } else {
+            dataSource = pool;
+            executor = Executors.newFixedThreadPool(platformThreads);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public long serveConcurrentClients() throws Exception {
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long[] found = new long[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            int client = i;
+            executor.execute(() -> {
+                try {
+                    found[client] = handleRequest(Fixtures.BLOOD_TYPES[client % Fixtures.BLOOD_TYPES.length]);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failure.get() != null) {
+            // A timed-out permit or pool acquire is a result too, but not one to report as throughput
+            throw failure.get();
+        }
+        return found[CLIENTS - 1];
+    }
+
+    private long handleRequest(String bloodType) throws SQLException, InterruptedException {
+        long count;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement query = connection.prepareStatement(QUERY)) {
+            query.setString(1, bloodType);
+            try (ResultSet rows = query.executeQuery()) {
+                rows.next();
+                count = rows.getLong(1);
+            }
+        }
+        if (remoteMillis > 0) {
+            Thread.sleep(remoteMillis);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,53 @@
+package com.rangira.blooddonation.benchmarks;
+
+import com.rangira.blooddonation.validator.DomainValidators;
+import com.rangira.blooddonation.validator.EmailValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    // Mix of valid, lower-case, padded and invalid input as seen from clients
+    private final String[] bloodTypes = {"O+", "ab-", " B+ ", "O-", "C+", "AB+", "", "a-"};
+    private final String[] urgencies = {"High", "low", "Medium", "urgent", " high "};
+    private final String[] statuses = {"Pending", "fulfilled", "Cancelled", "Overdue", "done"};
+    private final String[] emails = {"donor@example.com", "not-an-email", "first.last+tag@hospital.rw"};
+
+    private final EmailValidator emailValidator = new EmailValidator();
+
+    @Benchmark
+    public void bloodType(Blackhole blackhole) {
+        for (String value : bloodTypes) {
+            blackhole.consume(DomainValidators.isValidBloodType(value));
+        }
+    }
+
+    @Benchmark
+    public void urgency(Blackhole blackhole) {
+        for (String value : urgencies) {
+            blackhole.consume(DomainValidators.isValidUrgency(value));
+        }
+    }
+
+    @Benchmark
+    public void requestStatus(Blackhole blackhole) {
+        for (String value : statuses) {
+            blackhole.consume(DomainValidators.isValidRequestStatus(value));
+        }
+    }
+
+    @Benchmark
+    public void email(Blackhole blackhole) {
+        for (String value : emails) {
+            blackhole.consume(emailValidator.isValid(value, null));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.rangira.blooddonation.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for the slow stages of the auth and email endpoints, so those
+ * requests give their Tomcat thread back while BCrypt or SMTP is running,
+ * for background report jobs and for rebuilding the in-memory indexes.
+ */
+@Configuration
+public class AsyncConfig {
+
+    // BCrypt is CPU bound: one thread per core, bounded queue
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${async.password.pool-size:0}") int poolSize,
+            @Value("${async.password.queue-capacity:200}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return executor("bcrypt-", threads, queueCapacity);
+    }
+
+    // SMTP is network bound: more threads than cores
+    @Bean(name = "mailExecutor")
+    public ThreadPoolTaskExecutor mailExecutor(
+            @Value("${async.mail.pool-size:16}") int poolSize,
+            @Value("${async.mail.queue-capacity:1000}") int queueCapacity) {
+        return executor("mail-", poolSize, queueCapacity);
+    }
+
+    // Runs report jobs (each streams its rows); caps concurrent jobs
+    @Bean(name = "reportExecutor")
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${reports.concurrent-jobs:2}") int concurrentJobs,
+            @Value("${reports.queue-capacity:20}") int queueCapacity) {
+        return executor("report-job-", concurrentJobs, queueCapacity);
+    }
+
+    // Folds report chunks for all running jobs: one thread per core in total, not per job.
+    // A job has at most 3 chunks per worker in flight, so the queue holds every running job's chunks
+    @Bean(name = "reportWorkerExecutor")
+    public ThreadPoolTaskExecutor reportWorkerExecutor(
+            @Value("${reports.workers:0}") int workers,
+            @Value("${reports.concurrent-jobs:2}") int concurrentJobs) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return executor("report-worker-", threads, concurrentJobs * threads * 3);
+    }
+
+    // Startup rebuilds of the in-memory indexes run blocking JDBC; keep them off the common ForkJoinPool
+    @Bean(name = "rebuildExecutor")
+    public ThreadPoolTaskExecutor rebuildExecutor(
+            @Value("${async.rebuild.pool-size:2}") int poolSize,
+            @Value("${async.rebuild.queue-capacity:50}") int queueCapacity) {
+        return executor("rebuild-", poolSize, queueCapacity);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String prefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rangira.blooddonation.config;
+
+import com.rangira.blooddonation.service.SlowQueryLog;
+import com.rangira.blooddonation.util.SqlStatementInspector;
+import com.rangira.blooddonation.util.SqlTimingDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@Configuration
+public class SqlMonitoringConfig {
+
+    // Static so the post-processor does not pull this configuration in early
+    @Bean
+    public static BeanPostProcessor sqlTimingDataSourcePostProcessor(
+            ObjectProvider<SlowQueryLog> slowQueryLog,
+            @Value("${sql.monitor.enabled:true}") boolean enabled) {
+        // Resolve the log once; the supplier is called on every statement
+        AtomicReference<SlowQueryLog> resolved = new AtomicReference<>();
+        Supplier<SlowQueryLog> log = () -> {
+            SlowQueryLog current = resolved.get();
+            if (current == null) {
+                current = slowQueryLog.getIfAvailable();
+                resolved.set(current);
+            }
+            return current;
+        };
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Wrap the real pools only, not the routing/lazy proxies in front of them
+                if (enabled && bean instanceof DataSource && !Proxy.isProxyClass(bean.getClass())
+                        && !(bean instanceof LazyConnectionDataSourceProxy) && !(bean instanceof AbstractRoutingDataSource)) {
+                    return SqlTimingDataSource.wrap((DataSource) bean, log);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+    }
+}
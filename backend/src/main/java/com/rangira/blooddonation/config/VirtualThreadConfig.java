@@ -0,0 +1,38 @@
+package com.rangira.blooddonation.config;
+
+import com.rangira.blooddonation.util.ConnectionLimitingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Extra wiring for spring.threads.virtual.enabled=true (the virtual-threads profile).
+ * Boot itself moves Tomcat, @Async and @Scheduled onto virtual threads; this adds
+ * the JDBC concurrency limit that the platform thread pool used to imply.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(
+            @Value("${virtual-threads.jdbc.max-concurrency:20}") int maxConcurrency,
+            @Value("${virtual-threads.jdbc.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionLimitingDataSource)
+                        && !(bean instanceof LazyConnectionDataSourceProxy) && !(bean instanceof AbstractRoutingDataSource)) {
+                    return new ConnectionLimitingDataSource((DataSource) bean, maxConcurrency, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -2,8 +2,11 @@ package com.rangira.blooddonation.controller;
 
 import com.rangira.blooddonation.service.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
@@ -23,6 +26,37 @@ public class AdminController {
         );
     }
 
+    // Journal health plus the projections rebuilt from it
+    @GetMapping("/journal")
+    public Map<String, Object> getJournal() {
+        return adminService.journalOverview();
+    }
+
+    // Slowest normalized statements seen since startup or the last reset
+    @GetMapping("/slow-queries")
+    public Map<String, Object> getSlowQueries() {
+        return adminService.slowQueries();
+    }
+
+    // Days of supply per blood type at forecast demand; per hospital for one blood type
+    @GetMapping("/forecast")
+    public Map<String, Object> getForecast(@RequestParam(required = false) String bloodType) {
+        return adminService.demandForecast(bloodType);
+    }
+
+    // Creation-to-fulfillment percentiles per urgency; per hospital with ?urgency= and/or ?hospital=
+    @GetMapping("/lead-times")
+    public Map<String, Object> getLeadTimes(@RequestParam(required = false) String urgency,
+                                            @RequestParam(required = false) String hospital) {
+        return adminService.leadTimes(urgency, hospital);
+    }
+
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<?> resetSlowQueries() {
+        adminService.resetSlowQueries();
+        return ResponseEntity.noContent().build();
+    }
+
     record SummaryResponse(
             long totalUsers,
             long totalAppointments,
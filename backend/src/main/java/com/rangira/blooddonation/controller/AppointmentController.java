@@ -1,6 +1,7 @@
 package com.rangira.blooddonation.controller;
 
 import com.rangira.blooddonation.model.Appointment;
+import com.rangira.blooddonation.model.AppointmentSlot;
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.service.AppointmentService;
 import com.rangira.blooddonation.service.UserService;
@@ -10,11 +11,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @RestController
 @RequestMapping("/api/appointments")
 public class AppointmentController {
@@ -27,12 +35,83 @@ public class AppointmentController {
 
     // Normal user books an appointment
     @PostMapping("/book")
-    public Appointment bookAppointment(@RequestBody Appointment appointment, Authentication authentication) {
+    public ResponseEntity<?> bookAppointment(@RequestBody Appointment appointment, Authentication authentication) {
         User user = userService.findByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         appointment.setUser(user);
-        return appointmentService.createAppointment(appointment);
+        try {
+            return ResponseEntity.ok(appointmentService.createAppointment(appointment));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // User cancels one of their appointments, freeing the place in its slot
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelAppointment(@PathVariable Long id, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(appointmentService.cancelAppointment(id, authentication.getName()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid state: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    // Admin opens a bookable slot at a location
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/slots")
+    public ResponseEntity<?> createSlot(@RequestBody AppointmentSlot slot) {
+        try {
+            return ResponseEntity.ok(appointmentService.createSlot(slot));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        }
+    }
+
+    // Earliest slot with a free place at a location
+    @GetMapping("/slots/next")
+    public ResponseEntity<?> nextFreeSlot(
+            @RequestParam String location,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time) {
+
+        LocalDate fromDate = from != null ? from : LocalDate.now();
+        LocalTime fromTime = time != null ? time : (from == null ? LocalTime.now() : LocalTime.MIN);
+        return appointmentService.findNextFreeSlot(location, fromDate, fromTime)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("No free slot at " + location));
+    }
+
+    // Free capacity per day at a location, e.g. the next 14 days
+    @GetMapping("/calendar")
+    public ResponseEntity<?> calendar(
+            @RequestParam String location,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "14") int days) {
+
+        if (days <= 0 || days > 366) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("days must be between 1 and 366");
+        }
+        LocalDate start = from != null ? from : LocalDate.now();
+        return ResponseEntity.ok(appointmentService.getAvailability(location, start, start.plusDays(days - 1)));
+    }
+
+    // Staff view of appointments at a location over a date range
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/range")
+    public ResponseEntity<?> appointmentsInRange(
+            @RequestParam String location,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        if (to.isBefore(from)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("End date cannot be before start date");
+        }
+        return ResponseEntity.ok(appointmentService.getAppointmentsByLocation(location, from, to));
     }
 
     // User can view their own appointments
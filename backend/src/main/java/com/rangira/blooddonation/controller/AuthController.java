@@ -8,6 +8,7 @@ import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.service.AuthService;
 import com.rangira.blooddonation.service.OTPService;
 import com.rangira.blooddonation.service.UserService;
+import com.rangira.blooddonation.util.AsyncStages;
 import com.rangira.blooddonation.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
@@ -16,6 +17,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/auth")
@@ -27,6 +29,9 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AuthService authService;
+
     @Autowired
     private OTPService otpService;
 
@@ -36,19 +41,21 @@ public class AuthController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
-    // ✅ REGISTER endpoint
+    // ✅ REGISTER endpoint (password hashing runs on the BCrypt executor)
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest registerRequest) {
         System.out.println("Received request: " + registerRequest.toString());
 
         Optional<User> existingUser = userService.findByUsername(registerRequest.getUsername());
         if (existingUser.isPresent()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Username already exists.");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Username already exists."));
         }
 
         Optional<User> existingEmail = userService.findByEmail(registerRequest.getEmail());
         if (existingEmail.isPresent()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email already exists.");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email already exists."));
         }
 
         // Validate role or default to USER
@@ -58,40 +65,21 @@ public class AuthController {
                              !role.equalsIgnoreCase("ADMIN"))) {
             role = "USER";
         }
+        registerRequest.setRole(role.toUpperCase());
 
-        User newUser = new User();
-        newUser.setUsername(registerRequest.getUsername());
-        newUser.setEmail(registerRequest.getEmail());
-        newUser.setPassword(userService.encodePassword(registerRequest.getPassword()));
-        newUser.setRole(role.toUpperCase());
-
-        // If role is donor, set donor-specific fields
-        if (role.equalsIgnoreCase("DONOR")) {
-            newUser.setAge(registerRequest.getAge());
-            newUser.setContact(registerRequest.getContact());
-            newUser.setBloodType(registerRequest.getBloodType());
-        }
-
-        userService.save(newUser);
-        return ResponseEntity.status(HttpStatus.CREATED).body("User registered successfully as " + newUser.getRole());
+        return authService.register(registerRequest)
+                .<ResponseEntity<?>>thenApply(newUser -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body("User registered successfully as " + newUser.getRole()))
+                .exceptionally(AuthController::asyncFailure);
     }
 
-    // ✅ Step 1: Login with username & password, send OTP
+    // ✅ Step 1: Login with username & password, send OTP (BCrypt and SMTP off the request thread)
     @PostMapping("/login")
-    public ResponseEntity<?> loginStep1(@RequestBody AuthRequest authRequest) {
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
-            );
-        } catch (BadCredentialsException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
-        }
-
-        User user = userService.findByUsername(authRequest.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        otpService.generateAndSendOtp(user);
-        return ResponseEntity.ok("OTP sent to your email. Please verify to complete login.");
+    public CompletableFuture<ResponseEntity<?>> loginStep1(@RequestBody AuthRequest authRequest) {
+        return authService.authenticateAsync(authRequest.getUsername(), authRequest.getPassword())
+                .thenCompose(user -> otpService.generateAndSendOtpAsync(user))
+                .<ResponseEntity<?>>thenApply(sent -> ResponseEntity.ok("OTP sent to your email. Please verify to complete login."))
+                .exceptionally(AuthController::asyncFailure);
     }
 
     // ✅ Step 2: Verify OTP and return JWT token
@@ -120,14 +108,16 @@ public class AuthController {
  
     // ✅ Request password reset (send OTP)
     @PostMapping("/request-reset")
-    public ResponseEntity<String> requestPasswordReset(@RequestParam String email) {
+    public CompletableFuture<ResponseEntity<?>> requestPasswordReset(@RequestParam String email) {
         Optional<User> userOpt = userService.findByEmail(email);
         if (userOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User with that email not found.");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.NOT_FOUND).body("User with that email not found."));
         }
 
-        otpService.generateAndSendOtp(userOpt.get());
-        return ResponseEntity.ok("OTP has been sent to your email.");
+        return otpService.generateAndSendOtpAsync(userOpt.get())
+                .<ResponseEntity<?>>thenApply(sent -> ResponseEntity.ok("OTP has been sent to your email."))
+                .exceptionally(AuthController::asyncFailure);
     }
 
     // ✅ Reset password using OTP
@@ -150,4 +140,19 @@ public ResponseEntity<String> resetPassword(@RequestBody ResetPasswordRequest re
     userService.save(user);
 
     return ResponseEntity.ok("Password reset successful.");
-}}
+}
+
+    private static ResponseEntity<?> asyncFailure(Throwable ex) {
+        Throwable cause = AsyncStages.unwrap(ex);
+        if (cause instanceof BadCredentialsException) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+        }
+        if (cause instanceof UsernameNotFoundException) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+        }
+        if (AsyncStages.isOverloaded(cause)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Service busy, please try again.");
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + cause.getMessage());
+    }
+}
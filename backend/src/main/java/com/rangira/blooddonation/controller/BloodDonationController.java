@@ -1,7 +1,10 @@
 package com.rangira.blooddonation.controller;
 
+import com.rangira.blooddonation.dto.BulkDonationSelection;
+import com.rangira.blooddonation.dto.BulkResult;
 import com.rangira.blooddonation.model.BloodDonation;
 import com.rangira.blooddonation.service.BloodDonationService;
+import com.rangira.blooddonation.service.DonationWriteBehind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +20,8 @@ import javax.validation.Valid;
 import java.util.List;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 
 @RestController
@@ -28,6 +33,9 @@ public class BloodDonationController {
     @Autowired
     private BloodDonationService bloodDonationService;
 
+    @Autowired
+    private DonationWriteBehind donationWriteBehind;
+
     private static final Logger logger = LoggerFactory.getLogger(BloodDonationController.class);
 
     // Get all donations (Admin only)
@@ -52,12 +60,21 @@ public class BloodDonationController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
             
-            BloodDonation savedDonation = bloodDonationService.createDonation(bloodDonation, username);
+            BloodDonation savedDonation = donationWriteBehind.accepts()
+                    ? donationWriteBehind.ingest(bloodDonation, username)
+                    : bloodDonationService.createDonation(bloodDonation, username);
             return ResponseEntity.ok(savedDonation);
         } catch (IllegalArgumentException e) {
             logger.error("Validation error in donation", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Validation error: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Donation queue full, asking client to retry");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Service busy, please try again.");
+        } catch (TimeoutException e) {
+            logger.warn("Donation for {} not acknowledged in time", SecurityContextHolder.getContext().getAuthentication().getName());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Donation not confirmed yet, check your donations before retrying.");
         } catch (Exception e) {
             logger.error("Error saving blood donation", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -176,6 +193,24 @@ public class BloodDonationController {
         }
     }
 
+    // Mark many donations as used at once, by ids or by filter (Admin only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/bulk/mark-used")
+    public ResponseEntity<?> bulkMarkUsed(@RequestBody BulkDonationSelection selection) {
+        try {
+            BulkResult result = bloodDonationService.bulkMarkUsed(selection);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk mark-used selection", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Validation error: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error in bulk mark-used", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error in bulk mark-used: " + e.getMessage());
+        }
+    }
+
     // Get recent donations
     @PreAuthorize("hasRole('USER') or hasRole('DONOR') or hasRole('ADMIN')")
     @GetMapping("/recent")
@@ -1,5 +1,7 @@
 package com.rangira.blooddonation.controller;
 
+import com.rangira.blooddonation.dto.BulkRequestSelection;
+import com.rangira.blooddonation.dto.BulkResult;
 import com.rangira.blooddonation.model.BloodRequest;
 import com.rangira.blooddonation.service.BloodRequestService;
 import org.slf4j.Logger;
@@ -150,6 +152,42 @@ public class BloodRequestController {
         }
     }
 
+    // Fulfill many requests at once, by ids or by filter (Admin only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/bulk/fulfill")
+    public ResponseEntity<?> bulkFulfill(@RequestBody BulkRequestSelection selection) {
+        try {
+            BulkResult result = bloodRequestService.bulkFulfill(selection);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk fulfill selection", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Validation error: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error in bulk fulfill", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error in bulk fulfill: " + e.getMessage());
+        }
+    }
+
+    // Cancel many requests at once, by ids or by filter (Admin only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/bulk/cancel")
+    public ResponseEntity<?> bulkCancel(@RequestBody BulkRequestSelection selection) {
+        try {
+            BulkResult result = bloodRequestService.bulkCancel(selection);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk cancel selection", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Validation error: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error in bulk cancel", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error in bulk cancel: " + e.getMessage());
+        }
+    }
+
     // Get requests by blood type
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     @GetMapping("/blood-type/{bloodType}")
@@ -254,6 +292,8 @@ public class BloodRequestController {
                 "pendingCount", bloodRequestService.getRequestCountByStatus("Pending"),
                 "fulfilledCount", bloodRequestService.getRequestCountByStatus("Fulfilled"),
                 "cancelledCount", bloodRequestService.getRequestCountByStatus("Cancelled"),
+                "overdueCount", bloodRequestService.getRequestCountByStatus("Overdue"),
+                "escalatedCount", bloodRequestService.getRequestCountByStatus("Escalated"),
                 "urgentCount", bloodRequestService.getUrgentRequestCount()
             );
             return ResponseEntity.ok(stats);
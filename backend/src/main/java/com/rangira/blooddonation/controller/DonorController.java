@@ -3,6 +3,7 @@ package com.rangira.blooddonation.controller;
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.service.DonorService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,6 +27,31 @@ public class DonorController {
         return ResponseEntity.ok(donorService.getAllDonors());
     }
 
+    // Donors matching combinable filters, a page at a time; pass nextCursor back as cursor
+    @GetMapping("/directory")
+    public ResponseEntity<?> findDonors(@RequestParam(defaultValue = "") List<String> bloodType,
+                                        @RequestParam(required = false) Integer minAge,
+                                        @RequestParam(required = false) Integer maxAge,
+                                        @RequestParam(required = false) String eligibility,
+                                        @RequestParam(required = false) Long siteId,
+                                        @RequestParam(required = false) String site,
+                                        @RequestParam(required = false) Double latitude,
+                                        @RequestParam(required = false) Double longitude,
+                                        @RequestParam(required = false) Double maxKm,
+                                        @RequestParam(required = false) Long cursor,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(donorService.findDonors(bloodType, minAge, maxAge, eligibility, siteId, site,
+                    latitude, longitude, maxKm, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getDonorById(@PathVariable Long id) {
         return ResponseEntity.ok(donorService.getDonorById(id));
@@ -2,11 +2,15 @@ package com.rangira.blooddonation.controller;
 
 import com.rangira.blooddonation.dto.EmailRequest;
 import com.rangira.blooddonation.service.EmailService;
+import com.rangira.blooddonation.util.AsyncStages;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/email")
 @RequiredArgsConstructor
@@ -15,8 +19,14 @@ public class EmailController {
     private final EmailService emailService;
 
     @PostMapping("/send")
-    public ResponseEntity<String> sendEmail(@RequestBody @Valid EmailRequest request) {
-        emailService.sendEmail(request.getTo(), request.getSubject(), request.getText());
-        return ResponseEntity.ok("Email sent successfully to " + request.getTo());
+    public CompletableFuture<ResponseEntity<String>> sendEmail(@RequestBody @Valid EmailRequest request) {
+        return emailService.sendEmailAsync(request.getTo(), request.getSubject(), request.getText())
+                .thenApply(sent -> ResponseEntity.ok("Email sent successfully to " + request.getTo()))
+                .exceptionally(ex -> {
+                    Throwable cause = AsyncStages.unwrap(ex);
+                    HttpStatus status = AsyncStages.isOverloaded(cause)
+                            ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+                    return ResponseEntity.status(status).body("Failed to send email: " + cause.getMessage());
+                });
     }
 }
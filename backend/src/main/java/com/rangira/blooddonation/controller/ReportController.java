@@ -0,0 +1,140 @@
+package com.rangira.blooddonation.controller;
+
+import com.rangira.blooddonation.report.ReportJob;
+import com.rangira.blooddonation.service.DailyRollups;
+import com.rangira.blooddonation.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    @Autowired
+    private DailyRollups dailyRollups;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Value("${rollups.max-range-days:3660}")
+    private int maxRangeDays;
+
+    // Donations per day/week/month between two dates, e.g. ?groupBy=bloodType&granularity=week
+    @GetMapping("/donations")
+    public ResponseEntity<?> donations(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "") List<String> groupBy,
+            @RequestParam(required = false) String bloodType,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String status) {
+        return report(DailyRollups.Table.DONATIONS, from, to, granularity, groupBy, bloodType, location, status);
+    }
+
+    // Requests per day/week/month between two dates, e.g. ?groupBy=hospital,status&granularity=month
+    @GetMapping("/requests")
+    public ResponseEntity<?> requests(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "") List<String> groupBy,
+            @RequestParam(required = false) String bloodType,
+            @RequestParam(required = false) String hospital,
+            @RequestParam(required = false) String status) {
+        return report(DailyRollups.Table.REQUESTS, from, to, granularity, groupBy, bloodType, hospital, status);
+    }
+
+    private ResponseEntity<?> report(DailyRollups.Table table, LocalDate from, LocalDate to, String granularity,
+                                     List<String> groupBy, String bloodType, String place, String status) {
+        try {
+            if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) > maxRangeDays) {
+                throw new IllegalArgumentException("to must not be before from, and the range at most " + maxRangeDays + " days");
+            }
+            List<String> groups = groupBy.stream().map(String::trim).filter(group -> !group.isEmpty()).toList();
+            return ResponseEntity.ok(dailyRollups.query(table, from, to, granularity.toLowerCase(), groups,
+                    bloodType, place, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error building report: " + e.getMessage());
+        }
+    }
+
+    // Admin starts a background report, e.g. ?type=hospital-fulfillment&from=2024-01-01&to=2024-01-31
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestParam String type,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                       Authentication authentication) {
+        try {
+            ReportJob job = reportJobService.submit(type, from, to, authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getJobs() {
+        return ResponseEntity.ok(reportJobService.getJobs());
+    }
+
+    // Status and progress of one job
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reportJobService.getJob(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<?> cancelJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reportJobService.cancel(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    // The CSV of a finished job
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<?> downloadJob(@PathVariable String id) {
+        try {
+            Path file = reportJobService.download(id);
+            String name = reportJobService.downloadName(reportJobService.getJob(id));
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(name).build().toString())
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .body(new FileSystemResource(file));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+}
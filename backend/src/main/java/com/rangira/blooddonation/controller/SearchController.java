@@ -0,0 +1,85 @@
+package com.rangira.blooddonation.controller;
+
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.service.SearchIndex;
+import com.rangira.blooddonation.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${search.max-limit:50}")
+    private int maxLimit;
+
+    // Users, requests and donations matching every word of q (prefixes count), best first;
+    // admins search everything, anyone else only their own requests and donations
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue = "") List<String> types,
+                                    @RequestParam(defaultValue = "20") int limit,
+                                    Authentication authentication) {
+        try {
+            if (q.isBlank()) {
+                throw new IllegalArgumentException("q must not be blank");
+            }
+            if (limit < 1 || limit > maxLimit) {
+                throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+            }
+            Set<SearchIndex.Type> wanted = EnumSet.noneOf(SearchIndex.Type.class);
+            for (String type : types) {
+                if (!type.isBlank()) {
+                    try {
+                        wanted.add(SearchIndex.Type.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown type " + type + ", use user, request or donation");
+                    }
+                }
+            }
+            if (wanted.isEmpty()) {
+                wanted = EnumSet.allOf(SearchIndex.Type.class);
+            }
+            boolean admin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+            Long owner = null;
+            if (!admin) {
+                // Other people's requests and donations carry names, reasons and notes
+                wanted.remove(SearchIndex.Type.USER);
+                owner = userService.findByUsername(authentication.getName()).map(User::getId).orElse(null);
+                if (owner == null) {
+                    wanted.clear();
+                }
+            }
+
+            long started = System.nanoTime();
+            SearchIndex.Results results = searchIndex.search(q, wanted, limit, owner);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("query", q);
+            response.put("tookMs", (System.nanoTime() - started) / 1_000_000.0);
+            response.put("results", results.hits());
+            // Words that matched more terms than are searched: results may be missing, a longer word narrows it
+            response.put("truncatedPrefixes", results.truncatedPrefixes());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        }
+    }
+}
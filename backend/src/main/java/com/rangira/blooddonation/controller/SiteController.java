@@ -0,0 +1,69 @@
+package com.rangira.blooddonation.controller;
+
+import com.rangira.blooddonation.model.Site;
+import com.rangira.blooddonation.service.SiteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sites")
+public class SiteController {
+
+    @Autowired
+    private SiteService siteService;
+
+    // Hospitals and donation sites, optionally of one kind
+    @GetMapping
+    public ResponseEntity<?> getAllSites(@RequestParam(required = false) String kind) {
+        return ResponseEntity.ok(siteService.getAllSites(kind));
+    }
+
+    // Admin registers a site
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<?> createSite(@RequestBody Site site) {
+        try {
+            return ResponseEntity.ok(siteService.createSite(site));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error creating site: " + e.getMessage());
+        }
+    }
+
+    // Admin renames a site or places it on the map
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateSite(@PathVariable Long id, @RequestBody Site site) {
+        try {
+            return ResponseEntity.ok(siteService.updateSite(id, site));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    // Closest sites holding units a patient of the blood type can receive
+    @GetMapping("/nearest-stock")
+    public ResponseEntity<?> nearestStock(@RequestParam String bloodType,
+                                          @RequestParam(required = false) Long siteId,
+                                          @RequestParam(required = false) String hospital,
+                                          @RequestParam(required = false) Double latitude,
+                                          @RequestParam(required = false) Double longitude,
+                                          @RequestParam(defaultValue = "1") int minUnits,
+                                          @RequestParam(defaultValue = "5") int limit,
+                                          @RequestParam(required = false) Double maxKm) {
+        try {
+            return ResponseEntity.ok(siteService.findNearestStock(siteId, hospital, latitude, longitude,
+                    bloodType, minUnits, limit, maxKm));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.rangira.blooddonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Donations to act on in a bulk operation: either explicit ids, or a filter
+ * over available units (all set fields must match).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDonationSelection {
+    private List<Long> ids;
+    private String bloodType;
+    private String location;
+    private Integer olderThanDays; // donation date more than this many days ago
+}
@@ -0,0 +1,22 @@
+package com.rangira.blooddonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Requests to act on in a bulk operation: either explicit ids, or a filter
+ * (all set fields must match). Exactly one of the two may be given.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRequestSelection {
+    private List<Long> ids;
+    private String hospitalName;
+    private String status;
+    private String bloodType;
+    private Integer olderThanDays; // request date more than this many days ago
+}
@@ -0,0 +1,17 @@
+package com.rangira.blooddonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResult {
+    private int selected;
+    private List<Long> succeeded;
+    private Map<Long, String> failed; // id -> reason, same wording as the single-item endpoints
+}
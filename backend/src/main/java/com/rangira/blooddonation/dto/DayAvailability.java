@@ -0,0 +1,19 @@
+package com.rangira.blooddonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayAvailability {
+    private LocalDate date;
+    private int capacity;
+    private int booked;
+    private int free;
+    private List<SlotAvailability> slots;
+}
@@ -0,0 +1,21 @@
+package com.rangira.blooddonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SiteStock {
+    private Long siteId;
+    private String name;
+    private String kind;
+    private Double latitude;
+    private Double longitude;
+    private double distanceKm;
+    private int units; // compatible units in total
+    private Map<String, Integer> unitsByBloodType; // compatible types only, preferred first
+}
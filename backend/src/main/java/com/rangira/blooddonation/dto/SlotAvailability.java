@@ -0,0 +1,18 @@
+package com.rangira.blooddonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotAvailability {
+    private Long slotId;
+    private LocalTime startTime;
+    private int capacity;
+    private int booked;
+    private int free;
+}
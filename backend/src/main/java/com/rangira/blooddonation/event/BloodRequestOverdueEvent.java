@@ -0,0 +1,21 @@
+package com.rangira.blooddonation.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Published when a pending request passes its needed-by date.
+ */
+@Getter
+@AllArgsConstructor
+public class BloodRequestOverdueEvent {
+    private final Long requestId;
+    private final String bloodType;
+    private final String urgency;
+    private final String hospitalName;
+    private final LocalDate neededByDate;
+    private final String newStatus; // Overdue or Escalated
+    private final String requesterEmail;
+}
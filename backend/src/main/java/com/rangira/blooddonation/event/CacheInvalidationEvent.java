@@ -0,0 +1,113 @@
+package com.rangira.blooddonation.event;
+
+import lombok.Getter;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published locally when another instance changed data that in-process caches
+ * hold. Carries the changed ids per topic; ALL in a topic means "anything of
+ * this kind may have changed". A resync event means invalidations may have
+ * been missed (listener reconnected) and every cache should be dropped.
+ *
+ * Wire format (PostgreSQL NOTIFY payload): origin|D:1,2|S:7|L:Kigali
+ */
+@Getter
+public class CacheInvalidationEvent {
+
+    public static final String ALL = "*";
+
+    public enum Topic {
+        USER('U'), DONATION('D'), REQUEST('R'), APPOINTMENT('A'), SLOT('S'), LOCATION('L'), SITE('T');
+
+        private final char code;
+
+        Topic(char code) {
+            this.code = code;
+        }
+
+        static Topic of(char code) {
+            for (Topic topic : values()) {
+                if (topic.code == code) {
+                    return topic;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String origin;
+    private final boolean resync;
+    private final Map<Topic, Set<String>> changes;
+
+    public CacheInvalidationEvent(String origin, Map<Topic, Set<String>> changes) {
+        this.origin = origin;
+        this.resync = false;
+        this.changes = changes;
+    }
+
+    private CacheInvalidationEvent(String origin) {
+        this.origin = origin;
+        this.resync = true;
+        this.changes = Collections.emptyMap();
+    }
+
+    public static CacheInvalidationEvent resync(String origin) {
+        return new CacheInvalidationEvent(origin);
+    }
+
+    /** Whether a cache of this topic has to act on the event */
+    public boolean touches(Topic topic) {
+        return resync || changes.containsKey(topic);
+    }
+
+    /** Ids changed in the topic; contains ALL when they could not all be listed */
+    public Set<String> ids(Topic topic) {
+        return resync ? Set.of(ALL) : changes.getOrDefault(topic, Set.of());
+    }
+
+    public String encode() {
+        StringBuilder payload = new StringBuilder(origin);
+        changes.forEach((topic, ids) -> {
+            payload.append('|').append(topic.code).append(':');
+            boolean first = true;
+            for (String id : ids) {
+                if (!first) {
+                    payload.append(',');
+                }
+                payload.append(URLEncoder.encode(id, StandardCharsets.UTF_8));
+                first = false;
+            }
+        });
+        return payload.toString();
+    }
+
+    public static CacheInvalidationEvent decode(String payload) {
+        String[] parts = payload.split("\\|");
+        Map<Topic, Set<String>> changes = new EnumMap<>(Topic.class);
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].length() < 2 || parts[i].charAt(1) != ':') {
+                continue;
+            }
+            Topic topic = Topic.of(parts[i].charAt(0));
+            if (topic == null) {
+                continue;
+            }
+            Set<String> ids = new LinkedHashSet<>();
+            for (String id : parts[i].substring(2).split(",")) {
+                if (!id.isEmpty()) {
+                    ids.add(URLDecoder.decode(id, StandardCharsets.UTF_8));
+                }
+            }
+            changes.put(topic, ids);
+        }
+        return new CacheInvalidationEvent(parts[0], changes);
+    }
+}
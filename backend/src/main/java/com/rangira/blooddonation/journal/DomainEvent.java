@@ -0,0 +1,37 @@
+package com.rangira.blooddonation.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * One state transition recorded in the event journal.
+ */
+@Getter
+@AllArgsConstructor
+public class DomainEvent {
+
+    public static final String SNAPSHOT = "Snapshot";
+    public static final String DONATION_CREATED = "DonationCreated";
+    public static final String DONATION_UPDATED = "DonationUpdated";
+    public static final String DONATION_USED = "DonationUsed";
+    public static final String DONATION_EXPIRED = "DonationExpired";
+    public static final String DONATION_DELETED = "DonationDeleted";
+    public static final String REQUEST_CREATED = "RequestCreated";
+    public static final String REQUEST_STATUS_CHANGED = "RequestStatusChanged";
+    public static final String REQUEST_DELETED = "RequestDeleted";
+    public static final String APPOINTMENT_BOOKED = "AppointmentBooked";
+    public static final String APPOINTMENT_STATUS_CHANGED = "AppointmentStatusChanged";
+
+    private final long sequence; // assigned by the journal writer, -1 until written
+    private final long timestamp; // epoch millis
+    private final String type;
+    private final long entityId; // -1 when the event is not about a single entity
+    private final String actor; // username, or "system" for scheduled jobs
+    private final Map<String, String> data;
+
+    public String get(String key) {
+        return data.get(key);
+    }
+}
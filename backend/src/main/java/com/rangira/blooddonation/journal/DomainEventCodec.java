@@ -0,0 +1,77 @@
+package com.rangira.blooddonation.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary layout of a journal record body:
+ * sequence, timestamp, type, entityId, actor, entry count, then key/value pairs.
+ * Strings are an unsigned short length followed by UTF-8 bytes.
+ */
+final class DomainEventCodec {
+
+    private DomainEventCodec() {
+    }
+
+    static byte[] encode(long sequence, DomainEvent event) {
+        byte[] type = utf8(event.getType());
+        byte[] actor = utf8(event.getActor());
+        byte[][] pairs = new byte[event.getData().size() * 2][];
+        int size = 8 + 8 + 2 + type.length + 8 + 2 + actor.length + 2;
+        int i = 0;
+        for (Map.Entry<String, String> entry : event.getData().entrySet()) {
+            pairs[i] = utf8(entry.getKey());
+            pairs[i + 1] = utf8(entry.getValue());
+            size += 4 + pairs[i].length + pairs[i + 1].length;
+            i += 2;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(sequence);
+        buffer.putLong(event.getTimestamp());
+        putString(buffer, type);
+        buffer.putLong(event.getEntityId());
+        putString(buffer, actor);
+        buffer.putShort((short) event.getData().size());
+        for (byte[] pair : pairs) {
+            putString(buffer, pair);
+        }
+        return buffer.array();
+    }
+
+    static DomainEvent decode(ByteBuffer buffer) {
+        long sequence = buffer.getLong();
+        long timestamp = buffer.getLong();
+        String type = getString(buffer);
+        long entityId = buffer.getLong();
+        String actor = getString(buffer);
+        int entries = Short.toUnsignedInt(buffer.getShort());
+        Map<String, String> data = new LinkedHashMap<>(entries * 2);
+        for (int i = 0; i < entries; i++) {
+            data.put(getString(buffer), getString(buffer));
+        }
+        return new DomainEvent(sequence, timestamp, type, entityId, actor, data);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Journal string too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
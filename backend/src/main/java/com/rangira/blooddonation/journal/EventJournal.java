@@ -0,0 +1,337 @@
+package com.rangira.blooddonation.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.rangira.blooddonation.util.TransactionHooks;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of domain state transitions.
+ * Services record events after their transaction commits; a single writer
+ * thread drains them in batches into memory-mapped, fixed-size segment files
+ * and rolls over to a new segment when the current one is full. On startup
+ * every segment is replayed to rebuild {@link JournalProjections}.
+ * Every committed event is also published as an application event, whether
+ * the journal is enabled or not, for components that keep their own view of
+ * the transitions.
+ * An event is never dropped: when the queue is full the committing thread
+ * waits for the writer (counted as a stall and logged), and an event that
+ * can no longer be written because the writer has stopped is logged in
+ * full and counted as lost.
+ */
+@Component
+public class EventJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventJournal.class);
+
+    @Autowired
+    private JournalProjections projections;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${journal.dir:data/journal}")
+    private String directory;
+
+    @Value("${journal.segment-size-mb:16}")
+    private int segmentSizeMb;
+
+    @Value("${journal.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${journal.batch-size:256}")
+    private int batchSize;
+
+    @Value("${journal.force-every-batch:false}")
+    private boolean forceEveryBatch;
+
+    private BlockingQueue<DomainEvent> queue;
+    private Path dir;
+    private int segmentSize;
+    private JournalSegment current;
+    private long nextSequence;
+    private int segmentCount;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean stopped;
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong stalledMs = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            logger.info("Event journal disabled");
+            return;
+        }
+
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        segmentSize = segmentSizeMb * 1024 * 1024;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        replay();
+
+        if (current == null) {
+            current = JournalSegment.create(dir, nextSequence, segmentSize);
+            segmentCount++;
+            // A fresh journal starts from the current table counts so projections are complete
+            Map<String, String> snapshot = projections.snapshotFromDatabase();
+            record(DomainEvent.SNAPSHOT, null, snapshot);
+        }
+
+        FunctionCounter.builder("blooddonation.journal.stalls", stalls, AtomicLong::get)
+                .description("Commits that waited for room in the full journal queue")
+                .register(meterRegistry);
+        FunctionCounter.builder("blooddonation.journal.lost", lost, AtomicLong::get)
+                .description("Events that could not be journaled because the writer had stopped")
+                .register(meterRegistry);
+        Gauge.builder("blooddonation.journal.queued", queue, BlockingQueue::size)
+                .description("Events waiting for the journal writer")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "event-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        stopped = true;
+        if (!writer.isAlive()) {
+            // Queued between the writer's last look at the queue and its exit
+            List<DomainEvent> left = new ArrayList<>();
+            queue.drainTo(left);
+            for (DomainEvent event : left) {
+                write(event);
+            }
+        } else if (!queue.isEmpty()) {
+            lost.addAndGet(queue.size());
+            logger.error("Event journal writer did not finish in time, {} queued events not written", queue.size());
+        }
+        current.close();
+    }
+
+    /**
+     * Record a state transition. keyValues are alternating keys and values.
+     */
+    public void record(String type, Long entityId, String... keyValues) {
+        Map<String, String> data = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            data.put(keyValues[i], keyValues[i + 1] == null ? "" : keyValues[i + 1]);
+        }
+        record(type, entityId, data);
+    }
+
+    public void record(String type, Long entityId, Map<String, String> data) {
+        recordAs(currentActor(), type, entityId, data);
+    }
+
+    /**
+     * Record a transition on behalf of a user other than the current thread's
+     * (work queued by a request and written later by a background thread).
+     */
+    public void recordAs(String actor, String type, Long entityId, String... keyValues) {
+        Map<String, String> data = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            data.put(keyValues[i], keyValues[i + 1] == null ? "" : keyValues[i + 1]);
+        }
+        recordAs(actor, type, entityId, data);
+    }
+
+    private void recordAs(String actor, String type, Long entityId, Map<String, String> data) {
+        DomainEvent event = new DomainEvent(-1, System.currentTimeMillis(), type,
+                entityId == null ? -1 : entityId, actor, data);
+
+        TransactionHooks.afterCommit(() -> {
+            if (enabled) {
+                publish(event);
+            }
+            eventPublisher.publishEvent(event);
+        });
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        if (enabled) {
+            status.put("segments", segmentCount);
+            status.put("nextSequence", nextSequence);
+            status.put("queued", queue.size());
+            status.put("stalls", stalls.get());
+            status.put("stalledMs", stalledMs.get());
+            status.put("lost", lost.get());
+        }
+        return status;
+    }
+
+    private void publish(DomainEvent event) {
+        projections.apply(event);
+        if (stopped) {
+            lose(event);
+        } else if (!queue.offer(event)) {
+            enqueueWhenThereIsRoom(event);
+        }
+    }
+
+    /**
+     * The writer is behind: wait for it rather than lose an audit record.
+     * Only an event the stopped writer can no longer take is given up, and
+     * then in full in the error log.
+     */
+    private void enqueueWhenThereIsRoom(DomainEvent event) {
+        stalls.incrementAndGet();
+        long started = System.nanoTime();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (queue.offer(event, 1, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (stopped || writer == null || !writer.isAlive()) {
+                    lose(event);
+                    return;
+                }
+                logger.warn("Event journal queue full, {} for entity {} waiting for {} ms", event.getType(),
+                        event.getEntityId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        } finally {
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            stalledMs.addAndGet(waited);
+            if (waited >= 100) {
+                logger.warn("Event journal queue was full, {} for entity {} waited {} ms for the writer",
+                        event.getType(), event.getEntityId(), waited);
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void lose(DomainEvent event) {
+        lost.incrementAndGet();
+        logger.error("Event journal writer stopped, lost {} for entity {} by {} at {}: {}", event.getType(),
+                event.getEntityId(), event.getActor(), event.getTimestamp(), event.getData());
+    }
+
+    private void replay() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.filter(path -> path.getFileName().toString().endsWith(".seg"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        long started = System.nanoTime();
+        long[] lastSequence = {-1};
+        int records = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            JournalSegment segment = JournalSegment.open(segments.get(i));
+            records += segment.replay(body -> {
+                DomainEvent event = DomainEventCodec.decode(body);
+                projections.apply(event);
+                lastSequence[0] = event.getSequence();
+            });
+            if (i == segments.size() - 1) {
+                current = segment;
+            } else {
+                segment.close();
+            }
+        }
+        segmentCount = segments.size();
+        nextSequence = lastSequence[0] + 1;
+
+        if (!segments.isEmpty()) {
+            logger.info("Replayed {} journal events from {} segments in {} ms", records, segments.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    private void writeLoop() {
+        List<DomainEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                DomainEvent first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (DomainEvent event : batch) {
+                    write(event);
+                }
+                if (forceEveryBatch) {
+                    current.force();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to write {} journal events", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(DomainEvent event) throws IOException {
+        byte[] body = DomainEventCodec.encode(nextSequence, event);
+        if (!current.append(body)) {
+            if (JournalSegment.HEADER_SIZE + JournalSegment.RECORD_HEADER_SIZE + body.length > segmentSize) {
+                logger.error("Journal event {} of {} bytes does not fit in a segment", event.getType(), body.length);
+                return;
+            }
+            current.close();
+            current = JournalSegment.create(dir, nextSequence, segmentSize);
+            segmentCount++;
+            current.append(body);
+        }
+        nextSequence++;
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "system";
+    }
+}
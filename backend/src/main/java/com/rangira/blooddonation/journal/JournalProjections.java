@@ -0,0 +1,180 @@
+package com.rangira.blooddonation.journal;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.repository.AppointmentRepository;
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters folded from the event journal: available units per blood type,
+ * requests per status and appointments per status. Rebuilt by replay at
+ * startup and kept current as events are recorded.
+ */
+@Component
+public class JournalProjections {
+
+    static final String INVENTORY = "inventory.";
+    static final String REQUESTS = "requests.";
+    static final String APPOINTMENTS = "appointments.";
+
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final String[] REQUEST_STATUSES = {"Pending", "Fulfilled", "Cancelled", "Overdue", "Escalated"};
+    private static final String[] APPOINTMENT_STATUSES = {"Pending", "Confirmed", "Completed", "Cancelled"};
+
+    @Autowired
+    private BloodDonationRepository bloodDonationRepository;
+
+    @Autowired
+    private BloodRequestRepository bloodRequestRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    public void apply(DomainEvent event) {
+        switch (event.getType()) {
+            case DomainEvent.SNAPSHOT:
+                for (Map.Entry<String, String> entry : event.getData().entrySet()) {
+                    counter(entry.getKey()).set(Long.parseLong(entry.getValue()));
+                }
+                break;
+            case DomainEvent.DONATION_CREATED:
+                if (Boolean.parseBoolean(event.get("available"))) {
+                    add(INVENTORY + bloodType(event.get("bloodType")), 1);
+                }
+                break;
+            case DomainEvent.DONATION_UPDATED:
+                if (Boolean.parseBoolean(event.get("prevAvailable"))) {
+                    add(INVENTORY + bloodType(event.get("prevBloodType")), -1);
+                }
+                if (Boolean.parseBoolean(event.get("available"))) {
+                    add(INVENTORY + bloodType(event.get("bloodType")), 1);
+                }
+                break;
+            case DomainEvent.DONATION_USED:
+            case DomainEvent.DONATION_EXPIRED:
+                add(INVENTORY + bloodType(event.get("bloodType")), -1);
+                break;
+            case DomainEvent.DONATION_DELETED:
+                if (Boolean.parseBoolean(event.get("available"))) {
+                    add(INVENTORY + bloodType(event.get("bloodType")), -1);
+                }
+                break;
+            case DomainEvent.REQUEST_CREATED:
+                add(REQUESTS + event.get("status"), 1);
+                break;
+            case DomainEvent.REQUEST_STATUS_CHANGED:
+                move(REQUESTS, event.get("from"), event.get("to"));
+                break;
+            case DomainEvent.REQUEST_DELETED:
+                add(REQUESTS + event.get("status"), -1);
+                break;
+            case DomainEvent.APPOINTMENT_BOOKED:
+                add(APPOINTMENTS + event.get("status"), 1);
+                break;
+            case DomainEvent.APPOINTMENT_STATUS_CHANGED:
+                move(APPOINTMENTS, event.get("from"), event.get("to"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Other instances changed counted rows; the counters are re-read from the
+     * database on the next resync tick rather than once per message
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (event.touches(Topic.DONATION) || event.touches(Topic.REQUEST) || event.touches(Topic.APPOINTMENT)) {
+            stale.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invalidation.projection-resync-ms:5000}")
+    public void resyncIfStale() {
+        if (stale.compareAndSet(true, false)) {
+            for (Map.Entry<String, String> entry : snapshotFromDatabase().entrySet()) {
+                counter(entry.getKey()).set(Long.parseLong(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Current counters from the database, used as the first journal entry of a fresh journal
+     */
+    public Map<String, String> snapshotFromDatabase() {
+        Map<String, String> snapshot = new LinkedHashMap<>();
+        for (String bloodType : BLOOD_TYPES) {
+            snapshot.put(INVENTORY + bloodType, String.valueOf(bloodDonationRepository.countByBloodTypeAndAvailableTrue(bloodType)));
+        }
+        for (String status : REQUEST_STATUSES) {
+            snapshot.put(REQUESTS + status, String.valueOf(bloodRequestRepository.countByStatus(status)));
+        }
+        for (String status : APPOINTMENT_STATUSES) {
+            snapshot.put(APPOINTMENTS + status, String.valueOf(appointmentRepository.countByStatus(status)));
+        }
+        return snapshot;
+    }
+
+    public Map<String, Long> inventory() {
+        return group(INVENTORY);
+    }
+
+    public Map<String, Long> requestsByStatus() {
+        return group(REQUESTS);
+    }
+
+    public Map<String, Long> appointmentsByStatus() {
+        return group(APPOINTMENTS);
+    }
+
+    private Map<String, Long> group(String prefix) {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((key, value) -> {
+            if (key.startsWith(prefix)) {
+                values.put(key.substring(prefix.length()), value.get());
+            }
+        });
+        return values;
+    }
+
+    private void move(String prefix, String from, String to) {
+        if (from != null && from.equals(to)) {
+            return;
+        }
+        if (from != null && !from.isEmpty()) {
+            add(prefix + from, -1);
+        }
+        if (to != null && !to.isEmpty()) {
+            add(prefix + to, 1);
+        }
+    }
+
+    private void add(String key, long delta) {
+        counter(key).addAndGet(delta);
+    }
+
+    private AtomicLong counter(String key) {
+        return counters.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private static String bloodType(String bloodType) {
+        return bloodType == null ? "" : bloodType.trim().toUpperCase();
+    }
+}
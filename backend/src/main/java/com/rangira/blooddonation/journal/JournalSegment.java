@@ -0,0 +1,136 @@
+package com.rangira.blooddonation.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * A fixed-size, memory-mapped journal file.
+ * Layout: 16 byte header (magic, version, base sequence) followed by records of
+ * [int length][int crc32c][body]. The length is written last, so a zero length
+ * marks the end of the data and a torn record is never mistaken for a whole one.
+ */
+final class JournalSegment implements Closeable {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAGIC = 0x424A524E;
+    private static final int VERSION = 1;
+
+    private final Path path;
+    private final long baseSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, long baseSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("journal-%020d.seg", baseSequence);
+    }
+
+    static JournalSegment create(Path dir, long baseSequence, int size) throws IOException {
+        Path path = dir.resolve(fileName(baseSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(baseSequence);
+        return new JournalSegment(path, baseSequence, channel, buffer);
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            channel.close();
+            throw new IOException("Not a journal segment: " + path);
+        }
+        long baseSequence = buffer.getLong();
+        return new JournalSegment(path, baseSequence, channel, buffer);
+    }
+
+    /**
+     * Read every intact record from the start of the segment and leave the write
+     * position just after the last one. Returns the number of records read.
+     */
+    int replay(Consumer<ByteBuffer> consumer) {
+        CRC32C crc = new CRC32C();
+        int position = HEADER_SIZE;
+        int records = 0;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            ByteBuffer body = buffer.slice(position + RECORD_HEADER_SIZE, length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break; // torn or corrupt tail, overwrite from here
+            }
+            consumer.accept(body);
+            position += RECORD_HEADER_SIZE + length;
+            records++;
+        }
+        if (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+        buffer.position(position);
+        return records;
+    }
+
+    /**
+     * Append one record, or return false if it does not fit in what is left of the segment
+     */
+    boolean append(byte[] body) {
+        int position = buffer.position();
+        if (position + RECORD_HEADER_SIZE + body.length > buffer.capacity()) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + RECORD_HEADER_SIZE, body);
+        buffer.putInt(position, body.length);
+        buffer.position(position + RECORD_HEADER_SIZE + body.length);
+        if (buffer.position() + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            buffer.putInt(buffer.position(), 0); // clear any stale length left by an earlier torn write
+        }
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getUsedBytes() {
+        return buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -4,8 +4,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_appointment_location_date", columnList = "location, appointment_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,9 +19,16 @@ public class Appointment {
 
     private String bloodType;
     private LocalDate appointmentDate;
+    private LocalTime appointmentTime; // start of the booked slot, optional when booking
     private String location;
+    @Column(name = "site_id")
+    private Long siteId; // Site the location resolved to
     private String status; // Pending, Confirmed, Completed, Cancelled
 
+    @ManyToOne
+    @JoinColumn(name = "slot_id")
+    private AppointmentSlot slot; // Null for locations that do not manage slots
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user; // Who booked this appointment (Donor)
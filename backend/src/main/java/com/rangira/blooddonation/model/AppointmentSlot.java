@@ -0,0 +1,36 @@
+package com.rangira.blooddonation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "appointment_slots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"location", "slot_date", "start_time"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentSlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String location;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(nullable = false)
+    private int capacity; // donors that can be seen in this slot
+
+    @Column(nullable = false)
+    private int booked; // only ever changed through the conditional updates in AppointmentSlotRepository
+}
@@ -10,7 +10,10 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "donations")
+@Table(name = "donations", indexes = {
+        @Index(name = "idx_donation_available_expiry", columnList = "available, expiry_date"),
+        @Index(name = "idx_donation_type_available_expiry", columnList = "blood_type, available, expiry_date")
+})
 public class BloodDonation {
 
     @Id
@@ -25,8 +28,13 @@ public class BloodDonation {
 
     private LocalDate donationDate;
 
+    private LocalDate expiryDate; // donationDate plus the configured shelf life
+
     private String location;
 
+    @Column(name = "site_id")
+    private Long siteId; // Site the location resolved to
+
     private String notes;
 
     @ManyToOne
@@ -3,13 +3,16 @@ package com.rangira.blooddonation.model;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "requests")
+@Table(name = "requests", indexes = {
+        @Index(name = "idx_request_status_needed_by", columnList = "status, needed_by_date")
+})
 public class BloodRequest {
 
     @Id
@@ -21,10 +24,15 @@ public class BloodRequest {
     private String urgency;
     private String requesterName;
     private String hospitalName;
+    @Column(name = "hospital_site_id")
+    private Long hospitalSiteId; // Site the hospital name resolved to
     private String reason;
     private LocalDate neededByDate;
     private LocalDate requestDate;
-    private String status;
+    private String status; // Pending, Fulfilled, Cancelled, Overdue, Escalated
+    private LocalDateTime createdAt;
+    private LocalDateTime fulfilledAt; // set while status is Fulfilled
+    private LocalDateTime cancelledAt; // set while status is Cancelled
 
     @ManyToOne
     @JoinColumn(name = "user_id")
@@ -0,0 +1,36 @@
+package com.rangira.blooddonation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    @Id
+    private String id; // SHA-256 of user, method, path and the client's Idempotency-Key
+
+    private String fingerprint; // SHA-256 of the request body the key was first used with
+
+    private String status; // IN_PROGRESS or COMPLETED
+
+    private String owner; // token of the request currently executing under this key
+
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime expiresAt;
+
+    private Integer responseStatus;
+
+    private String responseContentType;
+
+    private byte[] responseBody;
+}
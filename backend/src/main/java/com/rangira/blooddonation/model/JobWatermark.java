@@ -0,0 +1,20 @@
+package com.rangira.blooddonation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_watermarks")
+public class JobWatermark {
+
+    @Id
+    private String jobName;
+
+    private LocalDate watermark; // everything strictly before this date has been processed
+}
@@ -0,0 +1,28 @@
+package com.rangira.blooddonation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "sites",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sites_normalized_name", columnNames = "normalized_name"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Site {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+
+    @Column(name = "normalized_name", nullable = false)
+    private String normalizedName; // trimmed, single spaces, lower case; what free-text locations are matched on
+
+    private String kind; // HOSPITAL, DONATION_SITE
+
+    private Double latitude; // null until an admin places the site on the map
+    private Double longitude;
+}
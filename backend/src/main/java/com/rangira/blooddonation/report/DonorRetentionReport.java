@@ -0,0 +1,120 @@
+package com.rangira.blooddonation.report;
+
+import java.io.PrintWriter;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Donors whose first donation falls in the range, by month of that first
+ * donation, and how many of them came back within 90, 180 and 365 days. Rows
+ * arrive ordered by donor and chunks never split a donor, so each worker sees
+ * a donor's whole history at once.
+ */
+public class DonorRetentionReport
+        implements ReportDefinition<DonorRetentionReport.Row, DonorRetentionReport.Cohorts> {
+
+    private static final int[] WINDOWS = {90, 180, 365};
+
+    public record Row(long donorId, long day) {
+    }
+
+    public static class Cohorts {
+        private final long fromDay;
+        private final long toDay;
+        private final Map<YearMonth, long[]> byMonth = new TreeMap<>(); // donors, returned per window, repeat donors
+
+        private Cohorts(LocalDate from, LocalDate to) {
+            this.fromDay = from.toEpochDay();
+            this.toDay = to.toEpochDay();
+        }
+
+        private void donor(long firstDay, long secondDay, long donations) {
+            if (firstDay < fromDay || firstDay >= toDay) {
+                return;
+            }
+            long[] counts = byMonth.computeIfAbsent(YearMonth.from(LocalDate.ofEpochDay(firstDay)),
+                    key -> new long[WINDOWS.length + 2]);
+            counts[0]++;
+            for (int i = 0; i < WINDOWS.length; i++) {
+                if (donations > 1 && secondDay - firstDay <= WINDOWS[i]) {
+                    counts[i + 1]++;
+                }
+            }
+            if (donations > 1) {
+                counts[WINDOWS.length + 1]++;
+            }
+        }
+    }
+
+    @Override
+    public String sql() {
+        return "SELECT donor_id, donation_date FROM donations "
+                + "WHERE donor_id IS NOT NULL AND donation_date IS NOT NULL AND donation_date < ? "
+                + "ORDER BY donor_id, donation_date";
+    }
+
+    @Override
+    public String countSql() {
+        return "SELECT count(*) FROM donations "
+                + "WHERE donor_id IS NOT NULL AND donation_date IS NOT NULL AND donation_date < ?";
+    }
+
+    @Override
+    public Object[] args(LocalDate from, LocalDate to) {
+        // A donor's first donation may precede the range, so the whole history up to its end is read
+        return new Object[]{Date.valueOf(to)};
+    }
+
+    @Override
+    public Row map(ResultSet rs) throws SQLException {
+        return new Row(rs.getLong(1), rs.getDate(2).toLocalDate().toEpochDay());
+    }
+
+    @Override
+    public Cohorts newAccumulator(LocalDate from, LocalDate to) {
+        return new Cohorts(from, to);
+    }
+
+    @Override
+    public boolean splitAllowed(Row previous, Row next) {
+        return previous.donorId() != next.donorId();
+    }
+
+    @Override
+    public void fold(Cohorts cohorts, List<Row> rows) {
+        int start = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || rows.get(i).donorId() != rows.get(start).donorId()) {
+                long secondDay = i - start > 1 ? rows.get(start + 1).day() : Long.MAX_VALUE;
+                cohorts.donor(rows.get(start).day(), secondDay, i - start);
+                start = i;
+            }
+        }
+    }
+
+    @Override
+    public Cohorts merge(Cohorts left, Cohorts right) {
+        right.byMonth.forEach((month, counts) -> left.byMonth.merge(month, counts, (mine, theirs) -> {
+            for (int i = 0; i < mine.length; i++) {
+                mine[i] += theirs[i];
+            }
+            return mine;
+        }));
+        return left;
+    }
+
+    @Override
+    public void write(Cohorts result, PrintWriter out) {
+        ReportDefinition.csv(out, "cohort_month", "new_donors", "returned_90_days", "returned_180_days",
+                "returned_365_days", "repeat_donors", "retention_90_days", "retention_365_days");
+        result.byMonth.forEach((month, counts) -> ReportDefinition.csv(out, month, counts[0], counts[1], counts[2],
+                counts[3], counts[4], ReportDefinition.ratio(counts[1], counts[0]),
+                ReportDefinition.ratio(counts[3], counts[0])));
+    }
+}
@@ -0,0 +1,114 @@
+package com.rangira.blooddonation.report;
+
+import com.rangira.blooddonation.service.SiteRegistry;
+
+import java.io.PrintWriter;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Requests made in the range per hospital: how many were fulfilled, cancelled
+ * or are still open, and the fulfillment rate over those not cancelled.
+ */
+public class HospitalFulfillmentReport
+        implements ReportDefinition<HospitalFulfillmentReport.Row, Map<String, HospitalFulfillmentReport.Tally>> {
+
+    public record Row(String hospital, String status, int amount) {
+    }
+
+    public static class Tally {
+        private String name;
+        private long requests;
+        private long fulfilled;
+        private long cancelled;
+        private long open;
+        private long unitsRequested;
+        private long unitsFulfilled;
+
+        private void add(Tally other) {
+            requests += other.requests;
+            fulfilled += other.fulfilled;
+            cancelled += other.cancelled;
+            open += other.open;
+            unitsRequested += other.unitsRequested;
+            unitsFulfilled += other.unitsFulfilled;
+        }
+    }
+
+    @Override
+    public String sql() {
+        return "SELECT hospital_name, status, amount FROM requests WHERE request_date >= ? AND request_date < ?";
+    }
+
+    @Override
+    public String countSql() {
+        return "SELECT count(*) FROM requests WHERE request_date >= ? AND request_date < ?";
+    }
+
+    @Override
+    public Object[] args(LocalDate from, LocalDate to) {
+        return new Object[]{Date.valueOf(from), Date.valueOf(to)};
+    }
+
+    @Override
+    public Row map(ResultSet rs) throws SQLException {
+        return new Row(rs.getString(1), rs.getString(2), rs.getInt(3));
+    }
+
+    @Override
+    public Map<String, Tally> newAccumulator(LocalDate from, LocalDate to) {
+        return new HashMap<>();
+    }
+
+    @Override
+    public void fold(Map<String, Tally> tallies, List<Row> rows) {
+        for (Row row : rows) {
+            add(tallies, row);
+        }
+    }
+
+    private void add(Map<String, Tally> tallies, Row row) {
+        Tally tally = tallies.computeIfAbsent(SiteRegistry.normalize(row.hospital()), key -> new Tally());
+        if (tally.name == null) {
+            tally.name = row.hospital() == null ? "" : row.hospital().trim();
+        }
+        tally.requests++;
+        tally.unitsRequested += row.amount();
+        String status = row.status() == null ? "" : row.status();
+        switch (status) {
+            case "Fulfilled" -> {
+                tally.fulfilled++;
+                tally.unitsFulfilled += row.amount();
+            }
+            case "Cancelled" -> tally.cancelled++;
+            case "Pending", "Overdue", "Escalated" -> tally.open++;
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Tally> merge(Map<String, Tally> left, Map<String, Tally> right) {
+        right.forEach((key, tally) -> left.merge(key, tally, (mine, theirs) -> {
+            mine.add(theirs);
+            return mine;
+        }));
+        return left;
+    }
+
+    @Override
+    public void write(Map<String, Tally> result, PrintWriter out) {
+        ReportDefinition.csv(out, "hospital", "requests", "fulfilled", "cancelled", "open", "fulfillment_rate",
+                "units_requested", "units_fulfilled");
+        new TreeMap<>(result).values().forEach(tally -> ReportDefinition.csv(out, tally.name, tally.requests,
+                tally.fulfilled, tally.cancelled, tally.open,
+                ReportDefinition.ratio(tally.fulfilled, tally.requests - tally.cancelled),
+                tally.unitsRequested, tally.unitsFulfilled));
+    }
+}
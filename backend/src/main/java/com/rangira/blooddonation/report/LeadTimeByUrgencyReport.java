@@ -0,0 +1,137 @@
+package com.rangira.blooddonation.report;
+
+import java.io.PrintWriter;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lead time per urgency of the requests made in the range: the days between a
+ * request and the date the blood is needed by, and for requests with
+ * timestamps the hours from creation to fulfillment. Each urgency keeps a
+ * histogram of whole days, so percentiles are exact and merging is adding
+ * arrays, and an HdrHistogram of fulfillment times to two significant digits.
+ */
+public class LeadTimeByUrgencyReport
+        implements ReportDefinition<LeadTimeByUrgencyReport.Row, Map<String, LeadTimeByUrgencyReport.Histogram>> {
+
+    // Lead times of a year or more share the last bucket
+    private static final int MAX_DAYS = 365;
+
+    public record Row(String urgency, long requestDay, long neededByDay, String status, long fulfillmentMillis) {
+    }
+
+    public static class Histogram {
+        private final long[] days = new long[MAX_DAYS + 1];
+        private long count;
+        private long fulfilled;
+        private long totalDays;
+        private long maxDays;
+        private final org.HdrHistogram.Histogram fulfillment = new org.HdrHistogram.Histogram(2);
+
+        private void add(Histogram other) {
+            fulfillment.add(other.fulfillment);
+            for (int i = 0; i < days.length; i++) {
+                days[i] += other.days[i];
+            }
+            count += other.count;
+            fulfilled += other.fulfilled;
+            totalDays += other.totalDays;
+            maxDays = Math.max(maxDays, other.maxDays);
+        }
+
+        private long percentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int day = 0; day < days.length; day++) {
+                seen += days[day];
+                if (seen >= rank) {
+                    return day;
+                }
+            }
+            return MAX_DAYS;
+        }
+    }
+
+    @Override
+    public String sql() {
+        return "SELECT urgency, request_date, needed_by_date, status, "
+                + "CAST(extract(epoch FROM fulfilled_at - created_at) * 1000 AS BIGINT) FROM requests "
+                + "WHERE request_date >= ? AND request_date < ? AND needed_by_date IS NOT NULL";
+    }
+
+    @Override
+    public String countSql() {
+        return "SELECT count(*) FROM requests "
+                + "WHERE request_date >= ? AND request_date < ? AND needed_by_date IS NOT NULL";
+    }
+
+    @Override
+    public Object[] args(LocalDate from, LocalDate to) {
+        return new Object[]{Date.valueOf(from), Date.valueOf(to)};
+    }
+
+    @Override
+    public Row map(ResultSet rs) throws SQLException {
+        return new Row(rs.getString(1), rs.getDate(2).toLocalDate().toEpochDay(),
+                rs.getDate(3).toLocalDate().toEpochDay(), rs.getString(4), rs.getObject(5) == null ? -1 : rs.getLong(5));
+    }
+
+    @Override
+    public Map<String, Histogram> newAccumulator(LocalDate from, LocalDate to) {
+        return new HashMap<>();
+    }
+
+    @Override
+    public void fold(Map<String, Histogram> histograms, List<Row> rows) {
+        for (Row row : rows) {
+            add(histograms, row);
+        }
+    }
+
+    private void add(Map<String, Histogram> histograms, Row row) {
+        String urgency = row.urgency() == null ? "" : row.urgency().trim().toLowerCase(Locale.ROOT);
+        Histogram histogram = histograms.computeIfAbsent(urgency, key -> new Histogram());
+        long days = Math.max(0, row.neededByDay() - row.requestDay());
+        histogram.days[(int) Math.min(days, MAX_DAYS)]++;
+        histogram.count++;
+        histogram.totalDays += days;
+        histogram.maxDays = Math.max(histogram.maxDays, days);
+        if ("Fulfilled".equals(row.status())) {
+            histogram.fulfilled++;
+            if (row.fulfillmentMillis() >= 0) {
+                histogram.fulfillment.recordValue(row.fulfillmentMillis());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Histogram> merge(Map<String, Histogram> left, Map<String, Histogram> right) {
+        right.forEach((key, histogram) -> left.merge(key, histogram, (mine, theirs) -> {
+            mine.add(theirs);
+            return mine;
+        }));
+        return left;
+    }
+
+    @Override
+    public void write(Map<String, Histogram> result, PrintWriter out) {
+        ReportDefinition.csv(out, "urgency", "requests", "fulfilled", "mean_days", "median_days", "p90_days",
+                "max_days", "timed_fulfillments", "median_fulfillment_hours", "p90_fulfillment_hours");
+        new TreeMap<>(result).forEach((urgency, histogram) -> ReportDefinition.csv(out, urgency, histogram.count,
+                histogram.fulfilled, String.format(Locale.ROOT, "%.2f", (double) histogram.totalDays / histogram.count),
+                histogram.percentile(0.5), histogram.percentile(0.9), histogram.maxDays,
+                histogram.fulfillment.getTotalCount(), hours(histogram.fulfillment, 50), hours(histogram.fulfillment, 90)));
+    }
+
+    private static String hours(org.HdrHistogram.Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? ""
+                : String.format(Locale.ROOT, "%.1f", histogram.getValueAtPercentile(percentile) / 3_600_000.0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.rangira.blooddonation.report;
+
+import java.io.PrintWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One report built by a report job: the rows it streams from the database,
+ * how one worker folds them into its accumulator, how two accumulators merge,
+ * and how the result is written as CSV.
+ *
+ * Accumulators are only touched by one thread at a time, so they need no
+ * locking, but merge must not depend on which rows went to which worker.
+ */
+public interface ReportDefinition<R, A> {
+
+    /** Query streamed for the range [from, to) */
+    String sql();
+
+    /** Rows the query will return, used for progress */
+    String countSql();
+
+    Object[] args(LocalDate from, LocalDate to);
+
+    R map(ResultSet rs) throws SQLException;
+
+    A newAccumulator(LocalDate from, LocalDate to);
+
+    /** Fold one chunk of consecutive rows */
+    void fold(A accumulator, List<R> rows);
+
+    A merge(A left, A right);
+
+    /** Whether a chunk may end between these two consecutive rows */
+    default boolean splitAllowed(R previous, R next) {
+        return true;
+    }
+
+    void write(A result, PrintWriter out);
+
+    static void csv(PrintWriter out, Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = values[i] == null ? "" : values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                value = '"' + value.replace("\"", "\"\"") + '"';
+            }
+            line.append(value);
+        }
+        out.print(line);
+        out.print("\r\n");
+    }
+
+    static String ratio(long part, long whole) {
+        return whole == 0 ? "" : String.format(Locale.ROOT, "%.4f", (double) part / whole);
+    }
+}
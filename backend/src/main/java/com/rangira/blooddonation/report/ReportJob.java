@@ -0,0 +1,136 @@
+package com.rangira.blooddonation.report;
+
+import com.rangira.blooddonation.util.ParallelAggregator;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A report being built in the background, as returned when polling for it.
+ */
+public class ReportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    @Getter
+    private final String id;
+    @Getter
+    private final ReportType type;
+    @Getter
+    private final LocalDate from;
+    @Getter
+    private final LocalDate to;
+    @Getter
+    private final String requestedBy;
+    @Getter
+    private final Instant createdAt = Instant.now();
+    @Getter
+    private volatile Status status = Status.QUEUED;
+    @Getter
+    private volatile long totalRows = -1; // unknown until counted
+    @Getter
+    private volatile Instant startedAt;
+    @Getter
+    private volatile Instant finishedAt;
+    @Getter
+    private volatile String error;
+
+    private volatile long rowsDone; // rows read while running, frozen when finished
+    private volatile ParallelAggregator<?, ?> aggregator;
+    private volatile Path file;
+
+    public ReportJob(String id, ReportType type, LocalDate from, LocalDate to, String requestedBy) {
+        this.id = id;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.requestedBy = requestedBy;
+    }
+
+    public long getRowsProcessed() {
+        ParallelAggregator<?, ?> running = aggregator;
+        return running != null ? running.folded() : rowsDone;
+    }
+
+    /** Percent of rows aggregated; null while the total is not known */
+    public Integer getProgress() {
+        if (status == Status.DONE) {
+            return 100;
+        }
+        long total = totalRows;
+        if (total < 0) {
+            return null;
+        }
+        return total == 0 ? 99 : (int) Math.min(99, getRowsProcessed() * 100 / total);
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    // Not part of the polled view (no get prefix)
+
+    public Path file() {
+        return file;
+    }
+
+    public void counted(long rows) {
+        totalRows = rows;
+    }
+
+    /** Returns false if the job was cancelled while queued */
+    public synchronized boolean started(ParallelAggregator<?, ?> running) {
+        if (isFinished()) {
+            return false;
+        }
+        aggregator = running;
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+        return true;
+    }
+
+    /** Returns false if the job was cancelled in the meantime */
+    public synchronized boolean done(Path written) {
+        if (isFinished()) {
+            return false;
+        }
+        file = written;
+        return finish(Status.DONE, null);
+    }
+
+    public void failed(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    /** Stop a queued or running job; returns false if it had already finished */
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        ParallelAggregator<?, ?> running = aggregator;
+        finish(Status.CANCELLED, null);
+        if (running != null) {
+            running.cancel();
+        }
+        return true;
+    }
+
+    private synchronized boolean finish(Status outcome, String message) {
+        if (isFinished()) {
+            return false;
+        }
+        ParallelAggregator<?, ?> running = aggregator;
+        if (running != null) {
+            rowsDone = running.folded();
+            aggregator = null;
+        }
+        error = message;
+        finishedAt = Instant.now();
+        status = outcome;
+        return true;
+    }
+}
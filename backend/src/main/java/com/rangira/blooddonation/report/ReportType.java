@@ -0,0 +1,35 @@
+package com.rangira.blooddonation.report;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The reports a job can build.
+ */
+public enum ReportType {
+    HOSPITAL_FULFILLMENT(new HospitalFulfillmentReport()),
+    LEAD_TIME_BY_URGENCY(new LeadTimeByUrgencyReport()),
+    DONOR_RETENTION(new DonorRetentionReport());
+
+    private final ReportDefinition<?, ?> definition;
+
+    ReportType(ReportDefinition<?, ?> definition) {
+        this.definition = definition;
+    }
+
+    public ReportDefinition<?, ?> definition() {
+        return definition;
+    }
+
+    public static ReportType parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("type must be one of " + Arrays.toString(values()));
+        }
+    }
+
+    public String fileName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -3,6 +3,7 @@ package com.rangira.blooddonation.repository;
 import com.rangira.blooddonation.model.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,5 +13,7 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     long countByStatus(String status);
     Page<Appointment> findByUserId(Long userId, Pageable pageable);
     Page<Appointment> findAll(Pageable pageable);
+    List<Appointment> findByLocationAndAppointmentDateBetweenOrderByAppointmentDateAscAppointmentTimeAsc(
+            String location, LocalDate from, LocalDate to);
 
 }
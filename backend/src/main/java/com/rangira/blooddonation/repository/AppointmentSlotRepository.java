@@ -0,0 +1,48 @@
+package com.rangira.blooddonation.repository;
+
+import com.rangira.blooddonation.model.AppointmentSlot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, Long> {
+
+    Optional<AppointmentSlot> findByLocationAndSlotDateAndStartTime(String location, LocalDate slotDate, LocalTime startTime);
+
+    List<AppointmentSlot> findByLocationAndSlotDateGreaterThanEqual(String location, LocalDate from);
+
+    boolean existsByLocationAndSlotDate(String location, LocalDate slotDate);
+
+    // Current booked count straight from the table, bypassing the persistence context
+    @Query("SELECT s.booked FROM AppointmentSlot s WHERE s.id = :id")
+    int findBookedById(@Param("id") Long id);
+
+    // Take a place only if one is left; returns 0 when the slot is already full
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked + 1 WHERE s.id = :id AND s.booked < s.capacity")
+    int reserveSeat(@Param("id") Long id);
+
+    // Give a place back; never goes below zero
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked - 1 WHERE s.id = :id AND s.booked > 0")
+    int releaseSeat(@Param("id") Long id);
+
+    // Free slots at a location from the given day and time onwards, earliest first
+    @Query("SELECT s FROM AppointmentSlot s WHERE s.location = :location " +
+           "AND (s.slotDate > :date OR (s.slotDate = :date AND s.startTime >= :time)) " +
+           "AND s.booked < s.capacity " +
+           "ORDER BY s.slotDate ASC, s.startTime ASC")
+    List<AppointmentSlot> findFreeSlotsFrom(@Param("location") String location,
+                                            @Param("date") LocalDate date,
+                                            @Param("time") LocalTime time,
+                                            Pageable pageable);
+}
@@ -2,19 +2,25 @@ package com.rangira.blooddonation.repository;
 
 import com.rangira.blooddonation.model.BloodDonation;
 import com.rangira.blooddonation.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BloodDonationRepository extends JpaRepository<BloodDonation, Long> {
     
-    // Find available donations
-    List<BloodDonation> findByAvailableTrue();
+    // Find available donations, first expiring first
+    List<BloodDonation> findByAvailableTrueOrderByExpiryDateAsc();
     
-    // Find by blood type and availability
-    List<BloodDonation> findByBloodTypeAndAvailableTrue(String bloodType);
+    // Find by blood type and availability, first expiring first
+    List<BloodDonation> findByBloodTypeAndAvailableTrueOrderByExpiryDateAsc(String bloodType);
     
     // Find by blood type
     List<BloodDonation> findByBloodType(String bloodType);
@@ -28,6 +34,52 @@ public interface BloodDonationRepository extends JpaRepository<BloodDonation, Lo
     // Count available donations by blood type
     long countByBloodTypeAndAvailableTrue(String bloodType);
     
-    // Find recent donations (you can add date filtering later)
-    List<BloodDonation> findTop10ByOrderByDonationDateDesc();
+    // Find recent donations, newest first; id breaks ties within a day
+    @Query("SELECT d FROM BloodDonation d ORDER BY d.donationDate DESC, d.id DESC")
+    List<BloodDonation> findRecent(Pageable pageable);
+
+    // Available units past their expiry date, oldest first
+    @Query("SELECT d FROM BloodDonation d WHERE d.available = true AND d.expiryDate < :today ORDER BY d.expiryDate ASC")
+    List<BloodDonation> findExpiredAvailable(@Param("today") LocalDate today, Pageable pageable);
+
+    // Id, availability and blood type for the bulk operations, then the daily rollup key fields
+    @Query("SELECT d.id, d.available, d.bloodType, d.donationDate, d.location, d.amount FROM BloodDonation d WHERE d.id IN :ids")
+    List<Object[]> findAvailabilityByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT d.id, d.available, d.bloodType, d.donationDate, d.location, d.amount FROM BloodDonation d " +
+           "WHERE d.available = true AND " +
+           "(:bloodType IS NULL OR d.bloodType = :bloodType) AND " +
+           "(:location IS NULL OR d.location = :location) AND " +
+           "(:before IS NULL OR d.donationDate < :before) " +
+           "ORDER BY d.id")
+    List<Object[]> findAvailabilityByFilter(@Param("bloodType") String bloodType,
+                                            @Param("location") String location,
+                                            @Param("before") LocalDate before,
+                                            Pageable pageable);
+
+    // Unexpired available units per site and blood type: site_id, blood_type, units
+    @Query(value = "SELECT site_id, blood_type, count(*) FROM donations WHERE available = true " +
+                   "AND site_id IS NOT NULL AND (expiry_date IS NULL OR expiry_date >= :today) " +
+                   "GROUP BY site_id, blood_type", nativeQuery = true)
+    List<Object[]> countAvailableBySite(@Param("today") LocalDate today);
+
+    // Unexpired available units per blood type: blood_type, units
+    @Query(value = "SELECT blood_type, count(*) FROM donations WHERE available = true " +
+                   "AND (expiry_date IS NULL OR expiry_date >= :today) GROUP BY blood_type", nativeQuery = true)
+    List<Object[]> countAvailableByBloodType(@Param("today") LocalDate today);
+
+    // Lock the units among ids that are still available: exactly the rows markUnavailable will change
+    @Query(value = "SELECT id FROM donations WHERE id IN (:ids) AND available = true FOR UPDATE", nativeQuery = true)
+    List<Long> lockAvailable(@Param("ids") List<Long> ids);
+
+    // Take a batch of units out of stock in one statement
+    @Modifying
+    @Query("UPDATE BloodDonation d SET d.available = false WHERE d.id IN :ids AND d.available = true")
+    int markUnavailable(@Param("ids") List<Long> ids);
+
+    // Fill in expiry for rows written before expiry tracking existed
+    @Modifying
+    @Query(value = "UPDATE donations SET expiry_date = donation_date + CAST(:shelfLifeDays AS integer) " +
+                   "WHERE expiry_date IS NULL AND donation_date IS NOT NULL", nativeQuery = true)
+    int backfillExpiryDates(@Param("shelfLifeDays") int shelfLifeDays);
 }
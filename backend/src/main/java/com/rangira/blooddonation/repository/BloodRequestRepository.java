@@ -2,10 +2,16 @@ package com.rangira.blooddonation.repository;
 
 import com.rangira.blooddonation.model.BloodRequest;
 import com.rangira.blooddonation.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,6 +29,12 @@ public interface BloodRequestRepository extends JpaRepository<BloodRequest, Long
     // Find by urgency and status
     List<BloodRequest> findByUrgencyAndStatus(String urgency, String status);
     
+    // Find by urgency and any of several statuses
+    List<BloodRequest> findByUrgencyAndStatusIn(String urgency, Collection<String> statuses);
+    
+    // Find by any of several statuses, most overdue first
+    List<BloodRequest> findByStatusInOrderByNeededByDateAsc(Collection<String> statuses);
+    
     // Find by requester
     List<BloodRequest> findByRequester(User requester);
     
@@ -35,12 +47,83 @@ public interface BloodRequestRepository extends JpaRepository<BloodRequest, Long
     // Find by needed by date (urgent requests)
     List<BloodRequest> findByNeededByDateBeforeAndStatus(LocalDate date, String status);
     
-    // Find recent requests
-    List<BloodRequest> findTop10ByOrderByRequestDateDesc();
+    // One batch of pending requests whose needed by date fell in [from, to), earliest deadline first
+    @Query("SELECT r FROM BloodRequest r WHERE r.status = 'Pending' AND r.neededByDate >= :from AND r.neededByDate < :to " +
+           "ORDER BY r.neededByDate, r.id")
+    List<BloodRequest> findPendingNeededBetween(@Param("from") LocalDate from,
+                                                @Param("to") LocalDate to,
+                                                Pageable pageable);
+
+    // Lock the requests among ids that are still pending: exactly the rows markOverdue will change
+    @Query(value = "SELECT id FROM requests WHERE id IN (:ids) AND status = 'Pending' FOR UPDATE", nativeQuery = true)
+    List<Long> lockPending(@Param("ids") Collection<Long> ids);
+    
+    // Move a batch of pending requests past their deadline: High urgency escalates, the rest become overdue
+    @Modifying
+    @Query("UPDATE BloodRequest r SET r.status = CASE WHEN UPPER(r.urgency) = 'HIGH' THEN 'Escalated' ELSE 'Overdue' END " +
+           "WHERE r.id IN :ids AND r.status = 'Pending'")
+    int markOverdue(@Param("ids") Collection<Long> ids);
+    
+    // Blood type, hospital, amount, day, urgency and creation time of bulk status changes,
+    // for the forecaster, the daily rollups and the lead times
+    @Query("SELECT r.id, r.bloodType, r.hospitalName, r.amount, r.requestDate, r.urgency, r.createdAt " +
+           "FROM BloodRequest r WHERE r.id IN :ids")
+    List<Object[]> findDemandByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Units requested per hospital and day for one blood type in [from, to), oldest first
+    @Query("SELECT r.hospitalName, r.requestDate, SUM(r.amount) FROM BloodRequest r " +
+           "WHERE r.bloodType = :bloodType AND r.requestDate >= :from AND r.requestDate < :to " +
+           "GROUP BY r.hospitalName, r.requestDate ORDER BY r.requestDate")
+    List<Object[]> sumDailyDemand(@Param("bloodType") String bloodType,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+
+    // Units of the requests in the given statuses per blood type and hospital
+    @Query("SELECT r.bloodType, r.hospitalName, SUM(r.amount) FROM BloodRequest r " +
+           "WHERE r.status IN :statuses GROUP BY r.bloodType, r.hospitalName")
+    List<Object[]> sumAmountByStatusIn(@Param("statuses") Collection<String> statuses);
+
+    // Id and status only, for the state checks of the bulk operations
+    @Query("SELECT r.id, r.status FROM BloodRequest r WHERE r.id IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.id, r.status FROM BloodRequest r WHERE " +
+           "(:hospitalName IS NULL OR r.hospitalName = :hospitalName) AND " +
+           "(:status IS NULL OR r.status = :status) AND " +
+           "(:bloodType IS NULL OR r.bloodType = :bloodType) AND " +
+           "(:before IS NULL OR r.requestDate < :before) " +
+           "ORDER BY r.id")
+    List<Object[]> findStatusesByFilter(@Param("hospitalName") String hospitalName,
+                                        @Param("status") String status,
+                                        @Param("bloodType") String bloodType,
+                                        @Param("before") LocalDate before,
+                                        Pageable pageable);
+
+    // Lock the rows among ids that are not closed yet, with their current status: exactly the rows transitionStatus will change
+    @Query(value = "SELECT id, status FROM requests WHERE id IN (:ids) AND UPPER(status) NOT IN (:blocked) FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> lockOpenStatuses(@Param("ids") Collection<Long> ids, @Param("blocked") Collection<String> blocked);
+
+    // Set-based transition; the guard repeats the state check so concurrent changes are not overwritten
+    @Modifying
+    @Query("UPDATE BloodRequest r SET r.status = :target, r.fulfilledAt = :fulfilledAt, r.cancelledAt = :cancelledAt " +
+           "WHERE r.id IN :ids AND UPPER(r.status) NOT IN :blocked")
+    int transitionStatus(@Param("ids") Collection<Long> ids,
+                         @Param("target") String target,
+                         @Param("fulfilledAt") LocalDateTime fulfilledAt,
+                         @Param("cancelledAt") LocalDateTime cancelledAt,
+                         @Param("blocked") Collection<String> blocked);
+
+    // Find recent requests, newest first; id breaks ties within a day
+    @Query("SELECT r FROM BloodRequest r ORDER BY r.requestDate DESC, r.id DESC")
+    List<BloodRequest> findRecent(Pageable pageable);
     
     // Count by status
     long countByStatus(String status);
     
     // Count by urgency and status
     long countByUrgencyAndStatus(String urgency, String status);
+    
+    // Count by urgency and any of several statuses
+    long countByUrgencyAndStatusIn(String urgency, Collection<String> statuses);
 }
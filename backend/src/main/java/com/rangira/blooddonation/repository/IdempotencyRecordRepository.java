@@ -0,0 +1,57 @@
+package com.rangira.blooddonation.repository;
+
+import com.rangira.blooddonation.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Claim a key; returns 0 when another request already holds it
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (id, fingerprint, status, owner, claimed_at, expires_at) " +
+                   "VALUES (:id, :fingerprint, 'IN_PROGRESS', :owner, :now, :expiresAt) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("fingerprint") String fingerprint,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Take over a key whose owner died mid-request or whose record has expired
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.status = 'IN_PROGRESS', r.owner = :owner, " +
+           "r.claimedAt = :now, r.expiresAt = :expiresAt, r.responseStatus = null, " +
+           "r.responseContentType = null, r.responseBody = null " +
+           "WHERE r.id = :id AND ((r.status = 'IN_PROGRESS' AND r.claimedAt < :staleBefore) OR r.expiresAt < :now)")
+    int takeOver(@Param("id") String id,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("owner") String owner,
+                 @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Store the response; returns 0 when the claim was taken over in the meantime
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseStatus = :responseStatus, " +
+           "r.responseContentType = :contentType, r.responseBody = :body " +
+           "WHERE r.id = :id AND r.owner = :owner AND r.status = 'IN_PROGRESS'")
+    int complete(@Param("id") String id,
+                 @Param("owner") String owner,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.owner = :owner AND r.status = 'IN_PROGRESS'")
+    int release(@Param("id") String id, @Param("owner") String owner);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.rangira.blooddonation.repository;
+
+import com.rangira.blooddonation.model.Site;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SiteRepository extends JpaRepository<Site, Long> {
+
+    Optional<Site> findByNormalizedName(String normalizedName);
+}
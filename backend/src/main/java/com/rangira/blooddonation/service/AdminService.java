@@ -1,10 +1,15 @@
 package com.rangira.blooddonation.service;
 
+import com.rangira.blooddonation.journal.EventJournal;
+import com.rangira.blooddonation.journal.JournalProjections;
 import com.rangira.blooddonation.repository.AppointmentRepository;
 import com.rangira.blooddonation.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Service
 public class AdminService {
 
@@ -14,6 +19,21 @@ public class AdminService {
     @Autowired
     private AppointmentRepository appointmentRepository;
 
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private JournalProjections journalProjections;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Autowired
+    private FulfillmentLeadTimes fulfillmentLeadTimes;
+
     public long countUsers() {
         return userRepository.count();
     }
@@ -25,4 +45,39 @@ public class AdminService {
     public long countAppointmentsByStatus(String status) {
         return appointmentRepository.countByStatus(status);
     }
+
+    public Map<String, Object> journalOverview() {
+        Map<String, Object> overview = new LinkedHashMap<>();
+        overview.put("journal", eventJournal.getStatus());
+        overview.put("availableUnitsByBloodType", journalProjections.inventory());
+        overview.put("requestsByStatus", journalProjections.requestsByStatus());
+        overview.put("appointmentsByStatus", journalProjections.appointmentsByStatus());
+        return overview;
+    }
+
+    public Map<String, Object> slowQueries() {
+        Map<String, Object> overview = new LinkedHashMap<>();
+        overview.put("thresholdMs", slowQueryLog.getSlowStatementMs());
+        overview.put("statements", slowQueryLog.top());
+        return overview;
+    }
+
+    public Map<String, Object> demandForecast(String bloodType) {
+        Map<String, Object> overview = demandForecaster.overview();
+        if (bloodType != null) {
+            overview.put("hospitals", demandForecaster.hospitalForecast(bloodType.trim().toUpperCase()));
+        }
+        return overview;
+    }
+
+    public Map<String, Object> leadTimes(String urgency, String hospital) {
+        Map<String, Object> overview = new LinkedHashMap<>();
+        overview.put("unit", "seconds");
+        overview.put("series", fulfillmentLeadTimes.overview(urgency, hospital));
+        return overview;
+    }
+
+    public void resetSlowQueries() {
+        slowQueryLog.reset();
+    }
 }
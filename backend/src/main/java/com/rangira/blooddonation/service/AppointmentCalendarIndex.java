@@ -0,0 +1,159 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.dto.DayAvailability;
+import com.rangira.blooddonation.dto.SlotAvailability;
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.AppointmentSlot;
+import com.rangira.blooddonation.repository.AppointmentSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-location calendar of slot capacity, bucketed by day and slot start time.
+ * Each location is loaded once from the slot table and then kept current by
+ * AppointmentService; entries are reloaded after the configured refresh
+ * interval so bookings taken by other instances show up.
+ */
+@Component
+public class AppointmentCalendarIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentCalendarIndex.class);
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Value("${appointments.calendar.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    private final ConcurrentHashMap<String, LocationCalendar> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * Day-by-day capacity at a location over [from, to]
+     */
+    public List<DayAvailability> availability(String location, LocalDate from, LocalDate to) {
+        LocationCalendar calendar = calendarFor(location, from);
+
+        List<DayAvailability> days = new ArrayList<>();
+        for (Map.Entry<LocalDate, NavigableMap<LocalTime, SlotCounts>> day : calendar.days.subMap(from, true, to, true).entrySet()) {
+            List<SlotAvailability> slots = new ArrayList<>(day.getValue().size());
+            int capacity = 0;
+            int booked = 0;
+            for (Map.Entry<LocalTime, SlotCounts> slot : day.getValue().entrySet()) {
+                SlotCounts counts = slot.getValue();
+                int slotBooked = counts.booked.get();
+                slots.add(new SlotAvailability(counts.slotId, slot.getKey(), counts.capacity, slotBooked,
+                        Math.max(counts.capacity - slotBooked, 0)));
+                capacity += counts.capacity;
+                booked += slotBooked;
+            }
+            days.add(new DayAvailability(day.getKey(), capacity, booked, Math.max(capacity - booked, 0), slots));
+        }
+        return days;
+    }
+
+    // Locations whose slots changed through another instance are reloaded on next read
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.touches(Topic.LOCATION)) {
+            return;
+        }
+        Set<String> locations = event.ids(Topic.LOCATION);
+        if (locations.contains(CacheInvalidationEvent.ALL)) {
+            calendars.clear();
+        } else {
+            locations.forEach(calendars::remove);
+        }
+    }
+
+    public void slotAdded(AppointmentSlot slot) {
+        LocationCalendar calendar = calendars.get(slot.getLocation());
+        if (calendar != null && !slot.getSlotDate().isBefore(calendar.from)) {
+            calendar.put(slot);
+        }
+    }
+
+    public void seatTaken(AppointmentSlot slot) {
+        adjust(slot, 1);
+    }
+
+    public void seatReleased(AppointmentSlot slot) {
+        adjust(slot, -1);
+    }
+
+    private void adjust(AppointmentSlot slot, int delta) {
+        LocationCalendar calendar = calendars.get(slot.getLocation());
+        if (calendar == null) {
+            return;
+        }
+        NavigableMap<LocalTime, SlotCounts> day = calendar.days.get(slot.getSlotDate());
+        SlotCounts counts = day != null ? day.get(slot.getStartTime()) : null;
+        if (counts != null) {
+            counts.booked.updateAndGet(current -> Math.max(current + delta, 0));
+        }
+    }
+
+    private LocationCalendar calendarFor(String location, LocalDate from) {
+        LocationCalendar calendar = calendars.get(location);
+        long now = System.currentTimeMillis();
+        if (calendar == null || from.isBefore(calendar.from) || now - calendar.loadedAt > refreshSeconds * 1000) {
+            LocalDate loadFrom = calendar != null && calendar.from.isBefore(from) ? calendar.from : from;
+            calendar = load(location, loadFrom);
+            calendars.put(location, calendar);
+        }
+        return calendar;
+    }
+
+    private LocationCalendar load(String location, LocalDate from) {
+        List<AppointmentSlot> slots = appointmentSlotRepository.findByLocationAndSlotDateGreaterThanEqual(location, from);
+        LocationCalendar calendar = new LocationCalendar(from, System.currentTimeMillis());
+        for (AppointmentSlot slot : slots) {
+            calendar.put(slot);
+        }
+        logger.info("Loaded appointment calendar for {} from {} ({} slots)", location, from, slots.size());
+        return calendar;
+    }
+
+    private static final class LocationCalendar {
+        private final LocalDate from;
+        private final long loadedAt;
+        private final ConcurrentSkipListMap<LocalDate, NavigableMap<LocalTime, SlotCounts>> days = new ConcurrentSkipListMap<>();
+
+        private LocationCalendar(LocalDate from, long loadedAt) {
+            this.from = from;
+            this.loadedAt = loadedAt;
+        }
+
+        private void put(AppointmentSlot slot) {
+            days.computeIfAbsent(slot.getSlotDate(), date -> new ConcurrentSkipListMap<>())
+                    .put(slot.getStartTime(), new SlotCounts(slot.getId(), slot.getCapacity(), slot.getBooked()));
+        }
+    }
+
+    private static final class SlotCounts {
+        private final long slotId;
+        private final int capacity;
+        private final AtomicInteger booked;
+
+        private SlotCounts(long slotId, int capacity, int booked) {
+            this.slotId = slotId;
+            this.capacity = capacity;
+            this.booked = new AtomicInteger(booked);
+        }
+    }
+}
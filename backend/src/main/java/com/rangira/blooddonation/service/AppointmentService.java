@@ -1,12 +1,26 @@
 package com.rangira.blooddonation.service;
 
+import com.rangira.blooddonation.dto.DayAvailability;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.journal.EventJournal;
 import com.rangira.blooddonation.model.Appointment;
+import com.rangira.blooddonation.model.AppointmentSlot;
+import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.repository.AppointmentRepository;
+import com.rangira.blooddonation.repository.AppointmentSlotRepository;
+import com.rangira.blooddonation.repository.UserRepository;
+import com.rangira.blooddonation.util.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 @Service
@@ -15,10 +29,50 @@ public class AppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
 
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotCapacityGate slotCapacityGate;
+
+    @Autowired
+    private AppointmentCalendarIndex appointmentCalendarIndex;
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private SiteService siteService;
+
+    @Transactional
     public Appointment createAppointment(Appointment appointment) {
         // Always set status to Pending when booking
         appointment.setStatus("Pending");
-        return appointmentRepository.save(appointment);
+
+        // Locations that do not manage slots for that day have nothing to count against
+        AppointmentSlot slot = resolveSlot(appointment);
+        if (slot != null) {
+            reserveSeat(slot);
+            appointment.setSlot(slot);
+            appointment.setAppointmentDate(slot.getSlotDate());
+            appointment.setAppointmentTime(slot.getStartTime());
+        }
+
+        appointment.setSiteId(siteService.resolve(appointment.getLocation(), SiteService.DONATION_SITE));
+
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        invalidationBus.publish(Topic.APPOINTMENT, savedAppointment.getId());
+        eventJournal.record(DomainEvent.APPOINTMENT_BOOKED, savedAppointment.getId(),
+                "status", savedAppointment.getStatus(),
+                "location", savedAppointment.getLocation(),
+                "date", String.valueOf(savedAppointment.getAppointmentDate()));
+        return savedAppointment;
     }
 
     public List<Appointment> getAppointmentsByUser(Long userId) {
@@ -37,11 +91,192 @@ public class AppointmentService {
         return appointmentRepository.findAll(pageable);
     }
 
+    /**
+     * Change the status, giving the slot place back on cancelling and taking it again when a
+     * cancelled appointment is reinstated (IllegalStateException if the slot is full by then)
+     */
+    @Transactional
     public Appointment updateAppointmentStatus(Long appointmentId, String status) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
 
+        boolean cancelling = "Cancelled".equalsIgnoreCase(status);
+        if (cancelling && holdsSeat(appointment)) {
+            releaseSeat(appointment.getSlot());
+        } else if (!cancelling && appointment.getSlot() != null && "Cancelled".equalsIgnoreCase(appointment.getStatus())) {
+            // Reinstated: its place was given back on cancelling, take it again or refuse if the slot filled up
+            reserveSeat(appointment.getSlot());
+        }
+
+        String previousStatus = appointment.getStatus();
         appointment.setStatus(status);
-        return appointmentRepository.save(appointment);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        invalidationBus.publish(Topic.APPOINTMENT, savedAppointment.getId());
+        eventJournal.record(DomainEvent.APPOINTMENT_STATUS_CHANGED, savedAppointment.getId(),
+                "from", previousStatus, "to", status);
+        return savedAppointment;
+    }
+
+    /**
+     * Cancel an appointment, giving its place back to the slot
+     */
+    @Transactional
+    public Appointment cancelAppointment(Long appointmentId, String username) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new RuntimeException("Appointment not found"));
+
+        // Check if user owns the appointment or is admin
+        if (appointment.getUser() != null && !appointment.getUser().getUsername().equals(username)) {
+            Optional<User> userOpt = userRepository.findByUsername(username);
+            if (!userOpt.isPresent() || !"ADMIN".equals(userOpt.get().getRole())) {
+                throw new RuntimeException("You can only cancel your own appointments");
+            }
+        }
+
+        if ("Cancelled".equalsIgnoreCase(appointment.getStatus())) {
+            throw new IllegalStateException("Appointment is already cancelled");
+        }
+
+        if ("Completed".equalsIgnoreCase(appointment.getStatus())) {
+            throw new IllegalStateException("Cannot cancel a completed appointment");
+        }
+
+        return updateAppointmentStatus(appointmentId, "Cancelled");
+    }
+
+    /**
+     * Open a new bookable slot at a location (Admin only)
+     */
+    public AppointmentSlot createSlot(AppointmentSlot slot) {
+        if (slot.getLocation() == null || slot.getLocation().trim().isEmpty()) {
+            throw new IllegalArgumentException("Slot location is required");
+        }
+
+        if (slot.getSlotDate() == null || slot.getStartTime() == null) {
+            throw new IllegalArgumentException("Slot date and start time are required");
+        }
+
+        if (slot.getCapacity() <= 0) {
+            throw new IllegalArgumentException("Slot capacity must be positive");
+        }
+
+        slot.setBooked(0);
+        AppointmentSlot savedSlot = appointmentSlotRepository.save(slot);
+        appointmentCalendarIndex.slotAdded(savedSlot);
+        invalidationBus.publish(Topic.LOCATION, savedSlot.getLocation());
+        siteService.resolve(savedSlot.getLocation(), SiteService.DONATION_SITE);
+        return savedSlot;
+    }
+
+    /**
+     * Free capacity per day and slot at a location, served from the calendar index
+     */
+    public List<DayAvailability> getAvailability(String location, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        return appointmentCalendarIndex.availability(location, from, to);
+    }
+
+    /**
+     * Appointments booked at a location between two dates (inclusive)
+     */
+    public List<Appointment> getAppointmentsByLocation(String location, LocalDate from, LocalDate to) {
+        return appointmentRepository.findByLocationAndAppointmentDateBetweenOrderByAppointmentDateAscAppointmentTimeAsc(
+                location, from, to);
+    }
+
+    /**
+     * Earliest slot at the location, at or after the given moment, that still has a free place
+     */
+    public Optional<AppointmentSlot> findNextFreeSlot(String location, LocalDate fromDate, LocalTime fromTime) {
+        List<AppointmentSlot> slots = appointmentSlotRepository.findFreeSlotsFrom(
+                location, fromDate, fromTime != null ? fromTime : LocalTime.MIN, PageRequest.of(0, 1));
+        return slots.stream().findFirst();
+    }
+
+    /**
+     * Work out which slot a booking is for, or null when its location has no slots that day
+     */
+    private AppointmentSlot resolveSlot(Appointment appointment) {
+        if (appointment.getLocation() == null || appointment.getAppointmentDate() == null) {
+            return null;
+        }
+
+        if (appointment.getAppointmentTime() != null) {
+            Optional<AppointmentSlot> slotOpt = appointmentSlotRepository.findByLocationAndSlotDateAndStartTime(
+                    appointment.getLocation(), appointment.getAppointmentDate(), appointment.getAppointmentTime());
+            if (slotOpt.isPresent()) {
+                return slotOpt.get();
+            }
+            if (appointmentSlotRepository.existsByLocationAndSlotDate(appointment.getLocation(), appointment.getAppointmentDate())) {
+                throw new IllegalArgumentException("No slot at " + appointment.getLocation() + " on "
+                        + appointment.getAppointmentDate() + " starting at " + appointment.getAppointmentTime());
+            }
+            return null;
+        }
+
+        if (!appointmentSlotRepository.existsByLocationAndSlotDate(appointment.getLocation(), appointment.getAppointmentDate())) {
+            return null;
+        }
+
+        // No time asked for: take the earliest free slot on that day
+        return findNextFreeSlot(appointment.getLocation(), appointment.getAppointmentDate(), LocalTime.MIN)
+                .filter(slot -> slot.getSlotDate().equals(appointment.getAppointmentDate()))
+                .orElseThrow(() -> new IllegalStateException("All slots at " + appointment.getLocation()
+                        + " on " + appointment.getAppointmentDate() + " are fully booked"));
+    }
+
+    /**
+     * Admit the booking through the in-memory gate first, then confirm it with a conditional update
+     */
+    private void reserveSeat(AppointmentSlot slot) {
+        Long slotId = slot.getId();
+
+        if (!slotCapacityGate.tryAcquire(slot)) {
+            // Another instance may have released a place since the counter was seeded
+            slotCapacityGate.reset(slot, appointmentSlotRepository.findBookedById(slotId));
+            if (!slotCapacityGate.tryAcquire(slot)) {
+                throw new IllegalStateException("Slot is fully booked");
+            }
+        }
+
+        if (appointmentSlotRepository.reserveSeat(slotId) == 0) {
+            // Counter was ahead of the table (bookings through another instance); resync it
+            slotCapacityGate.reset(slot, appointmentSlotRepository.findBookedById(slotId));
+            throw new IllegalStateException("Slot is fully booked");
+        }
+
+        publishSlotChange(slot);
+        TransactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                appointmentCalendarIndex.seatTaken(slot);
+            } else {
+                slotCapacityGate.release(slotId);
+            }
+        });
+    }
+
+    private void releaseSeat(AppointmentSlot slot) {
+        Long slotId = slot.getId();
+        appointmentSlotRepository.releaseSeat(slotId);
+        publishSlotChange(slot);
+        TransactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                slotCapacityGate.release(slotId);
+                appointmentCalendarIndex.seatReleased(slot);
+            }
+        });
+    }
+
+    private void publishSlotChange(AppointmentSlot slot) {
+        invalidationBus.publish(Topic.SLOT, slot.getId());
+        invalidationBus.publish(Topic.LOCATION, slot.getLocation());
+    }
+
+    private boolean holdsSeat(Appointment appointment) {
+        return appointment.getSlot() != null
+                && !"Cancelled".equalsIgnoreCase(appointment.getStatus())
+                && !"Completed".equalsIgnoreCase(appointment.getStatus());
     }
 }
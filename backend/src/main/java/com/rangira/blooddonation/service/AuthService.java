@@ -4,39 +4,90 @@ import com.rangira.blooddonation.dto.LoginRequest;
 import com.rangira.blooddonation.dto.RegisterRequest;
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.repository.UserRepository;
+import com.rangira.blooddonation.util.AsyncStages;
 import com.rangira.blooddonation.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final SearchIndex searchIndex;
 
-    public void register(RegisterRequest request) {
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setEmail(request.getEmail());
-        user.setRole(request.getRole());  // <- NEW
-        user.setContact(request.getContact());  // <- NEW
-        user.setAge(request.getAge());         // <- NEW
-        user.setBloodType(request.getBloodType()); // <- NEW
-    
-        userRepository.save(user);
-    
-        emailService.sendEmail(user.getEmail(), "Welcome to Blood Donation System",
-                "Thank you for registering. You can now log in.");
+    private final DonorDirectory donorDirectory;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private Executor passwordHashExecutor;
+
+    @Value("${async.password.timeout-ms:5000}")
+    private long passwordTimeoutMs;
+
+    /**
+     * Hash the password on the BCrypt executor, save the user and send the
+     * welcome email in the background. Completes once the user is saved; a
+     * hash that finishes after the timeout saves nothing.
+     */
+    public CompletableFuture<User> register(RegisterRequest request) {
+        return AsyncStages.supplyAsync(() -> passwordEncoder.encode(request.getPassword()), passwordHashExecutor, passwordTimeoutMs)
+                .thenApply(hash -> {
+                    User user = new User();
+                    user.setUsername(request.getUsername());
+                    user.setPassword(hash);
+                    user.setEmail(request.getEmail());
+                    user.setRole(request.getRole());
+
+                    // Donor-specific fields
+                    if ("DONOR".equalsIgnoreCase(request.getRole())) {
+                        user.setContact(request.getContact());
+                        user.setAge(request.getAge());
+                        user.setBloodType(request.getBloodType());
+                    }
+
+                    User saved = userRepository.save(user);
+                    searchIndex.userSaved(saved);
+                    donorDirectory.donorChanged(saved.getId());
+
+                    emailService.sendEmailAsync(saved.getEmail(), "Welcome to Blood Donation System",
+                                    "Thank you for registering. You can now log in.")
+                            .exceptionally(ex -> {
+                                logger.warn("Welcome email to {} failed: {}", saved.getEmail(), ex.getMessage());
+                                return null;
+                            });
+                    return saved;
+                });
+    }
+
+    /**
+     * Check the credentials on the BCrypt executor and load the user
+     */
+    public CompletableFuture<User> authenticateAsync(String username, String password) {
+        return AsyncStages.supplyAsync(() -> {
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+            return userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        }, passwordHashExecutor, passwordTimeoutMs);
     }
-    
 
     public String authenticate(LoginRequest request) {
         // First authenticate credentials
@@ -1,18 +1,40 @@
 package com.rangira.blooddonation.service;
 
+import com.rangira.blooddonation.dto.BulkDonationSelection;
+import com.rangira.blooddonation.dto.BulkResult;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.journal.EventJournal;
 import com.rangira.blooddonation.model.BloodDonation;
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.repository.BloodDonationRepository;
 import com.rangira.blooddonation.repository.UserRepository;
+import com.rangira.blooddonation.validator.DomainValidators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -24,11 +46,48 @@ public class BloodDonationService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private RecentFeeds recentFeeds;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private DonorDirectory donorDirectory;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SiteService siteService;
+
+    @Autowired
+    private DailyRollups dailyRollups;
+
+    @Value("${donations.shelf-life-days:42}")
+    private int shelfLifeDays;
+
+    @Value("${bulk.max-items:5000}")
+    private int bulkMaxItems;
+
+    private static final int BULK_CHUNK = 1000;
+
+    private static final String INSERT_DONATION = "INSERT INTO donations "
+            + "(blood_type, amount, available, donation_date, expiry_date, location, site_id, notes, donor_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private static final Logger logger = LoggerFactory.getLogger(BloodDonationService.class);
 
     /**
      * Get all blood donations (Admin only)
      */
+    @Transactional(readOnly = true)
     public List<BloodDonation> getAllDonations() {
         logger.info("Fetching all blood donations");
         return bloodDonationRepository.findAll();
@@ -38,6 +97,29 @@ public class BloodDonationService {
      * Create a new blood donation
      */
     public BloodDonation createDonation(BloodDonation bloodDonation, String username) {
+        prepareDonation(bloodDonation, username);
+        bloodDonation.setSiteId(siteService.resolve(bloodDonation.getLocation(), SiteService.DONATION_SITE));
+
+        BloodDonation savedDonation = bloodDonationRepository.save(bloodDonation);
+        logger.info("Blood donation created successfully with ID: {}", savedDonation.getId());
+        recentFeeds.donationSaved(savedDonation);
+        searchIndex.donationSaved(savedDonation);
+        donorDirectory.donorChanged(donorId(savedDonation));
+        invalidationBus.publish(Topic.DONATION, savedDonation.getId());
+        dailyRollups.added(DailyRollups.donation(savedDonation));
+        eventJournal.record(DomainEvent.DONATION_CREATED, savedDonation.getId(),
+                "bloodType", savedDonation.getBloodType(),
+                "amount", String.valueOf(savedDonation.getAmount()),
+                "available", String.valueOf(savedDonation.getAvailable()));
+        
+        return savedDonation;
+    }
+
+    /**
+     * Attach the donor, fill in defaults and validate a new donation without saving it
+     */
+    @Transactional(readOnly = true)
+    public BloodDonation prepareDonation(BloodDonation bloodDonation, String username) {
         logger.info("Creating new blood donation for user: {}", username);
         
         // Find and set the donor
@@ -53,6 +135,10 @@ public class BloodDonationService {
             bloodDonation.setDonationDate(LocalDate.now());
         }
 
+        if (bloodDonation.getExpiryDate() == null) {
+            bloodDonation.setExpiryDate(bloodDonation.getDonationDate().plusDays(shelfLifeDays));
+        }
+
         if (bloodDonation.getAvailable() == null) {
             bloodDonation.setAvailable(true);
         }
@@ -67,10 +153,60 @@ public class BloodDonationService {
             throw new IllegalArgumentException("Donation amount must be positive");
         }
 
-        BloodDonation savedDonation = bloodDonationRepository.save(bloodDonation);
-        logger.info("Blood donation created successfully with ID: {}", savedDonation.getId());
-        
-        return savedDonation;
+        return bloodDonation;
+    }
+
+    /**
+     * Insert already prepared donations with one batched INSERT in a single
+     * transaction. Used by the write-behind ingestion path; ids are filled in
+     * on the given objects, which are returned in the same order.
+     */
+    public List<BloodDonation> saveDonationBatch(List<BloodDonation> donations) {
+        for (BloodDonation donation : donations) {
+            donation.setSiteId(siteService.resolve(donation.getLocation(), SiteService.DONATION_SITE));
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_DONATION, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        BloodDonation donation = donations.get(i);
+                        statement.setString(1, donation.getBloodType());
+                        statement.setObject(2, donation.getAmount());
+                        statement.setObject(3, donation.getAvailable());
+                        statement.setObject(4, donation.getDonationDate());
+                        statement.setObject(5, donation.getExpiryDate());
+                        statement.setString(6, donation.getLocation());
+                        statement.setObject(7, donation.getSiteId());
+                        statement.setString(8, donation.getNotes());
+                        statement.setObject(9, donation.getDonor() != null ? donation.getDonor().getId() : null);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return donations.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < donations.size(); i++) {
+            BloodDonation donation = donations.get(i);
+            donation.setId(((Number) generated.get(i).get("id")).longValue());
+            recentFeeds.donationSaved(donation);
+            searchIndex.donationSaved(donation);
+            invalidationBus.publish(Topic.DONATION, donation.getId());
+            dailyRollups.added(DailyRollups.donation(donation));
+            eventJournal.recordAs(donation.getDonor() != null ? donation.getDonor().getUsername() : "system",
+                    DomainEvent.DONATION_CREATED, donation.getId(),
+                    "bloodType", donation.getBloodType(),
+                    "amount", String.valueOf(donation.getAmount()),
+                    "available", String.valueOf(donation.getAvailable()));
+        }
+        donorDirectory.donorsChanged(donations.stream().map(BloodDonationService::donorId).toList());
+        logger.info("Blood donation batch of {} created", donations.size());
+        return donations;
     }
 
     /**
@@ -85,6 +221,10 @@ public class BloodDonationService {
         }
 
         BloodDonation donation = donationOpt.get();
+        DailyRollups.Fact before = DailyRollups.donation(donation);
+        String previousBloodType = donation.getBloodType();
+        Boolean previouslyAvailable = donation.getAvailable();
+        Long previousDonorId = donorId(donation);
         
         // Update fields
         if (donationDetails.getBloodType() != null) {
@@ -103,10 +243,16 @@ public class BloodDonationService {
         
         if (donationDetails.getDonationDate() != null) {
             donation.setDonationDate(donationDetails.getDonationDate());
+            donation.setExpiryDate(donationDetails.getDonationDate().plusDays(shelfLifeDays));
+        }
+
+        if (donationDetails.getExpiryDate() != null) {
+            donation.setExpiryDate(donationDetails.getExpiryDate());
         }
         
         if (donationDetails.getLocation() != null) {
             donation.setLocation(donationDetails.getLocation());
+            donation.setSiteId(siteService.resolve(donationDetails.getLocation(), SiteService.DONATION_SITE));
         }
         
         if (donationDetails.getNotes() != null) {
@@ -129,6 +275,16 @@ public class BloodDonationService {
 
         BloodDonation updatedDonation = bloodDonationRepository.save(donation);
         logger.info("Blood donation updated successfully with ID: {}", updatedDonation.getId());
+        recentFeeds.donationSaved(updatedDonation);
+        searchIndex.donationSaved(updatedDonation);
+        donorDirectory.donorsChanged(Arrays.asList(previousDonorId, donorId(updatedDonation)));
+        invalidationBus.publish(Topic.DONATION, updatedDonation.getId());
+        dailyRollups.changed(before, DailyRollups.donation(updatedDonation));
+        eventJournal.record(DomainEvent.DONATION_UPDATED, updatedDonation.getId(),
+                "prevBloodType", previousBloodType,
+                "prevAvailable", String.valueOf(previouslyAvailable),
+                "bloodType", updatedDonation.getBloodType(),
+                "available", String.valueOf(updatedDonation.getAvailable()));
         
         return updatedDonation;
     }
@@ -139,25 +295,36 @@ public class BloodDonationService {
     public void deleteDonation(Long id) {
         logger.info("Deleting blood donation with ID: {}", id);
         
-        if (!bloodDonationRepository.existsById(id)) {
+        Optional<BloodDonation> donationOpt = bloodDonationRepository.findById(id);
+        if (!donationOpt.isPresent()) {
             throw new RuntimeException("Donation not found with id: " + id);
         }
 
-        bloodDonationRepository.deleteById(id);
+        bloodDonationRepository.delete(donationOpt.get());
         logger.info("Blood donation deleted successfully with ID: {}", id);
+        recentFeeds.donationDeleted(id);
+        searchIndex.deleted(SearchIndex.Type.DONATION, id);
+        donorDirectory.donorChanged(donorId(donationOpt.get()));
+        invalidationBus.publish(Topic.DONATION, id);
+        dailyRollups.removed(DailyRollups.donation(donationOpt.get()));
+        eventJournal.record(DomainEvent.DONATION_DELETED, id,
+                "bloodType", donationOpt.get().getBloodType(),
+                "available", String.valueOf(donationOpt.get().getAvailable()));
     }
 
     /**
-     * Get all available blood donations
+     * Get all available blood donations, first expiring first
      */
+    @Transactional(readOnly = true)
     public List<BloodDonation> getAvailableDonations() {
         logger.info("Fetching available blood donations");
-        return bloodDonationRepository.findByAvailableTrue();
+        return bloodDonationRepository.findByAvailableTrueOrderByExpiryDateAsc();
     }
 
     /**
-     * Get donations by blood type
+     * Get available donations by blood type, first expiring first
      */
+    @Transactional(readOnly = true)
     public List<BloodDonation> getDonationsByBloodType(String bloodType) {
         logger.info("Fetching donations for blood type: {}", bloodType);
         
@@ -165,12 +332,13 @@ public class BloodDonationService {
             throw new IllegalArgumentException("Invalid blood type: " + bloodType);
         }
         
-        return bloodDonationRepository.findByBloodTypeAndAvailableTrue(bloodType);
+        return bloodDonationRepository.findByBloodTypeAndAvailableTrueOrderByExpiryDateAsc(bloodType);
     }
 
     /**
      * Get donations by user
      */
+    @Transactional(readOnly = true)
     public List<BloodDonation> getDonationsByUser(String username) {
         logger.info("Fetching donations for user: {}", username);
         
@@ -185,6 +353,7 @@ public class BloodDonationService {
     /**
      * Get donation by ID
      */
+    @Transactional(readOnly = true)
     public Optional<BloodDonation> getDonationById(Long id) {
         logger.info("Fetching donation with ID: {}", id);
         return bloodDonationRepository.findById(id);
@@ -202,25 +371,171 @@ public class BloodDonationService {
         }
 
         BloodDonation donation = donationOpt.get();
+        boolean wasAvailable = Boolean.TRUE.equals(donation.getAvailable());
+        DailyRollups.Fact before = DailyRollups.donation(donation);
         donation.setAvailable(false);
         
         BloodDonation updatedDonation = bloodDonationRepository.save(donation);
         logger.info("Donation marked as used successfully with ID: {}", updatedDonation.getId());
+        recentFeeds.donationSaved(updatedDonation);
+        invalidationBus.publish(Topic.DONATION, updatedDonation.getId());
+        dailyRollups.changed(before, DailyRollups.donation(updatedDonation));
+        if (wasAvailable) {
+            eventJournal.record(DomainEvent.DONATION_USED, updatedDonation.getId(),
+                    "bloodType", updatedDonation.getBloodType());
+        }
         
         return updatedDonation;
     }
 
     /**
-     * Get recent donations
+     * Mark every selected donation as used (Admin only). Same rules as
+     * markDonationAsUsed: any existing donation can be marked, already used
+     * units count as done, unknown ids fail.
      */
+    public BulkResult bulkMarkUsed(BulkDonationSelection selection) {
+        Map<Long, Object[]> rows = selectDonations(selection);
+        logger.info("Bulk mark-used of {} donations", rows.size());
+
+        Map<Long, String> failed = new LinkedHashMap<>();
+        if (selection.getIds() != null) {
+            for (Long id : selection.getIds()) {
+                if (!rows.containsKey(id)) {
+                    failed.put(id, "Donation not found with id: " + id);
+                }
+            }
+        }
+
+        List<Long> found = new ArrayList<>(rows.keySet());
+        Set<Long> changed = markUnavailable(found);
+
+        // Units already out of stock, or taken out meanwhile by the expiry sweep or another admin, were counted then
+        rows.forEach((id, row) -> {
+            if (changed.contains(id)) {
+                eventJournal.record(DomainEvent.DONATION_USED, id, "bloodType", (String) row[2]);
+                dailyRollups.changed(
+                        DailyRollups.donation((LocalDate) row[3], (String) row[2], (String) row[4], true, (Integer) row[5]),
+                        DailyRollups.donation((LocalDate) row[3], (String) row[2], (String) row[4], false, (Integer) row[5]));
+            }
+        });
+        recentFeeds.donationsChanged(found);
+        invalidationBus.publish(Topic.DONATION, found);
+
+        int selected = selection.getIds() != null ? selection.getIds().size() : rows.size();
+        return new BulkResult(selected, found, failed);
+    }
+
+    private Map<Long, Object[]> selectDonations(BulkDonationSelection selection) {
+        boolean byIds = selection.getIds() != null;
+        boolean byFilter = selection.getBloodType() != null || selection.getLocation() != null
+                || selection.getOlderThanDays() != null;
+
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Give either ids or at least one filter field");
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        if (byIds) {
+            List<Long> ids = selection.getIds().stream().distinct().collect(Collectors.toList());
+            selection.setIds(ids);
+            if (ids.isEmpty() || ids.size() > bulkMaxItems) {
+                throw new IllegalArgumentException("Between 1 and " + bulkMaxItems + " ids are allowed");
+            }
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+                rows.addAll(bloodDonationRepository.findAvailabilityByIdIn(
+                        ids.subList(from, Math.min(from + BULK_CHUNK, ids.size()))));
+            }
+        } else {
+            if (selection.getBloodType() != null && !isValidBloodType(selection.getBloodType())) {
+                throw new IllegalArgumentException("Invalid blood type: " + selection.getBloodType());
+            }
+            if (selection.getOlderThanDays() != null && selection.getOlderThanDays() < 0) {
+                throw new IllegalArgumentException("olderThanDays cannot be negative");
+            }
+            LocalDate before = selection.getOlderThanDays() != null
+                    ? LocalDate.now().minusDays(selection.getOlderThanDays()) : null;
+            rows = bloodDonationRepository.findAvailabilityByFilter(selection.getBloodType(),
+                    selection.getLocation(), before, PageRequest.of(0, bulkMaxItems + 1));
+            if (rows.size() > bulkMaxItems) {
+                throw new IllegalArgumentException("Filter matches more than " + bulkMaxItems + " donations, narrow it down");
+            }
+        }
+
+        Map<Long, Object[]> byId = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            byId.put((Long) row[0], row);
+        }
+        return byId;
+    }
+
+    /**
+     * Mark up to batchSize expired units as unavailable, returns how many were changed
+     */
+    public int expireDonations(LocalDate today, int batchSize) {
+        List<BloodDonation> expired = bloodDonationRepository.findExpiredAvailable(today, PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = expired.stream().map(BloodDonation::getId).collect(Collectors.toList());
+        Set<Long> changed = markUnavailable(ids);
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        recentFeeds.donationsChanged(new ArrayList<>(changed));
+        invalidationBus.publish(Topic.DONATION, new ArrayList<>(changed));
+        for (BloodDonation donation : expired) {
+            if (!changed.contains(donation.getId())) {
+                continue; // used or expired by a concurrent transaction, which already accounted for it
+            }
+            dailyRollups.changed(DailyRollups.donation(donation),
+                    DailyRollups.donation(donation.getDonationDate(), donation.getBloodType(), donation.getLocation(),
+                            false, donation.getAmount()));
+            eventJournal.record(DomainEvent.DONATION_EXPIRED, donation.getId(),
+                    "bloodType", donation.getBloodType(),
+                    "expiryDate", String.valueOf(donation.getExpiryDate()));
+        }
+        return changed.size();
+    }
+
+    /**
+     * Take units out of stock and return the ids this call actually changed.
+     * The still-available rows are locked first, so a unit a concurrent
+     * transaction takes out is either left out here or waited for and then
+     * skipped, never journaled and rolled up twice.
+     */
+    private Set<Long> markUnavailable(List<Long> ids) {
+        Set<Long> changed = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+            List<Long> locked = bloodDonationRepository.lockAvailable(ids.subList(from, Math.min(from + BULK_CHUNK, ids.size())));
+            if (!locked.isEmpty()) {
+                bloodDonationRepository.markUnavailable(locked);
+                changed.addAll(locked);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Set expiry on donations recorded before expiry tracking existed
+     */
+    public int backfillExpiryDates() {
+        return bloodDonationRepository.backfillExpiryDates(shelfLifeDays);
+    }
+
+    /**
+     * Get recent donations from the in-memory feed (no transaction, no query)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<BloodDonation> getRecentDonations() {
         logger.info("Fetching recent donations");
-        return bloodDonationRepository.findTop10ByOrderByDonationDateDesc();
+        return recentFeeds.recentDonations();
     }
 
     /**
      * Get donation statistics by blood type
      */
+    @Transactional(readOnly = true)
     public long getAvailableDonationCountByBloodType(String bloodType) {
         logger.info("Getting available donation count for blood type: {}", bloodType);
         
@@ -231,26 +546,21 @@ public class BloodDonationService {
         return bloodDonationRepository.countByBloodTypeAndAvailableTrue(bloodType);
     }
 
+    private static Long donorId(BloodDonation donation) {
+        return donation.getDonor() != null ? donation.getDonor().getId() : null;
+    }
+
     /**
      * Check if blood type is valid
      */
     private boolean isValidBloodType(String bloodType) {
-        if (bloodType == null || bloodType.trim().isEmpty()) {
-            return false;
-        }
-        
-        String[] validBloodTypes = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
-        for (String validType : validBloodTypes) {
-            if (validType.equalsIgnoreCase(bloodType.trim())) {
-                return true;
-            }
-        }
-        return false;
+        return DomainValidators.isValidBloodType(bloodType);
     }
 
     /**
      * Check if user can donate (basic eligibility check)
      */
+    @Transactional(readOnly = true)
     public boolean canUserDonate(String username) {
         logger.info("Checking if user can donate: {}", username);
         
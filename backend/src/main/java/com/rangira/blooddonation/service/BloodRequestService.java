@@ -1,18 +1,41 @@
 package com.rangira.blooddonation.service;
 
+import com.rangira.blooddonation.dto.BulkRequestSelection;
+import com.rangira.blooddonation.dto.BulkResult;
+import com.rangira.blooddonation.event.BloodRequestOverdueEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.journal.EventJournal;
 import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.model.JobWatermark;
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.repository.BloodRequestRepository;
+import com.rangira.blooddonation.repository.JobWatermarkRepository;
 import com.rangira.blooddonation.repository.UserRepository;
+import com.rangira.blooddonation.validator.DomainValidators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -24,11 +47,59 @@ public class BloodRequestService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EventJournal eventJournal;
+
+    @Autowired
+    private RecentFeeds recentFeeds;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private SiteService siteService;
+
+    @Autowired
+    private DailyRollups dailyRollups;
+
+    @Autowired
+    private FulfillmentLeadTimes fulfillmentLeadTimes;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private static final Logger logger = LoggerFactory.getLogger(BloodRequestService.class);
 
+    private static final String OVERDUE_JOB = "overdue-requests";
+
+    private static final List<String> OVERDUE_STATUSES = List.of("Overdue", "Escalated");
+
+    private static final List<String> URGENT_STATUSES = List.of("Pending", "Escalated");
+
+    // Upper-cased statuses that block fulfil/cancel; must agree with fulfillBlocker/cancelBlocker
+    private static final List<String> CLOSED_STATUSES = List.of("FULFILLED", "CANCELLED");
+
+    private static final int BULK_CHUNK = 1000;
+
+    @Value("${bulk.max-items:5000}")
+    private int bulkMaxItems;
+
+    @Value("${requests.overdue-job.batch-size:500}")
+    private int overdueBatchSize;
+
     /**
      * Get all blood requests (Admin only)
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getAllRequests() {
         logger.info("Fetching all blood requests");
         return bloodRequestRepository.findAll();
@@ -56,6 +127,7 @@ public class BloodRequestService {
         if (bloodRequest.getStatus() == null || bloodRequest.getStatus().trim().isEmpty()) {
             bloodRequest.setStatus("Pending");
         }
+        bloodRequest.setCreatedAt(LocalDateTime.now());
 
         // Validate blood type
         if (!isValidBloodType(bloodRequest.getBloodType())) {
@@ -77,8 +149,21 @@ public class BloodRequestService {
             throw new IllegalArgumentException("Needed by date cannot be in the past");
         }
 
+        bloodRequest.setHospitalSiteId(siteService.resolve(bloodRequest.getHospitalName(), SiteService.HOSPITAL));
+        stampStatusTime(bloodRequest, null);
+
         BloodRequest savedRequest = bloodRequestRepository.save(bloodRequest);
         logger.info("Blood request created successfully with ID: {}", savedRequest.getId());
+        recentFeeds.requestSaved(savedRequest);
+        searchIndex.requestSaved(savedRequest);
+        invalidationBus.publish(Topic.REQUEST, savedRequest.getId());
+        dailyRollups.added(DailyRollups.request(savedRequest));
+        eventJournal.record(DomainEvent.REQUEST_CREATED, savedRequest.getId(),
+                "status", savedRequest.getStatus(),
+                "bloodType", savedRequest.getBloodType(),
+                "urgency", savedRequest.getUrgency(),
+                "hospitalName", savedRequest.getHospitalName(),
+                "amount", String.valueOf(savedRequest.getAmount()));
         
         return savedRequest;
     }
@@ -95,6 +180,8 @@ public class BloodRequestService {
         }
 
         BloodRequest request = requestOpt.get();
+        String previousStatus = request.getStatus();
+        DailyRollups.Fact before = DailyRollups.request(request);
         
         // Update fields
         if (requestDetails.getBloodType() != null) {
@@ -122,6 +209,7 @@ request.setAmount(requestDetails.getAmount());
         
         if (requestDetails.getHospitalName() != null) {
             request.setHospitalName(requestDetails.getHospitalName());
+            request.setHospitalSiteId(siteService.resolve(requestDetails.getHospitalName(), SiteService.HOSPITAL));
         }
         
         if (requestDetails.getReason() != null) {
@@ -141,9 +229,18 @@ request.setAmount(requestDetails.getAmount());
             }
             request.setStatus(requestDetails.getStatus());
         }
+        boolean fulfilledNow = stampStatusTime(request, previousStatus);
 
         BloodRequest updatedRequest = bloodRequestRepository.save(request);
         logger.info("Blood request updated successfully with ID: {}", updatedRequest.getId());
+        if (fulfilledNow) {
+            fulfillmentLeadTimes.fulfilled(updatedRequest);
+        }
+        recentFeeds.requestSaved(updatedRequest);
+        searchIndex.requestSaved(updatedRequest);
+        invalidationBus.publish(Topic.REQUEST, updatedRequest.getId());
+        dailyRollups.changed(before, DailyRollups.request(updatedRequest));
+        recordStatusChange(updatedRequest, previousStatus);
         
         return updatedRequest;
     }
@@ -154,12 +251,21 @@ request.setAmount(requestDetails.getAmount());
     public void deleteRequest(Long id) {
         logger.info("Deleting blood request with ID: {}", id);
         
-        if (!bloodRequestRepository.existsById(id)) {
+        Optional<BloodRequest> requestOpt = bloodRequestRepository.findById(id);
+        if (!requestOpt.isPresent()) {
             throw new RuntimeException("Request not found with id: " + id);
         }
 
-        bloodRequestRepository.deleteById(id);
+        bloodRequestRepository.delete(requestOpt.get());
         logger.info("Blood request deleted successfully with ID: {}", id);
+        recentFeeds.requestDeleted(id);
+        searchIndex.deleted(SearchIndex.Type.REQUEST, id);
+        invalidationBus.publish(Topic.REQUEST, id);
+        dailyRollups.removed(DailyRollups.request(requestOpt.get()));
+        eventJournal.record(DomainEvent.REQUEST_DELETED, id, "status", requestOpt.get().getStatus(),
+                "bloodType", requestOpt.get().getBloodType(),
+                "hospitalName", requestOpt.get().getHospitalName(),
+                "amount", String.valueOf(requestOpt.get().getAmount()));
     }
 
     /**
@@ -175,18 +281,23 @@ request.setAmount(requestDetails.getAmount());
 
         BloodRequest request = requestOpt.get();
         
-        if ("Fulfilled".equalsIgnoreCase(request.getStatus())) {
-            throw new IllegalStateException("Request is already fulfilled");
-        }
-        
-        if ("Cancelled".equalsIgnoreCase(request.getStatus())) {
-            throw new IllegalStateException("Cannot fulfill a cancelled request");
+        String blocker = fulfillBlocker(request.getStatus());
+        if (blocker != null) {
+            throw new IllegalStateException(blocker);
         }
         
+        String previousStatus = request.getStatus();
+        DailyRollups.Fact before = DailyRollups.request(request);
         request.setStatus("Fulfilled");
+        stampStatusTime(request, previousStatus);
         
         BloodRequest updatedRequest = bloodRequestRepository.save(request);
         logger.info("Blood request fulfilled successfully with ID: {}", updatedRequest.getId());
+        fulfillmentLeadTimes.fulfilled(updatedRequest);
+        recentFeeds.requestSaved(updatedRequest);
+        invalidationBus.publish(Topic.REQUEST, updatedRequest.getId());
+        dailyRollups.changed(before, DailyRollups.request(updatedRequest));
+        recordStatusChange(updatedRequest, previousStatus);
         
         return updatedRequest;
     }
@@ -212,25 +323,196 @@ request.setAmount(requestDetails.getAmount());
             }
         }
         
-        if ("Fulfilled".equalsIgnoreCase(request.getStatus())) {
-            throw new IllegalStateException("Cannot cancel a fulfilled request");
-        }
-        
-        if ("Cancelled".equalsIgnoreCase(request.getStatus())) {
-            throw new IllegalStateException("Request is already cancelled");
+        String blocker = cancelBlocker(request.getStatus());
+        if (blocker != null) {
+            throw new IllegalStateException(blocker);
         }
         
+        String previousStatus = request.getStatus();
+        DailyRollups.Fact before = DailyRollups.request(request);
         request.setStatus("Cancelled");
+        stampStatusTime(request, previousStatus);
         
         BloodRequest updatedRequest = bloodRequestRepository.save(request);
         logger.info("Blood request cancelled successfully with ID: {}", updatedRequest.getId());
+        recentFeeds.requestSaved(updatedRequest);
+        invalidationBus.publish(Topic.REQUEST, updatedRequest.getId());
+        dailyRollups.changed(before, DailyRollups.request(updatedRequest));
+        recordStatusChange(updatedRequest, previousStatus);
         
         return updatedRequest;
     }
 
+    /**
+     * Fulfill every selected request that the single-item rules allow (Admin only)
+     */
+    public BulkResult bulkFulfill(BulkRequestSelection selection) {
+        return bulkTransition(selection, "Fulfilled", BloodRequestService::fulfillBlocker);
+    }
+
+    /**
+     * Cancel every selected request that the single-item rules allow (Admin only)
+     */
+    public BulkResult bulkCancel(BulkRequestSelection selection) {
+        return bulkTransition(selection, "Cancelled", BloodRequestService::cancelBlocker);
+    }
+
+    /**
+     * Check states in memory from one projection query, then move all eligible
+     * rows with a guarded UPDATE per chunk of ids.
+     */
+    private BulkResult bulkTransition(BulkRequestSelection selection, String target, Function<String, String> blocker) {
+        Map<Long, String> statuses = selectRequests(selection);
+        logger.info("Bulk {} of {} requests", target, statuses.size());
+
+        Map<Long, String> failed = new LinkedHashMap<>();
+        if (selection.getIds() != null) {
+            for (Long id : selection.getIds()) {
+                if (!statuses.containsKey(id)) {
+                    failed.put(id, "Request not found with id: " + id);
+                }
+            }
+        }
+
+        List<Long> eligible = new ArrayList<>();
+        statuses.forEach((id, status) -> {
+            String reason = blocker.apply(status);
+            if (reason != null) {
+                failed.put(id, reason);
+            } else {
+                eligible.add(id);
+            }
+        });
+
+        List<Long> succeeded = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime fulfilledAt = "Fulfilled".equals(target) ? now : null;
+        LocalDateTime cancelledAt = "Cancelled".equals(target) ? now : null;
+        for (int from = 0; from < eligible.size(); from += BULK_CHUNK) {
+            List<Long> chunk = eligible.subList(from, Math.min(from + BULK_CHUNK, eligible.size()));
+            Map<Long, String> open = toStatusMap(bloodRequestRepository.lockOpenStatuses(chunk, CLOSED_STATUSES));
+            if (!open.isEmpty()) {
+                bloodRequestRepository.transitionStatus(open.keySet(), target, fulfilledAt, cancelledAt, CLOSED_STATUSES);
+                succeeded.addAll(open.keySet());
+                // The status at the moment of the change, for the journal and the rollups
+                statuses.putAll(open);
+            }
+            if (open.size() == chunk.size()) {
+                continue;
+            }
+            // Someone else closed the others after our read, possibly into the target state
+            // already; report them with the current state and leave their side effects alone
+            List<Long> missed = chunk.stream().filter(id -> !open.containsKey(id)).collect(Collectors.toList());
+            Map<Long, String> current = toStatusMap(bloodRequestRepository.findStatusesByIdIn(missed));
+            for (Long id : missed) {
+                String status = current.get(id);
+                String reason = status == null ? "Request not found with id: " + id : blocker.apply(status);
+                failed.put(id, reason != null ? reason : "Status changed concurrently");
+            }
+        }
+
+        for (int from = 0; from < succeeded.size(); from += BULK_CHUNK) {
+            for (Object[] row : bloodRequestRepository.findDemandByIdIn(
+                    succeeded.subList(from, Math.min(from + BULK_CHUNK, succeeded.size())))) {
+                Long id = (Long) row[0];
+                eventJournal.record(DomainEvent.REQUEST_STATUS_CHANGED, id, "from", statuses.get(id), "to", target,
+                        "bloodType", (String) row[1], "hospitalName", (String) row[2], "amount", String.valueOf(row[3]));
+                dailyRollups.changed(
+                        DailyRollups.request((LocalDate) row[4], (String) row[1], (String) row[2], statuses.get(id), (Integer) row[3]),
+                        DailyRollups.request((LocalDate) row[4], (String) row[1], (String) row[2], target, (Integer) row[3]));
+                if (fulfilledAt != null) {
+                    fulfillmentLeadTimes.fulfilled((String) row[5], (String) row[2], (LocalDateTime) row[6], fulfilledAt);
+                }
+            }
+        }
+        recentFeeds.requestsChanged(succeeded);
+        invalidationBus.publish(Topic.REQUEST, succeeded);
+
+        int selected = selection.getIds() != null ? selection.getIds().size() : statuses.size();
+        return new BulkResult(selected, succeeded, failed);
+    }
+
+    private Map<Long, String> selectRequests(BulkRequestSelection selection) {
+        boolean byIds = selection.getIds() != null;
+        boolean byFilter = selection.getHospitalName() != null || selection.getStatus() != null
+                || selection.getBloodType() != null || selection.getOlderThanDays() != null;
+
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Give either ids or at least one filter field");
+        }
+
+        if (byIds) {
+            List<Long> ids = selection.getIds().stream().distinct().collect(Collectors.toList());
+            selection.setIds(ids);
+            if (ids.isEmpty() || ids.size() > bulkMaxItems) {
+                throw new IllegalArgumentException("Between 1 and " + bulkMaxItems + " ids are allowed");
+            }
+            Map<Long, String> statuses = new LinkedHashMap<>();
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+                statuses.putAll(toStatusMap(bloodRequestRepository.findStatusesByIdIn(
+                        ids.subList(from, Math.min(from + BULK_CHUNK, ids.size())))));
+            }
+            return statuses;
+        }
+
+        if (selection.getStatus() != null && !isValidStatus(selection.getStatus())) {
+            throw new IllegalArgumentException("Invalid status: " + selection.getStatus());
+        }
+        if (selection.getBloodType() != null && !isValidBloodType(selection.getBloodType())) {
+            throw new IllegalArgumentException("Invalid blood type: " + selection.getBloodType());
+        }
+        if (selection.getOlderThanDays() != null && selection.getOlderThanDays() < 0) {
+            throw new IllegalArgumentException("olderThanDays cannot be negative");
+        }
+
+        LocalDate before = selection.getOlderThanDays() != null
+                ? LocalDate.now().minusDays(selection.getOlderThanDays()) : null;
+        List<Object[]> rows = bloodRequestRepository.findStatusesByFilter(selection.getHospitalName(),
+                selection.getStatus(), selection.getBloodType(), before, PageRequest.of(0, bulkMaxItems + 1));
+        if (rows.size() > bulkMaxItems) {
+            throw new IllegalArgumentException("Filter matches more than " + bulkMaxItems + " requests, narrow it down");
+        }
+        return toStatusMap(rows);
+    }
+
+    private static Map<Long, String> toStatusMap(List<Object[]> rows) {
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            statuses.put((Long) row[0], (String) row[1]);
+        }
+        return statuses;
+    }
+
+    /**
+     * Why a request in this status cannot be fulfilled, or null if it can
+     */
+    private static String fulfillBlocker(String status) {
+        if ("Fulfilled".equalsIgnoreCase(status)) {
+            return "Request is already fulfilled";
+        }
+        if ("Cancelled".equalsIgnoreCase(status)) {
+            return "Cannot fulfill a cancelled request";
+        }
+        return null;
+    }
+
+    /**
+     * Why a request in this status cannot be cancelled, or null if it can
+     */
+    private static String cancelBlocker(String status) {
+        if ("Fulfilled".equalsIgnoreCase(status)) {
+            return "Cannot cancel a fulfilled request";
+        }
+        if ("Cancelled".equalsIgnoreCase(status)) {
+            return "Request is already cancelled";
+        }
+        return null;
+    }
+
     /**
      * Get requests by blood type
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getRequestsByBloodType(String bloodType) {
         logger.info("Fetching requests for blood type: {}", bloodType);
         
@@ -244,22 +526,25 @@ request.setAmount(requestDetails.getAmount());
     /**
      * Get pending requests
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getPendingRequests() {
         logger.info("Fetching pending requests");
         return bloodRequestRepository.findByStatus("Pending");
     }
 
     /**
-     * Get urgent requests
+     * Get urgent requests (High urgency, still pending or escalated)
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getUrgentRequests() {
         logger.info("Fetching urgent requests");
-        return bloodRequestRepository.findByUrgencyAndStatus("High", "Pending");
+        return bloodRequestRepository.findByUrgencyAndStatusIn("High", URGENT_STATUSES);
     }
 
     /**
      * Get requests by user
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getRequestsByUser(String username) {
         logger.info("Fetching requests for user: {}", username);
         
@@ -274,38 +559,116 @@ request.setAmount(requestDetails.getAmount());
     /**
      * Get request by ID
      */
+    @Transactional(readOnly = true)
     public Optional<BloodRequest> getRequestById(Long id) {
         logger.info("Fetching request with ID: {}", id);
         return bloodRequestRepository.findById(id);
     }
 
     /**
-     * Get recent requests
+     * Get recent requests from the in-memory feed (no transaction, no query)
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<BloodRequest> getRecentRequests() {
         logger.info("Fetching recent requests");
-        return bloodRequestRepository.findTop10ByOrderByRequestDateDesc();
+        return recentFeeds.recentRequests();
     }
 
     /**
      * Get requests by hospital
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getRequestsByHospital(String hospitalName) {
         logger.info("Fetching requests for hospital: {}", hospitalName);
         return bloodRequestRepository.findByHospitalName(hospitalName);
     }
 
     /**
-     * Get overdue requests (needed by date has passed)
+     * Get overdue requests (marked Overdue or Escalated by the overdue job)
      */
+    @Transactional(readOnly = true)
     public List<BloodRequest> getOverdueRequests() {
         logger.info("Fetching overdue requests");
-        return bloodRequestRepository.findByNeededByDateBeforeAndStatus(LocalDate.now(), "Pending");
+        return bloodRequestRepository.findByStatusInOrderByNeededByDateAsc(OVERDUE_STATUSES);
+    }
+
+    /**
+     * Move pending requests whose needed by date passed since the last run to Overdue/Escalated.
+     * Only the dates between the stored watermark and today are looked at, in batches of
+     * overdueBatchSize that each commit on their own; the watermark moves once all are done.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int markOverdueRequests(LocalDate today) {
+        JobWatermark watermark = jobWatermarkRepository.findById(OVERDUE_JOB)
+                .orElseGet(() -> new JobWatermark(OVERDUE_JOB, LocalDate.EPOCH));
+
+        if (!watermark.getWatermark().isBefore(today)) {
+            return 0;
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int changed = 0;
+        int found;
+        do {
+            // Every request of a batch leaves Pending (here or concurrently), so the next batch is again the first page
+            List<BloodRequest> batch = bloodRequestRepository.findPendingNeededBetween(
+                    watermark.getWatermark(), today, PageRequest.of(0, overdueBatchSize));
+            found = batch.size();
+            if (found > 0) {
+                changed += transaction.execute(status -> markOverdue(batch));
+            }
+        } while (found == overdueBatchSize);
+
+        watermark.setWatermark(today);
+        jobWatermarkRepository.save(watermark);
+        logger.info("Overdue check up to {}: {} requests changed", today, changed);
+
+        return changed;
+    }
+
+    /**
+     * Mark one batch overdue; the side effects only cover the requests that were still pending
+     * under the lock, not those a concurrent fulfil or cancel already took care of.
+     */
+    private int markOverdue(List<BloodRequest> batch) {
+        List<Long> locked = bloodRequestRepository.lockPending(
+                batch.stream().map(BloodRequest::getId).collect(Collectors.toList()));
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        bloodRequestRepository.markOverdue(locked);
+        recentFeeds.requestsChanged(locked);
+        invalidationBus.publish(Topic.REQUEST, locked);
+
+        Set<Long> changed = new HashSet<>(locked);
+        for (BloodRequest request : batch) {
+            if (!changed.contains(request.getId())) {
+                continue;
+            }
+            String newStatus = "High".equalsIgnoreCase(request.getUrgency()) ? "Escalated" : "Overdue";
+            dailyRollups.changed(DailyRollups.request(request.getRequestDate(), request.getBloodType(),
+                            request.getHospitalName(), "Pending", request.getAmount()),
+                    DailyRollups.request(request.getRequestDate(), request.getBloodType(),
+                            request.getHospitalName(), newStatus, request.getAmount()));
+            eventJournal.record(DomainEvent.REQUEST_STATUS_CHANGED, request.getId(), "from", "Pending", "to", newStatus,
+                    "bloodType", request.getBloodType(), "hospitalName", request.getHospitalName(),
+                    "amount", String.valueOf(request.getAmount()));
+            eventPublisher.publishEvent(new BloodRequestOverdueEvent(
+                    request.getId(),
+                    request.getBloodType(),
+                    request.getUrgency(),
+                    request.getHospitalName(),
+                    request.getNeededByDate(),
+                    newStatus,
+                    request.getRequester() != null ? request.getRequester().getEmail() : null));
+        }
+        return locked.size();
     }
 
     /**
      * Get request statistics by status
      */
+    @Transactional(readOnly = true)
     public long getRequestCountByStatus(String status) {
         logger.info("Getting request count for status: {}", status);
         
@@ -319,59 +682,63 @@ request.setAmount(requestDetails.getAmount());
     /**
      * Get urgent request count
      */
+    @Transactional(readOnly = true)
     public long getUrgentRequestCount() {
         logger.info("Getting urgent request count");
-        return bloodRequestRepository.countByUrgencyAndStatus("High", "Pending");
+        return bloodRequestRepository.countByUrgencyAndStatusIn("High", URGENT_STATUSES);
+    }
+
+    /**
+     * Keep fulfilledAt/cancelledAt in step with the status; returns true if the
+     * request has just become fulfilled
+     */
+    private static boolean stampStatusTime(BloodRequest request, String previousStatus) {
+        boolean fulfilled = "Fulfilled".equals(request.getStatus());
+        boolean cancelled = "Cancelled".equals(request.getStatus());
+        boolean fulfilledNow = fulfilled && (!"Fulfilled".equals(previousStatus) || request.getFulfilledAt() == null);
+        if (fulfilledNow) {
+            request.setFulfilledAt(LocalDateTime.now());
+        } else if (!fulfilled) {
+            request.setFulfilledAt(null);
+        }
+        if (cancelled && request.getCancelledAt() == null) {
+            request.setCancelledAt(LocalDateTime.now());
+        } else if (!cancelled) {
+            request.setCancelledAt(null);
+        }
+        return fulfilledNow;
+    }
+
+    /**
+     * Journal a status transition if the status actually changed
+     */
+    private void recordStatusChange(BloodRequest request, String previousStatus) {
+        if (previousStatus == null ? request.getStatus() != null : !previousStatus.equals(request.getStatus())) {
+            eventJournal.record(DomainEvent.REQUEST_STATUS_CHANGED, request.getId(),
+                    "from", previousStatus, "to", request.getStatus(),
+                    "bloodType", request.getBloodType(), "hospitalName", request.getHospitalName(),
+                    "amount", String.valueOf(request.getAmount()));
+        }
     }
 
     /**
      * Check if blood type is valid
      */
     private boolean isValidBloodType(String bloodType) {
-        if (bloodType == null || bloodType.trim().isEmpty()) {
-            return false;
-        }
-        
-        String[] validBloodTypes = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
-        for (String validType : validBloodTypes) {
-            if (validType.equalsIgnoreCase(bloodType.trim())) {
-                return true;
-            }
-        }
-        return false;
+        return DomainValidators.isValidBloodType(bloodType);
     }
 
     /**
      * Check if urgency level is valid
      */
     private boolean isValidUrgency(String urgency) {
-        if (urgency == null || urgency.trim().isEmpty()) {
-            return false;
-        }
-        
-        String[] validUrgencies = {"Low", "Medium", "High"};
-        for (String validUrgency : validUrgencies) {
-            if (validUrgency.equalsIgnoreCase(urgency.trim())) {
-                return true;
-            }
-        }
-        return false;
+        return DomainValidators.isValidUrgency(urgency);
     }
 
     /**
      * Check if status is valid
      */
     private boolean isValidStatus(String status) {
-        if (status == null || status.trim().isEmpty()) {
-            return false;
-        }
-        
-        String[] validStatuses = {"Pending", "Fulfilled", "Cancelled"};
-        for (String validStatus : validStatuses) {
-            if (validStatus.equalsIgnoreCase(status.trim())) {
-                return true;
-            }
-        }
-        return false;
+        return DomainValidators.isValidRequestStatus(status);
     }
 }
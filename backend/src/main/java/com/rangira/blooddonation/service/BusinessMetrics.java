@@ -0,0 +1,72 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Business gauges: available units per blood type and pending requests per urgency.
+ * Values are refreshed on a schedule so a scrape never waits on the database.
+ */
+@Component
+public class BusinessMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusinessMetrics.class);
+
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final String[] URGENCIES = {"Low", "Medium", "High"};
+
+    private final BloodDonationRepository bloodDonationRepository;
+    private final BloodRequestRepository bloodRequestRepository;
+
+    private final Map<String, AtomicLong> availableUnits = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> pendingRequests = new LinkedHashMap<>();
+
+    @Autowired
+    public BusinessMetrics(MeterRegistry meterRegistry,
+                           BloodDonationRepository bloodDonationRepository,
+                           BloodRequestRepository bloodRequestRepository) {
+        this.bloodDonationRepository = bloodDonationRepository;
+        this.bloodRequestRepository = bloodRequestRepository;
+
+        for (String bloodType : BLOOD_TYPES) {
+            AtomicLong value = new AtomicLong();
+            availableUnits.put(bloodType, value);
+            Gauge.builder("blooddonation.inventory.available", value, AtomicLong::get)
+                    .description("Available blood units")
+                    .tag("bloodType", bloodType)
+                    .register(meterRegistry);
+        }
+
+        for (String urgency : URGENCIES) {
+            AtomicLong value = new AtomicLong();
+            pendingRequests.put(urgency, value);
+            Gauge.builder("blooddonation.requests.pending", value, AtomicLong::get)
+                    .description("Pending blood requests")
+                    .tag("urgency", urgency)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.business.refresh-ms:30000}", initialDelay = 0)
+    public void refresh() {
+        try {
+            availableUnits.forEach((bloodType, value) ->
+                    value.set(bloodDonationRepository.countByBloodTypeAndAvailableTrue(bloodType)));
+            pendingRequests.forEach((urgency, value) ->
+                    value.set(bloodRequestRepository.countByUrgencyAndStatus(urgency, "Pending")));
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh business metrics: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily totals of donations and requests per (day, blood type,
+ * location/hospital, status), in donation_daily_rollup and request_daily_rollup.
+ *
+ * The write paths report each row they add, change or remove as a Fact; the
+ * resulting +1/-1 deltas are merged per transaction and upserted just before
+ * it commits, in key order, so a bulk operation costs one statement per
+ * touched rollup row and concurrent writers lock rollup rows briefly and in
+ * the same order. A nightly job recomputes the last days from the base
+ * tables and repairs any drift it finds.
+ */
+@Component
+public class DailyRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyRollups.class);
+
+    public enum Table {
+        DONATIONS("donation_daily_rollup", "location",
+                "SELECT donation_date AS day, coalesce(blood_type, '') AS blood_type, "
+                        + "lower(trim(regexp_replace(coalesce(location, ''), '\\s+', ' ', 'g'))) AS location, "
+                        + "CASE WHEN available THEN 'Available' ELSE 'Unavailable' END AS status, "
+                        + "count(*) AS records, coalesce(sum(amount), 0) AS units "
+                        + "FROM donations WHERE donation_date >= ? AND donation_date < ? GROUP BY 1, 2, 3, 4"),
+        REQUESTS("request_daily_rollup", "hospital",
+                "SELECT request_date AS day, coalesce(blood_type, '') AS blood_type, "
+                        + "lower(trim(regexp_replace(coalesce(hospital_name, ''), '\\s+', ' ', 'g'))) AS hospital, "
+                        + "coalesce(status, '') AS status, "
+                        + "count(*) AS records, coalesce(sum(amount), 0) AS units "
+                        + "FROM requests WHERE request_date >= ? AND request_date < ? GROUP BY 1, 2, 3, 4");
+
+        private final String tableName;
+        private final String place;
+        private final String fromBaseTable;
+
+        Table(String tableName, String place, String fromBaseTable) {
+            this.tableName = tableName;
+            this.place = place;
+            this.fromBaseTable = fromBaseTable;
+        }
+
+        public String place() {
+            return place;
+        }
+    }
+
+    /** The rollup row one base row counts towards, and its units */
+    public record Fact(Table table, LocalDate day, String bloodType, String place, String status, long units) {
+
+        private Fact key() {
+            return new Fact(table, day, bloodType, place, status, 0);
+        }
+    }
+
+    private static final List<String> GRANULARITIES = List.of("day", "week", "month", "quarter", "year");
+
+    private static final Comparator<Fact> KEY_ORDER = Comparator.comparing(Fact::table)
+            .thenComparing(Fact::day)
+            .thenComparing(Fact::bloodType)
+            .thenComparing(Fact::place)
+            .thenComparing(Fact::status);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${rollups.reconcile-days:35}")
+    private int reconcileDays;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DailyRollups(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public static Fact donation(BloodDonation donation) {
+        return donation(donation.getDonationDate(), donation.getBloodType(), donation.getLocation(),
+                donation.getAvailable(), donation.getAmount());
+    }
+
+    public static Fact donation(LocalDate day, String bloodType, String location, Boolean available, Integer amount) {
+        return new Fact(Table.DONATIONS, day, bloodType == null ? "" : bloodType, SiteRegistry.normalize(location),
+                Boolean.TRUE.equals(available) ? "Available" : "Unavailable", amount == null ? 0 : amount);
+    }
+
+    public static Fact request(BloodRequest request) {
+        return request(request.getRequestDate(), request.getBloodType(), request.getHospitalName(),
+                request.getStatus(), request.getAmount());
+    }
+
+    public static Fact request(LocalDate day, String bloodType, String hospital, String status, Integer amount) {
+        return new Fact(Table.REQUESTS, day, bloodType == null ? "" : bloodType, SiteRegistry.normalize(hospital),
+                status == null ? "" : status, amount == null ? 0 : amount);
+    }
+
+    public void added(Fact fact) {
+        apply(fact, 1);
+    }
+
+    public void removed(Fact fact) {
+        apply(fact, -1);
+    }
+
+    public void changed(Fact before, Fact after) {
+        if (!before.equals(after)) {
+            apply(before, -1);
+            apply(after, 1);
+        }
+    }
+
+    private void apply(Fact fact, int sign) {
+        if (fact.day() == null) {
+            // Rows without a date are not rolled up, neither here nor by reconciliation
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<Fact, long[]> single = new TreeMap<>(KEY_ORDER);
+            single.put(fact.key(), new long[]{sign, sign * fact.units()});
+            write(single);
+            return;
+        }
+
+        PendingDeltas pending = TransactionHooks.pending(PendingDeltas.class, PendingDeltas::new);
+        long[] delta = pending.deltas.computeIfAbsent(fact.key(), key -> new long[2]);
+        delta[0] += sign;
+        delta[1] += sign * fact.units();
+    }
+
+    private void write(Map<Fact, long[]> deltas) {
+        for (Table table : Table.values()) {
+            List<Object[]> rows = new ArrayList<>();
+            deltas.forEach((key, delta) -> {
+                if (key.table() == table && (delta[0] != 0 || delta[1] != 0)) {
+                    rows.add(new Object[]{Date.valueOf(key.day()), key.bloodType(), key.place(), key.status(),
+                            delta[0], delta[1]});
+                }
+            });
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + table.tableName
+                        + " (day, blood_type, " + table.place + ", status, records, units) VALUES (?, ?, ?, ?, ?, ?) "
+                        + "ON CONFLICT (day, blood_type, " + table.place + ", status) DO UPDATE SET "
+                        + "records = " + table.tableName + ".records + EXCLUDED.records, "
+                        + "units = " + table.tableName + ".units + EXCLUDED.units", rows);
+            }
+        }
+    }
+
+    /**
+     * Totals per period between from and to (inclusive), optionally grouped by
+     * blood type, place and/or status and filtered on them. Reads the rollup
+     * table only.
+     */
+    public List<Map<String, Object>> query(Table table, LocalDate from, LocalDate to, String granularity,
+                                           List<String> groupBy, String bloodType, String place, String status) {
+        if (!GRANULARITIES.contains(granularity)) {
+            throw new IllegalArgumentException("granularity must be one of " + GRANULARITIES);
+        }
+        List<String> columns = new ArrayList<>();
+        for (String group : groupBy) {
+            String column = switch (group) {
+                case "bloodType" -> "blood_type";
+                case "status" -> "status";
+                default -> {
+                    if (!group.equals(table.place)) {
+                        throw new IllegalArgumentException("Cannot group by " + group);
+                    }
+                    yield table.place;
+                }
+            };
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT CAST(date_trunc('").append(granularity)
+                .append("', day) AS date) AS period");
+        columns.forEach(column -> sql.append(", ").append(column));
+        sql.append(", sum(records) AS records, sum(units) AS units FROM ").append(table.tableName)
+                .append(" WHERE day >= ? AND day <= ?");
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (bloodType != null) {
+            sql.append(" AND blood_type = ?");
+            args.add(bloodType);
+        }
+        if (place != null) {
+            sql.append(" AND ").append(table.place).append(" = ?");
+            args.add(SiteRegistry.normalize(place));
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status);
+        }
+        String grouping = String.join(", ", columns);
+        sql.append(" GROUP BY period").append(grouping.isEmpty() ? "" : ", " + grouping)
+                .append(" HAVING sum(records) <> 0 ORDER BY period").append(grouping.isEmpty() ? "" : ", " + grouping);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("period", rs.getDate("period").toLocalDate());
+            for (String column : columns) {
+                row.put(column.equals("blood_type") ? "bloodType" : column, rs.getString(column));
+            }
+            row.put("records", rs.getLong("records"));
+            row.put("units", rs.getLong("units"));
+            return row;
+        }, args.toArray());
+    }
+
+    /**
+     * Recompute the last rollups.reconcile-days days of both rollups from the
+     * base tables; where they disagree, log it and replace that range.
+     */
+    @Scheduled(cron = "${rollups.reconcile-cron:0 15 1 * * *}")
+    public void reconcile() {
+        LocalDate to = LocalDate.now().plusDays(1);
+        LocalDate from = to.minusDays(reconcileDays + 1L);
+        for (Table table : Table.values()) {
+            try {
+                int repaired = reconcile(table, from, to);
+                if (repaired > 0) {
+                    logger.warn("Rollup {} disagreed with its base table on {} rows between {} and {}, repaired",
+                            table.tableName, repaired, from, to);
+                } else {
+                    logger.info("Rollup {} matches its base table between {} and {}", table.tableName, from, to);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not reconcile rollup {}: {}", table.tableName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compare and, if needed, rebuild [from, to) of one rollup; returns the number of differing rows
+     */
+    public int reconcile(Table table, LocalDate from, LocalDate to) {
+        Date start = Date.valueOf(from);
+        Date end = Date.valueOf(to);
+        String key = "day, blood_type, " + table.place + ", status";
+        Integer differing = transactionTemplate.execute(status -> {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM (" + table.fromBaseTable + ") actual "
+                            + "FULL JOIN (SELECT * FROM " + table.tableName + " WHERE day >= ? AND day < ?) rollup "
+                            + "USING (" + key + ") "
+                            + "WHERE coalesce(actual.records, 0) <> coalesce(rollup.records, 0) "
+                            + "OR coalesce(actual.units, 0) <> coalesce(rollup.units, 0)",
+                    Integer.class, start, end, start, end);
+            if (count != null && count > 0) {
+                jdbcTemplate.update("DELETE FROM " + table.tableName + " WHERE day >= ? AND day < ?", start, end);
+                jdbcTemplate.update("INSERT INTO " + table.tableName + " (" + key + ", records, units) "
+                        + table.fromBaseTable, start, end);
+            }
+            return count;
+        });
+        return differing == null ? 0 : differing;
+    }
+
+    /**
+     * Deltas collected in one transaction, written together just before it commits.
+     */
+    private class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<Fact, long[]> deltas = new TreeMap<>(KEY_ORDER);
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!deltas.isEmpty()) {
+                write(deltas);
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import com.rangira.blooddonation.util.SeasonalDemandSeries;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Demand forecast per blood type and hospital, kept current from the request
+ * events services record once they commit (published whether or not the
+ * journal itself is enabled): creations add demand to their day, closing or
+ * deleting an open request takes its units off the outstanding backlog. Each
+ * series is a SeasonalDemandSeries, so memory stays constant per series.
+ *
+ * Forecast demand and open requests are compared with the unexpired
+ * available units counted in the database to give days of supply per blood
+ * type; a type whose supply runs out within forecast.alert-days-of-supply is
+ * reported as a shortage (log, metric, admin endpoint). The count is read on
+ * each check rather than taken from the journal projections: those are folded
+ * from events, so a unit journaled twice skews them until the next resync,
+ * and they still count expired units the expiry sweep has not reached.
+ *
+ * At startup and every night the models are warmed from the requests table,
+ * one blood type per worker, which also folds in requests other instances
+ * took.
+ */
+@Component
+public class DemandForecaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandForecaster.class);
+
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final Set<String> OPEN_STATUSES = Set.of("Pending", "Overdue", "Escalated");
+
+    @Autowired
+    private BloodRequestRepository bloodRequestRepository;
+
+    @Autowired
+    private BloodDonationRepository bloodDonationRepository;
+
+    @Autowired
+    @Qualifier("rebuildExecutor")
+    private Executor rebuildExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${forecast.alpha:0.3}")
+    private double alpha;
+
+    @Value("${forecast.gamma:0.1}")
+    private double gamma;
+
+    @Value("${forecast.history-days:182}")
+    private int historyDays;
+
+    @Value("${forecast.horizon-days:7}")
+    private int horizonDays;
+
+    @Value("${forecast.alert-days-of-supply:3}")
+    private double alertDaysOfSupply;
+
+    @Value("${forecast.backfill-threads:4}")
+    private int backfillThreads;
+
+    // "bloodType|normalized hospital" -> series
+    private final Map<String, SeasonalDemandSeries> series = new ConcurrentHashMap<>();
+    private final Map<String, String> hospitalNames = new ConcurrentHashMap<>();
+    private final Map<String, Double> daysOfSupply = new ConcurrentHashMap<>();
+    private final Set<String> shortages = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private final AtomicReference<Instant> warmedAt = new AtomicReference<>();
+
+    @PostConstruct
+    public void registerGauges() {
+        for (String bloodType : BLOOD_TYPES) {
+            Gauge.builder("blooddonation.forecast.days.of.supply", daysOfSupply,
+                            values -> values.getOrDefault(bloodType, Double.NaN))
+                    .description("Days the available units last at forecast demand")
+                    .tag("bloodType", bloodType)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Fold one committed domain event into the series.
+     */
+    @EventListener
+    public void apply(DomainEvent event) {
+        String amount = event.get("amount");
+        if (amount == null || amount.isEmpty() || event.get("bloodType") == null) {
+            return;
+        }
+        long units = Long.parseLong(amount);
+        switch (event.getType()) {
+            case DomainEvent.REQUEST_CREATED: {
+                SeasonalDemandSeries demand = series(event.get("bloodType"), event.get("hospitalName"));
+                demand.record(epochDay(event.getTimestamp()), units);
+                if (OPEN_STATUSES.contains(event.get("status"))) {
+                    demand.addOutstanding(units);
+                }
+                break;
+            }
+            case DomainEvent.REQUEST_STATUS_CHANGED: {
+                boolean wasOpen = OPEN_STATUSES.contains(event.get("from"));
+                boolean isOpen = OPEN_STATUSES.contains(event.get("to"));
+                if (wasOpen != isOpen) {
+                    series(event.get("bloodType"), event.get("hospitalName")).addOutstanding(isOpen ? units : -units);
+                }
+                break;
+            }
+            case DomainEvent.REQUEST_DELETED:
+                if (OPEN_STATUSES.contains(event.get("status"))) {
+                    series(event.get("bloodType"), event.get("hospitalName")).addOutstanding(-units);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmAtStartup() {
+        // Off the startup thread; live events are folded in meanwhile
+        rebuildExecutor.execute(this::warm);
+    }
+
+    @Scheduled(cron = "${forecast.rewarm-cron:0 30 0 * * *}")
+    public void warm() {
+        if (!warming.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, backfillThreads));
+        try {
+            List<CompletableFuture<Map<String, SeasonalDemandSeries>>> perType = new ArrayList<>();
+            for (String bloodType : BLOOD_TYPES) {
+                perType.add(CompletableFuture.supplyAsync(() -> replay(bloodType, today), workers));
+            }
+            CompletableFuture<List<Object[]>> open = CompletableFuture.supplyAsync(
+                    () -> bloodRequestRepository.sumAmountByStatusIn(OPEN_STATUSES), workers);
+
+            int warmed = 0;
+            for (CompletableFuture<Map<String, SeasonalDemandSeries>> result : perType) {
+                for (Map.Entry<String, SeasonalDemandSeries> entry : result.join().entrySet()) {
+                    series.computeIfAbsent(entry.getKey(), key -> newSeries()).restoreHistory(entry.getValue());
+                    warmed++;
+                }
+            }
+            Map<String, Long> outstanding = new HashMap<>();
+            for (Object[] row : open.join()) {
+                hospitalNames.putIfAbsent(key((String) row[0], (String) row[1]),
+                        row[1] == null ? "" : ((String) row[1]).trim());
+                outstanding.merge(key((String) row[0], (String) row[1]), ((Number) row[2]).longValue(), Long::sum);
+            }
+            series.forEach((key, demand) -> demand.setOutstanding(outstanding.getOrDefault(key, 0L)));
+            outstanding.forEach((key, units) -> series.computeIfAbsent(key, k -> newSeries()).setOutstanding(units));
+
+            warmedAt.set(Instant.now());
+            logger.info("Demand forecaster warmed {} series from {} days of requests in {} ms",
+                    warmed, historyDays, (System.nanoTime() - started) / 1_000_000);
+            checkSupply();
+        } catch (RuntimeException e) {
+            logger.warn("Could not warm the demand forecaster: {}", e.getMessage());
+        } finally {
+            workers.shutdown();
+            warming.set(false);
+        }
+    }
+
+    /**
+     * Rebuild the series of one blood type from its daily totals, up to yesterday
+     */
+    private Map<String, SeasonalDemandSeries> replay(String bloodType, LocalDate today) {
+        Map<String, SeasonalDemandSeries> replayed = new HashMap<>();
+        for (Object[] row : bloodRequestRepository.sumDailyDemand(bloodType, today.minusDays(historyDays), today)) {
+            String hospital = (String) row[0];
+            LocalDate day = (LocalDate) row[1];
+            String key = key(bloodType, hospital);
+            hospitalNames.putIfAbsent(key, hospital == null ? "" : hospital.trim());
+            replayed.computeIfAbsent(key, k -> newSeries()).record(day.toEpochDay(), ((Number) row[2]).doubleValue());
+        }
+        // Close yesterday so the restored models are complete up to today
+        replayed.values().forEach(demand -> demand.record(today.toEpochDay(), 0));
+        return replayed;
+    }
+
+    /**
+     * Per blood type: available units, open request units, forecast daily
+     * demand, days of supply and whether that is a shortage
+     */
+    public Map<String, Object> overview() {
+        Map<String, Object> overview = new LinkedHashMap<>();
+        overview.put("horizonDays", horizonDays);
+        overview.put("alertDaysOfSupply", alertDaysOfSupply);
+        overview.put("warmedAt", warmedAt.get());
+        overview.put("bloodTypes", supplyByBloodType());
+        return overview;
+    }
+
+    /**
+     * Forecast units per day for each hospital of a blood type, largest first
+     */
+    public List<Map<String, Object>> hospitalForecast(String bloodType) {
+        long today = LocalDate.now().toEpochDay();
+        List<Map<String, Object>> hospitals = new ArrayList<>();
+        series.forEach((key, demand) -> {
+            if (!key.startsWith(bloodType + "|")) {
+                return;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("hospital", hospitalNames.getOrDefault(key, ""));
+            row.put("dailyDemand", round(demand.forecast(today, horizonDays) / horizonDays));
+            row.put("outstandingUnits", demand.outstanding());
+            row.put("observedDays", demand.observedDays());
+            hospitals.add(row);
+        });
+        hospitals.sort((a, b) -> Double.compare((Double) b.get("dailyDemand"), (Double) a.get("dailyDemand")));
+        return hospitals;
+    }
+
+    @Scheduled(fixedDelayString = "${forecast.check-ms:60000}", initialDelayString = "${forecast.check-ms:60000}")
+    public void checkSupply() {
+        supplyByBloodType().forEach((bloodType, supply) -> {
+            boolean shortage = (Boolean) supply.get("shortage");
+            if (shortage && shortages.add(bloodType)) {
+                logger.warn("Blood shortage forecast for {}: {} units available, {} requested and open, {} days of supply",
+                        bloodType, supply.get("availableUnits"), supply.get("outstandingUnits"), supply.get("daysOfSupply"));
+            } else if (!shortage && shortages.remove(bloodType)) {
+                logger.info("Supply of {} back above {} days", bloodType, alertDaysOfSupply);
+            }
+        });
+    }
+
+    private Map<String, Map<String, Object>> supplyByBloodType() {
+        long today = LocalDate.now().toEpochDay();
+        Map<String, Double> demand = new HashMap<>();
+        Map<String, Long> outstanding = new HashMap<>();
+        series.forEach((key, values) -> {
+            String bloodType = key.substring(0, key.indexOf('|'));
+            demand.merge(bloodType, values.forecast(today, horizonDays) / horizonDays, Double::sum);
+            outstanding.merge(bloodType, values.outstanding(), Long::sum);
+        });
+
+        Map<String, Long> inventory = new HashMap<>();
+        for (Object[] row : bloodDonationRepository.countAvailableByBloodType(LocalDate.now())) {
+            if (row[0] != null) {
+                inventory.merge(((String) row[0]).trim().toUpperCase(), ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        Map<String, Map<String, Object>> supply = new TreeMap<>();
+        for (String bloodType : BLOOD_TYPES) {
+            long available = inventory.getOrDefault(bloodType, 0L);
+            long open = outstanding.getOrDefault(bloodType, 0L);
+            double daily = demand.getOrDefault(bloodType, 0.0);
+            long spare = Math.max(0, available - open);
+            Double days = daily > 0 ? round(spare / daily) : null;
+            if (days != null) {
+                daysOfSupply.put(bloodType, days);
+            } else {
+                daysOfSupply.remove(bloodType);
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("availableUnits", available);
+            row.put("outstandingUnits", open);
+            row.put("dailyDemand", round(daily));
+            row.put("daysOfSupply", days);
+            row.put("shortage", available < open || (days != null && days < alertDaysOfSupply));
+            supply.put(bloodType, row);
+        }
+        return supply;
+    }
+
+    private SeasonalDemandSeries series(String bloodType, String hospital) {
+        String key = key(bloodType, hospital);
+        hospitalNames.putIfAbsent(key, hospital == null ? "" : hospital.trim());
+        return series.computeIfAbsent(key, k -> newSeries());
+    }
+
+    private SeasonalDemandSeries newSeries() {
+        return new SeasonalDemandSeries(alpha, gamma);
+    }
+
+    private static String key(String bloodType, String hospital) {
+        return bloodType.trim().toUpperCase() + "|" + SiteRegistry.normalize(hospital);
+    }
+
+    private static long epochDay(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.rangira.blooddonation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Periodically takes expired blood units out of stock.
+ * Each batch is one SELECT on the (available, expiry_date) index and one
+ * set-based UPDATE in its own transaction, so the work done is proportional
+ * to the number of units that actually expired.
+ */
+@Component
+public class DonationExpirySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonationExpirySweeper.class);
+
+    @Autowired
+    private BloodDonationService bloodDonationService;
+
+    @Value("${donations.expiry-sweep.batch-size:500}")
+    private int batchSize;
+
+    private volatile boolean backfilled;
+
+    @Scheduled(cron = "${donations.expiry-sweep.cron:0 5 * * * *}")
+    public void sweep() {
+        if (!backfilled) {
+            int filled = bloodDonationService.backfillExpiryDates();
+            if (filled > 0) {
+                logger.info("Backfilled expiry date on {} donations", filled);
+            }
+            backfilled = true;
+        }
+
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        int changed;
+        do {
+            changed = bloodDonationService.expireDonations(today, batchSize);
+            total += changed;
+        } while (changed == batchSize);
+
+        if (total > 0) {
+            logger.info("Marked {} expired blood units as unavailable", total);
+        }
+    }
+}
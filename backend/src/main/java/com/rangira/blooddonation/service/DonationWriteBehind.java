@@ -0,0 +1,124 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.util.MicroBatcher;
+import com.rangira.blooddonation.util.ReadYourWritesWindow;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional write-behind path for new donations. Validated donations go on a
+ * bounded queue and are inserted in micro-batches, one transaction per batch,
+ * so a drive with many concurrent donors pays one commit per batch instead of
+ * one per donation. The caller is answered only after its batch committed.
+ *
+ * Callers already inside a transaction (an Idempotency-Key request) write
+ * directly, so their insert commits together with that transaction.
+ */
+@Component
+public class DonationWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonationWriteBehind.class);
+
+    @Autowired
+    private BloodDonationService bloodDonationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<ReadYourWritesWindow> readYourWritesWindow;
+
+    @Value("${donations.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${donations.write-behind.queue-capacity:2000}")
+    private int queueCapacity;
+
+    @Value("${donations.write-behind.batch-size:64}")
+    private int batchSize;
+
+    @Value("${donations.write-behind.max-delay-ms:10}")
+    private long maxDelayMs;
+
+    @Value("${donations.write-behind.offer-timeout-ms:200}")
+    private long offerTimeoutMs;
+
+    @Value("${donations.write-behind.ack-timeout-ms:30000}")
+    private long ackTimeoutMs;
+
+    private MicroBatcher<BloodDonation, BloodDonation> batcher;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSizes = DistributionSummary.builder("blooddonation.donations.write-behind.batch.size")
+                .description("Donations inserted per write-behind transaction")
+                .register(meterRegistry);
+        batcher = new MicroBatcher<>("donation-write-behind", queueCapacity, batchSize, maxDelayMs, this::flush);
+        Gauge.builder("blooddonation.donations.write-behind.queued", batcher, MicroBatcher::queued)
+                .description("Donations waiting for their batch")
+                .register(meterRegistry);
+        logger.info("Donation write-behind enabled (batch {} rows or {} ms, queue {})",
+                batchSize, maxDelayMs, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    public boolean accepts() {
+        return batcher != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Validate, queue and wait until the donation's batch committed. Throws
+     * RejectedExecutionException when the queue is full and TimeoutException
+     * when no acknowledgement came in time (the donation may still commit).
+     */
+    public BloodDonation ingest(BloodDonation bloodDonation, String username)
+            throws TimeoutException, InterruptedException {
+        BloodDonation prepared = bloodDonationService.prepareDonation(bloodDonation, username);
+        try {
+            return batcher.submit(prepared, offerTimeoutMs).get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Donation batch failed", e.getCause());
+        }
+    }
+
+    private List<BloodDonation> flush(List<BloodDonation> donations) {
+        List<BloodDonation> saved = bloodDonationService.saveDonationBatch(donations);
+        batchSizes.record(saved.size());
+        // The donors' next reads must see their donation even with a lagging replica
+        readYourWritesWindow.ifAvailable(window -> saved.forEach(donation -> {
+            if (donation.getDonor() != null) {
+                window.markWrite(donation.getDonor().getUsername());
+            }
+        }));
+        return saved;
+    }
+}
@@ -0,0 +1,500 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.util.CompressedBitmap;
+import com.rangira.blooddonation.util.TransactionHooks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory directory of donors with one CompressedBitmap of donor ids per
+ * blood type, per year of age, per eligibility state and per site, so filters
+ * like "O- or O+, 18 to 40, eligible now, near Kigali" are answered by OR-ing
+ * the bitmaps of each filter and AND-ing the results, then paging through the
+ * ids in order.
+ *
+ * A donor's site is the site of their latest donation at a known site; users
+ * carry no location of their own. Eligibility follows the same rules as
+ * BloodDonationService.canUserDonate. A donor deferred by a recent donation is
+ * filed under the day they become eligible, so "eligible now" stays correct as
+ * days pass without touching the bitmaps.
+ *
+ * The services report changed donors and they are re-read once the
+ * transaction commits; changes made on other instances arrive as cache
+ * invalidations. The directory is built at startup and rebuilt every night.
+ */
+@Component
+public class DonorDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonorDirectory.class);
+
+    private static final int MAX_AGE = 120;
+    private static final int RELOAD_CHUNK = 1000;
+
+    public enum Eligibility {
+        ELIGIBLE, DEFERRED, INELIGIBLE;
+
+        public static Eligibility parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown eligibility: " + value + ", expected one of "
+                        + List.of(values()));
+            }
+        }
+    }
+
+    /** Constraints of a directory query; null or empty means any */
+    public record Filter(Set<String> bloodTypes, Integer minAge, Integer maxAge, Eligibility eligibility,
+                         Set<Long> siteIds) {
+    }
+
+    /** Donor ids of one page, in ascending order, and where the next page starts (null on the last) */
+    public record Page(List<Long> ids, long total, Long nextCursor) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("rebuildExecutor")
+    private Executor rebuildExecutor;
+
+    @Value("${donors.directory.donation-interval-days:56}")
+    private int donationIntervalDays;
+
+    @Value("${donors.directory.min-age:18}")
+    private int minAge;
+
+    @Value("${donors.directory.max-age:65}")
+    private int maxAge;
+
+    // What "today" is for eligibility; the tests move it
+    private Clock clock = Clock.systemDefaultZone();
+
+    /** What a donor is filed under, to take them out again */
+    private record Entry(String bloodType, Integer age, LocalDate eligibleFrom, boolean ageAllowed, Long siteId) {
+    }
+
+    /** The bitmaps; guarded by the lock once published */
+    private static class Contents {
+        private final CompressedBitmap all = new CompressedBitmap();
+        private final Map<String, CompressedBitmap> byBloodType = new HashMap<>();
+        private final CompressedBitmap[] byAge = new CompressedBitmap[MAX_AGE + 1];
+        private final CompressedBitmap eligible = new CompressedBitmap();
+        // Deferred donors by the day they become eligible
+        private final TreeMap<LocalDate, CompressedBitmap> eligibleFrom = new TreeMap<>();
+        private final Map<Long, CompressedBitmap> bySite = new HashMap<>();
+        private final Map<Integer, Entry> entries = new HashMap<>();
+
+        private void put(int id, Entry entry) {
+            remove(id);
+            entries.put(id, entry);
+            all.add(id);
+            if (entry.bloodType() != null) {
+                byBloodType.computeIfAbsent(entry.bloodType(), t -> new CompressedBitmap()).add(id);
+            }
+            if (entry.age() != null && entry.age() >= 0 && entry.age() <= MAX_AGE) {
+                if (byAge[entry.age()] == null) {
+                    byAge[entry.age()] = new CompressedBitmap();
+                }
+                byAge[entry.age()].add(id);
+            }
+            if (entry.ageAllowed()) {
+                if (entry.eligibleFrom() == null) {
+                    eligible.add(id);
+                } else {
+                    eligibleFrom.computeIfAbsent(entry.eligibleFrom(), d -> new CompressedBitmap()).add(id);
+                }
+            }
+            if (entry.siteId() != null) {
+                bySite.computeIfAbsent(entry.siteId(), s -> new CompressedBitmap()).add(id);
+            }
+        }
+
+        private void remove(int id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            all.remove(id);
+            removeFrom(byBloodType, entry.bloodType(), id);
+            if (entry.age() != null && entry.age() >= 0 && entry.age() <= MAX_AGE && byAge[entry.age()] != null) {
+                byAge[entry.age()].remove(id);
+            }
+            eligible.remove(id);
+            removeFrom(eligibleFrom, entry.eligibleFrom(), id);
+            removeFrom(bySite, entry.siteId(), id);
+        }
+
+        private static <T> void removeFrom(Map<T, CompressedBitmap> bitmaps, T key, int id) {
+            CompressedBitmap bitmap = key == null ? null : bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Contents contents; // null until first built
+    // Donors changed while a rebuild streams rows; re-read once it is swapped in
+    private Set<Long> changedDuringRebuild;
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("blooddonation.donor.directory.size", this, directory -> directory.read(c -> c.all.cardinality()))
+                .description("Donors in the in-memory directory")
+                .register(meterRegistry);
+        Gauge.builder("blooddonation.donor.directory.bytes", this, DonorDirectory::sizeInBytes)
+                .description("Approximate heap used by the directory bitmaps")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Re-read a donor once the transaction commits: they were saved, deleted,
+     * or one of their donations changed.
+     */
+    public void donorChanged(Long donorId) {
+        if (donorId != null) {
+            donorsChanged(List.of(donorId));
+        }
+    }
+
+    public void donorsChanged(Collection<Long> donorIds) {
+        List<Long> ids = donorIds.stream().filter(id -> id != null).distinct().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> reload(ids));
+    }
+
+    /**
+     * One page of the donors matching every constraint of the filter, with ids
+     * above the cursor (null for the first page).
+     */
+    public Page find(Filter filter, Long cursor, int limit) {
+        LocalDate today = LocalDate.now(clock);
+        lock.readLock().lock();
+        try {
+            if (contents == null) {
+                throw new IllegalStateException("The donor directory is still loading, try again shortly");
+            }
+            List<CompressedBitmap> constraints = new ArrayList<>();
+            if (filter.bloodTypes() != null && !filter.bloodTypes().isEmpty()) {
+                constraints.add(CompressedBitmap.or(filter.bloodTypes().stream()
+                        .map(type -> contents.byBloodType.getOrDefault(type, new CompressedBitmap()))
+                        .toList()));
+            }
+            if (filter.minAge() != null || filter.maxAge() != null) {
+                List<CompressedBitmap> ages = new ArrayList<>();
+                int from = Math.max(0, filter.minAge() == null ? 0 : filter.minAge());
+                int to = Math.min(MAX_AGE, filter.maxAge() == null ? MAX_AGE : filter.maxAge());
+                for (int age = from; age <= to; age++) {
+                    if (contents.byAge[age] != null) {
+                        ages.add(contents.byAge[age]);
+                    }
+                }
+                constraints.add(CompressedBitmap.or(ages));
+            }
+            if (filter.eligibility() != null) {
+                constraints.add(eligibility(contents, filter.eligibility(), today));
+            }
+            if (filter.siteIds() != null) {
+                constraints.add(CompressedBitmap.or(filter.siteIds().stream()
+                        .map(site -> contents.bySite.getOrDefault(site, new CompressedBitmap()))
+                        .toList()));
+            }
+
+            // Smallest first, so every AND works on as little as possible
+            constraints.sort(Comparator.comparingLong(CompressedBitmap::cardinality));
+            CompressedBitmap matches = constraints.isEmpty() ? contents.all : constraints.get(0);
+            for (int i = 1; i < constraints.size() && !matches.isEmpty(); i++) {
+                matches = CompressedBitmap.and(matches, constraints.get(i));
+            }
+
+            int after = cursor == null ? -1 : (int) Math.min(Integer.MAX_VALUE, Math.max(-1, cursor));
+            int[] page = matches.page(after, limit + 1);
+            List<Long> ids = new ArrayList<>(Math.min(page.length, limit));
+            for (int i = 0; i < page.length && i < limit; i++) {
+                ids.add((long) page[i]);
+            }
+            Long nextCursor = page.length > limit ? ids.get(ids.size() - 1) : null;
+            return new Page(ids, matches.cardinality(), nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static CompressedBitmap eligibility(Contents contents, Eligibility state, LocalDate today) {
+        List<CompressedBitmap> eligible = new ArrayList<>();
+        eligible.add(contents.eligible);
+        eligible.addAll(contents.eligibleFrom.headMap(today, true).values());
+        return switch (state) {
+            case ELIGIBLE -> CompressedBitmap.or(eligible);
+            case DEFERRED -> CompressedBitmap.or(contents.eligibleFrom.tailMap(today, false).values());
+            case INELIGIBLE -> {
+                CompressedBitmap allowed = CompressedBitmap.or(contents.eligible,
+                        CompressedBitmap.or(contents.eligibleFrom.values()));
+                yield CompressedBitmap.andNot(contents.all, allowed);
+            }
+        };
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        boolean everything = event.touches(Topic.USER) && event.ids(Topic.USER).contains(CacheInvalidationEvent.ALL)
+                || event.touches(Topic.DONATION) && event.ids(Topic.DONATION).contains(CacheInvalidationEvent.ALL);
+        if (everything) {
+            rebuildExecutor.execute(this::rebuild);
+            return;
+        }
+        try {
+            Set<Long> donorIds = new HashSet<>();
+            if (event.touches(Topic.USER)) {
+                event.ids(Topic.USER).forEach(id -> donorIds.add(Long.valueOf(id)));
+            }
+            if (event.touches(Topic.DONATION)) {
+                // Donors of deleted donations are not found here; the nightly rebuild catches up with them
+                List<Long> donationIds = event.ids(Topic.DONATION).stream().map(Long::valueOf).toList();
+                for (List<Long> chunk : chunks(donationIds)) {
+                    jdbcTemplate.query("SELECT DISTINCT donor_id FROM donations WHERE donor_id IS NOT NULL AND id IN ("
+                                    + placeholders(chunk) + ")",
+                            (RowCallbackHandler) rs -> donorIds.add(rs.getLong(1)), chunk.toArray());
+                }
+            }
+            reload(new ArrayList<>(donorIds));
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the donor directory, rebuilding it: {}", e.getMessage());
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Re-read donors by id; ids that are gone or no longer donors are dropped.
+     */
+    private void reload(List<Long> ids) {
+        for (List<Long> chunk : chunks(ids)) {
+            Map<Long, Donor> donors = new HashMap<>();
+            Object[] args = chunk.toArray();
+            jdbcTemplate.query("SELECT id, blood_type, age FROM users WHERE role = 'DONOR' AND id IN ("
+                    + placeholders(chunk) + ")", (RowCallbackHandler) rs -> donors.put(rs.getLong(1),
+                    new Donor(rs.getString(2), rs.getObject(3, Integer.class))), args);
+            jdbcTemplate.query("SELECT donor_id, donation_date, site_id FROM donations WHERE donor_id IN ("
+                    + placeholders(chunk) + ")", (RowCallbackHandler) rs -> {
+                Donor donor = donors.get(rs.getLong(1));
+                if (donor != null) {
+                    donor.donation(rs.getDate(2), rs.getObject(3, Long.class));
+                }
+            }, args);
+
+            LocalDate today = LocalDate.now(clock);
+            lock.writeLock().lock();
+            try {
+                for (Long id : chunk) {
+                    if (changedDuringRebuild != null) {
+                        changedDuringRebuild.add(id);
+                    }
+                    if (contents == null || id > Integer.MAX_VALUE) {
+                        continue;
+                    }
+                    Donor donor = donors.get(id);
+                    if (donor == null) {
+                        contents.remove(id.intValue());
+                    } else {
+                        contents.put(id.intValue(), entry(donor, today));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Build the directory afresh from every donor and donation, then swap it
+     * in. Also moves donors whose deferral has ended into the eligible bitmap.
+     */
+    @Scheduled(cron = "${donors.directory.rebuild-cron:0 5 0 * * *}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                return;
+            }
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        try {
+            Map<Long, Donor> donors = new HashMap<>();
+            jdbcTemplate.query("SELECT id, blood_type, age FROM users WHERE role = 'DONOR'",
+                    (RowCallbackHandler) rs -> donors.put(rs.getLong(1),
+                            new Donor(rs.getString(2), rs.getObject(3, Integer.class))));
+            jdbcTemplate.query("SELECT donor_id, donation_date, site_id FROM donations WHERE donor_id IS NOT NULL",
+                    (RowCallbackHandler) rs -> {
+                        Donor donor = donors.get(rs.getLong(1));
+                        if (donor != null) {
+                            donor.donation(rs.getDate(2), rs.getObject(3, Long.class));
+                        }
+                    });
+
+            LocalDate today = LocalDate.now(clock);
+            Contents fresh = new Contents();
+            int skipped = 0;
+            for (Map.Entry<Long, Donor> donor : donors.entrySet()) {
+                if (donor.getKey() > Integer.MAX_VALUE) {
+                    skipped++;
+                    continue;
+                }
+                fresh.put(donor.getKey().intValue(), entry(donor.getValue(), today));
+            }
+            if (skipped > 0) {
+                logger.warn("{} donors have ids beyond the directory's range and are left out", skipped);
+            }
+
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                contents = fresh;
+                changed = changedDuringRebuild;
+            } finally {
+                changedDuringRebuild = null;
+                lock.writeLock().unlock();
+            }
+            // What changed while rows were streaming may predate the rows read
+            reload(new ArrayList<>(changed));
+            logger.info("Donor directory built: {} donors, ~{} KB of bitmaps in {} ms", fresh.entries.size(),
+                    sizeInBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.warn("Could not build the donor directory: {}", e.getMessage());
+        }
+    }
+
+    /** A donor row and their donations as they stream in */
+    private static class Donor {
+        private final String bloodType;
+        private final Integer age;
+        private LocalDate lastDonation;
+        private LocalDate lastSiteDonation;
+        private Long siteId;
+
+        private Donor(String bloodType, Integer age) {
+            this.bloodType = bloodType;
+            this.age = age;
+        }
+
+        private void donation(Date date, Long site) {
+            LocalDate day = date == null ? null : date.toLocalDate();
+            if (day != null && (lastDonation == null || day.isAfter(lastDonation))) {
+                lastDonation = day;
+            }
+            if (site != null && (siteId == null
+                    || (day != null && (lastSiteDonation == null || !day.isBefore(lastSiteDonation))))) {
+                siteId = site;
+                lastSiteDonation = day;
+            }
+        }
+    }
+
+    private Entry entry(Donor donor, LocalDate today) {
+        String bloodType = donor.bloodType == null ? null : donor.bloodType.trim().toUpperCase(Locale.ROOT);
+        boolean ageAllowed = donor.age == null || (donor.age >= minAge && donor.age <= maxAge);
+        LocalDate eligibleFrom = donor.lastDonation == null ? null : donor.lastDonation.plusDays(donationIntervalDays);
+        if (eligibleFrom != null && !eligibleFrom.isAfter(today)) {
+            eligibleFrom = null;
+        }
+        return new Entry(bloodType, donor.age, eligibleFrom, ageAllowed, donor.siteId);
+    }
+
+    private long sizeInBytes() {
+        return read(c -> {
+            long bytes = c.all.sizeInBytes() + c.eligible.sizeInBytes();
+            for (CompressedBitmap bitmap : c.byBloodType.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (CompressedBitmap bitmap : c.byAge) {
+                bytes += bitmap == null ? 0 : bitmap.sizeInBytes();
+            }
+            for (CompressedBitmap bitmap : c.eligibleFrom.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (CompressedBitmap bitmap : c.bySite.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            return bytes;
+        });
+    }
+
+    private long read(ToLongFunction<Contents> reader) {
+        lock.readLock().lock();
+        try {
+            return contents == null ? 0 : reader.applyAsLong(contents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += RELOAD_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + RELOAD_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(List<Long> ids) {
+        return String.join(",", Collections.nCopies(ids.size(), "?"));
+    }
+}
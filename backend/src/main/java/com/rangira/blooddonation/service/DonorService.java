@@ -2,10 +2,19 @@ package com.rangira.blooddonation.service;
 
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.repository.DonorRepository;
+import com.rangira.blooddonation.validator.DomainValidators;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -13,10 +22,22 @@ public class DonorService {
 
     private final DonorRepository donorRepository;
 
+    private final SearchIndex searchIndex;
+
+    private final DonorDirectory donorDirectory;
+
+    private final SiteService siteService;
+
+    @Value("${donors.directory.max-limit:200}")
+    private int maxLimit;
+
     // Create a new donor (user with role DONOR)
     public User addDonor(User donor) {
         donor.setRole("DONOR"); // Set role to DONOR
-        return donorRepository.save(donor);
+        User saved = donorRepository.save(donor);
+        searchIndex.userSaved(saved);
+        donorDirectory.donorChanged(saved.getId());
+        return saved;
     }
 
     // Get all users with role DONOR
@@ -35,10 +56,55 @@ public class DonorService {
         donor.setEmail(donorDetails.getEmail());
         donor.setPassword(donorDetails.getPassword()); // Only if you're not using hashing
         // You can add more fields like contact info if added to User model
-        return donorRepository.save(donor);
+        User saved = donorRepository.save(donor);
+        searchIndex.userSaved(saved);
+        donorDirectory.donorChanged(saved.getId());
+        return saved;
     }
 
     public void deleteDonor(Long id) {
         donorRepository.deleteById(id);
+        searchIndex.deleted(SearchIndex.Type.USER, id);
+        donorDirectory.donorChanged(id);
+    }
+
+    /**
+     * One page of donors matching every given filter, answered from the
+     * DonorDirectory bitmaps; only the donors on the page are loaded. The
+     * location is a site (by id or name) or coordinates, widened to every
+     * site within maxKm when given.
+     */
+    public Map<String, Object> findDonors(List<String> bloodTypes, Integer minAge, Integer maxAge,
+                                          String eligibility, Long siteId, String site, Double latitude,
+                                          Double longitude, Double maxKm, Long cursor, int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new IllegalArgumentException("minAge must not be above maxAge");
+        }
+        Set<String> types = new HashSet<>();
+        for (String bloodType : bloodTypes) {
+            String type = bloodType.trim().toUpperCase(Locale.ROOT);
+            if (!DomainValidators.isValidBloodType(type)) {
+                throw new IllegalArgumentException("Invalid blood type: " + bloodType);
+            }
+            types.add(type);
+        }
+        Set<Long> siteIds = siteId != null || site != null || latitude != null || longitude != null
+                ? siteService.findSitesNear(siteId, site, latitude, longitude, maxKm)
+                : null;
+
+        DonorDirectory.Page page = donorDirectory.find(new DonorDirectory.Filter(types, minAge, maxAge,
+                eligibility == null ? null : DonorDirectory.Eligibility.parse(eligibility), siteIds), cursor, limit);
+
+        // Keep the directory's id order; a donor deleted since the bitmaps were read is just left out
+        Map<Long, User> donors = donorRepository.findAllById(page.ids()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("donors", page.ids().stream().map(donors::get).filter(donor -> donor != null).toList());
+        result.put("total", page.total());
+        result.put("nextCursor", page.nextCursor());
+        return result;
     }
 }
@@ -1,19 +1,47 @@
 package com.rangira.blooddonation.service;
 
+import com.rangira.blooddonation.util.AsyncStages;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("mailExecutor")
+    private Executor mailExecutor;
+
+    @Value("${async.mail.timeout-ms:15000}")
+    private long mailTimeoutMs;
+
+    /**
+     * Send on the mail executor; the future fails with a TimeoutException after async.mail.timeout-ms
+     * (a send already talking to the SMTP server still completes) or a RejectedExecutionException
+     * when the mail queue is full
+     */
+    public CompletableFuture<Void> sendEmailAsync(String to, String subject, String text) {
+        return AsyncStages.runAsync(() -> sendEmail(to, subject, text), mailExecutor, mailTimeoutMs);
+    }
 
     public void sendEmail(String to, String subject, String text) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -22,9 +50,12 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(text);
             mailSender.send(message);
+            outcome = "success";
         } catch (MessagingException e) {
             e.printStackTrace(); // Log detailed error
             throw new RuntimeException("Failed to send email: " + e.getMessage(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("blooddonation.email.send", "outcome", outcome));
         }
     }
     
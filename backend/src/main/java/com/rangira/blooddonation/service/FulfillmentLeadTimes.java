@@ -0,0 +1,220 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.util.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Time from creation to fulfillment of requests, as a Micrometer timer per
+ * urgency and one per urgency and hospital, publishing its percentiles; only
+ * the first lead-times.max-hospitals hospitals get their own series, the
+ * rest share one. Fulfillments are recorded once their transaction commits;
+ * the same snapshots are served to admins.
+ *
+ * At startup and every night the timers are replaced by ones rebuilt from the
+ * requests fulfilled in the last lead-times.history-days, which also takes in
+ * fulfillments made on other instances. A fulfillment committed while a
+ * rebuild runs may be counted twice or missed until the next one.
+ */
+@Component
+public class FulfillmentLeadTimes {
+
+    private static final Logger logger = LoggerFactory.getLogger(FulfillmentLeadTimes.class);
+
+    private static final List<String> URGENCIES = List.of("High", "Medium", "Low");
+    private static final String ALL_HOSPITALS = "*";
+    private static final String OTHER_HOSPITALS = "(other)";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("rebuildExecutor")
+    private Executor rebuildExecutor;
+
+    @Value("${lead-times.history-days:365}")
+    private int historyDays;
+
+    @Value("${lead-times.max-hospitals:20}")
+    private int maxHospitals;
+
+    // "urgency|normalized hospital" -> timer of its lead times
+    private volatile Map<String, Timer> series = new ConcurrentHashMap<>();
+    private final Map<String, String> hospitalNames = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * Record a request that has just been fulfilled, once its transaction commits.
+     */
+    public void fulfilled(BloodRequest request) {
+        fulfilled(request.getUrgency(), request.getHospitalName(), request.getCreatedAt(), request.getFulfilledAt());
+    }
+
+    public void fulfilled(String urgency, String hospital, LocalDateTime createdAt, LocalDateTime fulfilledAt) {
+        if (createdAt == null || fulfilledAt == null) {
+            // Requests from before timestamps were kept have no measurable lead time
+            return;
+        }
+        long millis = Duration.between(createdAt, fulfilledAt).toMillis();
+        TransactionHooks.afterCommit(() -> record(series, urgency, hospital, millis));
+    }
+
+    private void record(Map<String, Timer> target, String urgency, String hospital, long millis) {
+        String level = urgency(urgency);
+        long clamped = Math.max(0, millis);
+        series(target, level, ALL_HOSPITALS).record(clamped, TimeUnit.MILLISECONDS);
+        series(target, level, hospitalKey(hospital)).record(clamped, TimeUnit.MILLISECONDS);
+    }
+
+    private Timer series(Map<String, Timer> target, String urgency, String hospital) {
+        return target.computeIfAbsent(urgency + "|" + hospital, key -> Timer.builder("blooddonation.request.lead.time")
+                .description("Time from request creation to fulfillment")
+                .tag("urgency", urgency)
+                .tag("hospital", ALL_HOSPITALS.equals(hospital) ? "all" : hospitalNames.getOrDefault(hospital, hospital))
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(2)
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofDays(historyDays))
+                // The rebuild replaces the timers, so the window only has to span the history
+                .distributionStatisticExpiry(Duration.ofDays(historyDays))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry));
+    }
+
+    private String hospitalKey(String hospital) {
+        String key = SiteRegistry.normalize(hospital);
+        if (!hospitalNames.containsKey(key)) {
+            if (hospitalNames.size() >= maxHospitals) {
+                // Bound the number of series (and metric tags) whatever ends up in hospital_name
+                return OTHER_HOSPITALS;
+            }
+            hospitalNames.putIfAbsent(key, hospital == null ? "" : hospital.trim());
+        }
+        return key;
+    }
+
+    private static String urgency(String urgency) {
+        for (String level : URGENCIES) {
+            if (level.equalsIgnoreCase(urgency == null ? "" : urgency.trim())) {
+                return level;
+            }
+        }
+        return "Unknown";
+    }
+
+    /**
+     * Percentiles per urgency, or per hospital of one urgency when asked for;
+     * durations in seconds
+     */
+    public List<Map<String, Object>> overview(String urgency, String hospital) {
+        Map<String, Timer> current = series;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        String level = urgency == null ? null : urgency(urgency);
+        String hospitalKey = hospital == null ? null : SiteRegistry.normalize(hospital);
+        current.forEach((key, timer) -> {
+            String[] parts = key.split("\\|", 2);
+            boolean allHospitals = ALL_HOSPITALS.equals(parts[1]);
+            boolean wanted;
+            if (hospitalKey != null) {
+                wanted = hospitalKey.equals(parts[1]) && (level == null || level.equals(parts[0]));
+            } else if (level != null) {
+                wanted = level.equals(parts[0]);
+            } else {
+                wanted = allHospitals;
+            }
+            if (!wanted) {
+                return;
+            }
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("urgency", parts[0]);
+            row.put("hospital", allHospitals ? null : hospitalNames.getOrDefault(parts[1], parts[1]));
+            row.put("count", snapshot.count());
+            row.put("meanSeconds", Math.round(snapshot.mean(TimeUnit.SECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                row.put("p" + Math.round(percentile.percentile() * 100) + "Seconds",
+                        Math.round(percentile.value(TimeUnit.SECONDS)));
+            }
+            row.put("maxSeconds", Math.round(snapshot.max(TimeUnit.SECONDS)));
+            rows.add(row);
+        });
+        rows.sort((a, b) -> {
+            int byUrgency = Integer.compare(rank((String) a.get("urgency")), rank((String) b.get("urgency")));
+            return byUrgency != 0 ? byUrgency : Long.compare((Long) b.get("count"), (Long) a.get("count"));
+        });
+        return rows;
+    }
+
+    private static int rank(String urgency) {
+        int index = URGENCIES.indexOf(urgency);
+        return index < 0 ? URGENCIES.size() : index;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAtStartup() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Replace the timers with ones rebuilt from the requests fulfilled in the
+     * last lead-times.history-days, streamed rather than loaded.
+     */
+    @Scheduled(cron = "${lead-times.rebuild-cron:0 45 0 * * *}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            // Timers cannot be emptied; drop the old ones so the same names register afresh
+            series.values().forEach(meterRegistry::remove);
+            Map<String, Timer> rebuilt = new ConcurrentHashMap<>();
+            long[] rows = new long[1];
+            jdbcTemplate.query("SELECT urgency, hospital_name, created_at, fulfilled_at FROM requests "
+                            + "WHERE fulfilled_at >= ? AND created_at IS NOT NULL",
+                    (RowCallbackHandler) rs -> {
+                        record(rebuilt, rs.getString(1), rs.getString(2), Duration.between(
+                                rs.getTimestamp(3).toLocalDateTime(), rs.getTimestamp(4).toLocalDateTime()).toMillis());
+                        rows[0]++;
+                    },
+                    Timestamp.valueOf(LocalDateTime.now().minusDays(historyDays)));
+            series = rebuilt;
+            logger.info("Rebuilt {} lead time series from {} fulfilled requests in {} ms",
+                    rebuilt.size(), rows[0], (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("Could not rebuild request lead times: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.model.IdempotencyRecord;
+import com.rangira.blooddonation.repository.IdempotencyRecordRepository;
+import com.rangira.blooddonation.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Remembers the response of every request sent with an Idempotency-Key so a
+ * retry gets the same response back instead of running again.
+ *
+ * Completed responses are kept in memory for the fast path and in the
+ * idempotency_keys table so they survive restarts and are shared between
+ * instances. A key is claimed in the table before the request runs; the
+ * response is stored in the same transaction as the request's own writes, so
+ * either both commit or neither does. Concurrent requests with the same key
+ * wait for the first one and then replay its response.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final String COMPLETED = "COMPLETED";
+    private static final long POLL_MILLIS = 50;
+
+    public enum Outcome { EXECUTE, REPLAY, MISMATCH, IN_PROGRESS }
+
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    public record Claim(Outcome outcome, String id, String owner, String fingerprint, StoredResponse response) {
+    }
+
+    private record Completed(String fingerprint, StoredResponse response, LocalDateTime expiresAt) {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${idempotency.wait-ms:5000}")
+    private long waitMs;
+
+    @Value("${idempotency.memory.max-entries:10000}")
+    private int maxMemoryEntries;
+
+    private final TransactionTemplate requiresNew;
+
+    private final Map<String, Completed> completed = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Decide what to do with a request carrying the given key. EXECUTE means
+     * the caller now owns the key and must end with complete() or release().
+     */
+    public Claim claim(String id, String fingerprint) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        while (true) {
+            Completed done = completed.get(id);
+            if (done != null && done.expiresAt().isAfter(LocalDateTime.now())) {
+                return replay(id, fingerprint, done);
+            }
+
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(id, mine);
+            if (running != null) {
+                // Same key already running on this instance; wait for it rather than hitting the table
+                Completed result = await(running, deadline);
+                if (result != null) {
+                    return replay(id, fingerprint, result);
+                }
+                if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()) {
+                    return new Claim(Outcome.IN_PROGRESS, id, null, null, null);
+                }
+                continue;
+            }
+
+            Claim claim;
+            try {
+                claim = claimInDatabase(id, fingerprint, deadline);
+            } catch (RuntimeException e) {
+                abandon(id, mine);
+                throw e;
+            }
+            if (claim.outcome() != Outcome.EXECUTE) {
+                abandon(id, mine);
+            }
+            return claim;
+        }
+    }
+
+    /**
+     * Store the response for a claimed key. Joins the caller's transaction when
+     * there is one, so the response commits together with the request's writes.
+     * Returns false when the claim was taken over and the caller must roll back.
+     */
+    @Transactional
+    public boolean complete(Claim claim, StoredResponse response) {
+        if (idempotencyRecordRepository.complete(claim.id(), claim.owner(), response.status(),
+                response.contentType(), response.body()) == 0) {
+            logger.warn("Idempotency key {} was taken over before its response was stored", claim.id());
+            return false;
+        }
+
+        Completed done = new Completed(claim.fingerprint(), response, LocalDateTime.now().plusHours(ttlHours));
+        TransactionHooks.afterCommit(() -> publish(claim.id(), done));
+        return true;
+    }
+
+    /**
+     * Give up a claimed key without a response (the request failed), so a retry runs again.
+     */
+    public void release(Claim claim) {
+        try {
+            requiresNew.executeWithoutResult(status ->
+                    idempotencyRecordRepository.release(claim.id(), claim.owner()));
+        } finally {
+            CompletableFuture<Completed> running = inFlight.remove(claim.id());
+            if (running != null) {
+                running.complete(null);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        completed.values().removeIf(done -> !done.expiresAt().isAfter(now));
+        Integer removed = requiresNew.execute(status -> idempotencyRecordRepository.deleteExpired(now));
+        if (removed != null && removed > 0) {
+            logger.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private Claim claimInDatabase(String id, String fingerprint, long deadline) {
+        String owner = UUID.randomUUID().toString();
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusHours(ttlHours);
+            LocalDateTime staleBefore = now.minusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs));
+
+            IdempotencyRecord existing = requiresNew.execute(status -> {
+                if (idempotencyRecordRepository.claim(id, fingerprint, owner, now, expiresAt) == 1
+                        || idempotencyRecordRepository.takeOver(id, fingerprint, owner, now, staleBefore, expiresAt) == 1) {
+                    return null;
+                }
+                return idempotencyRecordRepository.findById(id).orElse(null);
+            });
+
+            if (existing == null) {
+                return new Claim(Outcome.EXECUTE, id, owner, fingerprint, null);
+            }
+            if (COMPLETED.equals(existing.getStatus())) {
+                Completed done = new Completed(existing.getFingerprint(),
+                        new StoredResponse(existing.getResponseStatus(), existing.getResponseContentType(),
+                                existing.getResponseBody()),
+                        existing.getExpiresAt());
+                remember(id, done);
+                return replay(id, fingerprint, done);
+            }
+            if (System.nanoTime() >= deadline) {
+                return new Claim(Outcome.IN_PROGRESS, id, null, null, null);
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Claim(Outcome.IN_PROGRESS, id, null, null, null);
+            }
+        }
+    }
+
+    private Claim replay(String id, String fingerprint, Completed done) {
+        if (!done.fingerprint().equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, id, null, null, null);
+        }
+        return new Claim(Outcome.REPLAY, id, null, null, done.response());
+    }
+
+    private Completed await(CompletableFuture<Completed> running, long deadline) {
+        try {
+            return running.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    private void abandon(String id, CompletableFuture<Completed> mine) {
+        inFlight.remove(id, mine);
+        mine.complete(completed.get(id));
+    }
+
+    private void publish(String id, Completed done) {
+        remember(id, done);
+        CompletableFuture<Completed> running = inFlight.remove(id);
+        if (running != null) {
+            running.complete(done);
+        }
+    }
+
+    private void remember(String id, Completed done) {
+        // The table stays authoritative; memory only holds as many as it is allowed to
+        if (completed.size() < maxMemoryEntries) {
+            completed.put(id, done);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide invalidation of in-process caches over PostgreSQL LISTEN/NOTIFY.
+ *
+ * Services report what they changed; the changes are collected per transaction
+ * and sent as one NOTIFY just before it commits, so PostgreSQL delivers the
+ * message exactly when (and only if) the data is visible. Each instance keeps
+ * one dedicated connection LISTENing and republishes messages from other
+ * instances as a local CacheInvalidationEvent. After a lost connection the
+ * messages sent in the gap are gone, so a reconnect publishes a resync event
+ * and every cache drops what it holds.
+ */
+@Component
+public class InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    // NOTIFY payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${invalidation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${invalidation.channel:blooddonation_invalidation}")
+    private String channel;
+
+    @Value("${invalidation.listen.url:${spring.datasource.url}}")
+    private String url;
+
+    @Value("${invalidation.listen.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${invalidation.listen.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${invalidation.poll-ms:500}")
+    private int pollMs;
+
+    @Value("${invalidation.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private Thread listener;
+    private volatile boolean running;
+    private volatile Connection connection;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("invalidation.channel must be a lower-case SQL identifier: " + channel);
+        }
+        running = true;
+        listener = new Thread(this::listenLoop, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+        logger.info("Cache invalidation bus enabled on channel {} (node {})", channel, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (listener == null) {
+            return;
+        }
+        running = false;
+        closeQuietly(connection);
+        listener.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public void publish(Topic topic, Object... ids) {
+        publish(topic, Arrays.asList(ids));
+    }
+
+    /**
+     * Tell the other instances that these ids of the topic changed. Inside a
+     * transaction the message goes out with its commit; otherwise right away.
+     */
+    public void publish(Topic topic, Collection<?> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<Topic, Set<String>> changes = new EnumMap<>(Topic.class);
+            add(changes, topic, ids);
+            send(changes);
+            return;
+        }
+
+        PendingInvalidations pending = TransactionHooks.pending(PendingInvalidations.class, PendingInvalidations::new);
+        add(pending.changes, topic, ids);
+    }
+
+    private static void add(Map<Topic, Set<String>> changes, Topic topic, Collection<?> ids) {
+        Set<String> topicIds = changes.computeIfAbsent(topic, t -> new LinkedHashSet<>());
+        for (Object id : ids) {
+            if (id != null) {
+                topicIds.add(String.valueOf(id));
+            }
+        }
+    }
+
+    private void send(Map<Topic, Set<String>> changes) {
+        String payload = new CacheInvalidationEvent(nodeId, changes).encode();
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            // Too many ids to list; receivers drop the whole topic instead
+            Map<Topic, Set<String>> coarse = new EnumMap<>(Topic.class);
+            changes.keySet().forEach(topic -> coarse.put(topic, Set.of(CacheInvalidationEvent.ALL)));
+            payload = new CacheInvalidationEvent(nodeId, coarse).encode();
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+    }
+
+    private void listenLoop() {
+        boolean listenedBefore = false;
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(url, username, password)) {
+                connection = listening;
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (listenedBefore) {
+                    logger.info("Invalidation listener reconnected, resyncing local caches");
+                    dispatch(CacheInvalidationEvent.resync(nodeId));
+                }
+                listenedBefore = true;
+
+                PGConnection pg = listening.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMs);
+                    if (notifications != null && notifications.length > 0) {
+                        receive(notifications);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Invalidation listener connection lost: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    // Merge everything that arrived together so each cache reacts once
+    private void receive(PGNotification[] notifications) {
+        Map<Topic, Set<String>> merged = new EnumMap<>(Topic.class);
+        for (PGNotification notification : notifications) {
+            CacheInvalidationEvent event = CacheInvalidationEvent.decode(notification.getParameter());
+            if (nodeId.equals(event.getOrigin())) {
+                continue;
+            }
+            event.getChanges().forEach((topic, ids) -> add(merged, topic, ids));
+        }
+        if (!merged.isEmpty()) {
+            dispatch(new CacheInvalidationEvent(nodeId, merged));
+        }
+    }
+
+    private void dispatch(CacheInvalidationEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            logger.warn("Applying cache invalidation failed: {}", e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // already closing
+        }
+    }
+
+    /**
+     * Changes collected in one transaction, sent together just before it commits.
+     */
+    private class PendingInvalidations implements TransactionSynchronization {
+
+        private final Map<Topic, Set<String>> changes = new EnumMap<>(Topic.class);
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!changes.isEmpty()) {
+                send(changes);
+            }
+        }
+    }
+}
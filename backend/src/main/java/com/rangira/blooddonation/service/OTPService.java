@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 
 @Service
@@ -19,12 +20,7 @@ public class OTPService {
     private EmailService emailService;
 
     public void generateAndSendOtp(User user) {
-        Random random = new Random();
-        int otp = 100000 + random.nextInt(900000); // 6-digit OTP
-        user.setOtp(String.valueOf(otp));
-        user.setOtpExpiry(LocalDateTime.now().plusMinutes(10));
-        
-        userRepository.save(user);
+        String otp = storeNewOtp(user);
 
         emailService.sendEmail(
                 user.getEmail(),
@@ -33,6 +29,29 @@ public class OTPService {
         );
     }
 
+    /**
+     * Same as generateAndSendOtp, but the email goes out on the mail executor
+     */
+    public CompletableFuture<Void> generateAndSendOtpAsync(User user) {
+        String otp = storeNewOtp(user);
+
+        return emailService.sendEmailAsync(
+                user.getEmail(),
+                "Your OTP Code",
+                "Your OTP code is: " + otp
+        );
+    }
+
+    private String storeNewOtp(User user) {
+        Random random = new Random();
+        int otp = 100000 + random.nextInt(900000); // 6-digit OTP
+        user.setOtp(String.valueOf(otp));
+        user.setOtpExpiry(LocalDateTime.now().plusMinutes(10));
+
+        userRepository.save(user);
+        return String.valueOf(otp);
+    }
+
     public boolean verifyOtp(User user, String otp) {
         if (user.getOtp() == null || user.getOtpExpiry() == null) {
             return false;
@@ -0,0 +1,41 @@
+package com.rangira.blooddonation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Moves pending requests whose needed-by date has passed to Overdue/Escalated.
+ * Runs once at startup to catch up and then daily just after midnight.
+ */
+@Component
+public class OverdueRequestJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueRequestJob.class);
+
+    @Autowired
+    private BloodRequestService bloodRequestService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        run();
+    }
+
+    @Scheduled(cron = "${requests.overdue-job.cron:0 1 0 * * *}")
+    public void run() {
+        try {
+            int changed = bloodRequestService.markOverdueRequests(LocalDate.now());
+            if (changed > 0) {
+                logger.info("Marked {} blood requests as overdue", changed);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Overdue request detection failed", e);
+        }
+    }
+}
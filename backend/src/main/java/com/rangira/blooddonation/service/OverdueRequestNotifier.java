@@ -0,0 +1,42 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.BloodRequestOverdueEvent;
+import com.rangira.blooddonation.util.AsyncStages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tells requesters that their request has passed its needed-by date, once the status change is committed.
+ * Mail goes out on the mail executor so a slow SMTP server never holds up the overdue job.
+ */
+@Component
+public class OverdueRequestNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueRequestNotifier.class);
+
+    @Autowired
+    private EmailService emailService;
+
+    @TransactionalEventListener
+    public void onOverdue(BloodRequestOverdueEvent event) {
+        logger.warn("Blood request {} ({} {}, {}) needed by {} is now {}", event.getRequestId(), event.getBloodType(),
+                event.getUrgency(), event.getHospitalName(), event.getNeededByDate(), event.getNewStatus());
+
+        if (event.getRequesterEmail() == null) {
+            return;
+        }
+
+        // On the mail executor: the overdue job publishes a whole batch from the scheduler thread
+        emailService.sendEmailAsync(event.getRequesterEmail(), "Blood request #" + event.getRequestId() + " is overdue",
+                        "Your request for " + event.getBloodType() + " needed by " + event.getNeededByDate()
+                                + " has not been fulfilled yet and is now marked " + event.getNewStatus() + ".")
+                .exceptionally(ex -> {
+                    logger.error("Failed to notify requester of overdue request {}", event.getRequestId(),
+                            AsyncStages.unwrap(ex));
+                    return null;
+                });
+    }
+}
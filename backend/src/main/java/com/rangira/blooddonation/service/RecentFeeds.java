@@ -0,0 +1,134 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import com.rangira.blooddonation.util.RecentFeed;
+import com.rangira.blooddonation.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * In-memory "recent" feeds for donations and requests, ordered by date then id.
+ * The services report changes here; they are applied once the transaction
+ * commits so readers never see rolled back rows. Bulk status changes made by
+ * set-based updates re-read the feed instead of patching it.
+ */
+@Component
+public class RecentFeeds {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentFeeds.class);
+
+    @Autowired
+    private BloodDonationRepository bloodDonationRepository;
+
+    @Autowired
+    private BloodRequestRepository bloodRequestRepository;
+
+    private final RecentFeed<BloodDonation> donations;
+    private final RecentFeed<BloodRequest> requests;
+
+    public RecentFeeds(@Value("${recent-feed.size:10}") int size,
+                       @Value("${recent-feed.slack:10}") int slack) {
+        this.donations = new RecentFeed<>(size, slack,
+                Comparator.comparing(BloodDonation::getDonationDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(BloodDonation::getId, Comparator.reverseOrder()),
+                BloodDonation::getId);
+        this.requests = new RecentFeed<>(size, slack,
+                Comparator.comparing(BloodRequest::getRequestDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(BloodRequest::getId, Comparator.reverseOrder()),
+                BloodRequest::getId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            reloadDonations();
+            reloadRequests();
+            logger.info("Recent feeds seeded");
+        } catch (RuntimeException e) {
+            // Reads reload on demand, so a failed seed only costs the first poll
+            logger.warn("Could not seed recent feeds: {}", e.getMessage());
+        }
+    }
+
+    public List<BloodDonation> recentDonations() {
+        if (!donations.isComplete()) {
+            reloadDonations();
+        }
+        return donations.snapshot();
+    }
+
+    public List<BloodRequest> recentRequests() {
+        if (!requests.isComplete()) {
+            reloadRequests();
+        }
+        return requests.snapshot();
+    }
+
+    public void donationSaved(BloodDonation donation) {
+        TransactionHooks.afterCommit(() -> donations.offer(donation));
+    }
+
+    public void donationDeleted(Long id) {
+        TransactionHooks.afterCommit(() -> donations.remove(id));
+    }
+
+    public void donationsChanged(Collection<Long> ids) {
+        TransactionHooks.afterCommit(() -> {
+            if (ids.stream().anyMatch(donations::contains)) {
+                reloadDonations();
+            }
+        });
+    }
+
+    public void requestSaved(BloodRequest request) {
+        TransactionHooks.afterCommit(() -> requests.offer(request));
+    }
+
+    public void requestDeleted(Long id) {
+        TransactionHooks.afterCommit(() -> requests.remove(id));
+    }
+
+    public void requestsChanged(Collection<Long> ids) {
+        TransactionHooks.afterCommit(() -> {
+            if (ids.stream().anyMatch(requests::contains)) {
+                reloadRequests();
+            }
+        });
+    }
+
+    // Another instance wrote donations, requests or the users shown with them
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (event.touches(Topic.DONATION) || event.touches(Topic.USER)) {
+            reloadDonations();
+        }
+        if (event.touches(Topic.REQUEST) || event.touches(Topic.USER)) {
+            reloadRequests();
+        }
+    }
+
+    private void reloadDonations() {
+        long mark = donations.mark();
+        donations.seed(bloodDonationRepository.findRecent(PageRequest.of(0, donations.getRetained())), mark);
+    }
+
+    private void reloadRequests() {
+        long mark = requests.mark();
+        requests.seed(bloodRequestRepository.findRecent(PageRequest.of(0, requests.getRetained())), mark);
+    }
+}
@@ -0,0 +1,263 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.report.ReportDefinition;
+import com.rangira.blooddonation.report.ReportJob;
+import com.rangira.blooddonation.report.ReportType;
+import com.rangira.blooddonation.util.ParallelAggregator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Admin reports built in the background. A job streams its rows through a
+ * read-only transaction (served by the replica when one is configured) with a
+ * cursor, folds them on the report workers shared by all jobs through a
+ * ParallelAggregator, and writes the merged result as a CSV file under
+ * reports.dir. Heap use per job is bounded by the fetch size, the chunk size
+ * and the accumulators, whatever the number of rows.
+ *
+ * Jobs are kept in memory on the instance that ran them, and their files are
+ * deleted after reports.retention-hours.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("reportExecutor")
+    private Executor reportExecutor;
+
+    @Autowired
+    @Qualifier("reportWorkerExecutor")
+    private Executor reportWorkerExecutor;
+
+    @Value("${reports.dir:data/reports}")
+    private String directory;
+
+    @Value("${reports.workers:0}")
+    private int workers;
+
+    @Value("${reports.chunk-rows:10000}")
+    private int chunkRows;
+
+    @Value("${reports.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${reports.max-range-days:3660}")
+    private int maxRangeDays;
+
+    @Value("${reports.retention-hours:24}")
+    private long retentionHours;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private JdbcTemplate streamingJdbcTemplate;
+
+    public ReportJobService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void init() {
+        // PostgreSQL only streams with a fetch size inside a transaction; otherwise it buffers the whole result
+        streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+        if (workers <= 0) {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Queue a report over [from, to] (inclusive) and return the job to poll.
+     */
+    public ReportJob submit(String type, LocalDate from, LocalDate to, String requestedBy) {
+        ReportType reportType = ReportType.parse(type);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) > maxRangeDays) {
+            throw new IllegalArgumentException("to must not be before from, and the range at most " + maxRangeDays + " days");
+        }
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), reportType, from, to, requestedBy);
+        jobs.put(job.getId(), job);
+        try {
+            reportExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new IllegalStateException("Too many report jobs queued, try again later");
+        }
+        logger.info("Report job {} queued: {} from {} to {} by {}", job.getId(), reportType, from, to, requestedBy);
+        return job;
+    }
+
+    public List<ReportJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ReportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public ReportJob getJob(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Report job not found with id: " + id);
+        }
+        return job;
+    }
+
+    public ReportJob cancel(String id) {
+        ReportJob job = getJob(id);
+        if (job.cancel()) {
+            logger.info("Report job {} cancelled", id);
+        }
+        return job;
+    }
+
+    /** The CSV of a finished job */
+    public Path download(String id) {
+        ReportJob job = getJob(id);
+        Path file = job.file();
+        if (job.getStatus() != ReportJob.Status.DONE || file == null) {
+            throw new IllegalStateException("Report is not ready, job is " + job.getStatus());
+        }
+        if (!Files.exists(file)) {
+            throw new RuntimeException("Report file has been deleted");
+        }
+        return file;
+    }
+
+    public String downloadName(ReportJob job) {
+        return job.getType().fileName() + "-" + job.getFrom() + "-to-" + job.getTo() + ".csv";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R, A> void run(ReportJob job) {
+        ReportDefinition<R, A> definition = (ReportDefinition<R, A>) job.getType().definition();
+        // The job range is inclusive, report queries take [from, to)
+        Object[] args = definition.args(job.getFrom(), job.getTo().plusDays(1));
+        long startNanos = System.nanoTime();
+        try {
+            A result = readOnlyTransaction.execute(status -> {
+                if (job.isFinished()) {
+                    return null;
+                }
+                Long total = jdbcTemplate.queryForObject(definition.countSql(), Long.class, args);
+                job.counted(total == null ? 0 : total);
+                ParallelAggregator<R, A> aggregator = new ParallelAggregator<>(
+                        reportWorkerExecutor, workers, chunkRows,
+                        () -> definition.newAccumulator(job.getFrom(), job.getTo().plusDays(1)),
+                        definition::fold, definition::merge, definition::splitAllowed);
+                if (!job.started(aggregator)) {
+                    aggregator.cancel();
+                    return null;
+                }
+                try {
+                    streamingJdbcTemplate.query(definition.sql(),
+                            (RowCallbackHandler) rs -> aggregator.accept(definition.map(rs)), args);
+                    return aggregator.finish();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted");
+                } finally {
+                    aggregator.cancel();
+                }
+            });
+            if (result == null) {
+                return;
+            }
+            Path file = write(job, definition, result);
+            if (!job.done(file)) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            logger.info("Report job {} done: {} rows in {} ms", job.getId(), job.getRowsProcessed(),
+                    Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        } catch (CancellationException e) {
+            job.cancel();
+        } catch (Exception e) {
+            logger.warn("Report job {} failed: {}", job.getId(), e.getMessage());
+            job.failed(e.getMessage());
+        }
+    }
+
+    private <A> Path write(ReportJob job, ReportDefinition<?, A> definition, A result) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        Path partial = dir.resolve(job.getId() + ".csv.part");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(partial, StandardCharsets.UTF_8))) {
+            definition.write(result, out);
+            if (out.checkError()) {
+                throw new IOException("Could not write " + partial);
+            }
+        }
+        return Files.move(partial, dir.resolve(job.getId() + ".csv"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Forget finished jobs and delete report files older than reports.retention-hours,
+     * including files left behind by earlier runs of the application.
+     */
+    @Scheduled(fixedDelayString = "${reports.purge-interval-ms:3600000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().toLowerCase(Locale.ROOT).contains(".csv"))
+                    .filter(file -> {
+                        try {
+                            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            logger.warn("Could not delete old report {}: {}", file, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            logger.warn("Could not purge reports in {}: {}", dir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.util.TextIndex;
+import com.rangira.blooddonation.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * One in-process inverted index over users (username, email), requests
+ * (hospital, requester, reason) and donations (location, notes), behind
+ * /api/search. Names weigh more than secondary fields, which weigh more than
+ * free text.
+ *
+ * The services report saves and deletes here and they are applied once the
+ * transaction commits; changes made on other instances arrive as cache
+ * invalidations and are re-read by id. The index is built at startup from
+ * streamed rows; changes made meanwhile are replayed on top of it.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+
+    // Name fields, secondary fields, free text
+    private static final double[] FIELD_WEIGHTS = {3, 2, 1};
+    private static final int RELOAD_CHUNK = 1000;
+
+    public enum Type {
+        USER, REQUEST, DONATION;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public record Key(Type type, long id) {
+    }
+
+    /** Hits best first, and the query words that matched more than search.max-prefix-terms terms */
+    public record Results(List<Map<String, Object>> hits, List<String> truncatedPrefixes) {
+    }
+
+    /** What a hit shows besides its type and id, and whose it is (the user, requester or donor) */
+    private record Display(String title, String subtitle, String bloodType, Long owner) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("rebuildExecutor")
+    private Executor rebuildExecutor;
+
+    @Value("${search.max-prefix-terms:256}")
+    private int maxPrefixTerms;
+
+    /** The index and what its hits show; guarded by the lock once published */
+    private static class Contents {
+        private final TextIndex<Key> index;
+        private final Map<Key, Display> displays = new HashMap<>();
+
+        private Contents(int maxPrefixTerms) {
+            this.index = new TextIndex<>(FIELD_WEIGHTS, maxPrefixTerms);
+        }
+
+        private void put(Key key, Display display, String name, String secondary, String text) {
+            index.put(key, name, secondary, text);
+            displays.put(key, display);
+        }
+
+        private void remove(Key key) {
+            index.remove(key);
+            displays.remove(key);
+        }
+
+        private Long owner(Key key) {
+            Display display = displays.get(key);
+            return display == null ? null : display.owner();
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Contents contents; // null until first built
+    // Changes seen while a rebuild streams rows; replayed onto the rebuilt index
+    private List<Consumer<Contents>> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    public void userSaved(User user) {
+        Key key = new Key(Type.USER, user.getId());
+        String username = user.getUsername();
+        String email = user.getEmail();
+        Long owner = user.getId();
+        afterCommit(search -> search.put(key, new Display(username, email, null, owner), username, email, null));
+    }
+
+    public void requestSaved(BloodRequest request) {
+        Key key = new Key(Type.REQUEST, request.getId());
+        String hospital = request.getHospitalName();
+        String requester = request.getRequesterName();
+        String reason = request.getReason();
+        String bloodType = request.getBloodType();
+        Long owner = request.getRequester() == null ? null : request.getRequester().getId();
+        afterCommit(search -> search.put(key, new Display(hospital, requester, bloodType, owner), hospital, requester, reason));
+    }
+
+    public void donationSaved(BloodDonation donation) {
+        Key key = new Key(Type.DONATION, donation.getId());
+        String location = donation.getLocation();
+        String notes = donation.getNotes();
+        String bloodType = donation.getBloodType();
+        Long owner = donation.getDonor() == null ? null : donation.getDonor().getId();
+        afterCommit(search -> search.put(key, new Display(location, notes, bloodType, owner), location, null, notes));
+    }
+
+    public void deleted(Type type, Long id) {
+        Key key = new Key(type, id);
+        afterCommit(search -> search.remove(key));
+    }
+
+    public Results search(String query, Set<Type> types, int limit) {
+        return search(query, types, limit, null);
+    }
+
+    /**
+     * Documents matching every word of the query, exactly or as a prefix,
+     * best first, restricted to the given types and, unless owner is null,
+     * to the documents of that user. A word whose prefix matches too many
+     * terms is searched for the first of them only and reported, so the
+     * caller can ask for a longer word.
+     */
+    public Results search(String query, Set<Type> types, int limit, Long owner) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (contents == null) {
+                return new Results(results, List.of());
+            }
+            Contents searched = contents;
+            TextIndex.Result<Key> found = contents.index.search(query, key -> types.contains(key.type())
+                    && (owner == null || owner.equals(searched.owner(key))), limit);
+            for (TextIndex.Hit<Key> hit : found.hits()) {
+                Display display = contents.displays.get(hit.key());
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("type", hit.key().type().label());
+                result.put("id", hit.key().id());
+                result.put("title", display == null ? null : display.title());
+                result.put("subtitle", display == null ? null : display.subtitle());
+                result.put("bloodType", display == null ? null : display.bloodType());
+                result.put("score", Math.round(hit.score() * 1000) / 1000.0);
+                results.add(result);
+            }
+            return new Results(results, found.truncatedTokens());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        Map<Topic, Type> topics = Map.of(Topic.USER, Type.USER, Topic.REQUEST, Type.REQUEST,
+                Topic.DONATION, Type.DONATION);
+        boolean everything = false;
+        Map<Type, List<Long>> changed = new HashMap<>();
+        for (Map.Entry<Topic, Type> topic : topics.entrySet()) {
+            if (!event.touches(topic.getKey())) {
+                continue;
+            }
+            Set<String> ids = event.ids(topic.getKey());
+            if (ids.contains(CacheInvalidationEvent.ALL)) {
+                everything = true;
+                break;
+            }
+            changed.put(topic.getValue(), ids.stream().map(Long::valueOf).toList());
+        }
+        if (everything) {
+            rebuildExecutor.execute(this::rebuild);
+            return;
+        }
+        try {
+            changed.forEach(this::reload);
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the search index, rebuilding it: {}", e.getMessage());
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Re-read changed rows by id; ids that no longer exist are dropped.
+     */
+    private void reload(Type type, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += RELOAD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RELOAD_CHUNK, ids.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            List<Consumer<Contents>> changes = new ArrayList<>();
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(selectSql(type) + " WHERE id IN (" + placeholders + ")", (RowCallbackHandler) rs -> {
+                missing.remove(rs.getLong(1));
+                changes.add(change(type, rs));
+            }, chunk.toArray());
+            for (Long id : missing) {
+                Key key = new Key(type, id);
+                changes.add(search -> search.remove(key));
+            }
+            changes.forEach(this::apply);
+        }
+    }
+
+    /**
+     * Build a fresh index from all users, requests and donations, then swap it in.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                return;
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        Contents fresh = new Contents(maxPrefixTerms);
+        try {
+            for (Type type : Type.values()) {
+                jdbcTemplate.query(selectSql(type), (RowCallbackHandler) rs -> change(type, rs).accept(fresh));
+            }
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild.forEach(change -> change.accept(fresh));
+                contents = fresh;
+            } finally {
+                pendingDuringRebuild = null;
+                lock.writeLock().unlock();
+            }
+            logger.info("Search index built: {} documents, {} terms in {} ms", fresh.index.size(),
+                    fresh.index.terms(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.warn("Could not build the search index: {}", e.getMessage());
+        }
+    }
+
+    private static String selectSql(Type type) {
+        return switch (type) {
+            case USER -> "SELECT id, username, email FROM users";
+            case REQUEST -> "SELECT id, hospital_name, requester_name, reason, blood_type, user_id FROM requests";
+            case DONATION -> "SELECT id, location, notes, blood_type, donor_id FROM donations";
+        };
+    }
+
+    private static Consumer<Contents> change(Type type, ResultSet rs) throws SQLException {
+        Key key = new Key(type, rs.getLong(1));
+        return switch (type) {
+            case USER -> {
+                String username = rs.getString(2);
+                String email = rs.getString(3);
+                yield search -> search.put(key, new Display(username, email, null, key.id()), username, email, null);
+            }
+            case REQUEST -> {
+                String hospital = rs.getString(2);
+                String requester = rs.getString(3);
+                String reason = rs.getString(4);
+                String bloodType = rs.getString(5);
+                Long owner = rs.getObject(6, Long.class);
+                yield search -> search.put(key, new Display(hospital, requester, bloodType, owner), hospital, requester, reason);
+            }
+            case DONATION -> {
+                String location = rs.getString(2);
+                String notes = rs.getString(3);
+                String bloodType = rs.getString(4);
+                Long owner = rs.getObject(5, Long.class);
+                yield search -> search.put(key, new Display(location, notes, bloodType, owner), location, null, notes);
+            }
+        };
+    }
+
+    private void afterCommit(Consumer<Contents> change) {
+        TransactionHooks.afterCommit(() -> apply(change));
+    }
+
+    private void apply(Consumer<Contents> change) {
+        lock.writeLock().lock();
+        try {
+            if (contents != null) {
+                change.accept(contents);
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.Site;
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import com.rangira.blooddonation.repository.SiteRepository;
+import com.rangira.blooddonation.util.GeoGrid;
+import com.rangira.blooddonation.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * All sites held in memory: by id, by normalized name and, for those with
+ * coordinates, in a GeoGrid for nearest lookups. Sites are added and moved
+ * one at a time once their transaction commits; changes made by other
+ * instances arrive as SITE invalidations.
+ *
+ * Next to it sits a snapshot of available, unexpired units per site and blood
+ * type, re-aggregated in the background every sites.stock.refresh-ms, so stock
+ * lookups never wait on the database.
+ */
+@Component
+public class SiteRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteRegistry.class);
+
+    @Autowired
+    private SiteRepository siteRepository;
+
+    @Autowired
+    private BloodDonationRepository bloodDonationRepository;
+
+    private final Map<Long, Site> byId = new ConcurrentHashMap<>();
+    private final Map<String, Site> byName = new ConcurrentHashMap<>();
+    private final GeoGrid<Site> grid;
+    private final ReadWriteLock gridLock = new ReentrantReadWriteLock();
+
+    private volatile Map<Long, Map<String, Integer>> stock = Map.of();
+    private volatile Instant stockAsOf;
+
+    public SiteRegistry(@Value("${sites.grid-cell-degrees:0.1}") double cellDegrees) {
+        this.grid = new GeoGrid<>(cellDegrees);
+    }
+
+    /** The form free-text locations are matched on: trimmed, single spaces, lower case */
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            reload();
+            refreshStock();
+        } catch (RuntimeException e) {
+            // Lookups then see an empty registry until the next stock refresh or site change
+            logger.warn("Could not load the site registry: {}", e.getMessage());
+        }
+    }
+
+    public Optional<Site> findById(Long id) {
+        return Optional.ofNullable(id == null ? null : byId.get(id));
+    }
+
+    public Optional<Site> findByName(String name) {
+        return Optional.ofNullable(byName.get(normalize(name)));
+    }
+
+    public List<Site> all() {
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * Make a saved site visible once its transaction commits.
+     */
+    public void siteSaved(Site site) {
+        TransactionHooks.afterCommit(() -> put(site));
+    }
+
+    public List<GeoGrid.Hit<Site>> nearest(double latitude, double longitude, Predicate<Site> accept,
+                                           int limit, double maxKm) {
+        gridLock.readLock().lock();
+        try {
+            return grid.nearest(latitude, longitude, accept, limit, maxKm);
+        } finally {
+            gridLock.readLock().unlock();
+        }
+    }
+
+    /** Available, unexpired units per blood type at the site, as of stockAsOf() */
+    public Map<String, Integer> stockAt(Long siteId) {
+        return stock.getOrDefault(siteId, Map.of());
+    }
+
+    public Instant stockAsOf() {
+        return stockAsOf;
+    }
+
+    @Scheduled(fixedDelayString = "${sites.stock.refresh-ms:5000}", initialDelayString = "${sites.stock.refresh-ms:5000}")
+    public void refreshStock() {
+        Map<Long, Map<String, Integer>> counted = new HashMap<>();
+        for (Object[] row : bloodDonationRepository.countAvailableBySite(LocalDate.now())) {
+            counted.computeIfAbsent(((Number) row[0]).longValue(), id -> new HashMap<>())
+                    .put((String) row[1], ((Number) row[2]).intValue());
+        }
+        stock = counted;
+        stockAsOf = Instant.now();
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.touches(Topic.SITE)) {
+            return;
+        }
+        Collection<String> ids = event.ids(Topic.SITE);
+        if (ids.contains(CacheInvalidationEvent.ALL)) {
+            reload();
+            return;
+        }
+        for (String id : ids) {
+            siteRepository.findById(Long.valueOf(id)).ifPresent(this::put);
+        }
+    }
+
+    private void reload() {
+        List<Site> sites = siteRepository.findAll();
+        gridLock.writeLock().lock();
+        try {
+            byId.clear();
+            byName.clear();
+            grid.clear();
+            sites.forEach(this::put);
+        } finally {
+            gridLock.writeLock().unlock();
+        }
+        logger.info("Site registry loaded {} sites, {} with coordinates", sites.size(), grid.size());
+    }
+
+    private void put(Site site) {
+        gridLock.writeLock().lock();
+        try {
+            Site previous = byId.put(site.getId(), site);
+            if (previous != null && !previous.getNormalizedName().equals(site.getNormalizedName())) {
+                byName.remove(previous.getNormalizedName(), previous);
+            }
+            byName.put(site.getNormalizedName(), site);
+            if (site.getLatitude() != null && site.getLongitude() != null) {
+                grid.put(site.getId(), site.getLatitude(), site.getLongitude(), site);
+            } else {
+                grid.remove(site.getId());
+            }
+        } finally {
+            gridLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.dto.SiteStock;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.Site;
+import com.rangira.blooddonation.repository.SiteRepository;
+import com.rangira.blooddonation.util.GeoGrid;
+import com.rangira.blooddonation.validator.DomainValidators;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class SiteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteService.class);
+
+    public static final String HOSPITAL = "HOSPITAL";
+    public static final String DONATION_SITE = "DONATION_SITE";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // Donor blood types each recipient type can receive, the exact match first
+    private static final Map<String, List<String>> COMPATIBLE_DONORS = Map.of(
+            "O-", List.of("O-"),
+            "O+", List.of("O+", "O-"),
+            "A-", List.of("A-", "O-"),
+            "A+", List.of("A+", "A-", "O+", "O-"),
+            "B-", List.of("B-", "O-"),
+            "B+", List.of("B+", "B-", "O+", "O-"),
+            "AB-", List.of("AB-", "A-", "B-", "O-"),
+            "AB+", List.of("AB+", "AB-", "A+", "A-", "B+", "B-", "O+", "O-"));
+
+    @Autowired
+    private SiteRepository siteRepository;
+
+    @Autowired
+    private SiteRegistry siteRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${sites.nearest.max-results:50}")
+    private int maxResults;
+
+    /**
+     * All known sites, optionally of one kind, by name
+     */
+    public List<Site> getAllSites(String kind) {
+        return siteRegistry.all().stream()
+                .filter(site -> kind == null || kind.equalsIgnoreCase(site.getKind()))
+                .sorted(Comparator.comparing(Site::getNormalizedName))
+                .toList();
+    }
+
+    /**
+     * Register a site (Admin only)
+     */
+    @Transactional
+    public Site createSite(Site site) {
+        if (site.getName() == null || site.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Site name is required");
+        }
+        site.setId(null);
+        site.setName(site.getName().trim());
+        site.setNormalizedName(SiteRegistry.normalize(site.getName()));
+        site.setKind(validKind(site.getKind()));
+        if (site.getLatitude() != null || site.getLongitude() != null) {
+            validateCoordinates(site.getLatitude(), site.getLongitude());
+        }
+        if (siteRepository.findByNormalizedName(site.getNormalizedName()).isPresent()) {
+            throw new IllegalArgumentException("A site named " + site.getName() + " already exists");
+        }
+
+        Site savedSite = siteRepository.save(site);
+        logger.info("Site created with ID: {}", savedSite.getId());
+        siteRegistry.siteSaved(savedSite);
+        invalidationBus.publish(Topic.SITE, savedSite.getId());
+        return savedSite;
+    }
+
+    /**
+     * Rename, re-classify or place a site on the map (Admin only)
+     */
+    @Transactional
+    public Site updateSite(Long id, Site siteDetails) {
+        Site site = siteRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Site not found with ID: " + id));
+
+        if (siteDetails.getName() != null && !siteDetails.getName().trim().isEmpty()) {
+            String normalizedName = SiteRegistry.normalize(siteDetails.getName());
+            if (!normalizedName.equals(site.getNormalizedName())
+                    && siteRepository.findByNormalizedName(normalizedName).isPresent()) {
+                throw new IllegalArgumentException("A site named " + siteDetails.getName() + " already exists");
+            }
+            site.setName(siteDetails.getName().trim());
+            site.setNormalizedName(normalizedName);
+        }
+        if (siteDetails.getKind() != null) {
+            site.setKind(validKind(siteDetails.getKind()));
+        }
+        if (siteDetails.getLatitude() != null || siteDetails.getLongitude() != null) {
+            validateCoordinates(siteDetails.getLatitude(), siteDetails.getLongitude());
+            site.setLatitude(siteDetails.getLatitude());
+            site.setLongitude(siteDetails.getLongitude());
+        }
+
+        Site updatedSite = siteRepository.save(site);
+        logger.info("Site updated with ID: {}", updatedSite.getId());
+        siteRegistry.siteSaved(updatedSite);
+        invalidationBus.publish(Topic.SITE, updatedSite.getId());
+        return updatedSite;
+    }
+
+    /**
+     * Id of the site a free-text location or hospital name refers to, creating
+     * the site (without coordinates) the first time the name is seen. Null for
+     * a blank name. Runs in the caller's transaction.
+     */
+    @Transactional
+    public Long resolve(String name, String kind) {
+        String normalizedName = SiteRegistry.normalize(name);
+        if (normalizedName.isEmpty()) {
+            return null;
+        }
+        Site known = siteRegistry.findByName(normalizedName).orElse(null);
+        if (known != null) {
+            return known.getId();
+        }
+
+        if (insertIfAbsent(name.trim(), normalizedName, kind)) {
+            logger.info("New site registered from free text: {}", name.trim());
+        }
+        Site site = siteRepository.findByNormalizedName(normalizedName)
+                .orElseThrow(() -> new IllegalStateException("Site vanished while resolving: " + name));
+        siteRegistry.siteSaved(site);
+        invalidationBus.publish(Topic.SITE, site.getId());
+        return site.getId();
+    }
+
+    /**
+     * Register a name seen for the first time; false when another writer got
+     * there first. The insert runs behind a savepoint, so losing that race
+     * rolls back the insert only and not the caller's transaction.
+     */
+    private boolean insertIfAbsent(String name, String normalizedName, String kind) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO sites (name, normalized_name, kind) VALUES (?, ?, ?)")) {
+                insert.setString(1, name);
+                insert.setString(2, normalizedName);
+                insert.setString(3, kind);
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+                return false;
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Sites holding at least minUnits units a patient of the blood type can
+     * receive, closest to the origin first. The origin is a site id, a hospital
+     * name or coordinates, in that order of precedence, and must be on the map.
+     * Answered from memory; stock is as of the last refresh.
+     */
+    public List<SiteStock> findNearestStock(Long siteId, String hospital, Double latitude, Double longitude,
+                                            String bloodType, int minUnits, int limit, Double maxKm) {
+        if (!DomainValidators.isValidBloodType(bloodType)) {
+            throw new IllegalArgumentException("Invalid blood type: " + bloodType);
+        }
+        if (minUnits < 1 || limit < 1 || limit > maxResults) {
+            throw new IllegalArgumentException("minUnits must be positive and limit between 1 and " + maxResults);
+        }
+
+        double[] origin = origin(siteId, hospital, latitude, longitude);
+
+        List<String> donorTypes = COMPATIBLE_DONORS.get(bloodType);
+        List<GeoGrid.Hit<Site>> hits = siteRegistry.nearest(origin[0], origin[1],
+                site -> compatibleUnits(site, donorTypes) >= minUnits,
+                limit, maxKm != null ? maxKm : Double.MAX_VALUE);
+
+        return hits.stream().map(hit -> {
+            Site site = hit.value();
+            Map<String, Integer> available = siteRegistry.stockAt(site.getId());
+            Map<String, Integer> byType = new LinkedHashMap<>();
+            for (String donorType : donorTypes) {
+                int units = available.getOrDefault(donorType, 0);
+                if (units > 0) {
+                    byType.put(donorType, units);
+                }
+            }
+            return new SiteStock(site.getId(), site.getName(), site.getKind(), site.getLatitude(),
+                    site.getLongitude(), hit.distanceKm(), compatibleUnits(site, donorTypes), byType);
+        }).toList();
+    }
+
+    /**
+     * Ids of the sites within maxKm of the origin (a site id, a site name or
+     * coordinates), or just the named site when no distance is given.
+     */
+    public Set<Long> findSitesNear(Long siteId, String site, Double latitude, Double longitude, Double maxKm) {
+        if (maxKm == null) {
+            if (siteId == null && site == null) {
+                throw new IllegalArgumentException("Give maxKm to search around coordinates");
+            }
+            Site origin = (siteId != null ? siteRegistry.findById(siteId) : siteRegistry.findByName(site))
+                    .orElseThrow(() -> new RuntimeException("Site not found: " + (siteId != null ? siteId : site)));
+            return Set.of(origin.getId());
+        }
+        if (maxKm <= 0) {
+            throw new IllegalArgumentException("maxKm must be positive");
+        }
+        double[] origin = origin(siteId, site, latitude, longitude);
+        Set<Long> ids = new HashSet<>();
+        for (GeoGrid.Hit<Site> hit : siteRegistry.nearest(origin[0], origin[1], candidate -> true,
+                Math.max(1, siteRegistry.all().size()), maxKm)) {
+            ids.add(hit.value().getId());
+        }
+        return ids;
+    }
+
+    // The origin is a site id, a site name or coordinates, in that order of precedence, and must be on the map
+    private double[] origin(Long siteId, String site, Double latitude, Double longitude) {
+        if (siteId != null || site != null) {
+            Site origin = (siteId != null ? siteRegistry.findById(siteId) : siteRegistry.findByName(site))
+                    .orElseThrow(() -> new RuntimeException("Site not found: " + (siteId != null ? siteId : site)));
+            if (origin.getLatitude() == null || origin.getLongitude() == null) {
+                throw new IllegalArgumentException("Site " + origin.getName() + " has no coordinates yet");
+            }
+            return new double[]{origin.getLatitude(), origin.getLongitude()};
+        }
+        if (latitude != null && longitude != null) {
+            validateCoordinates(latitude, longitude);
+            return new double[]{latitude, longitude};
+        }
+        throw new IllegalArgumentException("Give a siteId, a hospital or latitude and longitude");
+    }
+
+    private int compatibleUnits(Site site, List<String> donorTypes) {
+        Map<String, Integer> available = siteRegistry.stockAt(site.getId());
+        int units = 0;
+        for (String donorType : donorTypes) {
+            units += available.getOrDefault(donorType, 0);
+        }
+        return units;
+    }
+
+    private static String validKind(String kind) {
+        if (kind == null) {
+            return DONATION_SITE;
+        }
+        String upper = kind.trim().toUpperCase();
+        if (!upper.equals(HOSPITAL) && !upper.equals(DONATION_SITE)) {
+            throw new IllegalArgumentException("Invalid site kind: " + kind);
+        }
+        return upper;
+    }
+
+    private static void validateCoordinates(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Latitude and longitude go together");
+        }
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range: " + latitude + ", " + longitude);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.AppointmentSlot;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory admission counters for appointment slots.
+ * Turns away bookings for a full slot without a database round trip; the
+ * conditional update in AppointmentSlotRepository stays the source of truth.
+ * Counters of past slots are dropped every night.
+ */
+@Component
+public class SlotCapacityGate {
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Take one place in the slot, seeding the counter from the entity on first use
+     */
+    public boolean tryAcquire(AppointmentSlot slot) {
+        Counter counter = counters.computeIfAbsent(slot.getId(), id -> new Counter(slot.getSlotDate(), slot.getCapacity(), slot.getBooked()));
+        AtomicInteger remaining = counter.remaining;
+        while (true) {
+            int current = remaining.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give one place back, never exceeding the slot capacity
+     */
+    public void release(Long slotId) {
+        Counter counter = counters.get(slotId);
+        if (counter != null) {
+            counter.remaining.updateAndGet(current -> Math.min(current + 1, counter.capacity));
+        }
+    }
+
+    /**
+     * Re-seed the counter from the booked count held in the database
+     */
+    public void reset(AppointmentSlot slot, int booked) {
+        counters.put(slot.getId(), new Counter(slot.getSlotDate(), slot.getCapacity(), booked));
+    }
+
+    /**
+     * Drop the counters of slots on days before today; nothing books them any more
+     */
+    @Scheduled(cron = "${appointments.slot-gate.evict-cron:0 10 0 * * *}")
+    public void evictPastSlots() {
+        evictBefore(LocalDate.now());
+    }
+
+    /**
+     * Drop the counters of slots on days before the given one
+     */
+    public void evictBefore(LocalDate day) {
+        counters.values().removeIf(counter -> counter.day != null && counter.day.isBefore(day));
+    }
+
+    /**
+     * Drop counters of slots booked or released through another instance; they
+     * are re-seeded from the slot row on next use
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.touches(Topic.SLOT)) {
+            return;
+        }
+        Set<String> ids = event.ids(Topic.SLOT);
+        if (ids.contains(CacheInvalidationEvent.ALL)) {
+            counters.clear();
+        } else {
+            ids.forEach(id -> counters.remove(Long.valueOf(id)));
+        }
+    }
+
+    /**
+     * Places the gate currently believes are left, or -1 if the slot is not tracked
+     */
+    public int remaining(Long slotId) {
+        Counter counter = counters.get(slotId);
+        return counter == null ? -1 : counter.remaining.get();
+    }
+
+    private static final class Counter {
+        private final LocalDate day;
+        private final int capacity;
+        private final AtomicInteger remaining;
+
+        private Counter(LocalDate day, int capacity, int booked) {
+            this.day = day;
+            this.capacity = capacity;
+            this.remaining = new AtomicInteger(Math.max(capacity - booked, 0));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.rangira.blooddonation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Rolling record of slow statements grouped by normalized SQL shape.
+ * Statements under the threshold return after a single comparison.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    @Value("${sql.monitor.slow-statement-ms:200}")
+    private long slowStatementMs;
+
+    @Value("${sql.monitor.top-n:20}")
+    private int topN;
+
+    @Value("${sql.monitor.max-shapes:500}")
+    private int maxShapes;
+
+    public void record(String sql, long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis < slowStatementMs || sql == null) {
+            return;
+        }
+
+        String shape = normalize(sql);
+        logger.warn("Slow statement ({} ms): {}", millis, shape);
+
+        Shape entry = shapes.get(shape);
+        if (entry == null) {
+            if (shapes.size() >= maxShapes && !evictFasterThan(nanos)) {
+                return;
+            }
+            entry = shapes.computeIfAbsent(shape, s -> new Shape());
+        }
+        entry.count.increment();
+        entry.totalNanos.add(nanos);
+        entry.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Slowest shapes first, by worst observed execution. */
+    public List<Map<String, Object>> top() {
+        return shapes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Shape> e) -> e.getValue().maxNanos.get()).reversed())
+                .limit(topN)
+                .map(e -> {
+                    Shape s = e.getValue();
+                    long count = s.count.sum();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("sql", e.getKey());
+                    row.put("count", count);
+                    row.put("maxMs", TimeUnit.NANOSECONDS.toMillis(s.maxNanos.get()));
+                    row.put("avgMs", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(s.totalNanos.sum() / count));
+                    return row;
+                })
+                .toList();
+    }
+
+    public long getSlowStatementMs() {
+        return slowStatementMs;
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?, ...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    // Full table: drop the shape whose worst run is fastest, if the new one beats it
+    private boolean evictFasterThan(long nanos) {
+        return shapes.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().maxNanos.get()))
+                .filter(e -> e.getValue().maxNanos.get() < nanos)
+                .map(e -> shapes.remove(e.getKey()) != null)
+                .orElse(false);
+    }
+
+    private static final class Shape {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
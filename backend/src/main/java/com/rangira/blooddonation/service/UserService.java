@@ -1,5 +1,6 @@
 package com.rangira.blooddonation.service;
 
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
 import com.rangira.blooddonation.model.User;
 import com.rangira.blooddonation.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,15 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private DonorDirectory donorDirectory;
+
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     public Optional<User> findByUsername(String username) {
@@ -45,7 +55,11 @@ public class UserService {
             user.setRole("ROLE_USER");
         }
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        invalidationBus.publish(Topic.USER, savedUser.getId());
+        searchIndex.userSaved(savedUser);
+        donorDirectory.donorChanged(savedUser.getId());
+        return savedUser;
     }
 
     public Page<User> searchUsers(String searchTerm, int page, int size) {
@@ -71,7 +85,11 @@ public class UserService {
                 existingUser.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
             }
 
-            return userRepository.save(existingUser);
+            User savedUser = userRepository.save(existingUser);
+            invalidationBus.publish(Topic.USER, savedUser.getId());
+            searchIndex.userSaved(savedUser);
+            donorDirectory.donorChanged(savedUser.getId());
+            return savedUser;
         }).orElseThrow(() -> new RuntimeException("User not found with ID: " + id));
     }
 
@@ -80,10 +98,16 @@ public class UserService {
             throw new RuntimeException("User not found with ID: " + id);
         }
         userRepository.deleteById(id);
+        invalidationBus.publish(Topic.USER, id);
+        searchIndex.deleted(SearchIndex.Type.USER, id);
+        donorDirectory.donorChanged(id);
     }
 
     public void save(User user) {
         userRepository.save(user);
+        invalidationBus.publish(Topic.USER, user.getId());
+        searchIndex.userSaved(user);
+        donorDirectory.donorChanged(user.getId());
     }
 
     public String encodePassword(String rawPassword) {
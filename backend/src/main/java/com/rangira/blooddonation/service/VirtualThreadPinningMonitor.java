@@ -0,0 +1,111 @@
+package com.rangira.blooddonation.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams JFR jdk.VirtualThreadPinned events (JDK 21+) and reports where a
+ * virtual thread blocked while pinned to its carrier, usually inside a
+ * synchronized block or a native frame. Each event is attributed to the first
+ * frame in our own code and the first library frame outside the JDK.
+ */
+@Component
+@ConditionalOnProperty(name = "virtual-threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String OWN_PACKAGE = "com.rangira.";
+    private static final int MAX_SITES = 50;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${virtual-threads.pinning-monitor.threshold-ms:20}")
+    private long thresholdMs;
+
+    private final Map<String, Counter> sites = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            logger.info("Pinning monitor needs JDK 21+, running on {}; disabled", Runtime.version());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Virtual thread pinning monitor started (threshold {} ms)", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String ownFrame = null;
+        String libraryFrame = null;
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            String location = type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            if (ownFrame == null && type.startsWith(OWN_PACKAGE)) {
+                ownFrame = location;
+            } else if (libraryFrame == null && !isJdk(type) && !type.startsWith(OWN_PACKAGE)) {
+                libraryFrame = location;
+            }
+            if (ownFrame != null && libraryFrame != null) {
+                break;
+            }
+        }
+
+        String site = ownFrame != null ? ownFrame : libraryFrame != null ? libraryFrame : "jdk";
+        logger.warn("Virtual thread pinned for {} ms at {} (library frame: {})",
+                event.getDuration().toMillis(), site, libraryFrame);
+
+        Counter counter = sites.get(site);
+        if (counter == null) {
+            // Keep the tag set bounded; everything past the cap shares one series
+            String tag = sites.size() < MAX_SITES ? site : "other";
+            counter = sites.computeIfAbsent(tag, t -> Counter.builder("blooddonation.virtualthreads.pinned")
+                    .description("Virtual thread pinning events over the threshold")
+                    .tag("site", t)
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    private static boolean isJdk(String type) {
+        return type.startsWith("java.") || type.startsWith("javax.") || type.startsWith("jdk.")
+                || type.startsWith("sun.") || type.startsWith("com.sun.");
+    }
+}
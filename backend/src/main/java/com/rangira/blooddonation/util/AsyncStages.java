@@ -0,0 +1,59 @@
+package com.rangira.blooddonation.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Helpers for mapping failed CompletableFuture stages back to a response.
+ */
+public final class AsyncStages {
+
+    private AsyncStages() {
+    }
+
+    /**
+     * Run the task on the executor and fail the returned stage with a TimeoutException after
+     * timeoutMs. A full queue fails the stage with the RejectedExecutionException instead of
+     * throwing it at the caller, so callers map both the same way.
+     *
+     * The timeout does not interrupt anything: it completes the stage the task would complete.
+     * A task still queued at that point is skipped when a worker picks it up; one already
+     * running (a BCrypt round, an SMTP send) finishes and its result is dropped, together with
+     * every stage chained after it.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor, long timeoutMs) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor).orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** {@link #supplyAsync} for tasks without a result. */
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor, long timeoutMs) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        }, executor, timeoutMs);
+    }
+
+    /** The exception a stage actually threw, without CompletionException wrappers. */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /** A stage timed out or its executor queue was full. */
+    public static boolean isOverloaded(Throwable cause) {
+        return cause instanceof TimeoutException || cause instanceof RejectedExecutionException;
+    }
+}
@@ -0,0 +1,59 @@
+package com.rangira.blooddonation.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Times every controller method as blooddonation.controller.requests.
+ * Tags are the controller class, the Java method and the outcome family,
+ * so the number of series is fixed by the code rather than by request data.
+ */
+public class ControllerMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String SAMPLE_ATTRIBUTE = ControllerMetricsInterceptor.class.getName() + ".sample";
+
+    private final MeterRegistry meterRegistry;
+
+    public ControllerMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getAttribute(SAMPLE_ATTRIBUTE) == null) {
+            request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(meterRegistry));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object sample = request.getAttribute(SAMPLE_ATTRIBUTE);
+        if (!(sample instanceof Timer.Sample) || !(handler instanceof HandlerMethod)) {
+            return;
+        }
+        request.removeAttribute(SAMPLE_ATTRIBUTE);
+
+        HandlerMethod method = (HandlerMethod) handler;
+        ((Timer.Sample) sample).stop(Timer.builder("blooddonation.controller.requests")
+                .description("Controller method latency")
+                .tag("controller", method.getBeanType().getSimpleName())
+                .tag("method", method.getMethod().getName())
+                .tag("outcome", outcome(ex != null ? 500 : response.getStatus()))
+                .register(meterRegistry));
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        return "SUCCESS";
+    }
+}
@@ -0,0 +1,190 @@
+package com.rangira.blooddonation.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Points on the globe bucketed into fixed-size latitude/longitude cells, for
+ * nearest-neighbour lookups over a set that changes one point at a time:
+ * put and remove only touch the point's cell, so there is nothing to rebuild.
+ *
+ * A search visits the cells in rings around the origin and stops once the
+ * closest cell of the next ring is farther away than the worst result kept,
+ * so it reads a handful of cells however many points the grid holds. When a
+ * ring would have more cells than the grid has occupied ones, the remaining
+ * occupied cells are scanned directly instead.
+ *
+ * Not thread-safe; callers guard it.
+ */
+public class GeoGrid<T> {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    public record Hit<T>(T value, double distanceKm) {
+    }
+
+    private record Point<T>(long id, double latitude, double longitude, T value) {
+    }
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    private final Map<Long, List<Point<T>>> cells = new HashMap<>();
+    private final Map<Long, Point<T>> points = new HashMap<>();
+
+    public GeoGrid(double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("cellDegrees must be in (0, 90]: " + cellDegrees);
+        }
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Add the point or move it to its new position.
+     */
+    public void put(long id, double latitude, double longitude, T value) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range: " + latitude + ", " + longitude);
+        }
+        remove(id);
+        Point<T> point = new Point<>(id, latitude, longitude, value);
+        points.put(id, point);
+        cells.computeIfAbsent(cellKey(row(latitude), column(longitude)), key -> new ArrayList<>()).add(point);
+    }
+
+    public void remove(long id) {
+        Point<T> point = points.remove(id);
+        if (point == null) {
+            return;
+        }
+        long key = cellKey(row(point.latitude()), column(point.longitude()));
+        List<Point<T>> cell = cells.get(key);
+        cell.removeIf(candidate -> candidate.id() == id);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        points.clear();
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Up to limit accepted points within maxKm of the origin, closest first.
+     */
+    public List<Hit<T>> nearest(double latitude, double longitude, Predicate<T> accept, int limit, double maxKm) {
+        if (limit < 1 || cells.isEmpty()) {
+            return List.of();
+        }
+
+        // Worst kept hit on top, so it is the one replaced by a closer point
+        PriorityQueue<Hit<T>> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble((Hit<T> hit) -> hit.distanceKm()).reversed());
+        Set<Long> visited = new HashSet<>();
+        int originRow = row(latitude);
+        int originColumn = column(longitude);
+
+        for (int ring = 0; ring <= Math.max(rows, columns / 2); ring++) {
+            double closest = ringLowerBoundKm(latitude, ring);
+            if (closest > maxKm || (best.size() == limit && closest > best.peek().distanceKm())) {
+                break;
+            }
+            if (8L * ring > cells.size()) {
+                // Cheaper to look at every occupied cell left than to walk the ring
+                cells.forEach((key, cell) -> {
+                    if (!visited.contains(key)) {
+                        collect(cell, latitude, longitude, accept, limit, maxKm, best);
+                    }
+                });
+                break;
+            }
+            for (int row = originRow - ring; row <= originRow + ring; row++) {
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edgeRow = row == originRow - ring || row == originRow + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int column = originColumn - ring; column <= originColumn + ring; column += Math.max(step, 1)) {
+                    long key = cellKey(row, Math.floorMod(column, columns));
+                    List<Point<T>> cell = cells.get(key);
+                    if (cell != null && visited.add(key)) {
+                        collect(cell, latitude, longitude, accept, limit, maxKm, best);
+                    }
+                }
+            }
+        }
+
+        List<Hit<T>> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    private void collect(List<Point<T>> cell, double latitude, double longitude, Predicate<T> accept,
+                         int limit, double maxKm, PriorityQueue<Hit<T>> best) {
+        for (Point<T> point : cell) {
+            double distance = distanceKm(latitude, longitude, point.latitude(), point.longitude());
+            if (distance > maxKm || (best.size() == limit && distance >= best.peek().distanceKm())) {
+                continue;
+            }
+            if (!accept.test(point.value())) {
+                continue;
+            }
+            best.add(new Hit<>(point.value(), distance));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    /**
+     * A point in a cell of this ring is at least ring - 1 whole cells away in
+     * latitude or in longitude. Longitude degrees are measured at the highest
+     * latitude the ring reaches, where they are shortest.
+     */
+    private double ringLowerBoundKm(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double degrees = (ring - 1) * cellDegrees;
+        double highestLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * cellDegrees);
+        double longitudeKm = degrees * KM_PER_DEGREE * Math.cos(Math.toRadians(highestLatitude));
+        return Math.min(degrees * KM_PER_DEGREE, longitudeKm);
+    }
+
+    /** Great-circle (haversine) distance */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+}
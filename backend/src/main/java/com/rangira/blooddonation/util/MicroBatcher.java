@@ -0,0 +1,149 @@
+package com.rangira.blooddonation.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded queue drained by a single writer thread in micro-batches: a batch is
+ * flushed once it holds maxBatch items or maxDelayMillis after its first item
+ * arrived, whichever comes first. Each submitter gets a future that completes
+ * only after the flush of its batch returned, i.e. after the batch committed.
+ *
+ * The flush function must return one result per item, in order. When a batch
+ * fails, its items are flushed again one by one so a single bad item does not
+ * fail the others.
+ */
+public class MicroBatcher<T, R> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final Function<List<T>, List<R>> flusher;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result) {
+    }
+
+    public MicroBatcher(String name, int capacity, int maxBatch, long maxDelayMillis,
+                        Function<List<T>, List<R>> flusher) {
+        if (capacity < 1 || maxBatch < 1 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("capacity and maxBatch must be positive, maxDelayMillis not negative");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.flusher = flusher;
+        this.writer = new Thread(this::writeLoop, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue an item, waiting up to offerTimeoutMillis for space. Throws
+     * RejectedExecutionException when the queue stays full (backpressure) or
+     * the batcher is closed.
+     */
+    public CompletableFuture<R> submit(T item, long offerTimeoutMillis) {
+        if (!running) {
+            throw new RejectedExecutionException("Batcher " + writer.getName() + " is closed");
+        }
+        Pending<T, R> pending = new Pending<>(item, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Batcher " + writer.getName() + " queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+        }
+        return pending.result();
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Stop accepting items, flush what is already queued and wait for the writer.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void writeLoop() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T, R> first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Pending<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                fail(batch, e);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T, R>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        for (Pending<T, R> pending : batch) {
+            items.add(pending.item());
+        }
+
+        try {
+            List<R> results = flusher.apply(items);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            logger.warn("Batch of {} failed in {}, retrying items one by one", batch.size(), writer.getName(), e);
+            for (Pending<T, R> pending : batch) {
+                flush(List.of(pending));
+            }
+        }
+    }
+
+    private static <T, R> void fail(List<Pending<T, R>> batch, Throwable cause) {
+        for (Pending<T, R> pending : batch) {
+            pending.result().completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.rangira.blooddonation.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Folds a stream of rows on several threads. The producer (typically a JDBC
+ * row callback) hands rows in; they are cut into chunks and each chunk is
+ * folded by a task on the given executor into one of workerCount
+ * accumulators, which finish() merges.
+ *
+ * The executor is shared with other aggregations, so the threads folding rows
+ * stay bounded however many run at once; workerCount only caps how many
+ * chunks of this aggregation are folded at the same time. At most
+ * (workers * 3 + 1) chunks exist at a time, so heap use is bounded by the
+ * chunk size and the accumulators, however many rows flow through. When rows
+ * must stay together (e.g. all rows of one donor), splitAllowed decides
+ * whether a chunk may end between two consecutive rows.
+ */
+public class ParallelAggregator<R, A> {
+
+    private final Executor executor;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final BiConsumer<A, List<R>> fold;
+    private final BinaryOperator<A> merge;
+    private final BiPredicate<R, R> splitAllowed;
+    private final Semaphore chunksInFlight;
+    private final List<A> accumulators = new ArrayList<>();
+    private final BlockingQueue<A> idle;
+    private final AtomicLong folded = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+
+    private List<R> chunk;
+    private R last;
+
+    public ParallelAggregator(Executor executor, int workerCount, int chunkSize, Supplier<A> newAccumulator,
+                              BiConsumer<A, List<R>> fold, BinaryOperator<A> merge, BiPredicate<R, R> splitAllowed) {
+        if (workerCount < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("workerCount and chunkSize must be positive");
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxChunks = workerCount * 3;
+        this.fold = fold;
+        this.merge = merge;
+        this.splitAllowed = splitAllowed;
+        this.chunksInFlight = new Semaphore(maxChunks);
+        this.idle = new ArrayBlockingQueue<>(workerCount);
+        this.chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < workerCount; i++) {
+            A accumulator = newAccumulator.get();
+            accumulators.add(accumulator);
+            idle.add(accumulator);
+        }
+    }
+
+    /**
+     * Add one row; blocks while the handed-over chunks are all waiting or being folded.
+     * Throws CancellationException after cancel() and rethrows a fold failure.
+     */
+    public void accept(R row) {
+        if (chunk.size() >= chunkSize && (last == null || splitAllowed.test(last, row))) {
+            handOver(chunk);
+            chunk = new ArrayList<>(chunkSize);
+        }
+        chunk.add(row);
+        last = row;
+    }
+
+    /**
+     * Hand over the last chunk, wait until every chunk is folded and merge the
+     * accumulators.
+     */
+    public A finish() throws InterruptedException {
+        if (!chunk.isEmpty()) {
+            handOver(chunk);
+            chunk = new ArrayList<>();
+        }
+        while (!chunksInFlight.tryAcquire(maxChunks, 100, TimeUnit.MILLISECONDS)) {
+            rethrowFailure();
+        }
+        chunksInFlight.release(maxChunks);
+        rethrowFailure();
+        A result = accumulators.get(0);
+        for (int i = 1; i < accumulators.size(); i++) {
+            result = merge.apply(result, accumulators.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Stop: chunks not yet folded are dropped, a chunk being folded runs to its end.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Rows folded so far */
+    public long folded() {
+        return folded.get();
+    }
+
+    private void handOver(List<R> rows) {
+        try {
+            while (!chunksInFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                rethrowFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new CancellationException("Interrupted while handing over rows");
+        }
+        try {
+            executor.execute(() -> foldChunk(rows));
+        } catch (RejectedExecutionException e) {
+            chunksInFlight.release();
+            failure.compareAndSet(null, e);
+        }
+        rethrowFailure();
+    }
+
+    private void rethrowFailure() {
+        if (cancelled) {
+            throw new CancellationException("Aggregation cancelled");
+        }
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause != null) {
+            throw new IllegalStateException("Aggregation failed", cause);
+        }
+    }
+
+    private void foldChunk(List<R> rows) {
+        try {
+            if (cancelled || failure.get() != null) {
+                return;
+            }
+            // Only waits when more of these chunks are folded at once than there are accumulators
+            A accumulator = idle.take();
+            try {
+                fold.accept(accumulator, rows);
+                folded.addAndGet(rows.size());
+            } finally {
+                idle.add(accumulator);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            chunksInFlight.release();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.rangira.blooddonation.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers when each user last committed a write. While the window is open
+ * that user's read-only transactions stay on the primary, so they never see a
+ * replica that has not caught up with their own change yet.
+ */
+public class ReadYourWritesWindow {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesWindow(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    public void markWrite(String username) {
+        long now = System.nanoTime();
+        lastWrite.put(username, now);
+        if (lastWrite.size() > PRUNE_THRESHOLD) {
+            lastWrite.values().removeIf(t -> now - t > windowNanos);
+        }
+    }
+
+    public boolean isOpen(String username) {
+        Long writtenAt = lastWrite.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt > windowNanos) {
+            lastWrite.remove(username, writtenAt);
+            return false;
+        }
+        return true;
+    }
+}
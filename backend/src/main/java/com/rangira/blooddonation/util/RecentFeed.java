@@ -0,0 +1,190 @@
+package com.rangira.blooddonation.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Bounded, newest-first window over a feed of items. Writers copy the
+ * (small) window, apply their change and publish it with a CAS; readers
+ * just take the current immutable snapshot, so neither side ever locks.
+ *
+ * A few extra items beyond the visible size are kept so that a delete does
+ * not immediately leave the feed short.
+ *
+ * Every offer and remove bumps the window's version and records it against
+ * the id. A re-read takes mark() before querying and passes it to seed(), so
+ * rows it loaded lose to items offered or removed after the mark: the read
+ * may have seen an older state of them.
+ */
+public class RecentFeed<T> {
+
+    private final int size;
+    private final int retained;
+    private final Comparator<T> newestFirst;
+    private final Function<T, Long> idOf;
+    private final int maxChanges;
+    private final AtomicReference<Window<T>> window = new AtomicReference<>(
+            new Window<>(List.of(), List.of(), false, 0, Map.of(), 0));
+
+    public RecentFeed(int size, int slack, Comparator<T> newestFirst, Function<T, Long> idOf) {
+        this.size = size;
+        this.retained = size + slack;
+        // Changes remembered between two seeds; a seed whose read started before the oldest one is stale
+        this.maxChanges = Math.max(64, 4 * retained);
+        this.newestFirst = newestFirst;
+        this.idOf = idOf;
+    }
+
+    /** Immutable newest-first view of at most size items. */
+    public List<T> snapshot() {
+        return window.get().visible;
+    }
+
+    /** False until seed() has run, after a delete left fewer than size items, or after a stale seed. */
+    public boolean isComplete() {
+        return window.get().complete;
+    }
+
+    public boolean contains(Long id) {
+        for (T item : window.get().items) {
+            if (Objects.equals(idOf.apply(item), id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Insert a new item or replace the one with the same id. */
+    public void offer(T item) {
+        Long id = idOf.apply(item);
+        Window<T> current;
+        Window<T> next;
+        do {
+            current = window.get();
+            List<T> items = new ArrayList<>(current.items.size() + 1);
+            for (T existing : current.items) {
+                if (!Objects.equals(idOf.apply(existing), id)) {
+                    items.add(existing);
+                }
+            }
+            items.add(item);
+            next = changed(current, items, current.complete, id);
+        } while (!window.compareAndSet(current, next));
+    }
+
+    /** Drop the item; remembered even when it is not in the window, so a running read cannot bring it back. */
+    public void remove(Long id) {
+        Window<T> current;
+        Window<T> next;
+        do {
+            current = window.get();
+            List<T> items = new ArrayList<>(current.items);
+            boolean removed = items.removeIf(existing -> Objects.equals(idOf.apply(existing), id));
+            // Whatever was just below the retained range is unknown now
+            boolean complete = current.complete && (!removed || items.size() >= size);
+            next = changed(current, items, complete, id);
+        } while (!window.compareAndSet(current, next));
+    }
+
+    /** Version to pass to seed() for a read started now. */
+    public long mark() {
+        return window.get().version;
+    }
+
+    /**
+     * Merge in a read of the newest items started at mark. Per id, whichever is
+     * newer wins: the loaded row, unless the id was offered or removed after
+     * the mark. Items the read did not return and that have not changed since
+     * are dropped: the read saw them deleted or pushed out. A read started
+     * before changes that are no longer remembered, or before a seed already
+     * merged, only leaves the window incomplete so the next reader re-reads.
+     */
+    public void seed(Collection<T> loaded, long mark) {
+        Window<T> current;
+        Window<T> next;
+        do {
+            current = window.get();
+            if (mark < current.horizon) {
+                if (!current.complete) {
+                    return;
+                }
+                next = new Window<>(current.items, current.visible, false, current.version, current.changes,
+                        current.horizon);
+                continue;
+            }
+            List<T> items = new ArrayList<>(loaded.size() + current.items.size());
+            for (T item : loaded) {
+                if (!changedSince(current, idOf.apply(item), mark)) {
+                    items.add(item);
+                }
+            }
+            for (T existing : current.items) {
+                if (changedSince(current, idOf.apply(existing), mark)) {
+                    items.add(existing);
+                }
+            }
+            // Changes the read already saw no longer need remembering
+            Map<Long, Long> changes = new HashMap<>();
+            current.changes.forEach((id, version) -> {
+                if (version > mark) {
+                    changes.put(id, version);
+                }
+            });
+            List<T> sorted = sorted(items);
+            next = new Window<>(sorted, visible(sorted), true, current.version, Collections.unmodifiableMap(changes),
+                    Math.max(current.horizon, mark));
+        } while (!window.compareAndSet(current, next));
+    }
+
+    public int getRetained() {
+        return retained;
+    }
+
+    private Window<T> changed(Window<T> current, List<T> items, boolean complete, Long id) {
+        long version = current.version + 1;
+        Map<Long, Long> changes = new HashMap<>(current.changes);
+        changes.put(id, version);
+        long horizon = current.horizon;
+        if (changes.size() > maxChanges) {
+            // Forget the oldest change; reads started before it can no longer be merged
+            Map.Entry<Long, Long> oldest = changes.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+            changes.remove(oldest.getKey());
+            horizon = Math.max(horizon, oldest.getValue());
+        }
+        List<T> sorted = sorted(items);
+        return new Window<>(sorted, visible(sorted), complete, version, Collections.unmodifiableMap(changes), horizon);
+    }
+
+    private static boolean changedSince(Window<?> window, Long id, long mark) {
+        Long version = window.changes.get(id);
+        return version != null && version > mark;
+    }
+
+    private List<T> sorted(List<T> items) {
+        items.sort(newestFirst);
+        List<T> kept = items.size() > retained ? items.subList(0, retained) : items;
+        return Collections.unmodifiableList(new ArrayList<>(kept));
+    }
+
+    private List<T> visible(List<T> items) {
+        return items.size() > size ? items.subList(0, size) : items;
+    }
+
+    /**
+     * items: the retained newest-first items. changes: version of the last
+     * offer or remove per id since the last seed. horizon: reads marked
+     * before it cannot be merged, a later read was merged or changes they
+     * would lose to were forgotten.
+     */
+    private record Window<T>(List<T> items, List<T> visible, boolean complete, long version,
+                             Map<Long, Long> changes, long horizon) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.rangira.blooddonation.util;
+
+/**
+ * Daily demand of one series (blood type at a hospital) as an exponentially
+ * smoothed level plus an additive day-of-week seasonal term, updated one
+ * closed day at a time (Holt-Winters without trend). Units recorded during the
+ * current day accumulate until a later day is seen; the days in between close
+ * with zero demand. The state is a handful of doubles whatever the history.
+ *
+ * Besides demand the series tracks the units of its requests still open.
+ */
+public class SeasonalDemandSeries {
+
+    // Idle stretches longer than this have smoothed the level to ~zero anyway
+    private static final int MAX_EMPTY_DAYS = 371;
+
+    private final double alpha;
+    private final double gamma;
+
+    private double level;
+    private final double[] season = new double[7];
+    private long observedDays;
+
+    private long day = Long.MIN_VALUE; // epoch day being accumulated
+    private double units; // recorded so far on that day
+
+    private long outstanding;
+
+    public SeasonalDemandSeries(double alpha, double gamma) {
+        if (alpha <= 0 || alpha > 1 || gamma < 0 || gamma > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1] and gamma in [0, 1]");
+        }
+        this.alpha = alpha;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Add demand on a day. Late units for an already closed day count towards
+     * the current one.
+     */
+    public synchronized void record(long epochDay, double amount) {
+        advanceTo(epochDay);
+        units += amount;
+    }
+
+    public synchronized void addOutstanding(long delta) {
+        outstanding = Math.max(0, outstanding + delta);
+    }
+
+    public synchronized void setOutstanding(long value) {
+        outstanding = Math.max(0, value);
+    }
+
+    public synchronized long outstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Expected units over the days from..from+days-1; the first day is the
+     * current one. Before the first day closed, today's units so far are the
+     * only estimate there is.
+     */
+    public synchronized double forecast(long fromEpochDay, int days) {
+        advanceTo(fromEpochDay);
+        if (observedDays == 0) {
+            return units * days;
+        }
+        double total = 0;
+        for (int h = 0; h < days; h++) {
+            total += Math.max(0, level + season[dayOfWeek(fromEpochDay + h)]);
+        }
+        return total;
+    }
+
+    /**
+     * Take over the model of a series rebuilt from history up to (not including)
+     * its current day, keeping the units this one recorded on its own current day.
+     */
+    public synchronized void restoreHistory(SeasonalDemandSeries history) {
+        synchronized (history) {
+            level = history.level;
+            System.arraycopy(history.season, 0, season, 0, season.length);
+            observedDays = history.observedDays;
+            if (day < history.day) {
+                day = history.day;
+                units = history.units;
+            }
+        }
+    }
+
+    public synchronized long observedDays() {
+        return observedDays;
+    }
+
+    private void advanceTo(long epochDay) {
+        if (day == Long.MIN_VALUE) {
+            day = epochDay;
+            return;
+        }
+        if (epochDay <= day) {
+            return;
+        }
+        observe(day, units);
+        long emptyDays = Math.min(epochDay - day - 1, MAX_EMPTY_DAYS);
+        for (long empty = epochDay - emptyDays; empty < epochDay; empty++) {
+            observe(empty, 0);
+        }
+        day = epochDay;
+        units = 0;
+    }
+
+    private void observe(long epochDay, double demand) {
+        int weekday = dayOfWeek(epochDay);
+        if (observedDays == 0) {
+            level = demand;
+        } else {
+            double previousSeason = season[weekday];
+            double newLevel = alpha * (demand - previousSeason) + (1 - alpha) * level;
+            season[weekday] = gamma * (demand - newLevel) + (1 - gamma) * previousSeason;
+            level = newLevel;
+        }
+        observedDays++;
+    }
+
+    // 0 = Monday; epoch day 0 was a Thursday
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+}
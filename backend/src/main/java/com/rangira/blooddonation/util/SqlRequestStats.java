@@ -0,0 +1,70 @@
+package com.rangira.blooddonation.util;
+
+/**
+ * SQL work done on behalf of the current HTTP request. Bound to the request
+ * thread by {@link SqlRequestStatsFilter}; statements run outside a request
+ * (scheduled jobs, the journal writer) are not attributed to anything.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int hibernateStatements;
+    private long totalNanos;
+    private long slowestNanos;
+    private String slowestSql;
+
+    private SqlRequestStats() {
+    }
+
+    static SqlRequestStats begin() {
+        SqlRequestStats stats = new SqlRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void recordExecution(String sql, long nanos) {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return;
+        }
+        stats.statements++;
+        stats.totalNanos += nanos;
+        if (nanos > stats.slowestNanos) {
+            stats.slowestNanos = nanos;
+            stats.slowestSql = sql;
+        }
+    }
+
+    static void recordHibernateStatement() {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.hibernateStatements++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getHibernateStatements() {
+        return hibernateStatements;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getSlowestNanos() {
+        return slowestNanos;
+    }
+
+    public String getSlowestSql() {
+        return slowestSql;
+    }
+}
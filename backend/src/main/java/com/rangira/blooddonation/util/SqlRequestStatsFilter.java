@@ -0,0 +1,70 @@
+package com.rangira.blooddonation.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects statement count and DB time for each HTTP request and warns when a
+ * request crosses the configured thresholds.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlRequestStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlRequestStatsFilter.class);
+
+    private final DistributionSummary statementsPerRequest;
+
+    @Value("${sql.monitor.request-statement-warn:50}")
+    private int statementWarnThreshold;
+
+    @Value("${sql.monitor.request-time-warn-ms:500}")
+    private long timeWarnThresholdMs;
+
+    public SqlRequestStatsFilter(MeterRegistry meterRegistry) {
+        this.statementsPerRequest = DistributionSummary.builder("blooddonation.sql.statements.per.request")
+                .description("JDBC statements executed per HTTP request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlRequestStats.end();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlRequestStats stats) {
+        if (stats.getStatements() == 0) {
+            return;
+        }
+        statementsPerRequest.record(stats.getStatements());
+
+        long dbTimeMs = TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos());
+        if (stats.getStatements() >= statementWarnThreshold || dbTimeMs >= timeWarnThresholdMs) {
+            logger.warn("{} {} ran {} statements ({} from Hibernate) in {} ms; slowest {} ms: {}",
+                    request.getMethod(), request.getRequestURI(),
+                    stats.getStatements(), stats.getHibernateStatements(), dbTimeMs,
+                    TimeUnit.NANOSECONDS.toMillis(stats.getSlowestNanos()), stats.getSlowestSql());
+        }
+    }
+}
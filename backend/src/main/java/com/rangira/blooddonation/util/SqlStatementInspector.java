@@ -0,0 +1,16 @@
+package com.rangira.blooddonation.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the statements Hibernate prepares for the current request so they can
+ * be told apart from plain JDBC work. The SQL is passed through unchanged.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlRequestStats.recordHibernateStatement();
+        return sql;
+    }
+}
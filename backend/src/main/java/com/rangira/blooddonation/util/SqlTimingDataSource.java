@@ -0,0 +1,125 @@
+package com.rangira.blooddonation.util;
+
+import com.rangira.blooddonation.service.SlowQueryLog;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * JDBC proxy that times every execute call. The timing goes to the current
+ * request's {@link SqlRequestStats} and, above the slow threshold, to the
+ * {@link SlowQueryLog}. Everything else is delegated untouched, including
+ * unwrap() so pool metrics still see the underlying Hikari pool.
+ */
+public final class SqlTimingDataSource {
+
+    private SqlTimingDataSource() {
+    }
+
+    public static DataSource wrap(DataSource target, Supplier<SlowQueryLog> slowQueryLog) {
+        return (DataSource) Proxy.newProxyInstance(
+                SqlTimingDataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                new DataSourceHandler(target, slowQueryLog));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class DataSourceHandler implements InvocationHandler {
+
+        private final DataSource target;
+        private final Supplier<SlowQueryLog> slowQueryLog;
+
+        DataSourceHandler(DataSource target, Supplier<SlowQueryLog> slowQueryLog) {
+            this.target = target;
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlTimingDataSource.invoke(target, method, args);
+            if (result instanceof Connection) {
+                return Proxy.newProxyInstance(
+                        SqlTimingDataSource.class.getClassLoader(),
+                        new Class<?>[]{Connection.class},
+                        new ConnectionHandler((Connection) result, slowQueryLog));
+            }
+            return result;
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Supplier<SlowQueryLog> slowQueryLog;
+
+        ConnectionHandler(Connection target, Supplier<SlowQueryLog> slowQueryLog) {
+            this.target = target;
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlTimingDataSource.invoke(target, method, args);
+            if (!(result instanceof Statement)) {
+                return result;
+            }
+            Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                    : result instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            return Proxy.newProxyInstance(
+                    SqlTimingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type},
+                    new StatementHandler((Statement) result, sql, slowQueryLog));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final Supplier<SlowQueryLog> slowQueryLog;
+
+        StatementHandler(Statement target, String preparedSql, Supplier<SlowQueryLog> slowQueryLog) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return SqlTimingDataSource.invoke(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return SqlTimingDataSource.invoke(target, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                String sql = args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : preparedSql;
+                SqlRequestStats.recordExecution(sql, elapsed);
+                SlowQueryLog log = slowQueryLog.get();
+                if (log != null) {
+                    log.record(sql, elapsed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.rangira.blooddonation.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over short text fields. Text is split into
+ * lower-case letter/digit tokens; each term maps to the documents holding it
+ * and a bit per field it occurs in. Terms are kept sorted, so a query token
+ * also matches every term it is a prefix of.
+ *
+ * A query matches documents containing every query token (exactly or as a
+ * prefix). Each token contributes the weight of the best field it matched in,
+ * scaled by how rare the term is and halved for prefix matches. A token expands
+ * to at most maxPrefixTerms terms (its exact term first); tokens that matched
+ * more are reported with the hits, since documents may then be missing.
+ *
+ * Not thread-safe; callers guard it with a read/write lock.
+ */
+public class TextIndex<K> {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Above this many expanded terms, a token is matched against the document's own terms
+    private static final int DIRECT_LOOKUP_TERMS = 8;
+
+    private final double[] fieldWeights;
+    private final int maxPrefixTerms;
+
+    // term -> (document -> field bits)
+    private final NavigableMap<String, Map<K, Integer>> postings = new TreeMap<>();
+    // document -> (term -> field bits), to remove a document's postings
+    private final Map<K, Map<String, Integer>> documents = new HashMap<>();
+
+    public record Hit<K>(K key, double score) {
+    }
+
+    /** Hits best first, and the query tokens whose prefix expansion was cut at maxPrefixTerms */
+    public record Result<K>(List<Hit<K>> hits, List<String> truncatedTokens) {
+    }
+
+    /**
+     * @param fieldWeights   weight per field position (at most 31 fields)
+     * @param maxPrefixTerms terms one query token may expand to by prefix
+     */
+    public TextIndex(double[] fieldWeights, int maxPrefixTerms) {
+        if (fieldWeights.length == 0 || fieldWeights.length > 31) {
+            throw new IllegalArgumentException("Between 1 and 31 fields are supported");
+        }
+        if (maxPrefixTerms < 1) {
+            throw new IllegalArgumentException("maxPrefixTerms must be at least 1");
+        }
+        this.fieldWeights = fieldWeights.clone();
+        this.maxPrefixTerms = maxPrefixTerms;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Index a document, replacing what was indexed under its key before.
+     * fields[i] is weighted by fieldWeights[i]; null fields are skipped.
+     */
+    public void put(K key, String... fields) {
+        remove(key);
+        Map<String, Integer> terms = new HashMap<>();
+        for (int field = 0; field < fields.length && field < fieldWeights.length; field++) {
+            for (String token : tokenize(fields[field])) {
+                terms.merge(token, 1 << field, (a, b) -> a | b);
+            }
+        }
+        if (terms.isEmpty()) {
+            return;
+        }
+        documents.put(key, terms);
+        terms.forEach((term, bits) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(key, bits));
+    }
+
+    public void remove(K key) {
+        Map<String, Integer> terms = documents.remove(key);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<K, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(key);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int terms() {
+        return postings.size();
+    }
+
+    /**
+     * Documents matching every token of the query, best first. Candidates come
+     * from the postings of the rarest token only and the others are checked per
+     * candidate, so a common word next to a rare one costs little.
+     */
+    public Result<K> search(String query, Predicate<K> accept, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+        List<String> truncated = new ArrayList<>();
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Result<>(List.of(), truncated);
+        }
+
+        // Expand every token once; the rarest one supplies the candidates
+        List<Map<String, Map<K, Integer>>> expansions = new ArrayList<>();
+        int rarest = 0;
+        long rarestCount = Long.MAX_VALUE;
+        for (String token : tokens) {
+            Map<String, Map<K, Integer>> terms = expand(token, truncated);
+            long count = 0;
+            for (Map<K, Integer> docs : terms.values()) {
+                count += docs.size();
+            }
+            if (count == 0) {
+                return new Result<>(List.of(), truncated);
+            }
+            if (count < rarestCount) {
+                rarest = expansions.size();
+                rarestCount = count;
+            }
+            expansions.add(terms);
+        }
+
+        Map<K, Double> candidates = new HashMap<>();
+        for (Map.Entry<String, Map<K, Integer>> term : expansions.get(rarest).entrySet()) {
+            double factor = factor(tokens.get(rarest), term.getKey(), term.getValue().size());
+            for (Map.Entry<K, Integer> posting : term.getValue().entrySet()) {
+                if (accept.test(posting.getKey())) {
+                    candidates.merge(posting.getKey(), bestWeight(posting.getValue()) * factor, Math::max);
+                }
+            }
+        }
+
+        // Keep the best `limit` hits in a min-heap instead of sorting every match
+        PriorityQueue<Hit<K>> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (Map.Entry<K, Double> candidate : candidates.entrySet()) {
+            double total = candidate.getValue();
+            for (int i = 0; i < tokens.size() && total >= 0; i++) {
+                if (i != rarest) {
+                    double score = score(candidate.getKey(), tokens.get(i), expansions.get(i));
+                    total = score == 0 ? -1 : total + score;
+                }
+            }
+            if (total < 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Hit<>(candidate.getKey(), total));
+            } else if (total > best.peek().score()) {
+                best.poll();
+                best.add(new Hit<>(candidate.getKey(), total));
+            }
+        }
+        List<Hit<K>> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble((Hit<K> hit) -> hit.score()).reversed());
+        return new Result<>(hits, truncated);
+    }
+
+    /**
+     * What one token adds to a document's score, 0 when the document does not
+     * match it. Looks the document up in the token's few expanded terms, or
+     * scans the document's own terms when the token expands to many.
+     */
+    private double score(K key, String token, Map<String, Map<K, Integer>> terms) {
+        double best = 0;
+        if (terms.size() <= DIRECT_LOOKUP_TERMS) {
+            for (Map.Entry<String, Map<K, Integer>> term : terms.entrySet()) {
+                Integer bits = term.getValue().get(key);
+                if (bits != null) {
+                    best = Math.max(best, bestWeight(bits) * factor(token, term.getKey(), term.getValue().size()));
+                }
+            }
+            return best;
+        }
+        for (Map.Entry<String, Integer> term : documents.get(key).entrySet()) {
+            Map<K, Integer> docs = terms.get(term.getKey());
+            if (docs != null) {
+                best = Math.max(best, bestWeight(term.getValue()) * factor(token, term.getKey(), docs.size()));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Terms the token matches: itself and the terms it is a prefix of, up to
+     * maxPrefixTerms in order. Adds the token to truncated when more matched.
+     */
+    private Map<String, Map<K, Integer>> expand(String token, List<String> truncated) {
+        Map<String, Map<K, Integer>> terms = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<K, Integer>> term : postings.tailMap(token, true).entrySet()) {
+            if (!term.getKey().startsWith(token)) {
+                break;
+            }
+            if (terms.size() >= maxPrefixTerms) {
+                truncated.add(token);
+                break;
+            }
+            terms.put(term.getKey(), term.getValue());
+        }
+        return terms;
+    }
+
+    // Rarer terms count more; a prefix match counts half
+    private double factor(String token, String term, int documentCount) {
+        double rarity = Math.log(1 + (double) documents.size() / documentCount);
+        return term.length() == token.length() ? rarity : rarity / 2;
+    }
+
+    private double bestWeight(int bits) {
+        double best = 0;
+        for (int field = 0; field < fieldWeights.length; field++) {
+            if ((bits & (1 << field)) != 0) {
+                best = Math.max(best, fieldWeights[field]);
+            }
+        }
+        return best;
+    }
+}
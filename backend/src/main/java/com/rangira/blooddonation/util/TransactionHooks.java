@@ -0,0 +1,68 @@
+package com.rangira.blooddonation.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Helpers for work that has to wait for the surrounding transaction, such as
+ * updating an in-memory index only once the rows behind it are committed.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Run the action once the current transaction commits; never if it rolls
+     * back. Outside a transaction it runs right away.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Call back with whether the current transaction committed, once it has
+     * finished either way. Outside a transaction it is called right away with true.
+     */
+    public static void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * The synchronization of this type already registered on the current
+     * transaction, or a new one registered now, so work collected across one
+     * transaction is flushed together. Only call inside a transaction.
+     */
+    public static <T extends TransactionSynchronization> T pending(Class<T> type, Supplier<T> create) {
+        return TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(type::isInstance)
+                .map(type::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    T created = create.get();
+                    TransactionSynchronizationManager.registerSynchronization(created);
+                    return created;
+                });
+    }
+}
@@ -0,0 +1,40 @@
+package com.rangira.blooddonation.validator;
+
+/**
+ * Checks for the fixed value sets used by donations and requests.
+ */
+public final class DomainValidators {
+
+    private static final String[] VALID_BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final String[] VALID_URGENCIES = {"Low", "Medium", "High"};
+    private static final String[] VALID_REQUEST_STATUSES = {"Pending", "Fulfilled", "Cancelled", "Overdue", "Escalated"};
+
+    private DomainValidators() {
+    }
+
+    public static boolean isValidBloodType(String bloodType) {
+        return matchesAny(bloodType, VALID_BLOOD_TYPES);
+    }
+
+    public static boolean isValidUrgency(String urgency) {
+        return matchesAny(urgency, VALID_URGENCIES);
+    }
+
+    public static boolean isValidRequestStatus(String status) {
+        return matchesAny(status, VALID_REQUEST_STATUSES);
+    }
+
+    private static boolean matchesAny(String value, String[] validValues) {
+        if (value == null || value.trim().isEmpty()) {
+            return false;
+        }
+
+        String trimmed = value.trim();
+        for (String validValue : validValues) {
+            if (validValue.equalsIgnoreCase(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+-- Schema as it stood when ddl-auto=update was retired.
+-- Written to be idempotent: on a database that Hibernate already created
+-- (baselined at version 0) it only fills in what is missing.
+
+CREATE TABLE IF NOT EXISTS users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username    VARCHAR(255),
+    password    VARCHAR(255),
+    email       VARCHAR(255),
+    role        VARCHAR(255),
+    blood_type  VARCHAR(255),
+    age         INTEGER,
+    contact     VARCHAR(255),
+    otp         VARCHAR(255),
+    otp_expiry  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS donations (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    blood_type     VARCHAR(255),
+    amount         INTEGER,
+    available      BOOLEAN,
+    donation_date  DATE,
+    location       VARCHAR(255),
+    notes          VARCHAR(255),
+    donor_id       BIGINT REFERENCES users (id)
+);
+ALTER TABLE donations ADD COLUMN IF NOT EXISTS expiry_date DATE;
+
+CREATE TABLE IF NOT EXISTS requests (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    blood_type      VARCHAR(255),
+    amount          INTEGER NOT NULL,
+    urgency         VARCHAR(255),
+    requester_name  VARCHAR(255),
+    hospital_name   VARCHAR(255),
+    reason          VARCHAR(255),
+    needed_by_date  DATE,
+    request_date    DATE,
+    status          VARCHAR(255),
+    user_id         BIGINT REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS appointment_slots (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    location    VARCHAR(255) NOT NULL,
+    slot_date   DATE NOT NULL,
+    start_time  TIME(6) NOT NULL,
+    capacity    INTEGER NOT NULL,
+    booked      INTEGER NOT NULL,
+    CONSTRAINT uk_appointment_slots_location_date_time UNIQUE (location, slot_date, start_time)
+);
+
+CREATE TABLE IF NOT EXISTS appointment (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    blood_type        VARCHAR(255),
+    appointment_date  DATE,
+    location          VARCHAR(255),
+    status            VARCHAR(255),
+    user_id           BIGINT REFERENCES users (id)
+);
+ALTER TABLE appointment ADD COLUMN IF NOT EXISTS appointment_time TIME(6);
+ALTER TABLE appointment ADD COLUMN IF NOT EXISTS slot_id BIGINT REFERENCES appointment_slots (id);
+
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job_name   VARCHAR(255) PRIMARY KEY,
+    watermark  DATE
+);
+
+-- Indexes previously declared on the entities
+CREATE INDEX IF NOT EXISTS idx_appointment_location_date ON appointment (location, appointment_date);
+CREATE INDEX IF NOT EXISTS idx_donation_available_expiry ON donations (available, expiry_date);
+CREATE INDEX IF NOT EXISTS idx_donation_type_available_expiry ON donations (blood_type, available, expiry_date);
+CREATE INDEX IF NOT EXISTS idx_request_status_needed_by ON requests (status, needed_by_date);
@@ -0,0 +1,40 @@
+-- One index per repository access path. Partial indexes cover the small
+-- "still open" subsets (available units, pending requests) that the hot
+-- endpoints read, so they stay small as history grows.
+
+-- BloodRequestRepository
+--   findByStatus, countByStatus, findByStatusInOrderByNeededByDateAsc: idx_request_status_needed_by (V1)
+--   findByUrgency, findByUrgencyAndStatus(In), countByUrgencyAndStatus(In)
+CREATE INDEX IF NOT EXISTS idx_request_urgency_status ON requests (urgency, status);
+--   findByNeededByDateBeforeAndStatus / overdue job on Pending requests
+CREATE INDEX IF NOT EXISTS idx_request_pending_needed_by ON requests (needed_by_date) WHERE status = 'Pending';
+--   findByRequester, findByRequesterAndStatus
+CREATE INDEX IF NOT EXISTS idx_request_user_status ON requests (user_id, status);
+--   findByBloodType
+CREATE INDEX IF NOT EXISTS idx_request_blood_type ON requests (blood_type);
+--   findByHospitalName
+CREATE INDEX IF NOT EXISTS idx_request_hospital ON requests (hospital_name);
+--   findTop10ByOrderByRequestDateDesc
+CREATE INDEX IF NOT EXISTS idx_request_request_date ON requests (request_date DESC);
+
+-- BloodDonationRepository
+--   findByAvailableTrueOrderByExpiryDateAsc, findExpiredAvailable
+CREATE INDEX IF NOT EXISTS idx_donation_open_expiry ON donations (expiry_date) WHERE available;
+--   findByBloodTypeAndAvailableTrueOrderByExpiryDateAsc, countByBloodTypeAndAvailableTrue
+CREATE INDEX IF NOT EXISTS idx_donation_open_type_expiry ON donations (blood_type, expiry_date) WHERE available;
+--   findByDonor, findByDonorAndAvailableTrue
+CREATE INDEX IF NOT EXISTS idx_donation_donor_available ON donations (donor_id, available);
+--   findTop10ByOrderByDonationDateDesc
+CREATE INDEX IF NOT EXISTS idx_donation_date ON donations (donation_date DESC);
+
+-- AppointmentRepository
+--   findByUserId (plain and paged)
+CREATE INDEX IF NOT EXISTS idx_appointment_user ON appointment (user_id);
+--   countByStatus
+CREATE INDEX IF NOT EXISTS idx_appointment_status ON appointment (status);
+--   findByLocationAndAppointmentDateBetween...: idx_appointment_location_date (V1)
+
+-- AppointmentSlotRepository: the (location, slot_date, start_time) unique constraint serves every lookup
+
+-- DonorRepository.findByRole
+CREATE INDEX IF NOT EXISTS idx_users_role ON users (role);
@@ -0,0 +1,5 @@
+-- UserRepository.findByUsername / findByEmail, and the uniqueness the
+-- registration endpoints already check for. Fails if duplicates exist;
+-- resolve those by hand before deploying.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_username ON users (username);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email ON users (email);
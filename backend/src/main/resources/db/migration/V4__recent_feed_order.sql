@@ -0,0 +1,6 @@
+-- The recent feeds now order by date and then id, so ties within a day are stable
+DROP INDEX IF EXISTS idx_request_request_date;
+CREATE INDEX IF NOT EXISTS idx_request_recent ON requests (request_date DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_donation_date;
+CREATE INDEX IF NOT EXISTS idx_donation_recent ON donations (donation_date DESC, id DESC);
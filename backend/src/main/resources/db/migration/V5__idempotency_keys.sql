@@ -0,0 +1,14 @@
+-- Responses remembered per Idempotency-Key so client retries replay instead of inserting again
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id                     VARCHAR(255) PRIMARY KEY,
+    fingerprint            VARCHAR(255),
+    status                 VARCHAR(255),
+    owner                  VARCHAR(255),
+    claimed_at             TIMESTAMP(6),
+    expires_at             TIMESTAMP(6),
+    response_status        INTEGER,
+    response_content_type  VARCHAR(255),
+    response_body          BYTEA
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,46 @@
+-- Named places with coordinates; donations, appointments and requests keep their
+-- free-text location and additionally point at the site it resolved to.
+-- A site is found by its normalized name: trimmed, single spaces, lower case.
+CREATE TABLE IF NOT EXISTS sites (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name             VARCHAR(255),
+    normalized_name  VARCHAR(255) NOT NULL,
+    kind             VARCHAR(255),
+    latitude         DOUBLE PRECISION,
+    longitude        DOUBLE PRECISION,
+    CONSTRAINT uk_sites_normalized_name UNIQUE (normalized_name)
+);
+
+-- Hospitals first so a name used by both requests and donations is recorded as a hospital
+INSERT INTO sites (name, normalized_name, kind)
+SELECT DISTINCT ON (normalized_name) name, normalized_name, kind
+FROM (
+    SELECT trim(hospital_name) AS name, lower(regexp_replace(trim(hospital_name), '\s+', ' ', 'g')) AS normalized_name,
+           'HOSPITAL' AS kind, 0 AS preference
+    FROM requests WHERE trim(hospital_name) <> ''
+    UNION ALL
+    SELECT trim(location), lower(regexp_replace(trim(location), '\s+', ' ', 'g')), 'DONATION_SITE', 1
+    FROM donations WHERE trim(location) <> ''
+    UNION ALL
+    SELECT trim(location), lower(regexp_replace(trim(location), '\s+', ' ', 'g')), 'DONATION_SITE', 1
+    FROM appointment WHERE trim(location) <> ''
+    UNION ALL
+    SELECT trim(location), lower(regexp_replace(trim(location), '\s+', ' ', 'g')), 'DONATION_SITE', 1
+    FROM appointment_slots WHERE trim(location) <> ''
+) names
+ORDER BY normalized_name, preference, name
+ON CONFLICT (normalized_name) DO NOTHING;
+
+ALTER TABLE donations ADD COLUMN IF NOT EXISTS site_id BIGINT REFERENCES sites (id);
+ALTER TABLE appointment ADD COLUMN IF NOT EXISTS site_id BIGINT REFERENCES sites (id);
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS hospital_site_id BIGINT REFERENCES sites (id);
+
+UPDATE donations d SET site_id = s.id FROM sites s
+WHERE d.site_id IS NULL AND s.normalized_name = lower(regexp_replace(trim(d.location), '\s+', ' ', 'g'));
+UPDATE appointment a SET site_id = s.id FROM sites s
+WHERE a.site_id IS NULL AND s.normalized_name = lower(regexp_replace(trim(a.location), '\s+', ' ', 'g'));
+UPDATE requests r SET hospital_site_id = s.id FROM sites s
+WHERE r.hospital_site_id IS NULL AND s.normalized_name = lower(regexp_replace(trim(r.hospital_name), '\s+', ' ', 'g'));
+
+-- Per-site stock of available units, aggregated by SiteRegistry
+CREATE INDEX IF NOT EXISTS idx_donation_site_stock ON donations (site_id, blood_type) WHERE available;
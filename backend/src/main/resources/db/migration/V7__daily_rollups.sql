@@ -0,0 +1,38 @@
+-- Per-day totals kept up to date by the service write paths, so reports over
+-- long ranges read a few hundred rows instead of scanning donations/requests.
+-- location and hospital hold the normalized name (single spaces, lower case).
+CREATE TABLE IF NOT EXISTS donation_daily_rollup (
+    day         DATE NOT NULL,
+    blood_type  VARCHAR(255) NOT NULL,
+    location    VARCHAR(255) NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    records     BIGINT NOT NULL,
+    units       BIGINT NOT NULL,
+    CONSTRAINT pk_donation_daily_rollup PRIMARY KEY (day, blood_type, location, status)
+);
+
+CREATE TABLE IF NOT EXISTS request_daily_rollup (
+    day         DATE NOT NULL,
+    blood_type  VARCHAR(255) NOT NULL,
+    hospital    VARCHAR(255) NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    records     BIGINT NOT NULL,
+    units       BIGINT NOT NULL,
+    CONSTRAINT pk_request_daily_rollup PRIMARY KEY (day, blood_type, hospital, status)
+);
+
+INSERT INTO donation_daily_rollup (day, blood_type, location, status, records, units)
+SELECT donation_date, coalesce(blood_type, ''), lower(trim(regexp_replace(coalesce(location, ''), '\s+', ' ', 'g'))),
+       CASE WHEN available THEN 'Available' ELSE 'Unavailable' END, count(*), coalesce(sum(amount), 0)
+FROM donations
+WHERE donation_date IS NOT NULL
+GROUP BY 1, 2, 3, 4
+ON CONFLICT DO NOTHING;
+
+INSERT INTO request_daily_rollup (day, blood_type, hospital, status, records, units)
+SELECT request_date, coalesce(blood_type, ''), lower(trim(regexp_replace(coalesce(hospital_name, ''), '\s+', ' ', 'g'))),
+       coalesce(status, ''), count(*), coalesce(sum(amount), 0)
+FROM requests
+WHERE request_date IS NOT NULL
+GROUP BY 1, 2, 3, 4
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,7 @@
+-- Precise lifecycle times of requests; rows from before this migration only have their dates
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS fulfilled_at TIMESTAMP(6);
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS cancelled_at TIMESTAMP(6);
+
+-- Lead times are rebuilt from fulfilled requests at startup
+CREATE INDEX IF NOT EXISTS idx_request_fulfilled_at ON requests (fulfilled_at) WHERE fulfilled_at IS NOT NULL;
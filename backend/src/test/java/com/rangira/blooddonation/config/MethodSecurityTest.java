@@ -0,0 +1,175 @@
+package com.rangira.blooddonation.config;
+
+import com.rangira.blooddonation.controller.AppointmentController;
+import com.rangira.blooddonation.controller.BloodDonationController;
+import com.rangira.blooddonation.controller.BloodRequestController;
+import com.rangira.blooddonation.controller.ReportController;
+import com.rangira.blooddonation.controller.SiteController;
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.service.AppointmentService;
+import com.rangira.blooddonation.service.BloodDonationService;
+import com.rangira.blooddonation.service.BloodRequestService;
+import com.rangira.blooddonation.service.DailyRollups;
+import com.rangira.blooddonation.service.DonationWriteBehind;
+import com.rangira.blooddonation.service.IdempotencyService;
+import com.rangira.blooddonation.service.ReportJobService;
+import com.rangira.blooddonation.service.SiteService;
+import com.rangira.blooddonation.service.UserService;
+import com.rangira.blooddonation.util.JwtRequestFilter;
+import com.rangira.blooddonation.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+/**
+ * Which roles get through the @PreAuthorize check of every guarded endpoint.
+ * A denied role must get 403; an allowed one anything but 403 (the services
+ * are mocks, so the call itself may still fail).
+ */
+@WebMvcTest({BloodRequestController.class, BloodDonationController.class, AppointmentController.class,
+		SiteController.class, ReportController.class})
+@Import({SecurityConfig.class, JwtRequestFilter.class, JwtUtil.class, MethodSecurityTest.Metrics.class})
+class MethodSecurityTest {
+
+	private static final List<String> ROLES = List.of("ADMIN", "USER", "DONOR");
+	private static final Set<String> ADMIN = Set.of("ADMIN");
+	private static final Set<String> USER_OR_ADMIN = Set.of("USER", "ADMIN");
+	private static final Set<String> DONOR_OR_ADMIN = Set.of("DONOR", "ADMIN");
+	private static final Set<String> ANY_ROLE = Set.of("USER", "DONOR", "ADMIN");
+
+	private static final String REQUEST = "{\"bloodType\":\"O+\",\"amount\":1,\"urgency\":\"High\",\"hospitalName\":\"CHUK\"}";
+	private static final String DONATION = "{\"bloodType\":\"O+\",\"amount\":1,\"location\":\"Kigali\"}";
+	private static final String SELECTION = "{\"ids\":[1]}";
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@MockBean
+	private BloodRequestService bloodRequestService;
+
+	@MockBean
+	private BloodDonationService bloodDonationService;
+
+	@MockBean
+	private DonationWriteBehind donationWriteBehind;
+
+	@MockBean
+	private AppointmentService appointmentService;
+
+	@MockBean
+	private UserService userService;
+
+	@MockBean
+	private SiteService siteService;
+
+	@MockBean
+	private DailyRollups dailyRollups;
+
+	@MockBean
+	private ReportJobService reportJobService;
+
+	@MockBean
+	private IdempotencyService idempotencyService;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void bloodRequestEndpoints() throws Exception {
+		assertRoles(HttpMethod.GET, "/api/requests", null, ADMIN);
+		assertRoles(HttpMethod.POST, "/api/requests/request", REQUEST, USER_OR_ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/requests/1", REQUEST, ADMIN);
+		assertRoles(HttpMethod.DELETE, "/api/requests/1", null, ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/requests/1/fulfill", null, ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/requests/1/cancel", null, USER_OR_ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/requests/bulk/fulfill", SELECTION, ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/requests/bulk/cancel", SELECTION, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/blood-type/AB-", null, USER_OR_ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/pending", null, USER_OR_ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/urgent", null, USER_OR_ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/my-requests", null, USER_OR_ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/recent", null, USER_OR_ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/overdue", null, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/requests/statistics", null, ADMIN);
+	}
+
+	@Test
+	void bloodDonationEndpoints() throws Exception {
+		assertRoles(HttpMethod.GET, "/api/donations", null, ADMIN);
+		assertRoles(HttpMethod.POST, "/api/donations/donate", DONATION, ANY_ROLE);
+		assertRoles(HttpMethod.PUT, "/api/donations/1", DONATION, ADMIN);
+		assertRoles(HttpMethod.DELETE, "/api/donations/1", null, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/donations/available", null, ANY_ROLE);
+		assertRoles(HttpMethod.GET, "/api/donations/blood-type/O-", null, ANY_ROLE);
+		assertRoles(HttpMethod.GET, "/api/donations/my-donations", null, DONOR_OR_ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/donations/1/mark-used", null, ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/donations/bulk/mark-used", SELECTION, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/donations/recent", null, ANY_ROLE);
+		assertRoles(HttpMethod.GET, "/api/donations/can-donate", null, ANY_ROLE);
+	}
+
+	@Test
+	void appointmentSiteAndReportJobEndpoints() throws Exception {
+		assertRoles(HttpMethod.POST, "/api/appointments/slots",
+				"{\"location\":\"Kigali\",\"slotDate\":\"2026-11-02\",\"startTime\":\"09:00\",\"capacity\":4}", ADMIN);
+		assertRoles(HttpMethod.GET, "/api/appointments/range?location=Kigali&from=2026-11-02&to=2026-11-03", null, ADMIN);
+		assertRoles(HttpMethod.POST, "/api/sites", "{\"name\":\"Kigali\"}", ADMIN);
+		assertRoles(HttpMethod.PUT, "/api/sites/1", "{\"name\":\"Kigali\"}", ADMIN);
+		assertRoles(HttpMethod.POST, "/api/reports/jobs?type=hospital-fulfillment&from=2026-01-01&to=2026-01-31", null, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/reports/jobs", null, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/reports/jobs/job-1", null, ADMIN);
+		assertRoles(HttpMethod.DELETE, "/api/reports/jobs/job-1", null, ADMIN);
+		assertRoles(HttpMethod.GET, "/api/reports/jobs/job-1/download", null, ADMIN);
+	}
+
+	private void assertRoles(HttpMethod method, String path, String body, Set<String> allowed) throws Exception {
+		List<String> wrong = new ArrayList<>();
+		for (String role : ROLES) {
+			MockHttpServletRequestBuilder call = request(method, path).header("Authorization", "Bearer " + token(role));
+			if (body != null) {
+				call.contentType(MediaType.APPLICATION_JSON).content(body);
+			}
+			int status = mockMvc.perform(call).andReturn().getResponse().getStatus();
+			if ((status == 403) == allowed.contains(role)) {
+				wrong.add(role + " got " + status);
+			}
+		}
+		assertEquals(List.of(), wrong, method + " " + path + " allows " + allowed);
+	}
+
+	private String token(String role) {
+		User user = new User();
+		user.setUsername(role.toLowerCase() + "-user");
+		user.setRole(role);
+		return jwtUtil.generateToken(user);
+	}
+}
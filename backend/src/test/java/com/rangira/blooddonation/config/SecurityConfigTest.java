@@ -0,0 +1,89 @@
+package com.rangira.blooddonation.config;
+
+import com.rangira.blooddonation.controller.SiteController;
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.service.IdempotencyService;
+import com.rangira.blooddonation.service.SiteService;
+import com.rangira.blooddonation.util.JwtRequestFilter;
+import com.rangira.blooddonation.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(SiteController.class)
+@Import({SecurityConfig.class, JwtRequestFilter.class, JwtUtil.class, SecurityConfigTest.Metrics.class})
+class SecurityConfigTest {
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@MockBean
+	private SiteService siteService;
+
+	@MockBean
+	private IdempotencyService idempotencyService;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void adminPathsNeedTheAdminRole() throws Exception {
+		mockMvc.perform(get("/api/admin/journal").header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(delete("/api/admin/slow-queries").header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/admin/journal").header("Authorization", "Bearer " + token("ADMIN")))
+				.andExpect(result -> assertNotEquals(403, result.getResponse().getStatus()));
+	}
+
+	@Test
+	void prometheusIsOnlyOpenToTheScrapeNetwork() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus").with(request -> {
+					request.setRemoteAddr("10.20.30.40");
+					return request;
+				}))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/actuator/prometheus").with(request -> {
+					request.setRemoteAddr("10.20.30.40");
+					return request;
+				}).header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isForbidden());
+		// Allowed through security; the endpoint itself is not part of this slice
+		mockMvc.perform(get("/actuator/prometheus").with(request -> {
+					request.setRemoteAddr("127.0.0.1");
+					return request;
+				}))
+				.andExpect(result -> assertNotEquals(403, result.getResponse().getStatus()));
+	}
+
+	private String token(String role) {
+		User user = new User();
+		user.setUsername(role.toLowerCase() + "-user");
+		user.setRole(role);
+		return jwtUtil.generateToken(user);
+	}
+}
@@ -0,0 +1,127 @@
+package com.rangira.blooddonation.controller;
+
+import com.rangira.blooddonation.config.SecurityConfig;
+import com.rangira.blooddonation.dto.DayAvailability;
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.service.AppointmentService;
+import com.rangira.blooddonation.service.IdempotencyService;
+import com.rangira.blooddonation.service.UserService;
+import com.rangira.blooddonation.util.JwtRequestFilter;
+import com.rangira.blooddonation.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Date-range handling of the calendar and range endpoints.
+ */
+@WebMvcTest(AppointmentController.class)
+@Import({SecurityConfig.class, JwtRequestFilter.class, JwtUtil.class, AppointmentControllerTest.Metrics.class})
+class AppointmentControllerTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 11, 2);
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@MockBean
+	private AppointmentService appointmentService;
+
+	@MockBean
+	private UserService userService;
+
+	@MockBean
+	private IdempotencyService idempotencyService;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void calendarCoversTheRequestedNumberOfDaysFromTheStart() throws Exception {
+		when(appointmentService.getAvailability("Kigali", DAY, DAY.plusDays(6)))
+				.thenReturn(List.of(new DayAvailability(DAY, 5, 2, 3, List.of())));
+
+		mockMvc.perform(get("/api/appointments/calendar?location=Kigali&from=" + DAY + "&days=7")
+						.header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].date").value(DAY.toString()))
+				.andExpect(jsonPath("$[0].free").value(3));
+
+		mockMvc.perform(get("/api/appointments/calendar?location=Kigali&from=" + DAY + "&days=1")
+						.header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isOk());
+		verify(appointmentService).getAvailability("Kigali", DAY, DAY);
+	}
+
+	@Test
+	void calendarDefaultsToTwoWeeksFromToday() throws Exception {
+		mockMvc.perform(get("/api/appointments/calendar?location=Huye").header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isOk());
+		LocalDate today = LocalDate.now();
+		verify(appointmentService).getAvailability("Huye", today, today.plusDays(13));
+	}
+
+	@Test
+	void calendarRejectsDayCountsOutOfRange() throws Exception {
+		for (String days : List.of("0", "-1", "367")) {
+			mockMvc.perform(get("/api/appointments/calendar?location=Kigali&days=" + days)
+							.header("Authorization", "Bearer " + token("DONOR")))
+					.andExpect(status().isBadRequest());
+		}
+		mockMvc.perform(get("/api/appointments/calendar?location=Kigali&from=" + DAY + "&days=366")
+						.header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isOk());
+		verify(appointmentService).getAvailability("Kigali", DAY, DAY.plusDays(365));
+	}
+
+	@Test
+	void rangeIncludesBothEndsAndRejectsAReversedRange() throws Exception {
+		mockMvc.perform(get("/api/appointments/range?location=Kigali&from=" + DAY + "&to=" + DAY)
+						.header("Authorization", "Bearer " + token("ADMIN")))
+				.andExpect(status().isOk());
+		verify(appointmentService).getAppointmentsByLocation("Kigali", DAY, DAY);
+
+		mockMvc.perform(get("/api/appointments/range?location=Kigali&from=" + DAY + "&to=" + DAY.minusDays(1))
+						.header("Authorization", "Bearer " + token("ADMIN")))
+				.andExpect(status().isBadRequest());
+		verify(appointmentService, never()).getAppointmentsByLocation(anyString(), eq(DAY), eq(DAY.minusDays(1)));
+	}
+
+	private String token(String role) {
+		User user = new User();
+		user.setUsername(role.toLowerCase() + "-user");
+		user.setRole(role);
+		return jwtUtil.generateToken(user);
+	}
+}
@@ -0,0 +1,121 @@
+package com.rangira.blooddonation.controller;
+
+import com.rangira.blooddonation.config.SecurityConfig;
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.service.IdempotencyService;
+import com.rangira.blooddonation.service.SearchIndex;
+import com.rangira.blooddonation.service.UserService;
+import com.rangira.blooddonation.util.JwtRequestFilter;
+import com.rangira.blooddonation.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Who sees which hits: admins everything, anyone else only their own requests
+ * and donations.
+ */
+@WebMvcTest(SearchController.class)
+@Import({SecurityConfig.class, JwtRequestFilter.class, JwtUtil.class, SearchControllerTest.Metrics.class})
+class SearchControllerTest {
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@MockBean
+	private SearchIndex searchIndex;
+
+	@MockBean
+	private UserService userService;
+
+	@MockBean
+	private IdempotencyService idempotencyService;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		when(searchIndex.search(anyString(), any(), anyInt(), any()))
+				.thenReturn(new SearchIndex.Results(List.of(), List.of()));
+	}
+
+	@Test
+	void adminSearchesEverything() throws Exception {
+		mockMvc.perform(get("/api/search?q=kigali").header("Authorization", "Bearer " + token("ADMIN")))
+				.andExpect(status().isOk());
+
+		verify(searchIndex).search(eq("kigali"), eq(EnumSet.allOf(SearchIndex.Type.class)), eq(20), isNull());
+	}
+
+	@Test
+	void othersSearchOnlyTheirOwnRequestsAndDonations() throws Exception {
+		User donor = user("DONOR");
+		donor.setId(7L);
+		when(userService.findByUsername("donor-user")).thenReturn(Optional.of(donor));
+
+		mockMvc.perform(get("/api/search?q=kigali&types=user,request").header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isOk());
+		verify(searchIndex).search(eq("kigali"), eq(EnumSet.of(SearchIndex.Type.REQUEST)), eq(20), eq(7L));
+
+		mockMvc.perform(get("/api/search?q=chuk").header("Authorization", "Bearer " + token("DONOR")))
+				.andExpect(status().isOk());
+		verify(searchIndex).search(eq("chuk"), eq(EnumSet.of(SearchIndex.Type.REQUEST, SearchIndex.Type.DONATION)),
+				eq(20), eq(7L));
+	}
+
+	@Test
+	void unknownCallerSearchesNothing() throws Exception {
+		when(userService.findByUsername("user-user")).thenReturn(Optional.empty());
+
+		mockMvc.perform(get("/api/search?q=kigali").header("Authorization", "Bearer " + token("USER")))
+				.andExpect(status().isOk());
+
+		verify(searchIndex).search(eq("kigali"), eq(EnumSet.noneOf(SearchIndex.Type.class)), eq(20), isNull());
+	}
+
+	private String token(String role) {
+		return jwtUtil.generateToken(user(role));
+	}
+
+	private static User user(String role) {
+		User user = new User();
+		user.setUsername(role.toLowerCase() + "-user");
+		user.setRole(role);
+		return user;
+	}
+}
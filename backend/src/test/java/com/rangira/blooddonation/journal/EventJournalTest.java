@@ -0,0 +1,220 @@
+package com.rangira.blooddonation.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventJournalTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void codecRoundTrips() {
+		DomainEvent event = new DomainEvent(-1, 1234L, DomainEvent.DONATION_CREATED, 42L, "alice",
+				Map.of("bloodType", "O-", "note", "ünïcode"));
+		DomainEvent decoded = DomainEventCodec.decode(ByteBuffer.wrap(DomainEventCodec.encode(7, event)));
+		assertEquals(7, decoded.getSequence());
+		assertEquals(1234L, decoded.getTimestamp());
+		assertEquals(DomainEvent.DONATION_CREATED, decoded.getType());
+		assertEquals(42L, decoded.getEntityId());
+		assertEquals("alice", decoded.getActor());
+		assertEquals(event.getData(), decoded.getData());
+	}
+
+	@Test
+	void segmentReplaysWhatWasAppended() throws Exception {
+		try (JournalSegment segment = JournalSegment.create(dir, 0, 4096)) {
+			assertTrue(segment.append(body(0)));
+			assertTrue(segment.append(body(1)));
+		}
+		List<Long> sequences = new ArrayList<>();
+		try (JournalSegment segment = JournalSegment.open(dir.resolve(JournalSegment.fileName(0)))) {
+			assertEquals(2, segment.replay(body -> sequences.add(DomainEventCodec.decode(body).getSequence())));
+		}
+		assertEquals(List.of(0L, 1L), sequences);
+	}
+
+	@Test
+	void corruptRecordEndsReplayAndIsOverwritten() throws Exception {
+		Path path = dir.resolve(JournalSegment.fileName(0));
+		int secondRecord;
+		try (JournalSegment segment = JournalSegment.create(dir, 0, 4096)) {
+			segment.append(body(0));
+			secondRecord = segment.getUsedBytes();
+			segment.append(body(1));
+			segment.append(body(2));
+		}
+		// Flip one byte of the second body: its CRC no longer matches
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer one = ByteBuffer.allocate(1);
+			long offset = secondRecord + JournalSegment.RECORD_HEADER_SIZE + 3;
+			channel.read(one, offset);
+			one.put(0, (byte) (one.get(0) ^ 0xFF)).rewind();
+			channel.write(one, offset);
+		}
+
+		try (JournalSegment segment = JournalSegment.open(path)) {
+			assertEquals(1, segment.replay(body -> { }));
+			assertEquals(secondRecord, segment.getUsedBytes());
+			segment.append(body(9));
+		}
+		List<Long> sequences = new ArrayList<>();
+		try (JournalSegment segment = JournalSegment.open(path)) {
+			segment.replay(body -> sequences.add(DomainEventCodec.decode(body).getSequence()));
+		}
+		assertEquals(List.of(0L, 9L), sequences);
+	}
+
+	@Test
+	void tornTailIsIgnored() throws Exception {
+		Path path = dir.resolve(JournalSegment.fileName(0));
+		int tail;
+		try (JournalSegment segment = JournalSegment.create(dir, 0, 4096)) {
+			segment.append(body(0));
+			tail = segment.getUsedBytes();
+		}
+		// A length written without its CRC and body, as a crash mid-append could leave it
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4).putInt(0, 100), tail);
+		}
+		try (JournalSegment segment = JournalSegment.open(path)) {
+			assertEquals(1, segment.replay(body -> { }));
+			assertEquals(tail, segment.getUsedBytes());
+		}
+	}
+
+	@Test
+	void appendRefusesWhatDoesNotFit() throws Exception {
+		try (JournalSegment segment = JournalSegment.create(dir, 0, 64)) {
+			assertTrue(!segment.append(new byte[64]));
+			assertTrue(segment.append(new byte[64 - JournalSegment.HEADER_SIZE - JournalSegment.RECORD_HEADER_SIZE]));
+			assertTrue(!segment.append(new byte[1]));
+		}
+	}
+
+	@Test
+	void journalRollsOverSegmentsAndReplaysThemInOrder() throws Exception {
+		EventJournal journal = journal(mockProjections());
+		journal.start();
+		// Well over 1 MB of records, so at least one rollover
+		int events = 25_000;
+		for (int i = 0; i < events; i++) {
+			journal.record(DomainEvent.DONATION_USED, (long) i, "bloodType", "A+");
+		}
+		journal.stop();
+
+		List<Path> segments;
+		try (Stream<Path> files = Files.list(dir)) {
+			segments = files.filter(path -> path.toString().endsWith(".seg")).sorted().toList();
+		}
+		assertTrue(segments.size() >= 2, "expected a rollover, got " + segments.size() + " segments");
+		assertEquals(segments.size(), journal.getStatus().get("segments"));
+
+		JournalProjections projections = mockProjections();
+		EventJournal reopened = journal(projections);
+		reopened.start();
+		ArgumentCaptor<DomainEvent> replayed = ArgumentCaptor.forClass(DomainEvent.class);
+		verify(projections, atLeastOnce()).apply(replayed.capture());
+		List<DomainEvent> all = replayed.getAllValues();
+		assertEquals(events + 1, all.size()); // plus the opening snapshot
+		assertEquals(DomainEvent.SNAPSHOT, all.get(0).getType());
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(i, all.get(i).getSequence());
+		}
+		assertEquals((long) events + 1, reopened.getStatus().get("nextSequence"));
+		reopened.stop();
+	}
+
+	@Test
+	void fullQueueWaitsForTheWriterInsteadOfDropping() throws Exception {
+		EventJournal journal = journal(mockProjections());
+		ReflectionTestUtils.setField(journal, "queueCapacity", 4);
+		journal.start();
+		int events = 5_000;
+		for (int i = 0; i < events; i++) {
+			journal.record(DomainEvent.DONATION_USED, (long) i, "bloodType", "O+");
+		}
+		journal.stop();
+		assertEquals(0L, journal.getStatus().get("lost"));
+		assertEquals((long) events + 1, journal.getStatus().get("nextSequence"));
+
+		// Recorded after shutdown: cannot be written, counted instead of vanishing
+		journal.record(DomainEvent.DONATION_USED, 1L, "bloodType", "O+");
+		assertEquals(1L, journal.getStatus().get("lost"));
+
+		JournalProjections projections = mockProjections();
+		EventJournal reopened = journal(projections);
+		reopened.start();
+		verify(projections, times(events + 1)).apply(any(DomainEvent.class));
+		reopened.stop();
+	}
+
+	@Test
+	void disabledJournalStillPublishesEveryEvent() throws Exception {
+		JournalProjections projections = mockProjections();
+		ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+		EventJournal journal = journal(projections);
+		ReflectionTestUtils.setField(journal, "enabled", false);
+		ReflectionTestUtils.setField(journal, "eventPublisher", publisher);
+		journal.start();
+
+		journal.record(DomainEvent.REQUEST_CREATED, 7L, "bloodType", "O-", "amount", "2");
+
+		ArgumentCaptor<DomainEvent> published = ArgumentCaptor.forClass(DomainEvent.class);
+		verify(publisher).publishEvent(published.capture());
+		assertEquals(DomainEvent.REQUEST_CREATED, published.getValue().getType());
+		assertEquals("2", published.getValue().get("amount"));
+		verify(projections, times(0)).apply(any(DomainEvent.class));
+		journal.stop();
+		try (Stream<Path> files = Files.list(dir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	private EventJournal journal(JournalProjections projections) {
+		EventJournal journal = new EventJournal();
+		ReflectionTestUtils.setField(journal, "projections", projections);
+		ReflectionTestUtils.setField(journal, "eventPublisher", mock(ApplicationEventPublisher.class));
+		ReflectionTestUtils.setField(journal, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(journal, "enabled", true);
+		ReflectionTestUtils.setField(journal, "directory", dir.toString());
+		ReflectionTestUtils.setField(journal, "segmentSizeMb", 1);
+		ReflectionTestUtils.setField(journal, "queueCapacity", 100_000);
+		ReflectionTestUtils.setField(journal, "batchSize", 256);
+		return journal;
+	}
+
+	private static JournalProjections mockProjections() {
+		JournalProjections projections = mock(JournalProjections.class);
+		when(projections.snapshotFromDatabase()).thenReturn(Map.of("inventory.A+", "3"));
+		return projections;
+	}
+
+	private static byte[] body(long sequence) {
+		return DomainEventCodec.encode(sequence, new DomainEvent(-1, 0, DomainEvent.DONATION_USED, sequence, "system",
+				Map.of("bloodType", "B+")));
+	}
+}
@@ -0,0 +1,231 @@
+package com.rangira.blooddonation.perf;
+
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Login peak load test. Measures a cheap authenticated read with and without a
+ * storm of concurrent /auth/login calls (BCrypt plus a mocked SMTP server with
+ * a fixed delay). Tomcat runs with a small thread pool so a blocking login
+ * path would show up directly as queueing on the read.
+ *
+ * Run with: mvn -Pperf verify -Dit.test=AuthLoadPerfIT [-Dperf.auth.logins=64 ...]
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.threads.max=16")
+@ActiveProfiles("perf")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AuthLoadPerfIT {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthLoadPerfIT.class);
+
+    private static final String PASSWORD = "perf-password";
+
+    private final int loginUsers = Integer.getInteger("perf.auth.users", 500);
+    private final int loginClients = Integer.getInteger("perf.auth.logins", 64);
+    private final int readClients = Integer.getInteger("perf.auth.readers", 4);
+    private final int reads = Integer.getInteger("perf.auth.reads", 2_000);
+    private final int smtpMillis = Integer.getInteger("perf.auth.smtp-ms", 200);
+    private final double readP99BudgetMs = Double.parseDouble(System.getProperty("perf.auth.read-p99-ms", "250"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private JavaMailSender mailSender;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String readerToken;
+
+    @BeforeAll
+    void seed() {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        doAnswer(invocation -> {
+            Thread.sleep(smtpMillis);
+            return null;
+        }).when(mailSender).send(any(MimeMessage.class));
+
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < loginUsers; i++) {
+            rows.add(new Object[]{"login" + i, hash, "login" + i + "@example.com", "USER"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, email, role) VALUES (?, ?, ?, ?)", rows);
+
+        User reader = new User();
+        reader.setUsername("login0");
+        reader.setRole("USER");
+        readerToken = jwtUtil.generateToken(reader);
+    }
+
+    @Test
+    void loginPeakDoesNotStallUnrelatedReads() throws Exception {
+        long[] baseline = measureReads();
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger loginsShed = new AtomicInteger();
+        AtomicInteger loginErrors = new AtomicInteger();
+        ExecutorService storm = Executors.newFixedThreadPool(loginClients);
+        for (int c = 0; c < loginClients; c++) {
+            storm.submit(() -> {
+                while (storming.get()) {
+                    int n = logins.getAndIncrement();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request("/auth/login", null,
+                                "{\"username\":\"login" + (n % loginUsers) + "\",\"password\":\"" + PASSWORD + "\"}"),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 503) {
+                            loginsShed.incrementAndGet(); // BCrypt queue full or timed out: expected past capacity
+                        } else if (response.statusCode() >= 400) {
+                            loginErrors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        loginErrors.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long[] underLoad;
+        try {
+            // Let the login storm saturate the executors before measuring
+            Thread.sleep(2_000);
+            underLoad = measureReads();
+        } finally {
+            storming.set(false);
+            storm.shutdown();
+            storm.awaitTermination(60, TimeUnit.SECONDS);
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add("phase,reads,p50_ms,p99_ms,p999_ms");
+        report.add(row("baseline", baseline));
+        report.add(row("login-peak", underLoad));
+        Path reportFile = Paths.get("target", "auth-load-report.csv");
+        Files.createDirectories(reportFile.getParent());
+        Files.write(reportFile, report);
+
+        int served = logins.get() - loginsShed.get() - loginErrors.get();
+        logger.warn("Reads baseline p99={} ms, during {} logins ({} served, {} shed, {} errors) p99={} ms",
+                fmt(percentile(baseline, 0.99)), logins.get(), served, loginsShed.get(), loginErrors.get(),
+                fmt(percentile(underLoad, 0.99)));
+
+        // Fast reads only count if the storm really exercised the login path: logins were served,
+        // and the only failures are 503s from shedding load past the BCrypt executor's capacity
+        assertEquals(0, loginErrors.get(), "logins failed with something other than 503");
+        assertTrue(served > 0, "no login was served during the storm (" + loginsShed.get() + " shed)");
+
+        double p99 = percentile(underLoad, 0.99);
+        assertTrue(p99 <= readP99BudgetMs,
+                String.format("requests.recent p99 during login peak = %.2f ms (budget %.0f ms)", p99, readP99BudgetMs));
+    }
+
+    private long[] measureReads() throws Exception {
+        long[] latencies = new long[reads];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(readClients);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int c = 0; c < readClients; c++) {
+                workers.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < reads) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request("/api/requests/recent", readerToken, null),
+                                HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - start;
+                        if (response.statusCode() >= 400) {
+                            throw new IllegalStateException("Read failed with " + response.statusCode());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private HttpRequest request(String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+        return builder.build();
+    }
+
+    private static String row(String phase, long[] sorted) {
+        return String.format("%s,%d,%.2f,%.2f,%.2f", phase, sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    private static String fmt(double value) {
+        return String.format("%.2f", value);
+    }
+}
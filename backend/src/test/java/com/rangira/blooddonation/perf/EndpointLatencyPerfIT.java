@@ -0,0 +1,360 @@
+package com.rangira.blooddonation.perf;
+
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Endpoint latency regression suite. Boots the application against a
+ * throwaway PostgreSQL (or a local one given with -Dspring.datasource.url)
+ * migrated by Flyway, seeds a large dataset, then drives one or more endpoints
+ * of every controller with concurrent clients and records p50/p99/p999 latency
+ * and throughput. Fails when an endpoint exceeds its budget in
+ * perf-budgets.properties. Every endpoint is budgeted at the seeded size,
+ * including the ones returning every matching row.
+ *
+ * Run with: mvn -Pperf verify [-Dperf.donations=2000000 -Dperf.clients=32 ...]
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("perf")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointLatencyPerfIT {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndpointLatencyPerfIT.class);
+
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final String[] URGENCIES = {"Low", "Medium", "High"};
+    private static final String[] LOCATIONS = {"Kigali", "Huye", "Musanze", "Rubavu", "Nyagatare", "Rwamagana"};
+    private static final String[] HOSPITALS = {"CHUK", "King Faisal Hospital", "CHUB", "Ruhengeri Hospital"};
+    private static final String PASSWORD = "perf-password";
+    private static final int BATCH = 10_000;
+
+    private final int users = Integer.getInteger("perf.users", 200_000);
+    private final int donations = Integer.getInteger("perf.donations", 2_000_000);
+    private final int requests = Integer.getInteger("perf.requests", 1_000_000);
+    private final int appointments = Integer.getInteger("perf.appointments", 1_000_000);
+    private final int clients = Integer.getInteger("perf.clients", 32);
+    private final int warmup = Integer.getInteger("perf.warmup", 200);
+    private final int iterations = Integer.getInteger("perf.iterations", 2_000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private JavaMailSender mailSender;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String adminToken;
+    private String userToken;
+
+    @BeforeAll
+    void seed() {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+
+        long started = System.currentTimeMillis();
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+
+        insert("INSERT INTO users (username, password, email, role, blood_type, age, contact) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                users, i -> new Object[]{
+                        "user" + i, hash, "user" + i + "@example.com",
+                        i == 0 ? "ADMIN" : (i % 3 == 0 ? "USER" : "DONOR"),
+                        BLOOD_TYPES[i % BLOOD_TYPES.length], 18 + i % 47, "+25078" + i});
+
+        // Most historical units are used or expired, most requests closed
+        insert("INSERT INTO donations (blood_type, amount, available, donation_date, expiry_date, location, notes, donor_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                donations, i -> {
+                    LocalDate date = today.minusDays(random.nextInt(3 * 365));
+                    return new Object[]{
+                            BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)], 1 + random.nextInt(2),
+                            random.nextInt(100) < 2, Date.valueOf(date), Date.valueOf(date.plusDays(42)),
+                            LOCATIONS[random.nextInt(LOCATIONS.length)], "seeded", 1 + random.nextInt(users)};
+                });
+
+        insert("INSERT INTO requests (blood_type, amount, urgency, requester_name, hospital_name, reason, needed_by_date, "
+                        + "request_date, status, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                requests, i -> {
+                    LocalDate date = today.minusDays(random.nextInt(3 * 365));
+                    int roll = random.nextInt(100);
+                    return new Object[]{
+                            BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)], 1 + random.nextInt(4),
+                            URGENCIES[random.nextInt(URGENCIES.length)], "Requester " + i,
+                            HOSPITALS[random.nextInt(HOSPITALS.length)], "seeded",
+                            Date.valueOf(date.plusDays(7)), Date.valueOf(date),
+                            roll < 3 ? "Pending" : (roll < 90 ? "Fulfilled" : "Cancelled"), 1 + random.nextInt(users)};
+                });
+
+        insert("INSERT INTO appointment (blood_type, appointment_date, location, status, user_id) VALUES (?, ?, ?, ?, ?)",
+                appointments, i -> new Object[]{
+                        BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)],
+                        Date.valueOf(today.minusDays(random.nextInt(3 * 365)).plusDays(30)),
+                        LOCATIONS[random.nextInt(LOCATIONS.length)], "Completed", 1 + random.nextInt(users)});
+
+        adminToken = jwtUtil.generateToken(user("user0", "ADMIN"));
+        userToken = jwtUtil.generateToken(user("user3", "USER"));
+        logger.warn("Seeded {} users, {} donations, {} requests, {} appointments in {} s",
+                users, donations, requests, appointments, (System.currentTimeMillis() - started) / 1000);
+    }
+
+    @Test
+    void endpointsStayWithinBudget() throws Exception {
+        Properties budgets = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/perf-budgets.properties")) {
+            budgets.load(in);
+        }
+
+        List<String> violations = new ArrayList<>();
+        List<String> report = new ArrayList<>();
+        report.add("endpoint,requests,errors,throughput_rps,p50_ms,p99_ms,p999_ms");
+
+        for (Endpoint endpoint : endpoints()) {
+            Result result = measure(endpoint, warmup, iterations);
+            report.add(String.format("%s,%d,%d,%.1f,%.2f,%.2f,%.2f", endpoint.id, result.count, result.errors,
+                    result.throughput, result.p50, result.p99, result.p999));
+            logger.warn("{} {} {}: p50={} ms p99={} ms p999={} ms, {} req/s, {} errors", endpoint.id, endpoint.method,
+                    endpoint.path, fmt(result.p50), fmt(result.p99), fmt(result.p999), fmt(result.throughput),
+                    result.errors);
+
+            if (result.errors > 0) {
+                violations.add(endpoint.id + ": " + result.errors + " failed requests");
+            }
+            check(violations, budgets, endpoint.id, "p50", result.p50);
+            check(violations, budgets, endpoint.id, "p99", result.p99);
+            check(violations, budgets, endpoint.id, "p999", result.p999);
+        }
+
+        Path reportFile = Paths.get("target", "perf-report.csv");
+        Files.createDirectories(reportFile.getParent());
+        Files.write(reportFile, report);
+
+        assertTrue(violations.isEmpty(), "Latency budget exceeded:\n" + String.join("\n", violations));
+    }
+
+    private List<Endpoint> endpoints() {
+        LocalDate today = LocalDate.now();
+        AtomicInteger sequence = new AtomicInteger();
+        return List.of(
+                // AdminController
+                get("admin.summary", "/api/admin/summary", adminToken),
+                // AppointmentController
+                get("appointments.my", "/api/appointments/my?page=0&size=10", userToken),
+                get("appointments.all", "/api/appointments/all?page=0&size=10", adminToken),
+                get("appointments.calendar", "/api/appointments/calendar?location=Kigali&days=14", userToken),
+                get("appointments.range", "/api/appointments/range?location=Kigali&from=" + today + "&to=" + today.plusDays(14), adminToken),
+                post("appointments.book", "/api/appointments/book", userToken, () ->
+                        "{\"bloodType\":\"O+\",\"location\":\"Perf Centre\",\"appointmentDate\":\"" + today.plusDays(3) + "\"}"),
+                // AuthController (BCrypt plus mocked SMTP)
+                post("auth.login", "/auth/login", null, () ->
+                        "{\"username\":\"user" + (1 + sequence.incrementAndGet() % 1000) + "\",\"password\":\"" + PASSWORD + "\"}"),
+                // BloodDonationController
+                get("donations.all", "/api/donations", adminToken),
+                get("donations.available", "/api/donations/available", userToken),
+                get("donations.bloodType", "/api/donations/blood-type/O-", userToken),
+                get("donations.recent", "/api/donations/recent", userToken),
+                get("donations.canDonate", "/api/donations/can-donate", userToken),
+                post("donations.donate", "/api/donations/donate", userToken, () ->
+                        "{\"bloodType\":\"A+\",\"amount\":1,\"location\":\"Kigali\"}"),
+                // BloodRequestController
+                get("requests.all", "/api/requests", adminToken),
+                get("requests.pending", "/api/requests/pending", userToken),
+                get("requests.urgent", "/api/requests/urgent", userToken),
+                get("requests.bloodType", "/api/requests/blood-type/AB-", userToken),
+                get("requests.recent", "/api/requests/recent", userToken),
+                get("requests.my", "/api/requests/my-requests", userToken),
+                get("requests.overdue", "/api/requests/overdue", adminToken),
+                get("requests.statistics", "/api/requests/statistics", adminToken),
+                post("requests.request", "/api/requests/request", userToken, () ->
+                        "{\"bloodType\":\"B+\",\"amount\":2,\"urgency\":\"Medium\",\"hospitalName\":\"CHUK\","
+                                + "\"neededByDate\":\"" + today.plusDays(5) + "\"}"),
+                // DonorController
+                get("donors.all", "/api/donors", adminToken),
+                get("donors.byId", "/api/donors/2", adminToken),
+                // EmailController (mocked SMTP)
+                post("email.send", "/api/email/send", null, () ->
+                        "{\"to\":\"user1@example.com\",\"subject\":\"Perf\",\"text\":\"Latency suite\"}"),
+                // PasswordResetController (mocked SMTP)
+                post("passwordReset.link", "/api/auth/reset-password", null, () ->
+                        "{\"email\":\"user" + (1 + sequence.incrementAndGet() % 1000) + "@example.com\"}"),
+                // UserController
+                get("users.search", "/api/users/search?query=user12&page=0&size=10", adminToken),
+                get("users.all", "/api/users", adminToken),
+                get("users.byId", "/api/users/2", adminToken)
+        );
+    }
+
+    private Result measure(Endpoint endpoint, int warmupRequests, int measuredRequests) throws Exception {
+        run(endpoint, warmupRequests, new long[warmupRequests]);
+
+        long[] latencies = new long[measuredRequests];
+        long started = System.nanoTime();
+        int errors = run(endpoint, measuredRequests, latencies);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        Arrays.sort(latencies);
+        return new Result(measuredRequests, errors, measuredRequests / elapsedSeconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+    }
+
+    private int run(Endpoint endpoint, int count, long[] latencies) throws Exception {
+        if (count == 0) {
+            return 0;
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(clients, count));
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int c = 0; c < Math.min(clients, count); c++) {
+                workers.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(endpoint.request(port),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return errors.get();
+    }
+
+    private void check(List<String> violations, Properties budgets, String id, String percentile, double actualMs) {
+        double budget = Double.parseDouble(budgets.getProperty(id + "." + percentile,
+                budgets.getProperty("default." + percentile)));
+        if (actualMs > budget) {
+            violations.add(String.format("%s %s = %.2f ms (budget %.0f ms)", id, percentile, actualMs, budget));
+        }
+    }
+
+    private void insert(String sql, int rows, RowSource source) {
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < rows; i++) {
+            batch.add(source.row(i));
+            if (batch.size() == BATCH) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    private static String fmt(double value) {
+        return String.format("%.2f", value);
+    }
+
+    private static User user(String username, String role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setRole(role);
+        return user;
+    }
+
+    private static Endpoint get(String id, String path, String token) {
+        return new Endpoint(id, "GET", path, token, null);
+    }
+
+    private static Endpoint post(String id, String path, String token, BodySource body) {
+        return new Endpoint(id, "POST", path, token, body);
+    }
+
+    private interface RowSource {
+        Object[] row(int index);
+    }
+
+    private interface BodySource {
+        String next();
+    }
+
+    private record Result(int count, int errors, double throughput, double p50, double p99, double p999) {
+    }
+
+    private record Endpoint(String id, String method, String path, String token, BodySource body) {
+
+        HttpRequest request(int port) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .timeout(Duration.ofSeconds(60));
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            if (body != null) {
+                builder.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofString(body.next()));
+            } else {
+                builder.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.rangira.blooddonation.report;
+
+import com.rangira.blooddonation.util.ParallelAggregator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The reports' folds, merges and CSV, and that folding the rows on several
+ * workers gives the same CSV as folding them all in one accumulator.
+ */
+class ReportFoldTest {
+
+	private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+	private static final LocalDate TO = LocalDate.of(2026, 7, 1);
+	private static final long HOUR = 3_600_000L;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		executor.shutdownNow();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void retentionCountsDonorsByTheMonthOfTheirFirstDonation() {
+		List<DonorRetentionReport.Row> rows = List.of(
+				// Back after 50 days, then again
+				retention(1, "2026-01-10"), retention(1, "2026-03-01"), retention(1, "2026-03-02"),
+				// Only once
+				retention(2, "2026-01-20"),
+				// Back after 139 days
+				retention(3, "2026-02-01"), retention(3, "2026-06-20"),
+				// First donation before the range: not a new donor
+				retention(4, "2025-12-01"), retention(4, "2026-02-15"),
+				// First donation on the range's end: outside it
+				retention(5, "2026-07-01"));
+
+		assertEquals(List.of(
+				"cohort_month,new_donors,returned_90_days,returned_180_days,returned_365_days,repeat_donors,"
+						+ "retention_90_days,retention_365_days",
+				"2026-01,2,1,1,1,1,0.5000,0.5000",
+				"2026-02,1,0,1,1,1,0.0000,1.0000"), csvLines(new DonorRetentionReport(), rows));
+	}
+
+	@Test
+	void fulfillmentTalliesHospitalsWhateverTheirSpelling() {
+		List<HospitalFulfillmentReport.Row> rows = List.of(
+				new HospitalFulfillmentReport.Row("CHUK", "Fulfilled", 3),
+				new HospitalFulfillmentReport.Row(" chuk ", "Cancelled", 2),
+				new HospitalFulfillmentReport.Row("Chuk", "Pending", 1),
+				new HospitalFulfillmentReport.Row("CHUK", "Escalated", 4),
+				new HospitalFulfillmentReport.Row("King  Faisal", "Fulfilled", 2),
+				new HospitalFulfillmentReport.Row("King Faisal", "Unknown", 1),
+				new HospitalFulfillmentReport.Row(null, "Cancelled", 1));
+
+		assertEquals(List.of(
+				"hospital,requests,fulfilled,cancelled,open,fulfillment_rate,units_requested,units_fulfilled",
+				",1,0,1,0,,1,0",
+				"CHUK,4,1,1,2,0.3333,10,3",
+				"King  Faisal,2,1,0,0,0.5000,3,2"), csvLines(new HospitalFulfillmentReport(), rows));
+	}
+
+	@Test
+	void leadTimesArePerUrgencyWithExactDayPercentiles() {
+		List<LeadTimeByUrgencyReport.Row> rows = new ArrayList<>();
+		for (int days = 1; days <= 10; days++) {
+			rows.add(leadTime("High", days, days % 2 == 0 ? "Fulfilled" : "Pending", days * HOUR));
+		}
+		rows.add(leadTime(" HIGH", 500, "Fulfilled", -1));
+		rows.add(leadTime("low", -3, "Cancelled", -1));
+
+		assertEquals(List.of(
+				"urgency,requests,fulfilled,mean_days,median_days,p90_days,max_days,timed_fulfillments,"
+						+ "median_fulfillment_hours,p90_fulfillment_hours",
+				// 1..10 and 500 days: 555 / 11, a year or more is counted as 365 by the percentiles;
+				// fulfillment hours to two significant digits
+				"high,11,6,50.45,6,10,500,5,6.0,10.0",
+				"low,1,0,0.00,0,0,0,0,,"), csvLines(new LeadTimeByUrgencyReport(), rows));
+	}
+
+	@Test
+	void retentionOnSeveralWorkersMatchesOneAccumulator() throws InterruptedException {
+		Random random = new Random(5);
+		List<DonorRetentionReport.Row> rows = new ArrayList<>();
+		for (long donor = 1; donor <= 3000; donor++) {
+			long day = FROM.minusDays(60).toEpochDay() + random.nextInt(240);
+			for (int donation = random.nextInt(5); donation >= 0; donation--) {
+				rows.add(new DonorRetentionReport.Row(donor, day));
+				day += 40 + random.nextInt(200);
+			}
+		}
+		// The query orders by donor and day
+		rows.sort(Comparator.comparingLong(DonorRetentionReport.Row::donorId)
+				.thenComparingLong(DonorRetentionReport.Row::day));
+
+		assertSameOnWorkers(new DonorRetentionReport(), rows);
+	}
+
+	@Test
+	void fulfillmentOnSeveralWorkersMatchesOneAccumulator() throws InterruptedException {
+		Random random = new Random(7);
+		String[] hospitals = {"CHUK", "CHUB", "King Faisal", "Kibagabaga", "Ruhengeri", null};
+		String[] statuses = {"Fulfilled", "Cancelled", "Pending", "Overdue", "Escalated", null};
+		List<HospitalFulfillmentReport.Row> rows = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			rows.add(new HospitalFulfillmentReport.Row(hospitals[random.nextInt(hospitals.length)],
+					statuses[random.nextInt(statuses.length)], 1 + random.nextInt(6)));
+		}
+
+		assertSameOnWorkers(new HospitalFulfillmentReport(), rows);
+	}
+
+	@Test
+	void leadTimesOnSeveralWorkersMatchOneAccumulator() throws InterruptedException {
+		Random random = new Random(13);
+		String[] urgencies = {"Low", "Medium", "High", "Critical", null};
+		List<LeadTimeByUrgencyReport.Row> rows = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			boolean fulfilled = random.nextBoolean();
+			rows.add(leadTime(urgencies[random.nextInt(urgencies.length)], random.nextInt(400) - 5,
+					fulfilled ? "Fulfilled" : "Pending",
+					fulfilled && random.nextInt(4) > 0 ? random.nextInt(72) * HOUR + random.nextInt(3_600_000) : -1));
+		}
+
+		assertSameOnWorkers(new LeadTimeByUrgencyReport(), rows);
+	}
+
+	private <R, A> void assertSameOnWorkers(ReportDefinition<R, A> report, List<R> rows) throws InterruptedException {
+		ParallelAggregator<R, A> aggregator = new ParallelAggregator<>(executor, 3, 7,
+				() -> report.newAccumulator(FROM, TO), report::fold, report::merge, report::splitAllowed);
+		for (R row : rows) {
+			aggregator.accept(row);
+		}
+		A result = aggregator.finish();
+
+		assertEquals(rows.size(), aggregator.folded());
+		assertEquals(csvLines(report, rows), csv(report, result));
+	}
+
+	private static <R, A> List<String> csvLines(ReportDefinition<R, A> report, List<R> rows) {
+		A accumulator = report.newAccumulator(FROM, TO);
+		report.fold(accumulator, rows);
+		return csv(report, accumulator);
+	}
+
+	private static <R, A> List<String> csv(ReportDefinition<R, A> report, A result) {
+		StringWriter text = new StringWriter();
+		try (PrintWriter out = new PrintWriter(text)) {
+			report.write(result, out);
+		}
+		return List.of(text.toString().split("\r\n"));
+	}
+
+	private static DonorRetentionReport.Row retention(long donorId, String day) {
+		return new DonorRetentionReport.Row(donorId, LocalDate.parse(day).toEpochDay());
+	}
+
+	private static LeadTimeByUrgencyReport.Row leadTime(String urgency, int days, String status, long fulfillmentMillis) {
+		long requestDay = FROM.plusDays(10).toEpochDay();
+		return new LeadTimeByUrgencyReport.Row(urgency, requestDay, requestDay + days, status, fulfillmentMillis);
+	}
+}
@@ -0,0 +1,180 @@
+package com.rangira.blooddonation.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations against a real PostgreSQL, lets Hibernate validate
+ * the entities against them (context start-up fails otherwise) and checks with
+ * EXPLAIN that each repository access path is served by one of its indexes.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaIndexUsageTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void seedAndDisableSeqScan() {
+		jdbcTemplate.update("INSERT INTO users (username, email, role) "
+				+ "SELECT 'user' || i, 'user' || i || '@example.com', 'DONOR' FROM generate_series(1, 200) i");
+		jdbcTemplate.update("INSERT INTO donations (blood_type, amount, available, donation_date, expiry_date, donor_id) "
+				+ "SELECT 'O-', 1, i % 10 = 0, DATE '2026-01-01' - i, DATE '2026-02-12' - i, "
+				+ "(SELECT min(id) FROM users) FROM generate_series(1, 500) i");
+		jdbcTemplate.update("INSERT INTO requests (blood_type, amount, urgency, hospital_name, needed_by_date, request_date, status, user_id) "
+				+ "SELECT 'A+', 1, 'High', 'CHUK', DATE '2026-01-01' + i, DATE '2026-01-01', "
+				+ "CASE WHEN i % 10 = 0 THEN 'Pending' ELSE 'Fulfilled' END, (SELECT min(id) FROM users) "
+				+ "FROM generate_series(1, 500) i");
+		jdbcTemplate.update("INSERT INTO appointment (blood_type, appointment_date, location, status, user_id) "
+				+ "SELECT 'B+', DATE '2026-01-01' + i, 'Kigali', 'Completed', (SELECT min(id) FROM users) "
+				+ "FROM generate_series(1, 500) i");
+		jdbcTemplate.execute("ANALYZE");
+		// Tiny tables would otherwise always be scanned; this asks whether an index *can* serve the query
+		jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("accessPaths")
+	void queryUsesAnIndex(String repositoryMethod, String sql, List<String> acceptedIndexes) {
+		String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+
+		assertTrue(acceptedIndexes.stream().anyMatch(plan::contains),
+				repositoryMethod + " should use one of " + acceptedIndexes + " but the plan was:\n" + plan);
+	}
+
+	static Stream<Arguments> accessPaths() {
+		return Stream.of(
+				path("BloodRequestRepository.findByStatus",
+						"SELECT * FROM requests WHERE status = 'Cancelled'",
+						"idx_request_status_needed_by"),
+				path("BloodRequestRepository.findByStatusInOrderByNeededByDateAsc",
+						"SELECT * FROM requests WHERE status IN ('Overdue', 'Escalated') ORDER BY needed_by_date",
+						"idx_request_status_needed_by"),
+				path("BloodRequestRepository.findByUrgencyAndStatus",
+						"SELECT * FROM requests WHERE urgency = 'High' AND status = 'Fulfilled'",
+						"idx_request_urgency_status", "idx_request_status_needed_by"),
+				path("BloodRequestRepository.findByNeededByDateBeforeAndStatus",
+						"SELECT * FROM requests WHERE needed_by_date < DATE '2026-03-01' AND status = 'Pending'",
+						"idx_request_pending_needed_by", "idx_request_status_needed_by"),
+				path("BloodRequestRepository.findPendingNeededBetween",
+						"SELECT * FROM requests WHERE status = 'Pending' AND needed_by_date >= DATE '1970-01-01' AND needed_by_date < DATE '2026-03-01' ORDER BY needed_by_date, id LIMIT 500",
+						"idx_request_pending_needed_by", "idx_request_status_needed_by"),
+				path("BloodRequestRepository.findByRequester",
+						"SELECT * FROM requests WHERE user_id = 1",
+						"idx_request_user_status"),
+				path("BloodRequestRepository.findByBloodType",
+						"SELECT * FROM requests WHERE blood_type = 'A+'",
+						"idx_request_blood_type"),
+				path("BloodRequestRepository.findByHospitalName",
+						"SELECT * FROM requests WHERE hospital_name = 'CHUK'",
+						"idx_request_hospital"),
+				path("BloodRequestRepository.findRecent",
+						"SELECT * FROM requests ORDER BY request_date DESC, id DESC LIMIT 20",
+						"idx_request_recent"),
+				path("BloodDonationRepository.findByAvailableTrueOrderByExpiryDateAsc",
+						"SELECT * FROM donations WHERE available = true ORDER BY expiry_date",
+						"idx_donation_open_expiry", "idx_donation_available_expiry"),
+				path("BloodDonationRepository.findExpiredAvailable",
+						"SELECT * FROM donations WHERE available = true AND expiry_date < DATE '2026-01-01' ORDER BY expiry_date LIMIT 500",
+						"idx_donation_open_expiry", "idx_donation_available_expiry"),
+				path("BloodDonationRepository.findByBloodTypeAndAvailableTrueOrderByExpiryDateAsc",
+						"SELECT * FROM donations WHERE blood_type = 'O-' AND available = true ORDER BY expiry_date",
+						"idx_donation_open_type_expiry", "idx_donation_type_available_expiry"),
+				path("BloodDonationRepository.countByBloodTypeAndAvailableTrue",
+						"SELECT count(*) FROM donations WHERE blood_type = 'O-' AND available = true",
+						"idx_donation_open_type_expiry", "idx_donation_type_available_expiry"),
+				path("BloodDonationRepository.findByDonor",
+						"SELECT * FROM donations WHERE donor_id = 1",
+						"idx_donation_donor_available"),
+				path("BloodDonationRepository.findRecent",
+						"SELECT * FROM donations ORDER BY donation_date DESC, id DESC LIMIT 20",
+						"idx_donation_recent"),
+				path("AppointmentRepository.findByUserId",
+						"SELECT * FROM appointment WHERE user_id = 1",
+						"idx_appointment_user"),
+				path("AppointmentRepository.countByStatus",
+						"SELECT count(*) FROM appointment WHERE status = 'Completed'",
+						"idx_appointment_status"),
+				path("AppointmentRepository.findByLocationAndAppointmentDateBetween",
+						"SELECT * FROM appointment WHERE location = 'Kigali' "
+								+ "AND appointment_date BETWEEN DATE '2026-01-01' AND DATE '2026-01-15'",
+						"idx_appointment_location_date"),
+				path("AppointmentSlotRepository.findByLocationAndSlotDateAndStartTime",
+						"SELECT * FROM appointment_slots WHERE location = 'Kigali' "
+								+ "AND slot_date = DATE '2026-01-01' AND start_time = TIME '09:00'",
+						"uk_appointment_slots_location_date_time"),
+				path("UserRepository.findByUsername",
+						"SELECT * FROM users WHERE username = 'user1'",
+						"uk_users_username"),
+				path("UserRepository.findByEmail",
+						"SELECT * FROM users WHERE email = 'user1@example.com'",
+						"uk_users_email"),
+				path("DonorRepository.findByRole",
+						"SELECT * FROM users WHERE role = 'DONOR'",
+						"idx_users_role"),
+				path("IdempotencyRecordRepository.deleteExpired",
+						"SELECT * FROM idempotency_keys WHERE expires_at < TIMESTAMP '2026-01-01 00:00'",
+						"idx_idempotency_expires_at"),
+				path("FulfillmentLeadTimes.rebuild",
+						"SELECT urgency, hospital_name, created_at, fulfilled_at FROM requests "
+								+ "WHERE fulfilled_at >= TIMESTAMP '2026-01-01 00:00' AND created_at IS NOT NULL",
+						"idx_request_fulfilled_at"),
+				path("DonorDirectory.reload",
+						"SELECT donor_id, donation_date, site_id FROM donations WHERE donor_id IN (1, 2, 3)",
+						"idx_donation_donor_available"),
+				path("BloodDonationRepository.countAvailableBySite",
+						"SELECT site_id, blood_type, count(*) FROM donations WHERE available = true "
+								+ "AND site_id IS NOT NULL AND (expiry_date IS NULL OR expiry_date >= DATE '2026-01-01') "
+								+ "GROUP BY site_id, blood_type",
+						"idx_donation_site_stock", "idx_donation_open_expiry", "idx_donation_open_type_expiry",
+						"idx_donation_available_expiry"),
+				path("BloodRequestRepository.sumDailyDemand",
+						"SELECT hospital_name, request_date, sum(amount) FROM requests WHERE blood_type = 'A+' "
+								+ "AND request_date >= DATE '2025-07-01' AND request_date < DATE '2026-01-01' "
+								+ "GROUP BY hospital_name, request_date",
+						"idx_request_blood_type", "idx_request_recent"),
+				path("BloodRequestRepository.sumAmountByStatusIn",
+						"SELECT blood_type, hospital_name, sum(amount) FROM requests "
+								+ "WHERE status IN ('Pending', 'Overdue', 'Escalated') GROUP BY blood_type, hospital_name",
+						"idx_request_status_needed_by"),
+				path("DailyRollups.query (donations)",
+						"SELECT day, blood_type, sum(records) FROM donation_daily_rollup "
+								+ "WHERE day >= DATE '2025-01-01' AND day <= DATE '2025-12-31' GROUP BY day, blood_type",
+						"pk_donation_daily_rollup"),
+				path("DailyRollups.query (requests)",
+						"SELECT day, status, sum(units) FROM request_daily_rollup "
+								+ "WHERE day >= DATE '2025-01-01' AND day <= DATE '2025-12-31' GROUP BY day, status",
+						"pk_request_daily_rollup"),
+				path("SiteRepository.findByNormalizedName",
+						"SELECT * FROM sites WHERE normalized_name = 'kigali'",
+						"uk_sites_normalized_name")
+		);
+	}
+
+	private static Arguments path(String repositoryMethod, String sql, String... acceptedIndexes) {
+		return Arguments.of(repositoryMethod, sql, Arrays.asList(acceptedIndexes));
+	}
+}
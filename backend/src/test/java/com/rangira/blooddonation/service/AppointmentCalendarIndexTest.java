@@ -0,0 +1,192 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.dto.DayAvailability;
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.journal.EventJournal;
+import com.rangira.blooddonation.model.Appointment;
+import com.rangira.blooddonation.model.AppointmentSlot;
+import com.rangira.blooddonation.repository.AppointmentRepository;
+import com.rangira.blooddonation.repository.AppointmentSlotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The calendar index as AppointmentService keeps it current, against an
+ * embedded database with real commits and rollbacks.
+ */
+@DataJpaTest(showSql = false, properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Import({AppointmentService.class, SlotCapacityGate.class, AppointmentCalendarIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentCalendarIndexTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 11, 2);
+	private static final LocalTime NINE = LocalTime.of(9, 0);
+	private static final LocalTime TEN = LocalTime.of(10, 0);
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private AppointmentCalendarIndex calendarIndex;
+
+	@Autowired
+	private SlotCapacityGate slotCapacityGate;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private AppointmentSlotRepository appointmentSlotRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@MockBean
+	private EventJournal eventJournal;
+
+	@MockBean
+	private InvalidationBus invalidationBus;
+
+	@MockBean
+	private SiteService siteService;
+
+	@AfterEach
+	void cleanUp() {
+		appointmentRepository.deleteAll();
+		appointmentSlotRepository.deleteAll();
+		calendarIndex.onInvalidation(new CacheInvalidationEvent("test", Map.of(Topic.LOCATION, Set.of(CacheInvalidationEvent.ALL))));
+	}
+
+	@Test
+	void seatTakenAndReleasedShowWithoutReloading() {
+		AppointmentSlot nine = slot("Kigali", DAY, NINE, 3);
+		slot("Kigali", DAY, TEN, 2);
+		assertDay(day("Kigali", DAY), 5, 0);
+
+		Appointment first = appointmentService.createAppointment(booking("Kigali", NINE));
+		appointmentService.createAppointment(booking("Kigali", NINE));
+		appointmentService.createAppointment(booking("Kigali", TEN));
+		// The rows changed behind the index's back are not read again within the refresh interval
+		appointmentSlotRepository.save(new AppointmentSlot(nine.getId(), "Kigali", DAY, NINE, 3, 0));
+
+		DayAvailability day = day("Kigali", DAY);
+		assertDay(day, 5, 3);
+		assertEquals(2, day.getSlots().get(0).getBooked());
+		assertEquals(1, day.getSlots().get(0).getFree());
+		assertEquals(1, day.getSlots().get(1).getFree());
+
+		appointmentService.cancelAppointment(first.getId(), null);
+		assertDay(day("Kigali", DAY), 5, 2);
+		assertEquals(1, day("Kigali", DAY).getSlots().get(0).getBooked());
+	}
+
+	@Test
+	void slotsAddedAfterLoadingAreShown() {
+		slot("Huye", DAY, NINE, 2);
+		assertEquals(1, calendarIndex.availability("Huye", DAY, DAY.plusDays(7)).size());
+
+		appointmentService.createSlot(new AppointmentSlot(null, "Huye", DAY, TEN, 4, 0));
+		appointmentService.createSlot(new AppointmentSlot(null, "Huye", DAY.plusDays(3), NINE, 6, 0));
+
+		List<DayAvailability> days = calendarIndex.availability("Huye", DAY, DAY.plusDays(7));
+		assertEquals(List.of(DAY, DAY.plusDays(3)), days.stream().map(DayAvailability::getDate).toList());
+		assertDay(days.get(0), 6, 0);
+		assertEquals(List.of(NINE, TEN), days.get(0).getSlots().stream().map(slot -> slot.getStartTime()).toList());
+		assertDay(days.get(1), 6, 0);
+	}
+
+	@Test
+	void rolledBackBookingsLeaveTheCountsAlone() {
+		AppointmentSlot slot = slot("Musanze", DAY, NINE, 1);
+		assertDay(day("Musanze", DAY), 1, 0);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			appointmentService.createAppointment(booking("Musanze", NINE));
+			status.setRollbackOnly();
+		});
+
+		assertDay(day("Musanze", DAY), 1, 0);
+		assertEquals(0, appointmentSlotRepository.findBookedById(slot.getId()));
+		assertEquals(1, slotCapacityGate.remaining(slot.getId()));
+		// The place the rolled-back booking held is free again
+		appointmentService.createAppointment(booking("Musanze", NINE));
+		assertDay(day("Musanze", DAY), 1, 1);
+	}
+
+	@Test
+	void rangeIsInclusiveAndReloadsForEarlierDays() {
+		slot("Rubavu", DAY.minusDays(1), NINE, 1);
+		slot("Rubavu", DAY, NINE, 2);
+		slot("Rubavu", DAY.plusDays(2), NINE, 3);
+		slot("Rubavu", DAY.plusDays(5), NINE, 4);
+
+		List<DayAvailability> days = calendarIndex.availability("Rubavu", DAY, DAY.plusDays(2));
+		assertEquals(List.of(DAY, DAY.plusDays(2)), days.stream().map(DayAvailability::getDate).toList());
+		assertEquals(1, calendarIndex.availability("Rubavu", DAY.plusDays(1), DAY.plusDays(2)).size());
+		assertEquals(0, calendarIndex.availability("Rubavu", DAY.plusDays(6), DAY.plusDays(30)).size());
+
+		// A slot before the loaded range is not patched in, but asking for its day reloads
+		appointmentService.createSlot(new AppointmentSlot(null, "Rubavu", DAY.minusDays(1), TEN, 5, 0));
+		days = calendarIndex.availability("Rubavu", DAY.minusDays(1), DAY.minusDays(1));
+		assertEquals(1, days.size());
+		assertDay(days.get(0), 6, 0);
+		assertEquals(4, calendarIndex.availability("Rubavu", DAY.minusDays(1), DAY.plusDays(5)).size());
+
+		assertThrows(IllegalArgumentException.class, () -> appointmentService.getAvailability("Rubavu", DAY, DAY.minusDays(1)));
+	}
+
+	@Test
+	void invalidatedLocationsAreReadAgain() {
+		AppointmentSlot slot = slot("Nyagatare", DAY, NINE, 4);
+		assertDay(day("Nyagatare", DAY), 4, 0);
+
+		// Booked through another instance
+		appointmentSlotRepository.save(new AppointmentSlot(slot.getId(), "Nyagatare", DAY, NINE, 4, 3));
+		assertDay(day("Nyagatare", DAY), 4, 0);
+		calendarIndex.onInvalidation(new CacheInvalidationEvent("other-instance", Map.of(Topic.LOCATION, Set.of("Nyagatare"))));
+		assertDay(day("Nyagatare", DAY), 4, 3);
+	}
+
+	private DayAvailability day(String location, LocalDate date) {
+		List<DayAvailability> days = calendarIndex.availability(location, date, date);
+		assertEquals(1, days.size());
+		return days.get(0);
+	}
+
+	private static void assertDay(DayAvailability day, int capacity, int booked) {
+		assertEquals(capacity, day.getCapacity());
+		assertEquals(booked, day.getBooked());
+		assertEquals(capacity - booked, day.getFree());
+	}
+
+	private AppointmentSlot slot(String location, LocalDate date, LocalTime time, int capacity) {
+		return appointmentSlotRepository.save(new AppointmentSlot(null, location, date, time, capacity, 0));
+	}
+
+	private static Appointment booking(String location, LocalTime time) {
+		Appointment appointment = new Appointment();
+		appointment.setBloodType("O+");
+		appointment.setLocation(location);
+		appointment.setAppointmentDate(DAY);
+		appointment.setAppointmentTime(time);
+		return appointment;
+	}
+}
@@ -0,0 +1,253 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.journal.EventJournal;
+import com.rangira.blooddonation.model.Appointment;
+import com.rangira.blooddonation.model.AppointmentSlot;
+import com.rangira.blooddonation.repository.AppointmentRepository;
+import com.rangira.blooddonation.repository.AppointmentSlotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seat accounting of appointment slots against an embedded database, with real
+ * commits so concurrent bookings race on the conditional updates.
+ */
+@DataJpaTest(showSql = false, properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.datasource.url=jdbc:h2:mem:seat-reservation;DB_CLOSE_DELAY=-1", "spring.datasource.hikari.maximum-pool-size=32"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AppointmentService.class, SlotCapacityGate.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentSeatReservationTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 11, 2);
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private AppointmentSlotRepository appointmentSlotRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private SlotCapacityGate slotCapacityGate;
+
+	@MockBean
+	private AppointmentCalendarIndex appointmentCalendarIndex;
+
+	@MockBean
+	private EventJournal eventJournal;
+
+	@MockBean
+	private InvalidationBus invalidationBus;
+
+	@MockBean
+	private SiteService siteService;
+
+	@AfterEach
+	void cleanUp() {
+		appointmentRepository.deleteAll();
+		appointmentSlotRepository.deleteAll();
+	}
+
+	@Test
+	void reserveSeatOnlyTakesAPlaceThatIsLeft() {
+		AppointmentSlot slot = slot("Huye", 2);
+		assertEquals(1, reserve(slot));
+		assertEquals(1, reserve(slot));
+		assertEquals(0, reserve(slot));
+		assertEquals(2, appointmentSlotRepository.findBookedById(slot.getId()));
+
+		assertEquals(1, release(slot));
+		assertEquals(1, release(slot));
+		assertEquals(0, release(slot));
+		assertEquals(0, appointmentSlotRepository.findBookedById(slot.getId()));
+	}
+
+	@Test
+	void concurrentBookingsFillTheSlotExactly() throws Exception {
+		AppointmentSlot slot = slot("Kigali", 5);
+
+		int bookings = 40;
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger turnedAway = new AtomicInteger();
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < bookings; i++) {
+			results.add(pool.submit(() -> {
+				start.await();
+				try {
+					appointmentService.createAppointment(booking("Kigali"));
+				} catch (IllegalStateException e) {
+					turnedAway.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> result : results) {
+			result.get(30, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		assertEquals(bookings - 5, turnedAway.get());
+		assertEquals(5, appointmentRepository.count());
+		assertEquals(5, appointmentSlotRepository.findBookedById(slot.getId()));
+	}
+
+	@Test
+	void bookingsAtAThousandASecondNeverOverbookTheTable() throws Exception {
+		List<AppointmentSlot> slots = new ArrayList<>();
+		for (int hour = 8; hour < 16; hour++) {
+			slots.add(appointmentSlotRepository.save(new AppointmentSlot(null, "Nyagatare", DAY, LocalTime.of(hour, 0), 25, 0)));
+		}
+		int capacity = 8 * 25;
+
+		// Invalidations from another instance keep re-seeding the gate from rows read before
+		// the latest bookings, so it admits too many and the conditional update has to refuse them
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread invalidator = new Thread(() -> {
+			while (running.get()) {
+				slotCapacityGate.onInvalidation(new CacheInvalidationEvent("other-instance",
+						Map.of(Topic.SLOT, Set.of(CacheInvalidationEvent.ALL))));
+				try {
+					Thread.sleep(2);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		});
+		invalidator.start();
+
+		// Bookings are handed to the workers on a fixed schedule, whether or not earlier ones are done
+		int bookings = 3000;
+		long interval = TimeUnit.SECONDS.toNanos(1) / 1000;
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+		AtomicInteger admitted = new AtomicInteger();
+		AtomicInteger turnedAway = new AtomicInteger();
+		List<Future<?>> results = new ArrayList<>();
+		long started = System.nanoTime();
+		for (int i = 0; i < bookings; i++) {
+			LockSupport.parkNanos(started + i * interval - System.nanoTime());
+			Appointment booking = booking("Nyagatare");
+			booking.setAppointmentTime(slots.get(i % slots.size()).getStartTime());
+			results.add(pool.submit(() -> {
+				try {
+					appointmentService.createAppointment(booking);
+					admitted.incrementAndGet();
+				} catch (IllegalStateException e) {
+					turnedAway.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		double offeredPerSecond = bookings / ((System.nanoTime() - started) / 1e9);
+		for (Future<?> result : results) {
+			result.get(60, TimeUnit.SECONDS);
+		}
+		running.set(false);
+		invalidator.join();
+		pool.shutdown();
+
+		// The schedule is 1000/s; the last submit waking a little late on a busy machine must not fail it
+		assertTrue(offeredPerSecond >= 950, String.format("%.0f bookings/s", offeredPerSecond));
+		assertEquals(capacity, admitted.get());
+		assertEquals(bookings - capacity, turnedAway.get());
+
+		Map<Long, Long> appointmentsPerSlot = appointmentRepository.findAll().stream()
+				.collect(Collectors.groupingBy(appointment -> appointment.getSlot().getId(), Collectors.counting()));
+		assertEquals(capacity, appointmentRepository.count());
+		for (AppointmentSlot slot : slots) {
+			int booked = appointmentSlotRepository.findBookedById(slot.getId());
+			assertTrue(booked <= slot.getCapacity(), slot.getStartTime() + ": " + booked + " booked");
+			assertEquals(slot.getCapacity(), booked);
+			assertEquals(booked, appointmentsPerSlot.get(slot.getId()));
+		}
+	}
+
+	@Test
+	void reinstatingACancelledAppointmentTakesItsPlaceBack() {
+		AppointmentSlot slot = slot("Musanze", 1);
+		Appointment first = appointmentService.createAppointment(booking("Musanze"));
+
+		appointmentService.cancelAppointment(first.getId(), null);
+		assertEquals(0, appointmentSlotRepository.findBookedById(slot.getId()));
+
+		appointmentService.updateAppointmentStatus(first.getId(), "Confirmed");
+		assertEquals(1, appointmentSlotRepository.findBookedById(slot.getId()));
+	}
+
+	@Test
+	void reinstatingIntoAFullSlotIsRefused() {
+		AppointmentSlot slot = slot("Rubavu", 1);
+		Appointment first = appointmentService.createAppointment(booking("Rubavu"));
+		appointmentService.cancelAppointment(first.getId(), null);
+		Appointment second = appointmentService.createAppointment(booking("Rubavu"));
+
+		assertThrows(IllegalStateException.class, () -> appointmentService.updateAppointmentStatus(first.getId(), "Scheduled"));
+
+		assertEquals("Cancelled", appointmentRepository.findById(first.getId()).orElseThrow().getStatus());
+		assertEquals("Pending", appointmentRepository.findById(second.getId()).orElseThrow().getStatus());
+		assertEquals(1, appointmentSlotRepository.findBookedById(slot.getId()));
+	}
+
+	private int reserve(AppointmentSlot slot) {
+		Integer changed = new TransactionTemplate(transactionManager).execute(
+				status -> appointmentSlotRepository.reserveSeat(slot.getId()));
+		return changed;
+	}
+
+	private int release(AppointmentSlot slot) {
+		Integer changed = new TransactionTemplate(transactionManager).execute(
+				status -> appointmentSlotRepository.releaseSeat(slot.getId()));
+		return changed;
+	}
+
+	private AppointmentSlot slot(String location, int capacity) {
+		return appointmentSlotRepository.save(new AppointmentSlot(null, location, DAY, LocalTime.of(9, 0), capacity, 0));
+	}
+
+	private static Appointment booking(String location) {
+		Appointment appointment = new Appointment();
+		appointment.setBloodType("O+");
+		appointment.setLocation(location);
+		appointment.setAppointmentDate(DAY);
+		appointment.setAppointmentTime(LocalTime.of(9, 0));
+		return appointment;
+	}
+}
@@ -0,0 +1,105 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.dto.BulkRequestSelection;
+import com.rangira.blooddonation.dto.BulkResult;
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.journal.EventJournal;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BloodRequestBulkTransitionTest {
+
+	@Mock
+	private BloodRequestRepository bloodRequestRepository;
+
+	@Mock
+	private EventJournal eventJournal;
+
+	@Mock
+	private RecentFeeds recentFeeds;
+
+	@Mock
+	private InvalidationBus invalidationBus;
+
+	@Mock
+	private DailyRollups dailyRollups;
+
+	@Mock
+	private FulfillmentLeadTimes fulfillmentLeadTimes;
+
+	@InjectMocks
+	private BloodRequestService service;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "bulkMaxItems", 5000);
+	}
+
+	@Test
+	void requestsClosedConcurrentlyIntoTheTargetAreReportedNotCountedAgain() {
+		// Both pending when read; request 2 is fulfilled by someone else before the lock
+		when(bloodRequestRepository.findStatusesByIdIn(List.of(1L, 2L)))
+				.thenReturn(rows(new Object[]{1L, "Pending"}, new Object[]{2L, "Pending"}));
+		when(bloodRequestRepository.lockOpenStatuses(eq(List.of(1L, 2L)), anyCollection()))
+				.thenReturn(rows(new Object[]{1L, "Escalated"}));
+		when(bloodRequestRepository.findStatusesByIdIn(List.of(2L)))
+				.thenReturn(rows(new Object[]{2L, "Fulfilled"}));
+		when(bloodRequestRepository.findDemandByIdIn(List.of(1L)))
+				.thenReturn(rows(new Object[]{1L, "A+", "CHUK", 2, LocalDate.now(), "High", LocalDateTime.now()}));
+
+		BulkResult result = service.bulkFulfill(new BulkRequestSelection(new ArrayList<>(List.of(1L, 2L)), null, null, null, null));
+
+		assertEquals(2, result.getSelected());
+		assertEquals(List.of(1L), result.getSucceeded());
+		assertEquals(Map.of(2L, "Request is already fulfilled"), result.getFailed());
+		verify(bloodRequestRepository).transitionStatus(eq(Set.of(1L)), eq("Fulfilled"), any(), eq(null), anyCollection());
+		// One journal entry, one rollup move and one lead time, all for request 1, from the locked status
+		verify(eventJournal, times(1)).record(eq(DomainEvent.REQUEST_STATUS_CHANGED), eq(1L), eq("from"), eq("Escalated"),
+				eq("to"), eq("Fulfilled"), any(), any(), any(), any(), any(), any());
+		verify(eventJournal, never()).record(any(), eq(2L), any(String[].class));
+		verify(dailyRollups, times(1)).changed(any(), any());
+		verify(fulfillmentLeadTimes, times(1)).fulfilled(eq("High"), eq("CHUK"), any(), any());
+	}
+
+	@Test
+	void nothingMovesWhenEveryRequestWasClosedMeanwhile() {
+		when(bloodRequestRepository.findStatusesByIdIn(List.of(3L)))
+				.thenReturn(rows(new Object[]{3L, "Pending"}))
+				.thenReturn(rows(new Object[]{3L, "Cancelled"}));
+		when(bloodRequestRepository.lockOpenStatuses(eq(List.of(3L)), anyCollection())).thenReturn(List.of());
+
+		BulkResult result = service.bulkCancel(new BulkRequestSelection(new ArrayList<>(List.of(3L)), null, null, null, null));
+
+		assertEquals(List.of(), result.getSucceeded());
+		assertEquals(Map.of(3L, "Request is already cancelled"), result.getFailed());
+		verify(bloodRequestRepository, never()).transitionStatus(anyCollection(), any(), any(), any(), anyCollection());
+		verify(dailyRollups, never()).changed(any(), any());
+	}
+
+	private static List<Object[]> rows(Object[]... rows) {
+		return List.of(rows);
+	}
+}
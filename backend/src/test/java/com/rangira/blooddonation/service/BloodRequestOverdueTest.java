@@ -0,0 +1,124 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.BloodRequestOverdueEvent;
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.journal.EventJournal;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.model.JobWatermark;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import com.rangira.blooddonation.repository.JobWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BloodRequestOverdueTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+	@Mock
+	private BloodRequestRepository bloodRequestRepository;
+
+	@Mock
+	private JobWatermarkRepository jobWatermarkRepository;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private EventJournal eventJournal;
+
+	@Mock
+	private RecentFeeds recentFeeds;
+
+	@Mock
+	private InvalidationBus invalidationBus;
+
+	@Mock
+	private DailyRollups dailyRollups;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@InjectMocks
+	private BloodRequestService service;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "overdueBatchSize", 2);
+	}
+
+	@Test
+	void firstRunPagesFromTheEpochAndCountsOnlyRequestsItChanged() {
+		when(jobWatermarkRepository.findById("overdue-requests")).thenReturn(Optional.empty());
+		BloodRequest first = request(1L, "high");
+		BloodRequest second = request(2L, "Low");
+		BloodRequest third = request(3L, "Medium");
+		when(bloodRequestRepository.findPendingNeededBetween(LocalDate.EPOCH, TODAY, PageRequest.of(0, 2)))
+				.thenReturn(List.of(first, second))
+				.thenReturn(List.of(third));
+		when(bloodRequestRepository.lockPending(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+		// Fulfilled by an admin between our read and the lock
+		when(bloodRequestRepository.lockPending(List.of(3L))).thenReturn(List.of());
+
+		assertEquals(2, service.markOverdueRequests(TODAY));
+
+		verify(bloodRequestRepository).markOverdue(List.of(1L, 2L));
+		verify(bloodRequestRepository, never()).markOverdue(List.of(3L));
+		verify(dailyRollups, times(2)).changed(any(), any());
+		verify(eventJournal).record(eq(DomainEvent.REQUEST_STATUS_CHANGED), eq(1L), eq("from"), eq("Pending"),
+				eq("to"), eq("Escalated"), any(), any(), any(), any(), any(), any());
+		verify(eventJournal).record(eq(DomainEvent.REQUEST_STATUS_CHANGED), eq(2L), eq("from"), eq("Pending"),
+				eq("to"), eq("Overdue"), any(), any(), any(), any(), any(), any());
+		verify(eventJournal, never()).record(any(), eq(3L), any(String[].class));
+		verify(eventPublisher, times(2)).publishEvent(any(BloodRequestOverdueEvent.class));
+
+		ArgumentCaptor<JobWatermark> saved = ArgumentCaptor.forClass(JobWatermark.class);
+		verify(jobWatermarkRepository).save(saved.capture());
+		assertEquals(TODAY, saved.getValue().getWatermark());
+	}
+
+	@Test
+	void upToDateWatermarkDoesNothing() {
+		when(jobWatermarkRepository.findById("overdue-requests"))
+				.thenReturn(Optional.of(new JobWatermark("overdue-requests", TODAY)));
+
+		assertEquals(0, service.markOverdueRequests(TODAY));
+
+		verify(bloodRequestRepository, never()).findPendingNeededBetween(any(), any(), any());
+		verify(jobWatermarkRepository, never()).save(any());
+	}
+
+	private static BloodRequest request(Long id, String urgency) {
+		BloodRequest request = new BloodRequest();
+		request.setId(id);
+		request.setUrgency(urgency);
+		request.setStatus("Pending");
+		request.setBloodType("O+");
+		request.setHospitalName("CHUK");
+		request.setAmount(1);
+		request.setRequestDate(TODAY.minusDays(10));
+		request.setNeededByDate(TODAY.minusDays(1));
+		return request;
+	}
+}
@@ -0,0 +1,185 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.service.DailyRollups.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The rollup tables against a real PostgreSQL with the Flyway schema: deltas
+ * merged per transaction and upserted on commit, totals per period, and the
+ * nightly reconciliation finding and repairing drift. Skipped when Docker is
+ * not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(DailyRollups.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyRollupsTest {
+
+	private static final LocalDate JAN_5 = LocalDate.of(2026, 1, 5);
+	private static final LocalDate JAN_6 = LocalDate.of(2026, 1, 6);
+	private static final LocalDate JAN_20 = LocalDate.of(2026, 1, 20);
+	private static final LocalDate FEB_2 = LocalDate.of(2026, 2, 2);
+	private static final LocalDate MAR_1 = LocalDate.of(2026, 3, 1);
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	private DailyRollups dailyRollups;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM donations");
+		jdbcTemplate.update("DELETE FROM requests");
+		jdbcTemplate.update("DELETE FROM donation_daily_rollup");
+		jdbcTemplate.update("DELETE FROM request_daily_rollup");
+	}
+
+	@Test
+	void deltasOfATransactionLandOnCommitOnly() {
+		inTransaction(() -> {
+			donate(JAN_5, "O-", "Kigali ", true, 2);
+			donate(JAN_5, "O-", "kigali", true, 1);
+			donate(JAN_5, "A+", "Kigali", true, 1);
+			// Nothing is written before the commit
+			assertEquals(0, rollupRows("donation_daily_rollup"));
+		});
+		assertEquals(List.of(row(JAN_5, "A+", 1, 1), row(JAN_5, "O-", 2, 3)),
+				dailyRollups.query(Table.DONATIONS, JAN_5, JAN_5, "day", List.of("bloodType"), null, null, null));
+
+		// A unit used up moves from Available to Unavailable; a row removed takes its units off
+		inTransaction(() -> {
+			dailyRollups.changed(DailyRollups.donation(JAN_5, "O-", "Kigali", true, 2),
+					DailyRollups.donation(JAN_5, "O-", "Kigali", false, 2));
+			dailyRollups.removed(DailyRollups.donation(JAN_5, "A+", "Kigali", true, 1));
+			jdbcTemplate.update("UPDATE donations SET available = false WHERE blood_type = 'O-' AND amount = 2");
+			jdbcTemplate.update("DELETE FROM donations WHERE blood_type = 'A+'");
+		});
+		assertEquals(List.of(row(JAN_5, "O-", "Available", 1, 1), row(JAN_5, "O-", "Unavailable", 1, 2)),
+				dailyRollups.query(Table.DONATIONS, JAN_5, JAN_5, "day", List.of("bloodType", "status"), null, null, null));
+
+		// Rolled back: neither the base row nor its delta
+		TransactionTemplate rolledBack = new TransactionTemplate(transactionManager);
+		rolledBack.executeWithoutResult(status -> {
+			donate(JAN_5, "O-", "Kigali", true, 5);
+			status.setRollbackOnly();
+		});
+		assertEquals(List.of(row(JAN_5, 2, 3)),
+				dailyRollups.query(Table.DONATIONS, JAN_5, JAN_5, "day", List.of(), null, null, null));
+
+		assertEquals(0, dailyRollups.reconcile(Table.DONATIONS, JAN_5, JAN_6));
+	}
+
+	@Test
+	void totalsAreGroupedPerPeriodAndFiltered() {
+		inTransaction(() -> {
+			request(JAN_5, "B+", "CHUK", "Pending", 2);
+			request(JAN_6, "B+", "King Faisal", "Fulfilled", 3);
+			request(JAN_20, "O-", "CHUK", "Pending", 1);
+			request(FEB_2, "B+", "chuk", "Fulfilled", 4);
+		});
+
+		assertEquals(List.of(row(LocalDate.of(2026, 1, 1), 3, 6), row(LocalDate.of(2026, 2, 1), 1, 4)),
+				dailyRollups.query(Table.REQUESTS, JAN_5, MAR_1, "month", List.of(), null, null, null));
+		// Weeks start on Monday: the 5th and 6th of January share one
+		assertEquals(List.of(row(JAN_5, 2, 5), row(LocalDate.of(2026, 1, 19), 1, 1), row(FEB_2, 1, 4)),
+				dailyRollups.query(Table.REQUESTS, JAN_5, MAR_1, "week", List.of(), null, null, null));
+		assertEquals(List.of(Map.of("period", LocalDate.of(2026, 1, 1), "hospital", "chuk", "records", 2L, "units", 6L),
+						Map.of("period", LocalDate.of(2026, 1, 1), "hospital", "king faisal", "records", 1L, "units", 3L)),
+				dailyRollups.query(Table.REQUESTS, JAN_5, MAR_1, "quarter", List.of("hospital"), "B+", null, null));
+		// The place filter is matched on the normalized name
+		assertEquals(List.of(row(LocalDate.of(2026, 1, 1), 1, 4)),
+				dailyRollups.query(Table.REQUESTS, JAN_5, MAR_1, "year", List.of(), null, " CHUK", "Fulfilled"));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> dailyRollups.query(Table.REQUESTS, JAN_5, MAR_1, "hour", List.of(), null, null, null));
+		assertThrows(IllegalArgumentException.class,
+				() -> dailyRollups.query(Table.REQUESTS, JAN_5, MAR_1, "day", List.of("location"), null, null, null));
+	}
+
+	@Test
+	void reconciliationRepairsDriftInItsRangeOnly() {
+		inTransaction(() -> {
+			donate(JAN_5, "O-", "Kigali", true, 1);
+			donate(JAN_20, "O-", "Huye", true, 1);
+			donate(FEB_2, "AB+", "Kigali", true, 2);
+		});
+		// Drift: a base row written behind the write path's back, and a rollup row off by one
+		jdbcTemplate.update("INSERT INTO donations (blood_type, amount, available, donation_date, location) "
+				+ "VALUES ('O-', 3, true, ?, 'Kigali')", Date.valueOf(JAN_5));
+		jdbcTemplate.update("UPDATE donation_daily_rollup SET records = records + 1 WHERE day = ?", Date.valueOf(JAN_20));
+		jdbcTemplate.update("UPDATE donation_daily_rollup SET units = 99 WHERE day = ?", Date.valueOf(FEB_2));
+
+		assertEquals(2, dailyRollups.reconcile(Table.DONATIONS, JAN_5, FEB_2));
+		assertEquals(0, dailyRollups.reconcile(Table.DONATIONS, JAN_5, FEB_2));
+
+		assertEquals(List.of(row(JAN_5, 2, 4), row(JAN_20, 1, 1), row(FEB_2, 1, 99)),
+				dailyRollups.query(Table.DONATIONS, JAN_5, FEB_2, "day", List.of(), null, null, null));
+		assertEquals(1, dailyRollups.reconcile(Table.DONATIONS, FEB_2, MAR_1));
+		assertEquals(List.of(row(FEB_2, 1, 2)),
+				dailyRollups.query(Table.DONATIONS, FEB_2, FEB_2, "day", List.of(), null, null, null));
+		assertEquals(0, dailyRollups.reconcile(Table.REQUESTS, JAN_5, MAR_1));
+	}
+
+	private void inTransaction(Runnable work) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+	}
+
+	private void donate(LocalDate day, String bloodType, String location, boolean available, int amount) {
+		jdbcTemplate.update("INSERT INTO donations (blood_type, amount, available, donation_date, location) "
+				+ "VALUES (?, ?, ?, ?, ?)", bloodType, amount, available, Date.valueOf(day), location);
+		dailyRollups.added(DailyRollups.donation(day, bloodType, location, available, amount));
+	}
+
+	private void request(LocalDate day, String bloodType, String hospital, String status, int amount) {
+		jdbcTemplate.update("INSERT INTO requests (blood_type, amount, urgency, hospital_name, request_date, status) "
+				+ "VALUES (?, ?, 'High', ?, ?, ?)", bloodType, amount, hospital, Date.valueOf(day), status);
+		dailyRollups.added(DailyRollups.request(day, bloodType, hospital, status, amount));
+	}
+
+	private int rollupRows(String table) {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+	}
+
+	private static Map<String, Object> row(LocalDate period, long records, long units) {
+		return Map.of("period", period, "records", records, "units", units);
+	}
+
+	private static Map<String, Object> row(LocalDate period, String bloodType, long records, long units) {
+		return Map.of("period", period, "bloodType", bloodType, "records", records, "units", units);
+	}
+
+	private static Map<String, Object> row(LocalDate period, String bloodType, String status, long records, long units) {
+		return Map.of("period", period, "bloodType", bloodType, "status", status, "records", records, "units", units);
+	}
+}
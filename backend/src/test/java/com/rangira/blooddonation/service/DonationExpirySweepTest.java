@@ -0,0 +1,173 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.journal.DomainEvent;
+import com.rangira.blooddonation.journal.EventJournal;
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The batched expiry sweep and the first-expiring-first stock queries,
+ * against an embedded database.
+ */
+@DataJpaTest(showSql = false, properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Import({BloodDonationService.class, DonationExpirySweeper.class})
+class DonationExpirySweepTest {
+
+	private static final LocalDate TODAY = LocalDate.now();
+
+	@Autowired
+	private DonationExpirySweeper sweeper;
+
+	@SpyBean
+	private BloodDonationService bloodDonationService;
+
+	@SpyBean
+	private BloodDonationRepository bloodDonationRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private EventJournal eventJournal;
+
+	@MockBean
+	private RecentFeeds recentFeeds;
+
+	@MockBean
+	private SearchIndex searchIndex;
+
+	@MockBean
+	private DonorDirectory donorDirectory;
+
+	@MockBean
+	private InvalidationBus invalidationBus;
+
+	@MockBean
+	private SiteService siteService;
+
+	@MockBean
+	private DailyRollups dailyRollups;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+	}
+
+	@Test
+	void fullBatchRunsAnotherPass() {
+		for (int i = 1; i <= 4; i++) {
+			donation("O+", TODAY.minusDays(i), true);
+		}
+		BloodDonation fresh = donation("O+", TODAY, true);
+
+		sweeper.sweep();
+
+		// 2 and 2, then an empty pass to be sure nothing was left behind
+		verify(bloodDonationService, times(3)).expireDonations(TODAY, 2);
+		assertEquals(List.of(fresh.getId()), ids(bloodDonationRepository.findByAvailableTrueOrderByExpiryDateAsc()));
+		verify(eventJournal, times(4)).record(eq(DomainEvent.DONATION_EXPIRED), any(), any(String[].class));
+	}
+
+	@Test
+	void partialBatchEndsTheSweep() {
+		for (int i = 1; i <= 3; i++) {
+			donation("A-", TODAY.minusDays(i), true);
+		}
+
+		sweeper.sweep();
+
+		verify(bloodDonationService, times(2)).expireDonations(TODAY, 2);
+		assertEquals(List.of(), bloodDonationRepository.findByAvailableTrueOrderByExpiryDateAsc());
+	}
+
+	@Test
+	void onlyUnitsThisSweepChangedAreJournaledAndRolledUp() {
+		BloodDonation used = donation("B+", TODAY.minusDays(3), true);
+		BloodDonation expired = donation("B+", TODAY.minusDays(2), true);
+		// The select saw both, then a concurrent transaction took one out of stock before the lock
+		doReturn(List.of(used, expired)).when(bloodDonationRepository).findExpiredAvailable(eq(TODAY), any());
+		jdbcTemplate.update("UPDATE donations SET available = false WHERE id = ?", used.getId());
+
+		assertEquals(1, bloodDonationService.expireDonations(TODAY, 10));
+
+		verify(eventJournal).record(eq(DomainEvent.DONATION_EXPIRED), eq(expired.getId()), any(String[].class));
+		verify(eventJournal, never()).record(eq(DomainEvent.DONATION_EXPIRED), eq(used.getId()), any(String[].class));
+		verify(dailyRollups, times(1)).changed(any(), any());
+		verify(recentFeeds).donationsChanged(List.of(expired.getId()));
+		verify(invalidationBus).publish(any(), eq(List.of(expired.getId())));
+	}
+
+	@Test
+	void nothingExpiredTouchesNothing() {
+		donation("AB+", TODAY, true);
+		donation("AB+", TODAY.minusDays(1), false);
+
+		assertEquals(0, bloodDonationService.expireDonations(TODAY, 10));
+		verify(bloodDonationRepository, never()).markUnavailable(anyList());
+		verify(eventJournal, never()).record(anyString(), any(), any(String[].class));
+		verify(dailyRollups, never()).changed(any(), any());
+	}
+
+	@Test
+	void stockIsListedFirstExpiringFirst() {
+		BloodDonation late = donation("O-", TODAY.plusDays(30), true);
+		BloodDonation soon = donation("O-", TODAY.plusDays(2), true);
+		BloodDonation other = donation("A+", TODAY.plusDays(1), true);
+		donation("O-", TODAY.plusDays(1), false);
+		BloodDonation middle = donation("O-", TODAY.plusDays(10), true);
+
+		assertEquals(List.of(other.getId(), soon.getId(), middle.getId(), late.getId()),
+				ids(bloodDonationService.getAvailableDonations()));
+		assertEquals(List.of(soon.getId(), middle.getId(), late.getId()),
+				ids(bloodDonationService.getDonationsByBloodType("O-")));
+	}
+
+	@Test
+	void sweepTakesTheOldestExpiredUnitsFirst() {
+		BloodDonation newer = donation("O+", TODAY.minusDays(1), true);
+		BloodDonation oldest = donation("O+", TODAY.minusDays(9), true);
+		BloodDonation older = donation("O+", TODAY.minusDays(5), true);
+
+		assertEquals(2, bloodDonationService.expireDonations(TODAY, 2));
+		assertEquals(List.of(newer.getId()), ids(bloodDonationRepository.findByAvailableTrueOrderByExpiryDateAsc()));
+		verify(eventJournal).record(eq(DomainEvent.DONATION_EXPIRED), eq(oldest.getId()), any(String[].class));
+		verify(eventJournal).record(eq(DomainEvent.DONATION_EXPIRED), eq(older.getId()), any(String[].class));
+	}
+
+	private BloodDonation donation(String bloodType, LocalDate expiryDate, boolean available) {
+		BloodDonation donation = new BloodDonation();
+		donation.setBloodType(bloodType);
+		donation.setAmount(1);
+		donation.setAvailable(available);
+		donation.setDonationDate(expiryDate.minusDays(42));
+		donation.setExpiryDate(expiryDate);
+		donation.setLocation("Kigali");
+		return bloodDonationRepository.save(donation);
+	}
+
+	private static List<Long> ids(List<BloodDonation> donations) {
+		return donations.stream().map(BloodDonation::getId).toList();
+	}
+}
@@ -0,0 +1,180 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.service.DonorDirectory.Eligibility;
+import com.rangira.blooddonation.service.DonorDirectory.Filter;
+import com.rangira.blooddonation.service.DonorDirectory.Page;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Eligibility and paging of the donor directory over an embedded database
+ * holding the columns it reads, with the directory's clock moved by hand.
+ */
+class DonorDirectoryTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+	private static final int INTERVAL_DAYS = 56;
+
+	private JdbcTemplate jdbcTemplate;
+	private DonorDirectory directory;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:donor-directory;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, role VARCHAR(20), blood_type VARCHAR(5), age INT)");
+		jdbcTemplate.execute("CREATE TABLE donations (id BIGINT AUTO_INCREMENT PRIMARY KEY, donor_id BIGINT, "
+				+ "donation_date DATE, site_id BIGINT)");
+
+		directory = new DonorDirectory();
+		ReflectionTestUtils.setField(directory, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(directory, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(directory, "rebuildExecutor", (Executor) Runnable::run);
+		ReflectionTestUtils.setField(directory, "donationIntervalDays", INTERVAL_DAYS);
+		ReflectionTestUtils.setField(directory, "minAge", 18);
+		ReflectionTestUtils.setField(directory, "maxAge", 65);
+		today(TODAY);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void answersOnlyOnceBuilt() {
+		Filter any = new Filter(null, null, null, null, null);
+		assertThrows(IllegalStateException.class, () -> directory.find(any, null, 10));
+		directory.rebuild();
+		assertEquals(0, directory.find(any, null, 10).total());
+	}
+
+	@Test
+	void donorBecomesEligibleOnTheDayTheIntervalEnds() {
+		donor(1, "O-", 30);
+		donation(1, TODAY.minusDays(INTERVAL_DAYS), null);      // eligible from today
+		donor(2, "O-", 30);
+		donation(2, TODAY.minusDays(INTERVAL_DAYS - 1), null);  // eligible from tomorrow
+		donor(3, "O-", 30);                                     // never donated
+		directory.rebuild();
+
+		assertEquals(List.of(1L, 3L), ids(Eligibility.ELIGIBLE));
+		assertEquals(List.of(2L), ids(Eligibility.DEFERRED));
+		assertEquals(List.of(), ids(Eligibility.INELIGIBLE));
+
+		// Deferred donors move over when their day comes, without a rebuild
+		today(TODAY.plusDays(1));
+		assertEquals(List.of(1L, 2L, 3L), ids(Eligibility.ELIGIBLE));
+		assertEquals(List.of(), ids(Eligibility.DEFERRED));
+	}
+
+	@Test
+	void latestDonationDecidesTheDeferral() {
+		donor(1, "A+", 40);
+		donation(1, TODAY.minusDays(200), null);
+		donation(1, TODAY.minusDays(10), null);
+		donation(1, TODAY.minusDays(100), null);
+		directory.rebuild();
+
+		assertEquals(List.of(1L), ids(Eligibility.DEFERRED));
+		today(TODAY.plusDays(INTERVAL_DAYS - 11));
+		assertEquals(List.of(1L), ids(Eligibility.DEFERRED));
+		today(TODAY.plusDays(INTERVAL_DAYS - 10));
+		assertEquals(List.of(1L), ids(Eligibility.ELIGIBLE));
+	}
+
+	@Test
+	void agesOutsideTheLimitsAreIneligibleWhateverTheirDonations() {
+		donor(1, "B+", 17);
+		donor(2, "B+", 18);
+		donor(3, "B+", 65);
+		donor(4, "B+", 66);
+		donor(5, "B+", null);
+		donor(6, "B+", 17);
+		donation(6, TODAY.minusDays(5), null);
+		directory.rebuild();
+
+		assertEquals(List.of(2L, 3L, 5L), ids(Eligibility.ELIGIBLE));
+		assertEquals(List.of(1L, 4L, 6L), ids(Eligibility.INELIGIBLE));
+		assertEquals(List.of(), ids(Eligibility.DEFERRED));
+	}
+
+	@Test
+	void reloadRefilesADonorAfterANewDonation() {
+		donor(1, "AB-", 25);
+		directory.rebuild();
+		assertEquals(List.of(1L), ids(Eligibility.ELIGIBLE));
+
+		donation(1, TODAY, 7L);
+		directory.donorChanged(1L);
+		assertEquals(List.of(1L), ids(Eligibility.DEFERRED));
+		assertEquals(List.of(1L), directory.find(new Filter(null, null, null, null, Set.of(7L)), null, 10).ids());
+
+		jdbcTemplate.update("DELETE FROM donations");
+		jdbcTemplate.update("DELETE FROM users");
+		directory.donorChanged(1L);
+		assertEquals(0, directory.find(new Filter(null, null, null, null, null), null, 10).total());
+	}
+
+	@Test
+	void pagesThroughEveryMatchInIdOrder() {
+		// Ids spread over three 65,536-id chunks of the bitmaps
+		List<Long> expected = new ArrayList<>();
+		for (long i = 1; i <= 2_500; i++) {
+			long id = i * 53;
+			int age = 20 + (int) (i % 40);
+			donor(id, i % 2 == 0 ? "O+" : "A+", age);
+			if (i % 2 == 0 && age <= 40) {
+				expected.add(id);
+			}
+		}
+		directory.rebuild();
+
+		Filter filter = new Filter(Set.of("O+"), 18, 40, Eligibility.ELIGIBLE, null);
+		List<Long> found = new ArrayList<>();
+		Long cursor = null;
+		do {
+			Page page = directory.find(filter, cursor, 100);
+			assertEquals(expected.size(), page.total());
+			found.addAll(page.ids());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertEquals(expected, found);
+		assertEquals(List.of(), directory.find(filter, found.get(found.size() - 1), 100).ids());
+	}
+
+	private List<Long> ids(Eligibility eligibility) {
+		return directory.find(new Filter(null, null, null, eligibility, null), null, 100).ids();
+	}
+
+	private void today(LocalDate day) {
+		ReflectionTestUtils.setField(directory, "clock",
+				Clock.fixed(day.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+	}
+
+	private void donor(long id, String bloodType, Integer age) {
+		jdbcTemplate.update("INSERT INTO users (id, role, blood_type, age) VALUES (?, 'DONOR', ?, ?)", id, bloodType, age);
+	}
+
+	private void donation(long donorId, LocalDate day, Long siteId) {
+		jdbcTemplate.update("INSERT INTO donations (donor_id, donation_date, site_id) VALUES (?, ?, ?)",
+				donorId, Date.valueOf(day), siteId);
+	}
+}
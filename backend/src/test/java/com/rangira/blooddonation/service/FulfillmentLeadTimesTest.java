@@ -0,0 +1,118 @@
+package com.rangira.blooddonation.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FulfillmentLeadTimesTest {
+
+	private static final LocalDateTime CREATED = LocalDateTime.of(2026, 10, 1, 8, 0);
+
+	private SimpleMeterRegistry registry;
+	private JdbcTemplate jdbcTemplate;
+	private FulfillmentLeadTimes leadTimes;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:lead-times;DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("CREATE TABLE requests (urgency VARCHAR(20), hospital_name VARCHAR(100), "
+				+ "created_at TIMESTAMP, fulfilled_at TIMESTAMP)");
+		leadTimes = new FulfillmentLeadTimes();
+		ReflectionTestUtils.setField(leadTimes, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(leadTimes, "meterRegistry", registry);
+		ReflectionTestUtils.setField(leadTimes, "historyDays", 365);
+		ReflectionTestUtils.setField(leadTimes, "maxHospitals", 20);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void percentilesArePublishedPerUrgencyAndHospital() {
+		for (int minutes = 1; minutes <= 100; minutes++) {
+			leadTimes.fulfilled(" high", "CHUK", CREATED, CREATED.plusMinutes(minutes));
+		}
+		leadTimes.fulfilled("Low", "King Faisal", CREATED, CREATED.plusHours(30));
+		// No timestamps, no lead time
+		leadTimes.fulfilled("Low", "King Faisal", null, CREATED);
+
+		Map<String, Object> high = leadTimes.overview(null, null).get(0);
+		assertEquals("High", high.get("urgency"));
+		assertNull(high.get("hospital"));
+		assertEquals(100L, high.get("count"));
+		assertEquals(3030L, high.get("meanSeconds"));
+		assertAround(3000, (Long) high.get("p50Seconds"));
+		assertAround(5400, (Long) high.get("p90Seconds"));
+		assertAround(5940, (Long) high.get("p99Seconds"));
+		assertEquals(6000L, high.get("maxSeconds"));
+
+		Timer chuk = registry.get("blooddonation.request.lead.time").tags("urgency", "High", "hospital", "CHUK").timer();
+		assertEquals(100, chuk.count());
+		double p50 = registry.get("blooddonation.request.lead.time.percentile")
+				.tags("urgency", "High", "hospital", "CHUK", "phi", "0.5").gauge().value();
+		assertAround(3000, Math.round(p50));
+
+		assertEquals(List.of("King Faisal"), leadTimes.overview("low", null).stream()
+				.filter(row -> row.get("hospital") != null).map(row -> row.get("hospital")).toList());
+		assertEquals(1L, leadTimes.overview(null, "king  faisal").get(0).get("count"));
+	}
+
+	@Test
+	void hospitalsBeyondTheCapShareOneSeries() {
+		ReflectionTestUtils.setField(leadTimes, "maxHospitals", 2);
+		for (String hospital : List.of("CHUK", "King Faisal", "Kibagabaga", "Muhima", "chuk")) {
+			leadTimes.fulfilled("Medium", hospital, CREATED, CREATED.plusHours(1));
+		}
+
+		Set<String> hospitals = registry.get("blooddonation.request.lead.time").timers().stream()
+				.map(timer -> timer.getId().getTag("hospital")).collect(Collectors.toSet());
+		assertEquals(Set.of("all", "CHUK", "King Faisal", "(other)"), hospitals);
+		assertEquals(2, registry.get("blooddonation.request.lead.time").tags("hospital", "(other)").timer().count());
+		assertEquals(2, registry.get("blooddonation.request.lead.time").tags("hospital", "CHUK").timer().count());
+	}
+
+	@Test
+	void rebuildReplacesTheTimersWithTheHistory() {
+		leadTimes.fulfilled("High", "CHUK", CREATED, CREATED.plusHours(5));
+		LocalDateTime now = LocalDateTime.now();
+		insert("High", "CHUK", now.minusHours(3), now.minusHours(1));
+		insert("high", "chuk", now.minusHours(7), now.minusHours(1));
+		// Outside the history
+		insert("High", "CHUK", now.minusDays(400), now.minusDays(399));
+
+		leadTimes.rebuild();
+
+		Timer chuk = registry.get("blooddonation.request.lead.time").tags("urgency", "High", "hospital", "CHUK").timer();
+		assertEquals(2, chuk.count());
+		assertEquals(1, registry.get("blooddonation.request.lead.time").tags("urgency", "High", "hospital", "CHUK").timers().size());
+		assertEquals(4 * 3600L, leadTimes.overview("High", null).get(0).get("meanSeconds"));
+	}
+
+	private void insert(String urgency, String hospital, LocalDateTime createdAt, LocalDateTime fulfilledAt) {
+		jdbcTemplate.update("INSERT INTO requests VALUES (?, ?, ?, ?)", urgency, hospital,
+				Timestamp.valueOf(createdAt), Timestamp.valueOf(fulfilledAt));
+	}
+
+	// Percentiles are kept to two significant digits
+	private static void assertAround(long expected, long actual) {
+		assertEquals(expected, actual, expected / 100.0 + 1, "expected about " + expected + " but was " + actual);
+	}
+}
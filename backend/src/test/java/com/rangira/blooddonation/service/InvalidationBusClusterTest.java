@@ -0,0 +1,119 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.BlooddonationApplication;
+import com.rangira.blooddonation.model.BloodDonation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application instances against one PostgreSQL: a donation written through
+ * one must show up in the other's in-memory recent feed, both through a NOTIFY
+ * and, when the listener connection was cut while the write happened, through
+ * the resync after it reconnects.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InvalidationBusClusterTest {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+	private static String donor;
+
+	@BeforeAll
+	static void startNodes() {
+		nodeA = start();
+		nodeB = start();
+
+		donor = "cluster-" + UUID.randomUUID();
+		nodeA.getBean(JdbcTemplate.class).update(
+				"INSERT INTO users (username, password, email, role) VALUES (?, 'unused', ?, 'DONOR')",
+				donor, donor + "@example.com");
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		if (nodeA != null) {
+			nodeA.close();
+		}
+		if (nodeB != null) {
+			nodeB.close();
+		}
+	}
+
+	@Test
+	void writeOnOneNodeRefreshesTheOtherNodesFeed() {
+		RecentFeeds feedsOnB = nodeB.getBean(RecentFeeds.class);
+		feedsOnB.recentDonations();
+
+		Long id = donateOn(nodeA);
+
+		assertTrue(eventually(() -> feedsOnB.recentDonations().stream().anyMatch(d -> id.equals(d.getId()))),
+				"donation " + id + " written on node A never reached node B's recent feed");
+	}
+
+	@Test
+	void reconnectResyncsWhatWasMissed() {
+		RecentFeeds feedsOnB = nodeB.getBean(RecentFeeds.class);
+		feedsOnB.recentDonations();
+
+		// Cut every listener connection; the NOTIFY for the next write reaches nobody
+		nodeA.getBean(JdbcTemplate.class).queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+				+ "WHERE query LIKE 'LISTEN %' AND pid <> pg_backend_pid()");
+		Long id = donateOn(nodeA);
+
+		assertTrue(eventually(() -> feedsOnB.recentDonations().stream().anyMatch(d -> id.equals(d.getId()))),
+				"donation " + id + " missed during the disconnect was not picked up by the resync");
+	}
+
+	private static ConfigurableApplicationContext start() {
+		return new SpringApplicationBuilder(BlooddonationApplication.class)
+				.properties(
+						"spring.datasource.url=" + postgres.getJdbcUrl(),
+						"spring.datasource.username=" + postgres.getUsername(),
+						"spring.datasource.password=" + postgres.getPassword(),
+						"server.port=0",
+						"journal.enabled=false",
+						"invalidation.enabled=true",
+						"invalidation.poll-ms=100",
+						"invalidation.reconnect-delay-ms=1000")
+				.run();
+	}
+
+	private static Long donateOn(ConfigurableApplicationContext node) {
+		BloodDonation donation = new BloodDonation();
+		donation.setBloodType("O+");
+		donation.setAmount(1);
+		return node.getBean(BloodDonationService.class).createDonation(donation, donor).getId();
+	}
+
+	private static boolean eventually(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 15_000;
+		while (System.currentTimeMillis() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return false;
+	}
+}
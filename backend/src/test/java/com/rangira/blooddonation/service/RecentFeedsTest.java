@@ -0,0 +1,138 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.BloodDonation;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.repository.BloodDonationRepository;
+import com.rangira.blooddonation.repository.BloodRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The recent feeds against mocked repositories; without a transaction the
+ * changes reported by the services apply at once.
+ */
+class RecentFeedsTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+	private BloodDonationRepository donationRepository;
+	private BloodRequestRepository requestRepository;
+	private RecentFeeds feeds;
+
+	@BeforeEach
+	void setUp() {
+		donationRepository = mock(BloodDonationRepository.class);
+		requestRepository = mock(BloodRequestRepository.class);
+		feeds = new RecentFeeds(2, 1);
+		ReflectionTestUtils.setField(feeds, "bloodDonationRepository", donationRepository);
+		ReflectionTestUtils.setField(feeds, "bloodRequestRepository", requestRepository);
+	}
+
+	@Test
+	void readsOnDemandUntilSeededThenServesFromMemory() {
+		when(donationRepository.findRecent(any(Pageable.class)))
+				.thenReturn(List.of(donation(3, 0, "Kigali"), donation(2, 1, "Huye"), donation(1, 2, "Musanze")));
+
+		assertEquals(List.of(3L, 2L), donationIds());
+		assertEquals(List.of(3L, 2L), donationIds());
+		verify(donationRepository, times(1)).findRecent(any(Pageable.class));
+
+		feeds.donationSaved(donation(4, 0, "Nyagatare"));
+		feeds.donationDeleted(3L);
+		assertEquals(List.of(4L, 2L), donationIds());
+		verify(donationRepository, times(1)).findRecent(any(Pageable.class));
+	}
+
+	@Test
+	void donationSavedWhileSeedingIsNotOverwrittenByTheOlderRow() {
+		BloodDonation before = donation(5, 0, "Kigali");
+		BloodDonation after = donation(5, 0, "Kigali");
+		after.setAvailable(false);
+		// The read returns 5 as it was, while the service saves its update
+		when(donationRepository.findRecent(any(Pageable.class))).thenAnswer(invocation -> {
+			feeds.donationSaved(after);
+			return List.of(before, donation(4, 1, "Huye"));
+		});
+		when(requestRepository.findRecent(any(Pageable.class))).thenReturn(List.of());
+		feeds.seed();
+
+		assertEquals(Boolean.FALSE, feeds.recentDonations().get(0).getAvailable());
+		assertEquals(List.of(5L, 4L), donationIds());
+	}
+
+	@Test
+	void requestDeletedWhileSeedingStaysDeleted() {
+		when(donationRepository.findRecent(any(Pageable.class))).thenReturn(List.of());
+		when(requestRepository.findRecent(any(Pageable.class))).thenAnswer(invocation -> {
+			feeds.requestDeleted(8L);
+			return List.of(request(8, 0), request(7, 1));
+		});
+		feeds.seed();
+
+		assertEquals(List.of(7L), feeds.recentRequests().stream().map(BloodRequest::getId).toList());
+	}
+
+	@Test
+	void bulkChangesRereadOnlyWhenTheFeedHoldsAnAffectedId() {
+		when(donationRepository.findRecent(any(Pageable.class)))
+				.thenReturn(List.of(donation(2, 0, "Kigali"), donation(1, 1, "Huye")));
+		feeds.recentDonations();
+
+		feeds.donationsChanged(List.of(40L, 41L));
+		verify(donationRepository, times(1)).findRecent(any(Pageable.class));
+		feeds.donationsChanged(List.of(41L, 1L));
+		verify(donationRepository, times(2)).findRecent(any(Pageable.class));
+	}
+
+	@Test
+	void invalidationFromAnotherInstanceRereadsTheTouchedFeeds() {
+		when(donationRepository.findRecent(any(Pageable.class))).thenReturn(List.of(donation(1, 0, "Kigali")));
+		when(requestRepository.findRecent(any(Pageable.class))).thenReturn(List.of(request(1, 0)));
+		feeds.seed();
+
+		when(donationRepository.findRecent(any(Pageable.class))).thenReturn(List.of(donation(2, 0, "Huye")));
+		feeds.onInvalidation(new CacheInvalidationEvent("other-instance", Map.of(Topic.DONATION, Set.of("2"))));
+		assertEquals(List.of(2L), donationIds());
+		verify(requestRepository, times(1)).findRecent(any(Pageable.class));
+
+		feeds.onInvalidation(new CacheInvalidationEvent("other-instance", Map.of(Topic.USER, Set.of("9"))));
+		verify(donationRepository, times(3)).findRecent(any(Pageable.class));
+		verify(requestRepository, times(2)).findRecent(any(Pageable.class));
+	}
+
+	private List<Long> donationIds() {
+		return feeds.recentDonations().stream().map(BloodDonation::getId).toList();
+	}
+
+	private static BloodDonation donation(long id, int daysAgo, String location) {
+		BloodDonation donation = new BloodDonation();
+		donation.setId(id);
+		donation.setDonationDate(TODAY.minusDays(daysAgo));
+		donation.setLocation(location);
+		donation.setAvailable(true);
+		return donation;
+	}
+
+	private static BloodRequest request(long id, int daysAgo) {
+		BloodRequest request = new BloodRequest();
+		request.setId(id);
+		request.setRequestDate(TODAY.minusDays(daysAgo));
+		return request;
+	}
+}
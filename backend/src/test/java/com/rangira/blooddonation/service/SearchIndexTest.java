@@ -0,0 +1,166 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.event.CacheInvalidationEvent;
+import com.rangira.blooddonation.event.CacheInvalidationEvent.Topic;
+import com.rangira.blooddonation.model.BloodRequest;
+import com.rangira.blooddonation.model.User;
+import com.rangira.blooddonation.service.SearchIndex.Results;
+import com.rangira.blooddonation.service.SearchIndex.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The search index built from and refreshed against an embedded database
+ * holding the columns it reads.
+ */
+class SearchIndexTest {
+
+	private static final Set<Type> ALL_TYPES = EnumSet.allOf(Type.class);
+
+	private JdbcTemplate jdbcTemplate;
+	private SearchIndex searchIndex;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:search-index;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(100), email VARCHAR(100))");
+		jdbcTemplate.execute("CREATE TABLE requests (id BIGINT PRIMARY KEY, hospital_name VARCHAR(100), "
+				+ "requester_name VARCHAR(100), reason VARCHAR(255), blood_type VARCHAR(5), user_id BIGINT)");
+		jdbcTemplate.execute("CREATE TABLE donations (id BIGINT PRIMARY KEY, location VARCHAR(100), notes VARCHAR(255), "
+				+ "blood_type VARCHAR(5), donor_id BIGINT)");
+
+		searchIndex = new SearchIndex();
+		ReflectionTestUtils.setField(searchIndex, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(searchIndex, "rebuildExecutor", (Executor) Runnable::run);
+		ReflectionTestUtils.setField(searchIndex, "maxPrefixTerms", 256);
+
+		jdbcTemplate.update("INSERT INTO users VALUES (1, 'admin', 'admin@chuk.rw')");
+		jdbcTemplate.update("INSERT INTO requests VALUES (10, 'CHUK', 'Dr. Uwase', 'Surgery in Kigali', 'O-', 1)");
+		jdbcTemplate.update("INSERT INTO requests VALUES (11, 'CHUB', 'Dr. Kigali Mugabo', 'Anaemia', 'A+', 2)");
+		jdbcTemplate.update("INSERT INTO donations VALUES (20, 'Kigali', 'Drive at CHUK', 'O-', 2)");
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void findsNothingUntilBuilt() {
+		assertEquals(List.of(), searchIndex.search("kigali", ALL_TYPES, 10).hits());
+	}
+
+	@Test
+	void ranksNameFieldsAboveFreeTextAndFiltersByType() {
+		searchIndex.rebuild();
+
+		// Kigali is the donation's location (name field), the second request's requester
+		// (secondary) and the first request's reason (free text)
+		Results results = searchIndex.search("kigali", ALL_TYPES, 10);
+		assertEquals(List.of("donation:20", "request:11", "request:10"), keys(results.hits()));
+		assertEquals(List.of(), results.truncatedPrefixes());
+
+		Map<String, Object> donation = results.hits().get(0);
+		assertEquals("Kigali", donation.get("title"));
+		assertEquals("Drive at CHUK", donation.get("subtitle"));
+		assertEquals("O-", donation.get("bloodType"));
+
+		assertEquals(List.of("request:11", "request:10"),
+				keys(searchIndex.search("kigali", EnumSet.of(Type.REQUEST), 10).hits()));
+		assertEquals(List.of("donation:20"), keys(searchIndex.search("kigali chuk", EnumSet.of(Type.DONATION), 10).hits()));
+	}
+
+	@Test
+	void savesAndDeletesApplyWithoutATransaction() {
+		searchIndex.rebuild();
+
+		BloodRequest request = new BloodRequest();
+		request.setId(12L);
+		request.setHospitalName("Ruhengeri Hospital");
+		request.setRequesterName("Dr. Habimana");
+		request.setReason("Road accident");
+		request.setBloodType("B+");
+		searchIndex.requestSaved(request);
+		assertEquals(List.of("request:12"), keys(searchIndex.search("ruhen acc", ALL_TYPES, 10).hits()));
+
+		request.setHospitalName("Musanze Hospital");
+		searchIndex.requestSaved(request);
+		assertEquals(List.of(), searchIndex.search("ruhengeri", ALL_TYPES, 10).hits());
+		assertEquals(List.of("request:12"), keys(searchIndex.search("musanze", ALL_TYPES, 10).hits()));
+
+		searchIndex.deleted(Type.REQUEST, 12L);
+		searchIndex.deleted(Type.DONATION, 20L);
+		assertEquals(List.of(), searchIndex.search("musanze", ALL_TYPES, 10).hits());
+		assertEquals(List.of("request:10"), keys(searchIndex.search("chuk", EnumSet.of(Type.REQUEST, Type.DONATION), 10).hits()));
+	}
+
+	@Test
+	void invalidationRereadsChangedRowsAndDropsDeletedOnes() {
+		searchIndex.rebuild();
+
+		jdbcTemplate.update("UPDATE requests SET hospital_name = 'King Faisal Hospital' WHERE id = 10");
+		jdbcTemplate.update("DELETE FROM donations WHERE id = 20");
+		searchIndex.onInvalidation(new CacheInvalidationEvent("other-instance",
+				Map.of(Topic.REQUEST, Set.of("10"), Topic.DONATION, Set.of("20"))));
+
+		assertEquals(List.of("request:10"), keys(searchIndex.search("faisal", ALL_TYPES, 10).hits()));
+		assertEquals(List.of(), searchIndex.search("chuk", EnumSet.of(Type.REQUEST, Type.DONATION), 10).hits());
+
+		// Everything changed: rebuilt from the tables
+		jdbcTemplate.update("INSERT INTO donations VALUES (21, 'Nyagatare', null, 'AB+', null)");
+		searchIndex.onInvalidation(new CacheInvalidationEvent("other-instance",
+				Map.of(Topic.DONATION, Set.of(CacheInvalidationEvent.ALL))));
+		assertEquals(List.of("donation:21"), keys(searchIndex.search("nyagatare", ALL_TYPES, 10).hits()));
+	}
+
+	@Test
+	void reportsWordsWhosePrefixMatchesTooManyTerms() {
+		ReflectionTestUtils.setField(searchIndex, "maxPrefixTerms", 2);
+		jdbcTemplate.update("INSERT INTO donations VALUES (22, 'Kibungo', null, 'B-', null)");
+		jdbcTemplate.update("INSERT INTO donations VALUES (23, 'Kibuye', null, 'B-', null)");
+		searchIndex.rebuild();
+
+		Results results = searchIndex.search("ki", ALL_TYPES, 10);
+		assertEquals(List.of("ki"), results.truncatedPrefixes());
+		assertEquals(2, results.hits().size());
+		assertTrue(searchIndex.search("kigali", ALL_TYPES, 10).truncatedPrefixes().isEmpty());
+	}
+
+	@Test
+	void ownerRestrictsHitsToThatUsersDocuments() {
+		searchIndex.rebuild();
+
+		assertEquals(List.of("donation:20", "request:11"), keys(searchIndex.search("kigali", ALL_TYPES, 10, 2L).hits()));
+		assertEquals(List.of("request:10"), keys(searchIndex.search("kigali", ALL_TYPES, 10, 1L).hits()));
+		assertEquals(List.of(), searchIndex.search("kigali", ALL_TYPES, 10, 3L).hits());
+
+		// Saved through the service: owned by its requester
+		User requester = new User();
+		requester.setId(3L);
+		BloodRequest request = new BloodRequest();
+		request.setId(12L);
+		request.setHospitalName("Kigali University Hospital");
+		request.setRequester(requester);
+		searchIndex.requestSaved(request);
+		assertEquals(List.of("request:12"), keys(searchIndex.search("kigali", ALL_TYPES, 10, 3L).hits()));
+		assertEquals(4, searchIndex.search("kigali", ALL_TYPES, 10).hits().size());
+	}
+
+	private static List<String> keys(List<Map<String, Object>> hits) {
+		return hits.stream().map(hit -> hit.get("type") + ":" + hit.get("id")).toList();
+	}
+}
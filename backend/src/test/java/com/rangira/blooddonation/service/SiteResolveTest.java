@@ -0,0 +1,86 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.model.Site;
+import com.rangira.blooddonation.repository.SiteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Registering free-text site names against an embedded database, including a
+ * name another writer registered after this instance last refreshed its map.
+ */
+@DataJpaTest(showSql = false, properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.datasource.url=jdbc:h2:mem:site-resolve;DB_CLOSE_DELAY=-1"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SiteService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SiteResolveTest {
+
+	@Autowired
+	private SiteService siteService;
+
+	@Autowired
+	private SiteRepository siteRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Never knows a name, so every resolve goes to the database
+	@MockBean
+	private SiteRegistry siteRegistry;
+
+	@MockBean
+	private InvalidationBus invalidationBus;
+
+	@AfterEach
+	void cleanUp() {
+		siteRepository.deleteAll();
+	}
+
+	@Test
+	void newNameIsRegisteredOnce() {
+		Long first = siteService.resolve("  King Faisal  Hospital ", SiteService.HOSPITAL);
+		Long again = siteService.resolve("king faisal hospital", SiteService.HOSPITAL);
+
+		assertEquals(first, again);
+		List<Site> sites = siteRepository.findAll();
+		assertEquals(1, sites.size());
+		assertEquals("King Faisal  Hospital", sites.get(0).getName());
+		assertEquals("king faisal hospital", sites.get(0).getNormalizedName());
+		verify(siteRegistry, times(2)).siteSaved(any());
+		assertNull(siteService.resolve("   ", SiteService.HOSPITAL));
+	}
+
+	@Test
+	void losingTheInsertRaceLeavesTheTransactionUsable() {
+		Long existing = siteService.resolve("CHUK", SiteService.HOSPITAL);
+
+		Long resolved = new TransactionTemplate(transactionManager).execute(status -> {
+			Long id = siteService.resolve("chuk", SiteService.HOSPITAL);
+			// The duplicate insert must not have doomed the rest of the transaction
+			siteService.resolve("Kigali Donation Centre", SiteService.DONATION_SITE);
+			return id;
+		});
+
+		assertEquals(existing, resolved);
+		assertEquals(List.of("chuk", "kigali donation centre"),
+				siteRepository.findAll().stream().map(Site::getNormalizedName).sorted().toList());
+	}
+}
@@ -0,0 +1,73 @@
+package com.rangira.blooddonation.service;
+
+import com.rangira.blooddonation.model.AppointmentSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotCapacityGateTest {
+
+	@Test
+	void concurrentBookingsNeverOverbook() throws Exception {
+		SlotCapacityGate gate = new SlotCapacityGate();
+		AppointmentSlot slot = new AppointmentSlot(1L, "Kigali", LocalDate.now(), LocalTime.of(9, 0), 100, 0);
+
+		// 1000 bookings released at once, well above the 1k/s launch peak
+		int bookings = 1000;
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger admitted = new AtomicInteger();
+		for (int i = 0; i < bookings; i++) {
+			pool.submit(() -> {
+				start.await();
+				if (gate.tryAcquire(slot)) {
+					admitted.incrementAndGet();
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(100, admitted.get());
+		assertEquals(0, gate.remaining(1L));
+	}
+
+	@Test
+	void releaseFreesPlaceButNeverExceedsCapacity() {
+		SlotCapacityGate gate = new SlotCapacityGate();
+		AppointmentSlot slot = new AppointmentSlot(2L, "Huye", LocalDate.now(), LocalTime.of(10, 0), 2, 1);
+
+		assertTrue(gate.tryAcquire(slot));
+		assertEquals(0, gate.remaining(2L));
+
+		gate.release(2L);
+		gate.release(2L);
+		gate.release(2L);
+		assertEquals(2, gate.remaining(2L));
+	}
+
+	@Test
+	void countersOfPastSlotsAreEvicted() {
+		SlotCapacityGate gate = new SlotCapacityGate();
+		LocalDate today = LocalDate.of(2026, 10, 19);
+		gate.tryAcquire(new AppointmentSlot(3L, "Kigali", today.minusDays(1), LocalTime.of(9, 0), 5, 0));
+		gate.tryAcquire(new AppointmentSlot(4L, "Kigali", today, LocalTime.of(9, 0), 5, 0));
+		gate.reset(new AppointmentSlot(5L, "Huye", today.plusDays(1), LocalTime.of(9, 0), 5, 0), 2);
+
+		gate.evictBefore(today);
+		assertEquals(-1, gate.remaining(3L));
+		assertEquals(4, gate.remaining(4L));
+		assertEquals(3, gate.remaining(5L));
+	}
+}
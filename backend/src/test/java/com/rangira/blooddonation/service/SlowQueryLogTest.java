@@ -0,0 +1,101 @@
+package com.rangira.blooddonation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowQueryLogTest {
+
+	private SlowQueryLog log;
+
+	@BeforeEach
+	void setUp() {
+		log = new SlowQueryLog();
+		ReflectionTestUtils.setField(log, "slowStatementMs", 200L);
+		ReflectionTestUtils.setField(log, "topN", 20);
+		ReflectionTestUtils.setField(log, "maxShapes", 500);
+	}
+
+	@Test
+	void statementsUnderTheThresholdAreNotKept() {
+		log.record("SELECT * FROM donations", ms(199));
+		log.record(null, ms(5_000));
+		assertEquals(List.of(), log.top());
+
+		log.record("SELECT * FROM donations", ms(200));
+		assertEquals(1, log.top().size());
+	}
+
+	@Test
+	void runsOfOneShapeAddUp() {
+		log.record("SELECT * FROM requests WHERE id = 7", ms(300));
+		log.record("SELECT * FROM requests WHERE id = 8", ms(500));
+		log.record("SELECT * FROM requests WHERE id = 9", ms(100));
+
+		Map<String, Object> shape = log.top().get(0);
+		assertEquals("SELECT * FROM requests WHERE id = ?", shape.get("sql"));
+		assertEquals(2L, shape.get("count"));
+		assertEquals(500L, shape.get("maxMs"));
+		assertEquals(400L, shape.get("avgMs"));
+	}
+
+	@Test
+	void literalsListsAndWhitespaceAreNormalizedAway() {
+		assertEquals("SELECT * FROM users WHERE username = ? AND age > ?",
+				SlowQueryLog.normalize("SELECT *\n  FROM users\tWHERE username = 'o''brien' AND age > 17.5"));
+		assertEquals("UPDATE donations SET available = false WHERE id IN (?, ...)",
+				SlowQueryLog.normalize("UPDATE donations SET available = false WHERE id IN (?, ?,?)"));
+		assertEquals("DELETE FROM requests WHERE id IN (?, ...)",
+				SlowQueryLog.normalize("DELETE FROM requests WHERE id IN (1, 2, 3)"));
+		// Digits inside identifiers are part of the name
+		assertEquals("select u1_0.id from users u1_0 where u1_0.id=?",
+				SlowQueryLog.normalize("select u1_0.id from users u1_0 where u1_0.id=?"));
+	}
+
+	@Test
+	void topListsTheSlowestShapesFirst() {
+		ReflectionTestUtils.setField(log, "topN", 2);
+		log.record("SELECT 'a' FROM users", ms(250));
+		log.record("SELECT * FROM donations", ms(900));
+		log.record("SELECT * FROM requests", ms(400));
+
+		assertEquals(List.of("SELECT * FROM donations", "SELECT * FROM requests"),
+				log.top().stream().map(row -> row.get("sql")).toList());
+
+		log.reset();
+		assertEquals(List.of(), log.top());
+	}
+
+	@Test
+	void fullTableOnlyMakesRoomForASlowerShape() {
+		ReflectionTestUtils.setField(log, "maxShapes", 2);
+		log.record("SELECT * FROM users", ms(300));
+		log.record("SELECT * FROM donations", ms(600));
+
+		// Faster than every kept shape: dropped
+		log.record("SELECT * FROM requests", ms(250));
+		assertEquals(List.of("SELECT * FROM donations", "SELECT * FROM users"), shapes());
+
+		// Slower than the fastest kept shape: takes its place
+		log.record("SELECT * FROM appointment", ms(450));
+		assertEquals(List.of("SELECT * FROM donations", "SELECT * FROM appointment"), shapes());
+
+		// Known shapes are still counted while the table is full
+		log.record("SELECT * FROM donations", ms(200));
+		assertEquals(2L, log.top().get(0).get("count"));
+	}
+
+	private List<Object> shapes() {
+		return log.top().stream().map(row -> row.get("sql")).toList();
+	}
+
+	private static long ms(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
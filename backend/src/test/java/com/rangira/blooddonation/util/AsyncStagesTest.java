@@ -0,0 +1,79 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncStagesTest {
+
+	@Test
+	void fullQueueFailsTheStageInsteadOfThrowing() throws Exception {
+		ThreadPoolTaskExecutor executor = executor(0);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			AsyncStages.runAsync(() -> await(release), executor, 5_000);
+
+			CompletableFuture<String> rejected = AsyncStages.supplyAsync(() -> "never", executor, 5_000);
+
+			Throwable cause = AsyncStages.unwrap(assertThrows(ExecutionException.class, rejected::get));
+			assertInstanceOf(TaskRejectedException.class, cause);
+			assertTrue(AsyncStages.isOverloaded(cause));
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void timedOutTaskStillQueuedIsSkipped() throws Exception {
+		ThreadPoolTaskExecutor executor = executor(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean ran = new AtomicBoolean();
+		try {
+			CompletableFuture<Void> busy = AsyncStages.runAsync(() -> await(release), executor, 5_000);
+			CompletableFuture<Void> queued = AsyncStages.runAsync(() -> ran.set(true), executor, 50);
+
+			Throwable cause = AsyncStages.unwrap(assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS)));
+			assertInstanceOf(TimeoutException.class, cause);
+			assertTrue(AsyncStages.isOverloaded(cause));
+
+			release.countDown();
+			busy.get(5, TimeUnit.SECONDS);
+			executor.shutdown();
+			assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+			assertFalse(ran.get(), "a task that timed out in the queue must not run");
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	private static ThreadPoolTaskExecutor executor(int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(queueCapacity);
+		executor.initialize();
+		return executor;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
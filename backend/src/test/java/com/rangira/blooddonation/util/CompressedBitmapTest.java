@@ -0,0 +1,232 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CompressedBitmap checked against a BitSet holding the same values.
+ */
+class CompressedBitmapTest {
+
+	private static final int CHUNK = 1 << 16;
+	private static final int ARRAY_MAX = 4096;
+
+	@Test
+	void switchesToABitmapPast4096ValuesAndBackBelow() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		BitSet oracle = new BitSet();
+		// Every 7th value of one chunk: 4096 values still fit the sorted array
+		for (int i = 0; i < ARRAY_MAX; i++) {
+			add(bitmap, oracle, i * 7);
+		}
+		assertMatches(oracle, bitmap);
+
+		add(bitmap, oracle, 5);
+		assertMatches(oracle, bitmap);
+		for (int i = 0; i < 2 * ARRAY_MAX; i++) {
+			add(bitmap, oracle, i * 7 + 3);
+		}
+		assertMatches(oracle, bitmap);
+		// 12,289 values in one chunk: a bitmap's 8 KB, not 2 bytes a value
+		assertTrue(bitmap.sizeInBytes() < 8192 + 1024, "12,289 values should be stored as a bitmap");
+
+		for (int i = 0; i < 2 * ARRAY_MAX; i++) {
+			remove(bitmap, oracle, i * 7 + 3);
+		}
+		remove(bitmap, oracle, 5);
+		remove(bitmap, oracle, 7);
+		assertMatches(oracle, bitmap);
+		assertEquals(ARRAY_MAX - 1, bitmap.cardinality());
+
+		// Back to an array, which then keeps working as one
+		for (int i = 100; i < ARRAY_MAX; i++) {
+			remove(bitmap, oracle, i * 7);
+		}
+		assertMatches(oracle, bitmap);
+		assertTrue(bitmap.sizeInBytes() < 1024, "99 values should be stored as an array");
+		add(bitmap, oracle, 1);
+		assertMatches(oracle, bitmap);
+	}
+
+	@Test
+	void addingAndRemovingTwiceIsHarmless() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		bitmap.add(42);
+		bitmap.add(42);
+		assertEquals(1, bitmap.cardinality());
+		bitmap.remove(42);
+		bitmap.remove(42);
+		bitmap.remove(-1);
+		assertTrue(bitmap.isEmpty());
+		assertFalse(bitmap.contains(42));
+		assertFalse(bitmap.contains(-1));
+		assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+	}
+
+	@Test
+	void randomAddsAndRemovesMatchABitSet() {
+		Random random = new Random(11);
+		CompressedBitmap bitmap = new CompressedBitmap();
+		BitSet oracle = new BitSet();
+		// Mostly chunk 0, filled to about 6,700 values and then thinned to about 2,500, plus
+		// a sparse spread over 40 chunks
+		for (int addsInFour : new int[]{3, 1}) {
+			for (int round = 0; round < 100_000; round++) {
+				int value = random.nextInt(4) == 0 ? random.nextInt(40 * CHUNK) : random.nextInt(10_000);
+				if (random.nextInt(4) < addsInFour) {
+					add(bitmap, oracle, value);
+				} else {
+					remove(bitmap, oracle, value);
+				}
+			}
+			assertMatches(oracle, bitmap);
+		}
+	}
+
+	@Test
+	void pagesWalkAcrossChunksWithoutSkippingOrRepeating() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		BitSet oracle = new BitSet();
+		// The last values of chunk 0, a dense chunk 1, nothing in chunk 2, the first of chunk 3
+		for (int value = CHUNK - 5; value < CHUNK; value++) {
+			add(bitmap, oracle, value);
+		}
+		for (int value = CHUNK; value < 2 * CHUNK; value += 3) {
+			add(bitmap, oracle, value);
+		}
+		add(bitmap, oracle, 2 * CHUNK - 1);
+		for (int value = 3 * CHUNK; value < 3 * CHUNK + 5; value++) {
+			add(bitmap, oracle, value);
+		}
+
+		for (int limit : new int[]{1, 7, 1000, 50_000}) {
+			int after = -1;
+			int expected = oracle.nextSetBit(0);
+			int pages = 0;
+			while (true) {
+				int[] page = bitmap.page(after, limit);
+				if (page.length == 0) {
+					break;
+				}
+				assertTrue(page.length <= limit);
+				for (int value : page) {
+					assertEquals(expected, value, "limit " + limit);
+					expected = oracle.nextSetBit(value + 1);
+				}
+				after = page[page.length - 1];
+				pages++;
+			}
+			assertEquals(-1, expected, "limit " + limit + " stopped early");
+			assertEquals((oracle.cardinality() + limit - 1) / limit, pages);
+		}
+	}
+
+	@Test
+	void pageStartsAfterAnyCursor() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		BitSet oracle = new BitSet();
+		for (int value : new int[]{0, 1, 0xFFFF, CHUNK, CHUNK + 1, 5 * CHUNK + 0xFFFF}) {
+			add(bitmap, oracle, value);
+		}
+		for (int after : new int[]{-1, 0, 2, 0xFFFE, 0xFFFF, CHUNK, CHUNK + 1, 3 * CHUNK, 5 * CHUNK + 0xFFFF}) {
+			int[] page = bitmap.page(after, 2);
+			int expected = oracle.nextSetBit(after + 1);
+			if (expected < 0) {
+				assertEquals(0, page.length, "after " + after);
+			} else {
+				assertEquals(expected, page[0], "after " + after);
+			}
+		}
+		assertEquals(0, bitmap.page(Integer.MAX_VALUE, 10).length);
+		assertEquals(0, bitmap.page(-1, 0).length);
+	}
+
+	@Test
+	void andOrAndNotMatchBitSetOperations() {
+		Random random = new Random(23);
+		for (int round = 0; round < 30; round++) {
+			// Densities either side of 4096 per chunk, so results change container type
+			BitSet oracleA = new BitSet();
+			BitSet oracleB = new BitSet();
+			CompressedBitmap a = randomBitmap(random, oracleA, 2000 + random.nextInt(8000));
+			CompressedBitmap b = randomBitmap(random, oracleB, 2000 + random.nextInt(8000));
+
+			BitSet and = (BitSet) oracleA.clone();
+			and.and(oracleB);
+			assertMatches(and, CompressedBitmap.and(a, b));
+
+			BitSet or = (BitSet) oracleA.clone();
+			or.or(oracleB);
+			assertMatches(or, CompressedBitmap.or(a, b));
+
+			BitSet andNot = (BitSet) oracleA.clone();
+			andNot.andNot(oracleB);
+			assertMatches(andNot, CompressedBitmap.andNot(a, b));
+
+			BitSet reversed = (BitSet) oracleB.clone();
+			reversed.andNot(oracleA);
+			assertMatches(reversed, CompressedBitmap.andNot(b, a));
+
+			// Results are new bitmaps
+			assertMatches(oracleA, a);
+			assertMatches(oracleB, b);
+		}
+	}
+
+	@Test
+	void andNotOfABitmapByItsOwnArrayLeavesTheRest() {
+		CompressedBitmap dense = new CompressedBitmap();
+		BitSet oracle = new BitSet();
+		for (int value = 0; value < 10_000; value++) {
+			add(dense, oracle, value);
+		}
+		CompressedBitmap few = new CompressedBitmap();
+		BitSet removed = new BitSet();
+		for (int value = 0; value < 10_000; value += 2) {
+			add(few, removed, value);
+		}
+		oracle.andNot(removed);
+		assertMatches(oracle, CompressedBitmap.andNot(dense, few));
+		assertTrue(CompressedBitmap.andNot(dense, dense).isEmpty());
+		assertMatches(new BitSet(), CompressedBitmap.andNot(new CompressedBitmap(), dense));
+	}
+
+	private static CompressedBitmap randomBitmap(Random random, BitSet oracle, int perChunk) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int chunk = 0; chunk < 4; chunk++) {
+			if (random.nextInt(4) == 0) {
+				continue;
+			}
+			for (int i = 0; i < perChunk; i++) {
+				add(bitmap, oracle, chunk * CHUNK + random.nextInt(CHUNK / 4));
+			}
+		}
+		return bitmap;
+	}
+
+	private static void add(CompressedBitmap bitmap, BitSet oracle, int value) {
+		bitmap.add(value);
+		oracle.set(value);
+	}
+
+	private static void remove(CompressedBitmap bitmap, BitSet oracle, int value) {
+		bitmap.remove(value);
+		oracle.clear(value);
+	}
+
+	private static void assertMatches(BitSet expected, CompressedBitmap actual) {
+		assertEquals(expected.cardinality(), actual.cardinality());
+		assertArrayEquals(expected.stream().toArray(), actual.page(-1, Integer.MAX_VALUE));
+		for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1)) {
+			assertTrue(actual.contains(value), "missing " + value);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionLimitingDataSourceTest {
+
+	@Test
+	void permitIsHeldUntilTheConnectionIsClosed() throws Exception {
+		DataSource target = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		when(target.getConnection()).thenReturn(connection);
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, 50);
+
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		assertEquals(0, dataSource.availablePermits());
+		assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+		first.close();
+		assertEquals(1, dataSource.availablePermits());
+		second.close();
+		assertEquals(2, dataSource.availablePermits());
+		verify(connection, times(2)).close();
+	}
+
+	@Test
+	void closingTwiceReleasesOnce() throws Exception {
+		DataSource target = mock(DataSource.class);
+		when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, 50);
+
+		Connection held = dataSource.getConnection();
+		Connection closed = dataSource.getConnection();
+		closed.close();
+		closed.close();
+		assertEquals(1, dataSource.availablePermits());
+		held.close();
+		assertEquals(2, dataSource.availablePermits());
+	}
+
+	@Test
+	void failedCloseStillReleases() throws Exception {
+		DataSource target = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		doThrow(new SQLException("broken pipe")).when(connection).close();
+		when(target.getConnection()).thenReturn(connection);
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+
+		Connection proxy = dataSource.getConnection();
+		SQLException thrown = assertThrows(SQLException.class, proxy::close);
+		assertEquals("broken pipe", thrown.getMessage());
+		assertEquals(1, dataSource.availablePermits());
+	}
+
+	@Test
+	void failedGetConnectionReleasesThePermit() throws Exception {
+		DataSource target = mock(DataSource.class);
+		SQLException refused = new SQLException("pool exhausted");
+		when(target.getConnection()).thenThrow(refused);
+		when(target.getConnection("reporting", "secret")).thenThrow(new IllegalStateException("pool closed"));
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+
+		assertSame(refused, assertThrows(SQLException.class, dataSource::getConnection));
+		assertEquals(1, dataSource.availablePermits());
+		assertThrows(IllegalStateException.class, () -> dataSource.getConnection("reporting", "secret"));
+		assertEquals(1, dataSource.availablePermits());
+	}
+
+	@Test
+	void waiterGetsTheReleasedPermit() throws Exception {
+		DataSource target = mock(DataSource.class);
+		when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+		ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 5_000);
+
+		Connection held = dataSource.getConnection();
+		CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+			try {
+				return dataSource.getConnection();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100);
+		held.close();
+		waiter.get(5, TimeUnit.SECONDS).close();
+		assertEquals(1, dataSource.availablePermits());
+	}
+}
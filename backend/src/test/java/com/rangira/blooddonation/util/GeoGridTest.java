@@ -0,0 +1,160 @@
+package com.rangira.blooddonation.util;
+
+import com.rangira.blooddonation.util.GeoGrid.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GeoGrid's nearest-neighbour search checked against a scan of every point.
+ */
+class GeoGridTest {
+
+	private static final double DELTA = 1e-9;
+	// Kigali
+	private static final double LATITUDE = -1.9441;
+	private static final double LONGITUDE = 30.0619;
+
+	private record Place(int id, double latitude, double longitude) {
+	}
+
+	@Test
+	void randomSearchesMatchAScanOfEveryPoint() {
+		Random random = new Random(17);
+		for (double cellDegrees : new double[]{0.1, 1, 7.5}) {
+			GeoGrid<Place> grid = new GeoGrid<>(cellDegrees);
+			List<Place> places = new ArrayList<>();
+			for (int id = 0; id < 3000; id++) {
+				// Half around Rwanda, half anywhere including the poles and the antimeridian
+				Place place = id % 2 == 0
+						? new Place(id, LATITUDE + random.nextGaussian() * 2, LONGITUDE + random.nextGaussian() * 2)
+						: new Place(id, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+				places.add(place);
+				grid.put(id, place.latitude(), place.longitude(), place);
+			}
+
+			for (int query = 0; query < 200; query++) {
+				double latitude = query % 4 == 0 ? random.nextDouble() * 180 - 90 : LATITUDE + random.nextGaussian() * 3;
+				double longitude = query % 4 == 0 ? random.nextDouble() * 360 - 180 : LONGITUDE + random.nextGaussian() * 3;
+				int limit = 1 + random.nextInt(12);
+				double maxKm = query % 3 == 0 ? Double.MAX_VALUE : random.nextDouble() * 800;
+				Predicate<Place> accept = query % 5 == 0 ? place -> place.id() % 3 == 0 : place -> true;
+
+				String label = "cell " + cellDegrees + ", query " + query;
+				assertSameDistances(scan(places, latitude, longitude, accept, limit, maxKm),
+						grid.nearest(latitude, longitude, accept, limit, maxKm), label);
+			}
+		}
+	}
+
+	@Test
+	void ringsStopOnceTheNextIsFartherThanTheWorstHitKept() {
+		GeoGrid<Place> grid = new GeoGrid<>(0.5);
+		Random random = new Random(3);
+		// A cluster a few km around the origin, and many points spread over a continent
+		for (int id = 0; id < 20; id++) {
+			grid.put(id, LATITUDE + random.nextDouble() * 0.05, LONGITUDE + random.nextDouble() * 0.05,
+					new Place(id, 0, 0));
+		}
+		for (int id = 20; id < 20_000; id++) {
+			grid.put(id, -30 + random.nextDouble() * 60, 5 + random.nextDouble() * 50, new Place(id, 0, 0));
+		}
+
+		AtomicInteger tested = new AtomicInteger();
+		List<Hit<Place>> hits = grid.nearest(LATITUDE, LONGITUDE, place -> {
+			tested.incrementAndGet();
+			return true;
+		}, 5, Double.MAX_VALUE);
+
+		assertEquals(5, hits.size());
+		hits.forEach(hit -> assertTrue(hit.value().id() < 20, "the cluster is closest"));
+		// Only the origin's rings are read, not the ~2,400 other occupied cells
+		assertTrue(tested.get() < 200, tested.get() + " points tested");
+	}
+
+	@Test
+	void fewOccupiedCellsAreScannedInsteadOfWalkingTheRings() {
+		// 0.01 degree cells: reaching Sydney ring by ring would read millions of empty cells
+		GeoGrid<String> grid = new GeoGrid<>(0.01);
+		grid.put(1, -33.8688, 151.2093, "Sydney");
+		grid.put(2, 64.1466, -21.9426, "Reykjavik");
+		grid.put(3, -0.0001, -179.9999, "Antimeridian west");
+
+		List<Hit<String>> hits = grid.nearest(LATITUDE, LONGITUDE, name -> true, 3, Double.MAX_VALUE);
+		assertEquals(List.of("Reykjavik", "Sydney", "Antimeridian west"), hits.stream().map(Hit::value).toList());
+		assertEquals(GeoGrid.distanceKm(LATITUDE, LONGITUDE, 64.1466, -21.9426), hits.get(0).distanceKm(), DELTA);
+
+		// Across the antimeridian the closest cell is one column away
+		List<Hit<String>> across = grid.nearest(0, 179.9999, name -> true, 1, 100);
+		assertEquals(List.of("Antimeridian west"), across.stream().map(Hit::value).toList());
+		assertTrue(across.get(0).distanceKm() < 0.1);
+	}
+
+	@Test
+	void pointsBeyondMaxKmAreLeftOutEvenWhenTooFewAreFound() {
+		GeoGrid<String> grid = new GeoGrid<>(0.1);
+		// About 9.9 and 10.1 km north of the origin, and one on it
+		double kmPerDegree = GeoGrid.distanceKm(0, 0, 1, 0);
+		grid.put(1, LATITUDE + 9.9 / kmPerDegree, LONGITUDE, "inside");
+		grid.put(2, LATITUDE + 10.1 / kmPerDegree, LONGITUDE, "outside");
+		grid.put(3, LATITUDE, LONGITUDE, "here");
+
+		assertEquals(List.of("here", "inside"), names(grid.nearest(LATITUDE, LONGITUDE, name -> true, 10, 10)));
+		assertEquals(List.of("here"), names(grid.nearest(LATITUDE, LONGITUDE, name -> true, 10, 0)));
+		assertEquals(List.of("inside"), names(grid.nearest(LATITUDE, LONGITUDE, name -> !name.equals("here"), 10, 10)));
+		assertEquals(List.of("here", "inside", "outside"),
+				names(grid.nearest(LATITUDE, LONGITUDE, name -> true, 10, 10.2)));
+	}
+
+	@Test
+	void putMovesAPointAndRemoveDropsIt() {
+		GeoGrid<String> grid = new GeoGrid<>(1);
+		grid.put(1, LATITUDE, LONGITUDE, "CHUK");
+		grid.put(1, -2.6, 29.74, "CHUB");
+		grid.put(2, -1.5, 29.6, "Ruhengeri");
+		assertEquals(2, grid.size());
+		assertEquals(List.of("Ruhengeri", "CHUB"), names(grid.nearest(LATITUDE, LONGITUDE, name -> true, 5, 500)));
+
+		grid.remove(2);
+		grid.remove(2);
+		assertEquals(List.of("CHUB"), names(grid.nearest(LATITUDE, LONGITUDE, name -> true, 5, 500)));
+		assertEquals(List.of(), grid.nearest(LATITUDE, LONGITUDE, name -> true, 0, 500));
+
+		grid.clear();
+		assertEquals(List.of(), grid.nearest(LATITUDE, LONGITUDE, name -> true, 5, 500));
+		assertThrows(IllegalArgumentException.class, () -> grid.put(3, 91, 0, "nowhere"));
+		assertThrows(IllegalArgumentException.class, () -> new GeoGrid<String>(0));
+	}
+
+	private static List<Hit<Place>> scan(List<Place> places, double latitude, double longitude, Predicate<Place> accept,
+	                                     int limit, double maxKm) {
+		return places.stream()
+				.filter(accept)
+				.map(place -> new Hit<>(place, GeoGrid.distanceKm(latitude, longitude, place.latitude(), place.longitude())))
+				.filter(hit -> hit.distanceKm() <= maxKm)
+				.sorted(Comparator.comparingDouble(Hit::distanceKm))
+				.limit(limit)
+				.toList();
+	}
+
+	private static void assertSameDistances(List<Hit<Place>> expected, List<Hit<Place>> actual, String label) {
+		// Points at the same distance may come in either order
+		assertEquals(expected.size(), actual.size(), label);
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).distanceKm(), actual.get(i).distanceKm(), DELTA, label + ", hit " + i);
+		}
+	}
+
+	private static List<String> names(List<Hit<String>> hits) {
+		return hits.stream().map(Hit::value).toList();
+	}
+}
@@ -0,0 +1,141 @@
+package com.rangira.blooddonation.util;
+
+import com.rangira.blooddonation.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fires identical POST /api/donations/donate calls with the same
+ * Idempotency-Key at the same moment and checks that exactly one donation row
+ * is written while every caller gets the same response.
+ * Skipped when Docker is not available.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "journal.enabled=false")
+@Testcontainers(disabledWithoutDocker = true)
+class IdempotencyKeyConcurrencyTest {
+
+	private static final int CALLERS = 8;
+	private static final String BODY = "{\"bloodType\":\"O+\",\"amount\":1,\"location\":\"Kigali\"}";
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@MockBean
+	private JavaMailSender mailSender;
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private String username;
+	private String token;
+
+	@BeforeEach
+	void createDonor() {
+		username = "idem-" + UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO users (username, password, email, role) VALUES (?, 'unused', ?, 'DONOR')",
+				username, username + "@example.com");
+
+		User donor = new User();
+		donor.setUsername(username);
+		donor.setRole("DONOR");
+		token = jwtUtil.generateToken(donor);
+	}
+
+	@Test
+	void simultaneousRetriesWithTheSameKeyCreateOneDonation() throws Exception {
+		String key = UUID.randomUUID().toString();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+		List<HttpResponse<String>> responses = new ArrayList<>();
+		try {
+			List<Future<HttpResponse<String>>> calls = new ArrayList<>();
+			for (int i = 0; i < CALLERS; i++) {
+				calls.add(pool.submit(() -> {
+					start.await();
+					return httpClient.send(donate(key, BODY), HttpResponse.BodyHandlers.ofString());
+				}));
+			}
+			start.countDown();
+			for (Future<HttpResponse<String>> call : calls) {
+				responses.add(call.get());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(1, donationsOfDonor());
+		long replayed = responses.stream()
+				.filter(response -> response.headers().firstValue(IdempotencyKeyFilter.REPLAYED_HEADER).isPresent())
+				.count();
+		assertEquals(CALLERS - 1, replayed);
+		for (HttpResponse<String> response : responses) {
+			assertEquals(200, response.statusCode());
+			assertEquals(responses.get(0).body(), response.body());
+		}
+	}
+
+	@Test
+	void reusingAKeyWithADifferentBodyIsRejected() throws Exception {
+		String key = UUID.randomUUID().toString();
+
+		HttpResponse<String> first = httpClient.send(donate(key, BODY), HttpResponse.BodyHandlers.ofString());
+		HttpResponse<String> changed = httpClient.send(donate(key, BODY.replace("O+", "A-")),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, first.statusCode());
+		assertEquals(422, changed.statusCode());
+		assertEquals(1, donationsOfDonor());
+	}
+
+	private int donationsOfDonor() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM donations d JOIN users u ON u.id = d.donor_id "
+				+ "WHERE u.username = ?", Integer.class, username);
+	}
+
+	private HttpRequest donate(String key, String body) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/donations/donate"))
+				.timeout(Duration.ofSeconds(30))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "application/json")
+				.header(IdempotencyKeyFilter.HEADER, key)
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+}
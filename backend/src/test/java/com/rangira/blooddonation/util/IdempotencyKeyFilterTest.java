@@ -0,0 +1,160 @@
+package com.rangira.blooddonation.util;
+
+import com.rangira.blooddonation.service.IdempotencyService;
+import com.rangira.blooddonation.service.IdempotencyService.Claim;
+import com.rangira.blooddonation.service.IdempotencyService.Outcome;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The body the filter read for the fingerprint, served again to the
+ * controller through every way of reading it.
+ */
+class IdempotencyKeyFilterTest {
+
+	private static final String BODY = "{\"bloodType\":\"O+\",\"amount\":1,\"location\":\"Kigali\"}";
+
+	private IdempotencyKeyFilter filter;
+	private MockHttpServletRequest request;
+
+	@BeforeEach
+	void setUp() {
+		IdempotencyService idempotencyService = mock(IdempotencyService.class);
+		when(idempotencyService.claim(anyString(), anyString()))
+				.thenReturn(new Claim(Outcome.EXECUTE, "id", "owner", "fingerprint", null));
+		when(idempotencyService.complete(any(), any())).thenReturn(true);
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		filter = new IdempotencyKeyFilter(new String[]{"/api/donations/donate"});
+		ReflectionTestUtils.setField(filter, "idempotencyService", idempotencyService);
+		ReflectionTestUtils.setField(filter, "transactionManager", transactionManager);
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("donor", null, "ROLE_DONOR"));
+
+		request = new MockHttpServletRequest("POST", "/api/donations/donate");
+		request.addHeader(IdempotencyKeyFilter.HEADER, "key-1");
+		request.setContentType("application/json");
+		request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+		request.setAsyncSupported(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void controllerReadsTheBodyAgainAsBytesOrText() throws Exception {
+		List<String> read = new ArrayList<>();
+		run((req, res) -> {
+			read.add(StreamUtils.copyToString(req.getInputStream(), StandardCharsets.UTF_8));
+			read.add(req.getReader().readLine());
+		});
+		assertEquals(List.of(BODY, BODY), read);
+	}
+
+	@Test
+	void readListenerIsGivenTheWholeBodyAndItsEnd() throws Exception {
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		List<String> calls = new ArrayList<>();
+		run((req, res) -> {
+			req.startAsync();
+			ServletInputStream in = req.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					calls.add("data");
+					byte[] buffer = new byte[16];
+					while (in.isReady() && !in.isFinished()) {
+						read.write(buffer, 0, in.read(buffer));
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					calls.add("end");
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					calls.add("error");
+				}
+			});
+			assertThrows(IllegalStateException.class, () -> in.setReadListener(new CountingListener()));
+		});
+		assertEquals(BODY, read.toString(StandardCharsets.UTF_8));
+		assertEquals(List.of("data", "end"), calls);
+	}
+
+	@Test
+	void listenerFailureIsReportedToItsOnError() throws Exception {
+		CountingListener listener = new CountingListener() {
+			@Override
+			public void onDataAvailable() {
+				throw new IllegalArgumentException("cannot parse");
+			}
+		};
+		run((req, res) -> {
+			req.startAsync();
+			req.getInputStream().setReadListener(listener);
+		});
+		assertEquals(1, listener.errors);
+	}
+
+	@Test
+	void readListenerNeedsAnAsyncRequest() throws Exception {
+		run((req, res) -> {
+			ServletInputStream in = req.getInputStream();
+			assertThrows(IllegalStateException.class, () -> in.setReadListener(new CountingListener()));
+			assertThrows(NullPointerException.class, () -> in.setReadListener(null));
+		});
+	}
+
+	private void run(FilterChain chain) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		assertEquals(200, response.getStatus());
+	}
+
+	private static class CountingListener implements ReadListener {
+		int errors;
+
+		@Override
+		public void onDataAvailable() throws IOException {
+		}
+
+		@Override
+		public void onAllDataRead() {
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			errors++;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+	private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+	private final CountDownLatch flushing = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private MicroBatcher<String, String> batcher;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		release.countDown();
+		if (batcher != null) {
+			batcher.close();
+		}
+	}
+
+	@Test
+	void submitterIsAcknowledgedOnlyAfterItsBatchFlushed() throws Exception {
+		batcher = new MicroBatcher<>("test-batcher", 10, 3, 5_000, held(this::upperCase));
+
+		List<CompletableFuture<String>> results = submitAll("a", "b", "c");
+		assertTrue(flushing.await(5, TimeUnit.SECONDS));
+		Thread.sleep(50);
+		assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+
+		release.countDown();
+		assertEquals(List.of("A", "B", "C"), join(results));
+		assertEquals(List.of(List.of("a", "b", "c")), batches);
+	}
+
+	@Test
+	void failedBatchIsRetriedItemByItem() throws Exception {
+		IllegalStateException bad = new IllegalStateException("constraint violated");
+		release.countDown();
+		batcher = new MicroBatcher<>("test-batcher", 10, 3, 5_000, held(items -> {
+			if (items.contains("bad")) {
+				throw bad;
+			}
+			return upperCase(items);
+		}));
+
+		List<CompletableFuture<String>> results = submitAll("a", "bad", "c");
+		assertEquals("A", results.get(0).get(5, TimeUnit.SECONDS));
+		assertEquals("C", results.get(2).get(5, TimeUnit.SECONDS));
+		ExecutionException failed = assertThrows(ExecutionException.class, () -> results.get(1).get(5, TimeUnit.SECONDS));
+		assertSame(bad, failed.getCause());
+		assertEquals(List.of(List.of("a", "bad", "c"), List.of("a"), List.of("bad"), List.of("c")), batches);
+	}
+
+	@Test
+	void fullQueueRejectsInsteadOfWaitingForever() throws Exception {
+		batcher = new MicroBatcher<>("test-batcher", 2, 1, 0, held(this::upperCase));
+
+		List<CompletableFuture<String>> results = new ArrayList<>(submitAll("a"));
+		// The writer holds "a" in its flush; the next two fill the queue
+		assertTrue(flushing.await(5, TimeUnit.SECONDS));
+		results.addAll(submitAll("b", "c"));
+		assertEquals(2, batcher.queued());
+
+		long started = System.nanoTime();
+		assertThrows(RejectedExecutionException.class, () -> batcher.submit("d", 50));
+		assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+
+		release.countDown();
+		assertEquals(List.of("A", "B", "C"), join(results));
+		assertEquals(List.of(List.of("a"), List.of("b"), List.of("c")), batches);
+	}
+
+	@Test
+	void closeFlushesWhatIsAlreadyQueued() throws Exception {
+		batcher = new MicroBatcher<>("test-batcher", 10, 2, 0, held(this::upperCase));
+
+		List<CompletableFuture<String>> results = new ArrayList<>(submitAll("a"));
+		assertTrue(flushing.await(5, TimeUnit.SECONDS));
+		results.addAll(submitAll("b", "c", "d", "e"));
+
+		CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+			try {
+				batcher.close();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100);
+		assertThrows(RejectedExecutionException.class, () -> batcher.submit("f", 0));
+		assertFalse(closed.isDone());
+
+		release.countDown();
+		closed.get(5, TimeUnit.SECONDS);
+		assertTrue(results.stream().allMatch(CompletableFuture::isDone));
+		assertEquals(List.of("A", "B", "C", "D", "E"), join(results));
+		assertEquals(0, batcher.queued());
+	}
+
+	/** Records each batch, and holds the writer in its first flush until released. */
+	private Function<List<String>, List<String>> held(Function<List<String>, List<String>> flush) {
+		return items -> {
+			batches.add(List.copyOf(items));
+			flushing.countDown();
+			try {
+				if (!release.await(5, TimeUnit.SECONDS)) {
+					throw new IllegalStateException("never released");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			return flush.apply(items);
+		};
+	}
+
+	private List<String> upperCase(List<String> items) {
+		return items.stream().map(String::toUpperCase).toList();
+	}
+
+	private List<CompletableFuture<String>> submitAll(String... items) {
+		List<CompletableFuture<String>> results = new ArrayList<>();
+		for (String item : items) {
+			results.add(batcher.submit(item, 1_000));
+		}
+		return results;
+	}
+
+	private static List<String> join(List<CompletableFuture<String>> results) throws Exception {
+		List<String> values = new ArrayList<>();
+		for (CompletableFuture<String> result : results) {
+			values.add(result.get(5, TimeUnit.SECONDS));
+		}
+		return values;
+	}
+}
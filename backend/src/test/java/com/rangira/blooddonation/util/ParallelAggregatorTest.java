@@ -0,0 +1,236 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelAggregatorTest {
+
+	private ExecutorService executor;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if (executor != null) {
+			executor.shutdownNow();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void foldsEveryRowOnceAndMergesTheAccumulators() throws InterruptedException {
+		// Fewer threads than workers: the executor is shared and bounds the threads
+		executor = Executors.newFixedThreadPool(2);
+		ParallelAggregator<Integer, long[]> aggregator = summing(4, 1000);
+		for (int i = 1; i <= 100_000; i++) {
+			aggregator.accept(i);
+		}
+		assertEquals(100_000L * 100_001 / 2, aggregator.finish()[0]);
+		assertEquals(100_000, aggregator.folded());
+	}
+
+	@Test
+	void aggregationsSharingOneThreadBothComplete() throws InterruptedException {
+		executor = Executors.newSingleThreadExecutor();
+		ParallelAggregator<Integer, long[]> first = summing(3, 10);
+		ParallelAggregator<Integer, long[]> second = summing(3, 10);
+		for (int i = 1; i <= 1000; i++) {
+			first.accept(i);
+			second.accept(2 * i);
+		}
+		assertEquals(500_500, first.finish()[0]);
+		assertEquals(1_001_000, second.finish()[0]);
+	}
+
+	@Test
+	void finishingWithoutRowsReturnsTheMergedEmptyAccumulators() throws InterruptedException {
+		executor = Executors.newFixedThreadPool(2);
+		assertEquals(0, summing(3, 10).finish()[0]);
+	}
+
+	@Test
+	void chunksEndOnlyWhereSplitIsAllowed() throws InterruptedException {
+		executor = Executors.newFixedThreadPool(3);
+		// Rows are {group, index}; a group's rows must all be folded in one chunk
+		ParallelAggregator<int[], List<List<int[]>>> aggregator = new ParallelAggregator<>(executor, 3, 5,
+				ArrayList::new,
+				(chunks, rows) -> chunks.add(rows),
+				(a, b) -> {
+					a.addAll(b);
+					return a;
+				},
+				(previous, next) -> previous[0] != next[0]);
+		int rows = 0;
+		for (int group = 0; group < 500; group++) {
+			for (int i = 0; i < 1 + group % 7; i++) {
+				aggregator.accept(new int[]{group, i});
+				rows++;
+			}
+		}
+		List<List<int[]>> chunks = aggregator.finish();
+
+		Map<Integer, Integer> chunkOfGroup = new HashMap<>();
+		int folded = 0;
+		int shortChunks = 0;
+		for (int c = 0; c < chunks.size(); c++) {
+			List<int[]> chunk = chunks.get(c);
+			folded += chunk.size();
+			if (chunk.size() < 5) {
+				shortChunks++;
+			}
+			for (int[] row : chunk) {
+				Integer previous = chunkOfGroup.putIfAbsent(row[0], c);
+				assertTrue(previous == null || previous == c, "group " + row[0] + " split across chunks");
+			}
+		}
+		assertEquals(rows, folded);
+		assertEquals(500, chunkOfGroup.size());
+		// Only the last chunk may be cut short
+		assertTrue(shortChunks <= 1);
+	}
+
+	@Test
+	void foldFailureIsRethrownAndLaterChunksAreSkipped() throws InterruptedException {
+		executor = Executors.newFixedThreadPool(2);
+		IllegalStateException boom = new IllegalStateException("bad row");
+		ParallelAggregator<Integer, long[]> aggregator = new ParallelAggregator<>(executor, 2, 10,
+				() -> new long[1],
+				(sum, rows) -> rows.forEach(row -> {
+					if (row == 55) {
+						throw boom;
+					}
+					sum[0] += row;
+				}),
+				(a, b) -> a,
+				(previous, next) -> true);
+
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+			for (int i = 0; i < 1_000_000; i++) {
+				aggregator.accept(i);
+			}
+			aggregator.finish();
+		});
+		assertSame(boom, thrown);
+		assertTrue(aggregator.folded() < 1_000_000);
+	}
+
+	@Test
+	void cancelDropsChunksNotYetFoldedAndStopsTheProducer() throws InterruptedException {
+		// Holds the chunk tasks instead of running them
+		ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		ParallelAggregator<Integer, long[]> aggregator = new ParallelAggregator<>(tasks::add, 2, 10,
+				() -> new long[1],
+				(sum, rows) -> rows.forEach(row -> sum[0] += row),
+				(a, b) -> a,
+				(previous, next) -> true);
+		for (int i = 0; i < 50; i++) {
+			aggregator.accept(i);
+		}
+		assertEquals(4, tasks.size());
+
+		aggregator.cancel();
+		tasks.forEach(Runnable::run);
+		assertEquals(0, aggregator.folded());
+		assertThrows(CancellationException.class, () -> {
+			for (int i = 0; i < 20; i++) {
+				aggregator.accept(i);
+			}
+		});
+		assertThrows(CancellationException.class, aggregator::finish);
+	}
+
+	@Test
+	void producerWaitsWhileTheChunksInFlightAreAllUnfolded() throws InterruptedException {
+		ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		ParallelAggregator<Integer, long[]> aggregator = new ParallelAggregator<>(tasks::add, 2, 10,
+				() -> new long[1],
+				(sum, rows) -> rows.forEach(row -> sum[0] += row),
+				(a, b) -> {
+					a[0] += b[0];
+					return a;
+				},
+				(previous, next) -> true);
+		Thread producer = new Thread(() -> {
+			for (int i = 1; i <= 100; i++) {
+				aggregator.accept(i);
+			}
+		});
+		producer.start();
+
+		// Two workers: at most six chunks handed over before some are folded
+		producer.join(500);
+		assertTrue(producer.isAlive());
+		assertEquals(6, tasks.size());
+
+		while (producer.isAlive()) {
+			Runnable task = tasks.poll();
+			if (task != null) {
+				task.run();
+			}
+		}
+		// finish() hands over the last chunk and waits for it
+		long[] result = new long[1];
+		Thread finisher = new Thread(() -> {
+			try {
+				result[0] = aggregator.finish()[0];
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		finisher.start();
+		while (finisher.isAlive()) {
+			Runnable task = tasks.poll();
+			if (task != null) {
+				task.run();
+			}
+		}
+		assertEquals(5050, result[0]);
+		assertEquals(100, aggregator.folded());
+	}
+
+	@Test
+	void rejectedChunkFailsTheAggregation() {
+		executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		ParallelAggregator<Integer, long[]> aggregator = summing(2, 10);
+		assertThrows(RejectedExecutionException.class, () -> {
+			for (int i = 0; i < 11; i++) {
+				aggregator.accept(i);
+			}
+		});
+		assertEquals(0, aggregator.folded());
+	}
+
+	@Test
+	void rejectsNonPositiveSizes() {
+		assertThrows(IllegalArgumentException.class, () -> new ParallelAggregator<Integer, long[]>(Runnable::run, 0, 10,
+				() -> new long[1], (sum, rows) -> { }, (a, b) -> a, (previous, next) -> true));
+		assertThrows(IllegalArgumentException.class, () -> new ParallelAggregator<Integer, long[]>(Runnable::run, 2, 0,
+				() -> new long[1], (sum, rows) -> { }, (a, b) -> a, (previous, next) -> true));
+	}
+
+	private ParallelAggregator<Integer, long[]> summing(int workers, int chunkSize) {
+		return new ParallelAggregator<>(executor, workers, chunkSize,
+				() -> new long[1],
+				(sum, rows) -> rows.forEach(row -> sum[0] += row),
+				(a, b) -> {
+					a[0] += b[0];
+					return a;
+				},
+				(previous, next) -> true);
+	}
+}
@@ -0,0 +1,124 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Which database a transaction lands on, with the routing data source wired
+ * behind a lazy proxy as ReplicaDataSourceConfig does, over two embedded
+ * databases that each say which one they are.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+	private static final long WINDOW_MS = 200;
+
+	private DriverManagerDataSource primary;
+	private DriverManagerDataSource replica;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readOnly;
+	private TransactionTemplate readWrite;
+
+	@BeforeEach
+	void setUp() {
+		primary = database("routing-primary", ReadWriteRoutingDataSource.PRIMARY);
+		replica = database("routing-replica", ReadWriteRoutingDataSource.REPLICA);
+
+		ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(new ReadYourWritesWindow(WINDOW_MS));
+		routing.setTargetDataSources(Map.of(
+				ReadWriteRoutingDataSource.PRIMARY, primary,
+				ReadWriteRoutingDataSource.REPLICA, replica));
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readWrite = new TransactionTemplate(transactionManager);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		new JdbcTemplate(primary).execute("DROP ALL OBJECTS");
+		new JdbcTemplate(replica).execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		signIn("alice");
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> whereAmI()));
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY, readWrite.execute(status -> whereAmI()));
+
+		SecurityContextHolder.clearContext();
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> whereAmI()));
+	}
+
+	@Test
+	void ownWritePinsReadsToThePrimaryForTheWindow() throws Exception {
+		signIn("alice");
+		write();
+		assertEquals(ReadWriteRoutingDataSource.PRIMARY, readOnly.execute(status -> whereAmI()));
+
+		// Someone else's write does not move other users off the replica
+		signIn("bob");
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> whereAmI()));
+
+		Thread.sleep(WINDOW_MS + 100);
+		signIn("alice");
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> whereAmI()));
+	}
+
+	@Test
+	void rolledBackWriteLeavesReadsOnTheReplica() {
+		signIn("alice");
+		readWrite.executeWithoutResult(status -> {
+			jdbcTemplate.update("UPDATE marker SET writes = writes + 1");
+			status.setRollbackOnly();
+		});
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> whereAmI()));
+		assertEquals(0, new JdbcTemplate(primary).queryForObject("SELECT writes FROM marker", Integer.class));
+	}
+
+	@Test
+	void writesWithoutAUserPinNobody() {
+		write();
+		signIn("alice");
+		assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> whereAmI()));
+		assertEquals(1, new JdbcTemplate(primary).queryForObject("SELECT writes FROM marker", Integer.class));
+	}
+
+	private void write() {
+		readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET writes = writes + 1"));
+	}
+
+	private String whereAmI() {
+		return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+	}
+
+	private static void signIn(String username) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_USER"));
+	}
+
+	private static DriverManagerDataSource database(String name, String marker) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20), writes INT)");
+		jdbcTemplate.update("INSERT INTO marker VALUES (?, 0)", marker);
+		return dataSource;
+	}
+}
@@ -0,0 +1,172 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentFeedTest {
+
+	private record Item(long id, int day, String label) {
+	}
+
+	@Test
+	void keepsTheNewestBySizeAndDayThenId() {
+		RecentFeed<Item> feed = feed(3, 2);
+		assertFalse(feed.isComplete());
+		feed.seed(List.of(item(1, 5), item(2, 5), item(3, 9), item(4, 1), item(5, 7), item(6, 2)), feed.mark());
+
+		assertTrue(feed.isComplete());
+		assertEquals(List.of(3L, 5L, 2L), ids(feed.snapshot()));
+		// Two more are kept below the visible ones, the oldest falls out
+		assertTrue(feed.contains(6L));
+		assertFalse(feed.contains(4L));
+		assertThrows(UnsupportedOperationException.class, () -> feed.snapshot().add(item(7, 1)));
+
+		feed.offer(item(7, 6));
+		assertEquals(List.of(3L, 5L, 7L), ids(feed.snapshot()));
+		feed.offer(new Item(3, 0, "moved back"));
+		assertEquals(List.of(5L, 7L, 2L), ids(feed.snapshot()));
+	}
+
+	@Test
+	void removeRefillsFromTheSlackUntilItRunsOut() {
+		RecentFeed<Item> feed = feed(2, 1);
+		feed.seed(List.of(item(1, 3), item(2, 2), item(3, 1)), feed.mark());
+
+		feed.remove(1L);
+		assertEquals(List.of(2L, 3L), ids(feed.snapshot()));
+		assertTrue(feed.isComplete());
+
+		// Whatever was below the slack is unknown until the next seed
+		feed.remove(2L);
+		assertEquals(List.of(3L), ids(feed.snapshot()));
+		assertFalse(feed.isComplete());
+
+		feed.seed(List.of(item(3, 1), item(4, 0)), feed.mark());
+		assertEquals(List.of(3L, 4L), ids(feed.snapshot()));
+		assertTrue(feed.isComplete());
+	}
+
+	@Test
+	void removingAnIdNotInTheWindowKeepsItComplete() {
+		RecentFeed<Item> feed = feed(2, 0);
+		feed.seed(List.of(item(1, 3), item(2, 2)), feed.mark());
+		feed.remove(99L);
+		assertTrue(feed.isComplete());
+		assertEquals(List.of(1L, 2L), ids(feed.snapshot()));
+	}
+
+	@Test
+	void loadedRowsReplaceItemsUnchangedSinceTheMark() {
+		RecentFeed<Item> feed = feed(3, 0);
+		feed.seed(List.of(item(1, 3), item(2, 2), item(3, 1)), feed.mark());
+
+		// Another instance changed 2 and deleted 3
+		feed.seed(List.of(item(1, 3), new Item(2, 2, "changed elsewhere"), item(4, 0)), feed.mark());
+		assertEquals(List.of("1", "changed elsewhere", "4"), labels(feed.snapshot()));
+	}
+
+	@Test
+	void itemsOfferedDuringTheReadBeatTheRowsItLoaded() {
+		RecentFeed<Item> feed = feed(3, 0);
+		feed.seed(List.of(item(1, 3), item(2, 2)), feed.mark());
+
+		long mark = feed.mark();
+		// While the read runs: 2 is updated, 5 created and 1 deleted here
+		feed.offer(new Item(2, 2, "updated here"));
+		feed.offer(item(5, 4));
+		feed.remove(1L);
+		// The read saw 2 and 1 as they were before
+		feed.seed(List.of(item(1, 3), new Item(2, 2, "read before the update")), mark);
+
+		assertEquals(List.of("5", "updated here"), labels(feed.snapshot()));
+		assertTrue(feed.isComplete());
+
+		// A later read is newer than those changes and wins again
+		feed.seed(List.of(new Item(2, 2, "read after"), item(5, 4)), feed.mark());
+		assertEquals(List.of("5", "read after"), labels(feed.snapshot()));
+	}
+
+	@Test
+	void readOlderThanAMergedOneOnlyLeavesTheFeedIncomplete() {
+		RecentFeed<Item> feed = feed(2, 0);
+		long early = feed.mark();
+		feed.offer(item(1, 1));
+		long late = feed.mark();
+		feed.seed(List.of(item(1, 1), item(2, 2)), late);
+
+		feed.seed(List.of(item(3, 3)), early);
+		assertEquals(List.of(2L, 1L), ids(feed.snapshot()));
+		assertFalse(feed.isComplete());
+	}
+
+	@Test
+	void readOlderThanTheRememberedChangesIsNotMerged() {
+		RecentFeed<Item> feed = feed(2, 0);
+		feed.seed(List.of(item(1, 1)), feed.mark());
+		long mark = feed.mark();
+		// More changes than are remembered (at least 64) while the read runs
+		for (long id = 100; id < 200; id++) {
+			feed.offer(item(id, 0));
+			feed.remove(id);
+		}
+		feed.seed(List.of(item(100, 5), item(1, 1)), mark);
+
+		assertEquals(List.of(1L), ids(feed.snapshot()));
+		assertFalse(feed.isComplete());
+		feed.seed(List.of(item(1, 1)), feed.mark());
+		assertTrue(feed.isComplete());
+	}
+
+	@Test
+	void concurrentOffersAreAllKept() throws InterruptedException {
+		RecentFeed<Item> feed = feed(1000, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int writer = 0; writer < 4; writer++) {
+			long first = writer * 250L;
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				for (long id = first; id < first + 250; id++) {
+					feed.offer(item(id, (int) (id % 17)));
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(1000, feed.snapshot().size());
+	}
+
+	private static RecentFeed<Item> feed(int size, int slack) {
+		return new RecentFeed<>(size, slack,
+				Comparator.comparingInt(Item::day).reversed().thenComparing(Item::id, Comparator.reverseOrder()),
+				Item::id);
+	}
+
+	private static Item item(long id, int day) {
+		return new Item(id, day, String.valueOf(id));
+	}
+
+	private static List<Long> ids(List<Item> items) {
+		return items.stream().map(Item::id).toList();
+	}
+
+	private static List<String> labels(List<Item> items) {
+		return items.stream().map(Item::label).toList();
+	}
+}
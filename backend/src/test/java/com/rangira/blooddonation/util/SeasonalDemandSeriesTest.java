@@ -0,0 +1,141 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeasonalDemandSeriesTest {
+
+	private static final double DELTA = 1e-9;
+	private static final long MONDAY = LocalDate.of(2026, 1, 5).toEpochDay();
+
+	@Test
+	void todaysUnitsAreTheOnlyEstimateUntilADayCloses() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(0.3, 0.1);
+		assertEquals(0, series.forecast(MONDAY, 7), DELTA);
+
+		series.record(MONDAY, 4);
+		series.record(MONDAY, 2);
+		assertEquals(42, series.forecast(MONDAY, 7), DELTA);
+		assertEquals(0, series.observedDays());
+	}
+
+	@Test
+	void closedDaysSmoothTheLevel() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(0.5, 0);
+		series.record(MONDAY, 10);
+		series.record(MONDAY + 1, 20);
+
+		// The first day sets the level, the second moves it halfway
+		assertEquals(15 * 3, series.forecast(MONDAY + 2, 3), DELTA);
+		assertEquals(2, series.observedDays());
+	}
+
+	@Test
+	void daysWithoutRequestsCloseWithZeroDemand() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(0.5, 0);
+		series.record(MONDAY, 8);
+		// Tuesday and Wednesday saw nothing
+		assertEquals(2, series.forecast(MONDAY + 3, 1), DELTA);
+		assertEquals(3, series.observedDays());
+
+		// An idle stretch of years only replays about a year of empty days
+		series.record(MONDAY + 3650, 1);
+		assertEquals(4 + 371, series.observedDays());
+		assertEquals(0, series.forecast(MONDAY + 3650, 1), 1e-6);
+	}
+
+	@Test
+	void lateUnitsCountTowardsTheCurrentDay() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(1, 0);
+		series.record(MONDAY, 5);
+		series.record(MONDAY + 1, 1);
+		series.record(MONDAY, 4);
+
+		assertEquals(5, series.forecast(MONDAY + 2, 1), DELTA);
+	}
+
+	@Test
+	void learnsTheWeeklyPattern() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(0.2, 0.3);
+		long day = MONDAY;
+		for (int week = 0; week < 30; week++) {
+			for (int weekday = 0; weekday < 7; weekday++, day++) {
+				series.record(day, weekday < 5 ? 10 : 2);
+			}
+		}
+		// day is a Monday, still open
+		assertEquals(DayOfWeek.MONDAY, LocalDate.ofEpochDay(day).getDayOfWeek());
+		double monday = series.forecast(day, 1);
+		double saturday = series.forecast(day, 6) - series.forecast(day, 5);
+		assertEquals(10, monday, 1);
+		assertEquals(2, saturday, 1);
+		assertEquals(54, series.forecast(day, 7), 3);
+	}
+
+	@Test
+	void forecastIsNeverNegative() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(1, 1);
+		long day = MONDAY;
+		for (int week = 0; week < 4; week++) {
+			for (int weekday = 0; weekday < 7; weekday++, day++) {
+				series.record(day, weekday == 0 ? 70 : 0);
+			}
+		}
+		for (int h = 1; h <= 7; h++) {
+			double single = series.forecast(day, h) - series.forecast(day, h - 1);
+			assertTrue(single >= 0, "day " + h + ": " + single);
+		}
+	}
+
+	@Test
+	void outstandingUnitsNeverGoBelowZero() {
+		SeasonalDemandSeries series = new SeasonalDemandSeries(0.3, 0.1);
+		series.addOutstanding(5);
+		series.addOutstanding(-3);
+		assertEquals(2, series.outstanding());
+		series.addOutstanding(-4);
+		assertEquals(0, series.outstanding());
+		series.setOutstanding(-1);
+		assertEquals(0, series.outstanding());
+		series.setOutstanding(9);
+		assertEquals(9, series.outstanding());
+	}
+
+	@Test
+	void restoredHistoryKeepsTheUnitsRecordedLiveToday() {
+		SeasonalDemandSeries history = new SeasonalDemandSeries(1, 0);
+		history.record(MONDAY, 6);
+		history.record(MONDAY + 1, 0);
+
+		// Requests came in live today before the history was rebuilt
+		SeasonalDemandSeries live = new SeasonalDemandSeries(1, 0);
+		live.record(MONDAY + 1, 3);
+		live.addOutstanding(3);
+		live.restoreHistory(history);
+
+		assertEquals(1, live.observedDays());
+		assertEquals(3, live.outstanding());
+		// Monday's 6 is the level; today's 3 closes tomorrow
+		assertEquals(6, live.forecast(MONDAY + 1, 1), DELTA);
+		assertEquals(3, live.forecast(MONDAY + 2, 1), DELTA);
+
+		// A series that saw nothing yet takes the history's current day
+		SeasonalDemandSeries fresh = new SeasonalDemandSeries(1, 0);
+		fresh.restoreHistory(history);
+		assertEquals(0, fresh.forecast(MONDAY + 2, 1), DELTA);
+	}
+
+	@Test
+	void rejectsSmoothingFactorsOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> new SeasonalDemandSeries(0, 0.1));
+		assertThrows(IllegalArgumentException.class, () -> new SeasonalDemandSeries(1.1, 0.1));
+		assertThrows(IllegalArgumentException.class, () -> new SeasonalDemandSeries(0.3, -0.1));
+		assertThrows(IllegalArgumentException.class, () -> new SeasonalDemandSeries(0.3, 1.1));
+	}
+}
@@ -0,0 +1,168 @@
+package com.rangira.blooddonation.util;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.rangira.blooddonation.service.SlowQueryLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Statement timing through the JDBC proxy, its attribution to the current
+ * request and the per-request warnings, against an embedded database.
+ */
+class SqlTimingDataSourceTest {
+
+	private static final String SLEEP = "CALL SLEEP(60)";
+
+	private DriverManagerDataSource target;
+	private DataSource dataSource;
+	private SlowQueryLog slowQueryLog;
+	private ListAppender<ILoggingEvent> warnings;
+
+	@BeforeEach
+	void setUp() {
+		target = new DriverManagerDataSource("jdbc:h2:mem:sql-timing;DB_CLOSE_DELAY=-1", "sa", "");
+		new JdbcTemplate(target).execute("CREATE TABLE donations (id BIGINT PRIMARY KEY, blood_type VARCHAR(5))");
+		new JdbcTemplate(target).execute("CREATE ALIAS SLEEP FOR \"java.lang.Thread.sleep\"");
+		slowQueryLog = mock(SlowQueryLog.class);
+		dataSource = SqlTimingDataSource.wrap(target, () -> slowQueryLog);
+
+		warnings = new ListAppender<>();
+		warnings.start();
+		((Logger) LoggerFactory.getLogger(SqlRequestStatsFilter.class)).addAppender(warnings);
+	}
+
+	@AfterEach
+	void tearDown() {
+		((Logger) LoggerFactory.getLogger(SqlRequestStatsFilter.class)).detachAppender(warnings);
+		SqlRequestStats.end();
+		new JdbcTemplate(target).execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void everyExecuteCountsTowardsTheRequest() throws Exception {
+		SqlRequestStats stats = SqlRequestStats.begin();
+		try (Connection connection = dataSource.getConnection()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("INSERT INTO donations VALUES (1, 'O+')");
+				statement.execute(SLEEP);
+			}
+			try (PreparedStatement insert = connection.prepareStatement("INSERT INTO donations VALUES (?, ?)")) {
+				for (long id = 2; id <= 3; id++) {
+					insert.setLong(1, id);
+					insert.setString(2, "A-");
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+			try (PreparedStatement select = connection.prepareStatement("SELECT COUNT(*) FROM donations");
+				 ResultSet rows = select.executeQuery()) {
+				rows.next();
+				assertEquals(3, rows.getInt(1));
+			}
+		}
+		SqlRequestStats.recordHibernateStatement();
+
+		assertEquals(4, stats.getStatements());
+		assertEquals(1, stats.getHibernateStatements());
+		assertEquals(SLEEP, stats.getSlowestSql());
+		assertTrue(stats.getSlowestNanos() >= TimeUnit.MILLISECONDS.toNanos(60), "slowest " + stats.getSlowestNanos());
+		assertTrue(stats.getTotalNanos() >= stats.getSlowestNanos());
+	}
+
+	@Test
+	void everyExecuteIsOfferedToTheSlowQueryLogWithItsSql() throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute(SLEEP);
+			}
+			try (PreparedStatement select = connection.prepareStatement("SELECT * FROM donations WHERE id = ?")) {
+				select.setLong(1, 1);
+				select.executeQuery().close();
+				select.executeQuery().close();
+			}
+		}
+		verify(slowQueryLog).record(eq(SLEEP), anyLong());
+		verify(slowQueryLog, times(2)).record(eq("SELECT * FROM donations WHERE id = ?"), anyLong());
+	}
+
+	@Test
+	void statementsOutsideARequestAreNotAttributed() throws Exception {
+		SqlRequestStats stats = SqlRequestStats.begin();
+		SqlRequestStats.end();
+		new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM donations", Integer.class);
+		SqlRequestStats.recordHibernateStatement();
+
+		assertEquals(0, stats.getStatements());
+		assertEquals(0, stats.getHibernateStatements());
+		assertNull(stats.getSlowestSql());
+	}
+
+	@Test
+	void unwrapReachesThePoolBehindTheProxy() throws Exception {
+		assertTrue(dataSource.isWrapperFor(DriverManagerDataSource.class));
+		assertSame(target, dataSource.unwrap(DriverManagerDataSource.class));
+	}
+
+	@Test
+	void filterWarnsAboutRequestsOverEitherThreshold() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		SqlRequestStatsFilter filter = new SqlRequestStatsFilter(registry);
+		ReflectionTestUtils.setField(filter, "statementWarnThreshold", 5);
+		ReflectionTestUtils.setField(filter, "timeWarnThresholdMs", 50L);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		// Under both: measured, not reported
+		run(filter, "/api/donations/recent", () -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM donations", Integer.class));
+		// Too many statements
+		run(filter, "/api/donations", () -> {
+			for (int i = 0; i < 5; i++) {
+				jdbcTemplate.queryForObject("SELECT COUNT(*) FROM donations", Integer.class);
+			}
+		});
+		// Too much time in the database
+		run(filter, "/api/requests", () -> jdbcTemplate.execute(SLEEP));
+		// No SQL at all: not even measured
+		run(filter, "/api/health", () -> { });
+
+		List<String> messages = warnings.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+		assertEquals(2, messages.size(), messages.toString());
+		assertTrue(messages.get(0).startsWith("GET /api/donations ran 5 statements (0 from Hibernate)"), messages.get(0));
+		assertTrue(messages.get(1).startsWith("GET /api/requests ran 1 statements"), messages.get(1));
+		assertTrue(messages.get(1).endsWith(SLEEP), messages.get(1));
+		assertEquals(3, registry.get("blooddonation.sql.statements.per.request").summary().count());
+		assertEquals(7, registry.get("blooddonation.sql.statements.per.request").summary().totalAmount());
+	}
+
+	private static void run(SqlRequestStatsFilter filter, String uri, Runnable work) throws Exception {
+		filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(),
+				(request, response) -> work.run());
+	}
+}
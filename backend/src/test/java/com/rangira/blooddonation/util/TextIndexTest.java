@@ -0,0 +1,160 @@
+package com.rangira.blooddonation.util;
+
+import com.rangira.blooddonation.util.TextIndex.Hit;
+import com.rangira.blooddonation.util.TextIndex.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextIndexTest {
+
+	private static final double DELTA = 1e-9;
+
+	@Test
+	void exactMatchCountsTwiceAPrefixMatch() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{1}, 256);
+		index.put(1, "Kigali");
+		index.put(2, "Kigalinyamirambo");
+
+		List<Hit<Integer>> hits = index.search("kigali", key -> true, 10).hits();
+		assertEquals(List.of(1, 2), keys(hits));
+		// Both terms are in one of two documents: rarity log(1 + 2/1)
+		assertEquals(Math.log(3), hits.get(0).score(), DELTA);
+		assertEquals(Math.log(3) / 2, hits.get(1).score(), DELTA);
+	}
+
+	@Test
+	void bestFieldWeightAndRarityDecideTheScore() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{3, 2, 1}, 256);
+		index.put(1, null, null, "Transfer from Huye");
+		index.put(2, "Huye", null, "Huye district hospital");
+		index.put(3, "Musanze", "Huye");
+		index.put(4, "Rubavu");
+
+		List<Hit<Integer>> hits = index.search("HUYE", key -> true, 10).hits();
+		assertEquals(List.of(2, 3, 1), keys(hits));
+		double rarity = Math.log(1 + 4.0 / 3);
+		assertEquals(3 * rarity, hits.get(0).score(), DELTA);
+		assertEquals(2 * rarity, hits.get(1).score(), DELTA);
+		assertEquals(rarity, hits.get(2).score(), DELTA);
+	}
+
+	@Test
+	void everyTokenMustMatchAndTheirScoresAdd() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{1}, 256);
+		index.put(1, "CHUK surgery");
+		index.put(2, "CHUK");
+		index.put(3, "surgery at King Faisal");
+
+		List<Hit<Integer>> hits = index.search("chuk, surg", key -> true, 10).hits();
+		assertEquals(List.of(1), keys(hits));
+		double chuk = Math.log(1 + 3.0 / 2);
+		double surgPrefix = Math.log(1 + 3.0 / 2) / 2;
+		assertEquals(chuk + surgPrefix, hits.get(0).score(), DELTA);
+
+		assertEquals(List.of(), index.search("chuk faisal", key -> true, 10).hits());
+		assertEquals(List.of(), index.search("nowhere", key -> true, 10).hits());
+		assertEquals(List.of(), index.search(" ,; ", key -> true, 10).hits());
+	}
+
+	@Test
+	void removeAndReplaceDropTheOldTerms() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{1}, 256);
+		index.put(1, "Kigali");
+		index.put(2, "Kigali Huye");
+		index.remove(1);
+		assertEquals(List.of(2), keys(index.search("kigali", key -> true, 10).hits()));
+		assertEquals(1, index.size());
+
+		index.put(2, "Musanze");
+		assertEquals(List.of(), index.search("kigali", key -> true, 10).hits());
+		assertEquals(List.of(), index.search("huye", key -> true, 10).hits());
+		assertEquals(List.of(2), keys(index.search("musanze", key -> true, 10).hits()));
+		assertEquals(1, index.terms());
+
+		index.remove(2);
+		index.remove(2);
+		assertEquals(0, index.size());
+		assertEquals(0, index.terms());
+		// A document without any token is not indexed at all
+		index.put(3, "", null, "--");
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void rarestTokenSuppliesTheCandidatesWhateverTheQueryOrder() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{1}, 256);
+		// "w" expands to 60 terms and "w7" to one, so both ways of scoring the other token run
+		for (int i = 0; i < 60; i++) {
+			index.put(i, "word w" + i);
+		}
+		index.put(100, "rare w7");
+		index.put(101, "rare w42");
+		index.put(102, "rare");
+		int documents = 63;
+
+		for (String query : List.of("rare w", "w rare", "word w7", "rare w7", "w7 rare")) {
+			List<Hit<Integer>> hits = index.search(query, key -> true, 100).hits();
+			hits.forEach(hit -> assertTrue(hit.score() > 0, query));
+			switch (query) {
+				case "rare w", "w rare" -> {
+					assertEquals(List.of(100, 101), keys(hits).stream().sorted().toList(), query);
+					// rare: exact in 3 of 63; w7: prefix, in 2 documents
+					double expected = Math.log(1 + documents / 3.0) + Math.log(1 + documents / 2.0) / 2;
+					assertEquals(expected, hits.get(0).score(), DELTA, query);
+				}
+				case "word w7" -> assertEquals(List.of(7), keys(hits), query);
+				default -> {
+					assertEquals(List.of(100), keys(hits), query);
+					assertEquals(Math.log(1 + documents / 3.0) + Math.log(1 + documents / 2.0),
+							hits.get(0).score(), DELTA, query);
+				}
+			}
+		}
+	}
+
+	@Test
+	void prefixExpansionIsCutAtTheLimitAndReported() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{1}, 3);
+		index.put(1, "k");
+		index.put(2, "ka");
+		index.put(3, "kb");
+		index.put(4, "kc");
+		index.put(5, "kd");
+
+		Result<Integer> cut = index.search("k", key -> true, 10);
+		// The exact term comes first, then the prefix matches in order up to the limit
+		assertEquals(List.of(1, 2, 3), keys(cut.hits()).stream().sorted().toList());
+		assertEquals(List.of(1), keys(cut.hits().subList(0, 1)));
+		assertEquals(List.of("k"), cut.truncatedTokens());
+
+		Result<Integer> whole = index.search("kd", key -> true, 10);
+		assertEquals(List.of(5), keys(whole.hits()));
+		assertEquals(List.of(), whole.truncatedTokens());
+
+		assertThrows(IllegalArgumentException.class, () -> new TextIndex<Integer>(new double[]{1}, 0));
+	}
+
+	@Test
+	void limitKeepsTheBestAcceptedHits() {
+		TextIndex<Integer> index = new TextIndex<>(new double[]{4, 3, 2, 1}, 256);
+		for (int field = 0; field < 4; field++) {
+			String[] fields = new String[4];
+			fields[field] = "Rwamagana";
+			index.put(field, fields);
+			index.put(10 + field, fields);
+		}
+
+		assertEquals(List.of(0, 10), keys(index.search("rwamagana", key -> true, 2).hits()).stream().sorted().toList());
+		assertEquals(List.of(11, 12), keys(index.search("rwamagana", key -> key >= 10 && key != 10, 2).hits()));
+		assertEquals(List.of(), index.search("rwamagana", key -> true, 0).hits());
+	}
+
+	private static List<Integer> keys(List<Hit<Integer>> hits) {
+		return hits.stream().map(Hit::key).toList();
+	}
+}
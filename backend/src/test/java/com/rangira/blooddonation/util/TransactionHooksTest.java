@@ -0,0 +1,83 @@
+package com.rangira.blooddonation.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TransactionHooksTest {
+
+	private TransactionTemplate transaction;
+	private List<String> ran;
+
+	@BeforeEach
+	void setUp() {
+		transaction = new TransactionTemplate(new DataSourceTransactionManager(
+				new DriverManagerDataSource("jdbc:h2:mem:transaction-hooks;DB_CLOSE_DELAY=-1", "sa", "")));
+		ran = new ArrayList<>();
+	}
+
+	@Test
+	void afterCommitWaitsForTheCommit() {
+		transaction.executeWithoutResult(status -> {
+			TransactionHooks.afterCommit(() -> ran.add("committed"));
+			assertEquals(List.of(), ran);
+		});
+		assertEquals(List.of("committed"), ran);
+
+		transaction.executeWithoutResult(status -> {
+			TransactionHooks.afterCommit(() -> ran.add("rolled back"));
+			status.setRollbackOnly();
+		});
+		assertEquals(List.of("committed"), ran);
+
+		TransactionHooks.afterCommit(() -> ran.add("no transaction"));
+		assertEquals(List.of("committed", "no transaction"), ran);
+	}
+
+	@Test
+	void afterCompletionSaysWhetherItCommitted() {
+		transaction.executeWithoutResult(status -> TransactionHooks.afterCompletion(committed -> ran.add("first " + committed)));
+		transaction.executeWithoutResult(status -> {
+			TransactionHooks.afterCompletion(committed -> ran.add("second " + committed));
+			status.setRollbackOnly();
+		});
+		TransactionHooks.afterCompletion(committed -> ran.add("third " + committed));
+		assertEquals(List.of("first true", "second false", "third true"), ran);
+	}
+
+	@Test
+	void pendingIsRegisteredOncePerTransaction() {
+		List<Collecting> seen = new ArrayList<>();
+		transaction.executeWithoutResult(status -> {
+			Collecting first = TransactionHooks.pending(Collecting.class, Collecting::new);
+			first.items.add("a");
+			Collecting again = TransactionHooks.pending(Collecting.class, Collecting::new);
+			again.items.add("b");
+			assertSame(first, again);
+			seen.add(first);
+		});
+		transaction.executeWithoutResult(status -> seen.add(TransactionHooks.pending(Collecting.class, Collecting::new)));
+
+		assertEquals(2, seen.size());
+		assertEquals(List.of("flushed [a, b]", "flushed []"), ran);
+	}
+
+	private class Collecting implements TransactionSynchronization {
+
+		private final List<String> items = new ArrayList<>();
+
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			ran.add("flushed " + items);
+		}
+	}
+}